@@ -8,6 +8,7 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
@@ -39,5 +40,14 @@ public class DefaultExceptionHandler{
         return ResponseEntity.status(err.getStatus()).body(err);
     }
 
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<StandardError> uploadTooLarge(MaxUploadSizeExceededException e, HttpServletRequest request){
+
+        StandardError err = StandardError
+                .init(HttpStatus.PAYLOAD_TOO_LARGE,  "request body is too big", request.getRequestURI());
+
+        return ResponseEntity.status(err.getStatus()).body(err);
+    }
+
 
 }
@@ -0,0 +1,121 @@
+package com.example.auth.infra.cache;
+
+import com.example.auth.infra.versioning.ResourceVersions;
+import com.example.auth.pet.DTOs.ImageVariantDTO;
+import com.example.auth.pet.DTOs.PetResponseDTO;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.image.PetImageRenderedEvent;
+import com.example.auth.user.DTOs.UserResponseDTO;
+import com.example.auth.user.DTOs.UserSummaryDTO;
+import com.example.auth.user.UserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Read-through caches for the pet detail and user profile DTOs, weighed by an estimate of
+// their heap size. Validity comes from ResourceVersions; the listeners only free memory early.
+@Component
+public class DtoCaches {
+
+    private final VersionedCache<PetResponseDTO> pets;
+    private final VersionedCache<UserResponseDTO> users;
+
+    public DtoCaches(ResourceVersions resourceVersions, MeterRegistry meterRegistry,
+                     @Value("${cache.dto.max-size:32MB}") DataSize maxSize,
+                     @Value("${cache.dto.ttl:10m}") Duration ttl) {
+        // cache.dto.max-size is the budget of both caches together, split evenly
+        long maxWeight = maxSize.toBytes() / 2;
+        this.pets = new VersionedCache<>(maxWeight, ttl, DtoCaches::weigh,
+                id -> resourceVersions.pet(id).number());
+        this.users = new VersionedCache<>(maxWeight, ttl, DtoCaches::weigh,
+                id -> resourceVersions.user(id).number());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, pets.nativeCache(), "petDetail");
+        CaffeineCacheMetrics.monitor(meterRegistry, users.nativeCache(), "userProfile");
+    }
+
+    public PetResponseDTO pet(Long id, Function<Long, PetResponseDTO> loader) {
+        return pets.get(id, loader);
+    }
+
+    public UserResponseDTO user(Long id, Function<Long, UserResponseDTO> loader) {
+        return users.get(id, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        Pet pet = event.pet();
+        if (pet.getId() != null) pets.invalidate(pet.getId());
+        if (pet.getUser() != null && pet.getUser().getId() != null) users.invalidate(pet.getUser().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetImageRendered(PetImageRenderedEvent event) {
+        event.petIds().forEach(pets::invalidate);
+        event.ownerIds().forEach(users::invalidate);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        users.invalidate(event.userId());
+        event.petIds().forEach(pets::invalidate);
+    }
+
+    // rough retained size in bytes: object headers plus two bytes per character
+    static int weigh(PetResponseDTO pet) {
+        return 96 + chars(pet.nickname()) + chars(pet.description()) + weigh(pet.user()) + chars(pet.imageUrls())
+                + weigh(pet.imageVariants()) + placeholders(pet.imagePlaceholders());
+    }
+
+    static int weigh(UserResponseDTO user) {
+        int weight = 64 + chars(user.name()) + chars(user.email()) + chars(user.phoneNumber());
+        if (user.registeredPets() != null) {
+            for (PetResponseDTO pet : user.registeredPets()) weight += weigh(pet);
+        }
+        return weight;
+    }
+
+    private static int weigh(UserSummaryDTO user) {
+        return user == null ? 0 : 48 + chars(user.name()) + chars(user.email()) + chars(user.phoneNumber());
+    }
+
+    // the source urls are the strings already counted in imageUrls
+    private static int weigh(Map<String, Map<String, ImageVariantDTO>> variants) {
+        if (variants == null) return 0;
+        int weight = 48;
+        for (Map<String, ImageVariantDTO> byName : variants.values()) {
+            weight += 48;
+            for (Map.Entry<String, ImageVariantDTO> variant : byName.entrySet()) {
+                weight += 72 + chars(variant.getKey()) + chars(variant.getValue().url());
+            }
+        }
+        return weight;
+    }
+
+    private static int placeholders(Map<String, String> placeholders) {
+        if (placeholders == null) return 0;
+        int weight = 48;
+        for (String hash : placeholders.values()) weight += 32 + chars(hash);
+        return weight;
+    }
+
+    private static int chars(List<String> values) {
+        if (values == null) return 0;
+        int weight = 16 + 4 * values.size();
+        for (String value : values) weight += chars(value);
+        return weight;
+    }
+
+    private static int chars(String value) {
+        return value == null ? 0 : 40 + 2 * value.length();
+    }
+}
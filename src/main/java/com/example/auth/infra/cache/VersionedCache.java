@@ -0,0 +1,52 @@
+package com.example.auth.infra.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+// Caffeine cache whose entries remember the resource version they were loaded at. The version
+// is read before loading, so a write that commits during the load leaves an entry that is
+// already outdated instead of one that hides the write until it expires.
+public class VersionedCache<V> {
+
+    private final Cache<Long, Entry<V>> cache;
+    private final ToLongFunction<Long> versionOf;
+
+    public VersionedCache(long maxWeight, Duration ttl, ToIntFunction<V> weigher, ToLongFunction<Long> versionOf) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long id, Entry<V> entry) -> weigher.applyAsInt(entry.value()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versionOf = versionOf;
+    }
+
+    public V get(Long id, Function<Long, V> loader) {
+        long version = versionOf.applyAsLong(id);
+
+        Entry<V> stale = cache.policy().getIfPresentQuietly(id);
+        if (stale != null && stale.version() < version) {
+            cache.asMap().remove(id, stale);
+        }
+
+        Entry<V> entry = cache.get(id, key -> new Entry<>(version, loader.apply(key)));
+        // a concurrent load that started before the last write may have won the race
+        return entry.version() >= version ? entry.value() : loader.apply(id);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public Cache<Long, ?> nativeCache() {
+        return cache;
+    }
+
+    private record Entry<V>(long version, V value) {
+    }
+}
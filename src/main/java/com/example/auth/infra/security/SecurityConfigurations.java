@@ -37,9 +37,15 @@ public class SecurityConfigurations {
                         .requestMatchers(HttpMethod.GET, "/pet/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/user/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/pet/filter/").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/storage/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/images/**").permitAll()
+                        // signed uploads carry their own credential in the url
+                        .requestMatchers(HttpMethod.PUT, "/storage/**").permitAll()
                         .requestMatchers("/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,52 @@
+package com.example.auth.infra.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+// Turns away multipart requests that announce a body larger than the multipart limit before anything
+// reads it: no token lookup, no spooling of parts to disk, just the headers.
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class UploadSizeFilter extends OncePerRequestFilter {
+
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    private final long maxRequestBytes;
+
+    public UploadSizeFilter(HandlerExceptionResolver handlerExceptionResolver,
+                            @Value("${spring.servlet.multipart.max-request-size:41MB}") DataSize maxRequestSize) {
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.maxRequestBytes = maxRequestSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType == null || !contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // chunked requests carry no length; the multipart parser enforces the same limit while reading those
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            handlerExceptionResolver.resolveException(request, response, null,
+                    new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "request body is too big"));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
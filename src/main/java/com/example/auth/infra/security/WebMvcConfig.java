@@ -1,9 +1,11 @@
 package com.example.auth.infra.security;
 
-import org.springframework.context.annotation.Bean;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
@@ -12,7 +14,34 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @EnableWebMvc
-public class WebMvcConfig implements WebMvcConfigurer {
+public class WebMvcConfig implements WebMvcConfigurer, DisposableBean {
+
+    // Streaming responses (catalogue export) run on this pool; a full export can take minutes.
+    private static final long ASYNC_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    // Not a bean: a TaskExecutor bean would switch off Boot's applicationTaskExecutor.
+    private final ThreadPoolTaskExecutor mvcAsyncExecutor = mvcAsyncExecutor();
+
+    private static ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        mvcAsyncExecutor.shutdown();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+        configurer.setDefaultTimeout(ASYNC_TIMEOUT_MILLIS);
+    }
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
@@ -1,14 +1,43 @@
 package com.example.auth.infra.security.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
 
+    // one pool shared by every client built from the builder, so uploads reuse keep-alive connections
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider storageConnectionProvider(
+            @Value("${storage.http.max-connections:32}") int maxConnections,
+            @Value("${storage.http.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout,
+            @Value("${storage.http.max-idle-time:30s}") Duration maxIdleTime
+    ) {
+        return ConnectionProvider.builder("storage")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .build();
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(
+            ConnectionProvider storageConnectionProvider,
+            @Value("${storage.http.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${storage.http.response-timeout:30s}") Duration responseTimeout
+    ) {
+        HttpClient httpClient = HttpClient.create(storageConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+                .responseTimeout(responseTimeout);
+
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient));
     }
 }
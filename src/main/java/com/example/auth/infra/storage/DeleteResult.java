@@ -0,0 +1,13 @@
+package com.example.auth.infra.storage;
+
+// outcome of deleting one object in a bulk delete; an object that was already gone counts as deleted
+public record DeleteResult(String filePath, boolean deleted, String error) {
+
+    public static DeleteResult deleted(String filePath) {
+        return new DeleteResult(filePath, true, null);
+    }
+
+    public static DeleteResult failed(String filePath, Throwable error) {
+        return new DeleteResult(filePath, false, String.valueOf(error.getMessage()));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.auth.infra.storage;
+
+import java.time.Instant;
+
+// lastModified is null when the backend does not report it
+public record ListedObject(String path, Instant lastModified) {
+}
@@ -0,0 +1,94 @@
+package com.example.auth.infra.storage;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/storage")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+@Tag(name = "Storage", description = "Files kept by the local storage backend")
+public class LocalStorageController {
+
+    private final LocalStorageService storageService;
+    private final long maxUploadBytes;
+
+    public LocalStorageController(LocalStorageService storageService,
+                                  @Value("${storage.local.max-upload-size:10MB}") DataSize maxUploadSize) {
+        this.storageService = storageService;
+        this.maxUploadBytes = maxUploadSize.toBytes();
+    }
+
+    // Whole files go out through the connector's sendfile when it offers it, so the bytes move from the page
+    // cache to the socket without passing through the JVM. Range requests get a Resource body, which Spring
+    // answers with 206 and the requested regions.
+    @GetMapping("/{bucket}/{*filePath}")
+    @Operation(summary = "Read a stored file", description = "Supports Range requests.")
+    public ResponseEntity<Resource> read(@PathVariable String bucket, @PathVariable String filePath,
+                                         @RequestHeader HttpHeaders headers, HttpServletRequest request)
+            throws IOException {
+        FileSystemResource resource;
+        try {
+            resource = storageService.openFile(bucket, filePath.substring(1));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+        if (!resource.isReadable()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+
+        MediaType contentType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (headers.getRange().isEmpty() && Sendfile.isSupported(request)) {
+            long length = resource.contentLength();
+            Sendfile.send(request, resource.getFile(), length);
+            return response.contentLength(length).build();
+        }
+        return response.body(resource);
+    }
+
+    // the signature issued by createSignedUpload is the only credential, like a storage provider's signed url
+    @PutMapping("/{bucket}/{*filePath}")
+    @Operation(summary = "Upload a file to a signed url", description = "Accepts the raw file bytes as the body.")
+    public ResponseEntity<Void> upload(@PathVariable String bucket, @PathVariable String filePath,
+                                       @RequestParam long expires, @RequestParam String signature,
+                                       HttpServletRequest request) throws IOException {
+        String path = filePath.substring(1);
+        if (!storageService.isValidUploadSignature(bucket, path, expires, signature)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired upload signature");
+        }
+        if (request.getContentLengthLong() > maxUploadBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "File is too big");
+        }
+
+        try {
+            storageService.write(bucket, path, request.getInputStream(), maxUploadBytes);
+        } catch (LocalStorageService.ObjectTooLargeException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "File is too big");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+}
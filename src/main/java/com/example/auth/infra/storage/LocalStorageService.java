@@ -0,0 +1,231 @@
+package com.example.auth.infra.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Keeps objects as plain files under storage.local.root/<bucket>/<path>, for self-hosted nodes and benchmarks
+// that should not depend on the network. LocalStorageController serves the files and accepts signed uploads.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageService implements StorageService {
+
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final String TEMP_PREFIX = ".upload-";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path root;
+    private final String publicBaseUrl;
+    private final Duration signedUploadTtl;
+    private final byte[] signingKey;
+
+    public LocalStorageService(
+            @Value("${storage.local.root:./storage}") String root,
+            @Value("${storage.local.public-url:http://localhost:8080/storage}") String publicBaseUrl,
+            @Value("${storage.local.signed-upload-ttl:10m}") Duration signedUploadTtl,
+            @Value("${storage.local.signing-key:}") String signingKey
+    ) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1)
+                : publicBaseUrl;
+        this.signedUploadTtl = signedUploadTtl;
+        // without a configured key, signed urls only stay valid until the next restart
+        this.signingKey = signingKey.isBlank() ? randomKey() : signingKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Mono<String> uploadFileAsync(String bucket, String filePath, MultipartFile file) {
+        return Mono.fromCallable(() -> {
+            try (InputStream in = file.getInputStream()) {
+                write(bucket, filePath, in, Long.MAX_VALUE);
+            }
+            return publicUrl(bucket, filePath);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Writes into a temp file next to the target and moves it into place, so readers never see half a file.
+    // Fails without touching the target when the content is longer than maxBytes.
+    public void write(String bucket, String filePath, InputStream content, long maxBytes) throws IOException {
+        Path target = resolve(bucket, filePath);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), TEMP_PREFIX, TEMP_SUFFIX);
+        try {
+            try (ReadableByteChannel in = Channels.newChannel(content);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long written;
+                while ((written = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                    position += written;
+                    if (position > maxBytes) {
+                        throw new ObjectTooLargeException(maxBytes);
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String bucket, String filePath) {
+        Path path = resolve(bucket, filePath);
+        if (!Files.isRegularFile(path)) return Optional.empty();
+        try {
+            String contentType = MediaTypeFactory.getMediaType(path.getFileName().toString())
+                    .map(MediaType::toString)
+                    .orElse(null);
+            return Optional.of(new StoredObject(Files.size(path), contentType));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Walks the whole bucket directory for every page, which is fine for the volumes a local node holds.
+    // The cursor is the last path returned, so pages stay consistent while files come and go.
+    @Override
+    public ObjectPage listObjects(String bucket, String cursor, int limit) {
+        Path bucketDir = root.resolve(bucket).normalize();
+        if (!bucketDir.startsWith(root) || bucketDir.equals(root)) {
+            throw new IllegalArgumentException("invalid bucket: " + bucket);
+        }
+        if (!Files.isDirectory(bucketDir)) return new ObjectPage(List.of(), null);
+
+        List<ListedObject> page;
+        try (Stream<Path> files = Files.walk(bucketDir)) {
+            page = files.filter(Files::isRegularFile)
+                    .filter(file -> !isTempFile(file))
+                    .map(file -> bucketDir.relativize(file).toString().replace(File.separatorChar, '/'))
+                    .filter(path -> cursor == null || path.compareTo(cursor) > 0)
+                    .sorted()
+                    .limit(limit + 1L)
+                    .map(path -> new ListedObject(path, lastModified(bucketDir.resolve(path))))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (page.size() <= limit) return new ObjectPage(page, null);
+        page.remove(limit);
+        return new ObjectPage(page, page.get(limit - 1).path());
+    }
+
+    private static boolean isTempFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX);
+    }
+
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public SignedUpload createSignedUpload(String bucket, String filePath) {
+        resolve(bucket, filePath);
+        long expires = Instant.now().plus(signedUploadTtl).getEpochSecond();
+        return new SignedUpload(
+                publicUrl(bucket, filePath) + "?expires=" + expires + "&signature=" + sign(bucket, filePath, expires),
+                Instant.ofEpochSecond(expires));
+    }
+
+    public boolean isValidUploadSignature(String bucket, String filePath, long expires, String signature) {
+        if (signature == null || Instant.now().getEpochSecond() > expires) return false;
+        return MessageDigest.isEqual(
+                sign(bucket, filePath, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String sign(String bucket, String filePath, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey, "HmacSHA256"));
+            byte[] digest = mac.doFinal(("PUT\n" + bucket + "/" + filePath + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    @Override
+    public String publicUrl(String bucket, String filePath) {
+        return publicBaseUrl + "/" + bucket + "/" + filePath;
+    }
+
+    @Override
+    public void deleteFile(String bucket, String filePath) {
+        if (filePath == null || filePath.isBlank()) return;
+
+        try {
+            Files.deleteIfExists(resolve(bucket, filePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public FileSystemResource openFile(String bucket, String filePath) {
+        return new FileSystemResource(resolve(bucket, filePath));
+    }
+
+    public static class ObjectTooLargeException extends IOException {
+        public ObjectTooLargeException(long maxBytes) {
+            super("object is larger than " + maxBytes + " bytes");
+        }
+    }
+
+    // keeps paths like "../" from escaping the bucket directory
+    private Path resolve(String bucket, String filePath) {
+        Path bucketDir = root.resolve(bucket).normalize();
+        Path target = bucketDir.resolve(filePath).normalize();
+        if (!bucketDir.startsWith(root) || !target.startsWith(bucketDir) || target.equals(bucketDir)) {
+            throw new IllegalArgumentException("invalid object path: " + bucket + "/" + filePath);
+        }
+        return target;
+    }
+}
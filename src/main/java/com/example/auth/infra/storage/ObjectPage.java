@@ -0,0 +1,7 @@
+package com.example.auth.infra.storage;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record ObjectPage(List<ListedObject> objects, String nextCursor) {
+}
@@ -0,0 +1,36 @@
+package com.example.auth.infra.storage;
+
+// Every call earns a fraction of a token and every retry or hedge spends a whole one, so extra attempts stay a
+// fixed share of the traffic: when storage is down, retries cannot multiply the load on it. The bucket starts
+// full, so a quiet instance can still retry its first few failures.
+final class RetryBudget {
+
+    private final double ratio;
+    private final double capacity;
+    private double tokens;
+
+    RetryBudget(double ratio, int capacity) {
+        this.ratio = ratio;
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    synchronized void deposit() {
+        tokens = Math.min(capacity, tokens + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    // gives back a token withdrawn for an attempt that was never made
+    synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    synchronized double tokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.auth.infra.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.File;
+import java.io.IOException;
+
+// Hands a whole file to Tomcat's sendfile, so the bytes move from the page cache to the socket without
+// passing through the JVM. The request attributes are the ones of org.apache.tomcat.util.net.Constants.
+public final class Sendfile {
+
+    private static final String SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String START = "org.apache.tomcat.sendfile.start";
+    private static final String END = "org.apache.tomcat.sendfile.end";
+
+    private Sendfile() {
+    }
+
+    public static boolean isSupported(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SUPPORTED));
+    }
+
+    // the caller still sets the content length and leaves the body empty
+    public static void send(HttpServletRequest request, File file, long length) throws IOException {
+        request.setAttribute(FILENAME, file.getCanonicalPath());
+        request.setAttribute(START, 0L);
+        request.setAttribute(END, length);
+    }
+}
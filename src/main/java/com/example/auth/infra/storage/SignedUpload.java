@@ -0,0 +1,7 @@
+package com.example.auth.infra.storage;
+
+import java.time.Instant;
+
+// a url the client can PUT the object bytes to directly, valid until expiresAt
+public record SignedUpload(String url, Instant expiresAt) {
+}
@@ -0,0 +1,230 @@
+package com.example.auth.infra.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Guards the calls of a remote storage backend, so a slow or failing backend costs each request a bounded time
+// instead of pinning its thread. Every operation has a deadline covering all of its attempts. Transient
+// failures (network errors, 5xx, 429) are retried with jittered exponential backoff while the retry budget
+// allows. Reads and deletes, which are safe to send twice, get a hedged second attempt once the first is slower
+// than the p95 of recent attempts, and the first answer wins. A circuit breaker fails calls fast while storage
+// keeps failing. Opening an object for reading is guarded too, up to the response headers, but never hedged:
+// a losing attempt may already hold an open stream that nobody would close.
+@Component
+public class StorageResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageResilience.class);
+    // below this many timed attempts the p95 says too little to hedge on
+    private static final int HEDGE_MIN_SAMPLES = 20;
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    public enum Operation {
+        UPLOAD("upload", false),
+        DELETE("delete", true),
+        STAT("stat", true),
+        OPEN("open", false),
+        LIST("list", true),
+        SIGN("sign", false);
+
+        private final String tag;
+        private final boolean hedged;
+
+        Operation(String tag, boolean hedged) {
+            this.tag = tag;
+            this.hedged = hedged;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Operation, Duration> deadlines = new EnumMap<>(Operation.class);
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration hedgeMinDelay;
+    private final RetryBudget budget;
+    private final CircuitBreaker breaker;
+    private final Map<Operation, Timer> attempts = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> retries = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> hedges = new EnumMap<>(Operation.class);
+
+    public StorageResilience(MeterRegistry meterRegistry,
+                             @Value("${storage.resilience.deadline.upload:60s}") Duration uploadDeadline,
+                             @Value("${storage.resilience.deadline.delete:10s}") Duration deleteDeadline,
+                             @Value("${storage.resilience.deadline.read:5s}") Duration readDeadline,
+                             @Value("${storage.resilience.retry.max-attempts:3}") int maxAttempts,
+                             @Value("${storage.resilience.retry.initial-backoff:100ms}") Duration initialBackoff,
+                             @Value("${storage.resilience.retry.max-backoff:2s}") Duration maxBackoff,
+                             @Value("${storage.resilience.retry.budget-ratio:0.1}") double budgetRatio,
+                             @Value("${storage.resilience.retry.budget-capacity:20}") int budgetCapacity,
+                             @Value("${storage.resilience.hedge.min-delay:50ms}") Duration hedgeMinDelay,
+                             @Value("${storage.resilience.breaker.window:20}") int breakerWindow,
+                             @Value("${storage.resilience.breaker.minimum-calls:10}") int breakerMinimumCalls,
+                             @Value("${storage.resilience.breaker.failure-rate:0.5}") double breakerFailureRate,
+                             @Value("${storage.resilience.breaker.open-duration:30s}") Duration breakerOpenDuration,
+                             @Value("${storage.resilience.breaker.half-open-calls:3}") int breakerHalfOpenCalls) {
+        this.meterRegistry = meterRegistry;
+        deadlines.put(Operation.UPLOAD, uploadDeadline);
+        deadlines.put(Operation.DELETE, deleteDeadline);
+        deadlines.put(Operation.STAT, readDeadline);
+        deadlines.put(Operation.OPEN, readDeadline);
+        deadlines.put(Operation.LIST, readDeadline);
+        deadlines.put(Operation.SIGN, readDeadline);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.budget = new RetryBudget(budgetRatio, budgetCapacity);
+        this.breaker = new CircuitBreaker(breakerWindow, breakerMinimumCalls, breakerFailureRate,
+                breakerOpenDuration, breakerHalfOpenCalls, System::nanoTime);
+
+        for (Operation operation : Operation.values()) {
+            attempts.put(operation, Timer.builder("storage.attempt")
+                    .description("Time storage took to answer one attempt of a call")
+                    .tag("operation", operation.tag)
+                    .publishPercentiles(0.5, HEDGE_PERCENTILE, 0.99)
+                    .register(meterRegistry));
+            retries.put(operation, meterRegistry.counter("storage.retries", "operation", operation.tag));
+            hedges.put(operation, meterRegistry.counter("storage.hedges", "operation", operation.tag));
+        }
+        meterRegistry.gauge("storage.circuit.state", breaker, b -> b.state().gaugeValue);
+        meterRegistry.gauge("storage.retry.budget", budget, RetryBudget::tokens);
+    }
+
+    // The supplier builds one attempt and is called again for each retry and hedge. Fails with 503 while the
+    // breaker is open and with 504 when the deadline passes.
+    public <T> Mono<T> call(Operation operation, Supplier<Mono<T>> attempt) {
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                record(operation, "rejected", 0);
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Storage is unavailable, try again later"));
+            }
+            budget.deposit();
+            long start = System.nanoTime();
+            Duration deadline = deadlines.get(operation);
+
+            Mono<T> single = Mono.defer(() -> timed(operation, attempt.get()));
+            Mono<T> call = operation.hedged ? Mono.defer(() -> hedged(operation, single)) : single;
+            return call
+                    .retryWhen(retry(operation))
+                    .timeout(deadline)
+                    .doOnSuccess(value -> {
+                        breaker.onSuccess();
+                        record(operation, "success", System.nanoTime() - start);
+                    })
+                    .doOnError(e -> {
+                        if (isTransient(e)) {
+                            onBreakerFailure(operation);
+                        } else {
+                            // storage answered, just not with what was asked for
+                            breaker.onSuccess();
+                        }
+                        record(operation, e instanceof TimeoutException ? "timeout" : "error", System.nanoTime() - start);
+                    })
+                    .doOnCancel(breaker::onIgnored)
+                    .onErrorMap(TimeoutException.class, e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                            "Storage did not answer within " + deadline, e));
+        });
+    }
+
+    // Failed attempts, hedge losers and attempts cut off by the deadline are timed too, up to the moment they
+    // ended; leaving them out would keep the p95 low exactly while storage is slow.
+    private <T> Mono<T> timed(Operation operation, Mono<T> attempt) {
+        long start = System.nanoTime();
+        Timer timer = attempts.get(operation);
+        return attempt.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    // The hedge waits for the p95 of recent attempts and spends a budget token like a retry; whichever attempt
+    // signals first wins and the other is cancelled. Without a token the first attempt runs alone.
+    private <T> Mono<T> hedged(Operation operation, Mono<T> attempt) {
+        Duration delay = hedgeDelay(operation);
+        if (delay == null) return attempt;
+
+        Mono<T> hedge = Mono.delay(delay).flatMap(tick -> {
+            if (!budget.tryWithdraw()) return Mono.never();
+            hedges.get(operation).increment();
+            return attempt;
+        });
+        return Mono.firstWithSignal(attempt, hedge);
+    }
+
+    Duration hedgeDelay(Operation operation) {
+        HistogramSnapshot snapshot = attempts.get(operation).takeSnapshot();
+        if (snapshot.count() < HEDGE_MIN_SAMPLES) return null;
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == HEDGE_PERCENTILE) {
+                Duration p95 = Duration.ofNanos((long) value.value(TimeUnit.NANOSECONDS));
+                return p95.compareTo(hedgeMinDelay) > 0 ? p95 : hedgeMinDelay;
+            }
+        }
+        return null;
+    }
+
+    private Retry retry(Operation operation) {
+        return Retry.backoff(maxAttempts - 1, initialBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(0.5)
+                .filter(e -> isTransient(e) && budget.tryWithdraw())
+                .doBeforeRetry(signal -> retries.get(operation).increment())
+                .onRetryExhaustedThrow((spec, signal) -> {
+                    // the filter took a token for a retry that the attempt limit then refused
+                    budget.refund();
+                    return signal.failure();
+                });
+    }
+
+    private void onBreakerFailure(Operation operation) {
+        CircuitBreaker.State before = breaker.state();
+        breaker.onFailure();
+        if (before != CircuitBreaker.State.OPEN && breaker.state() == CircuitBreaker.State.OPEN) {
+            log.warn("storage circuit opened after a failed {} call", operation.tag);
+        }
+    }
+
+    private void record(Operation operation, String outcome, long nanos) {
+        Timer.builder("storage.call")
+                .description("Time spent on a storage call, retries and hedges included")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    // timeouts of single attempts count as transient, the deadline of the whole call is applied outside them
+    static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        // a missing object is an answer, not a failure
+        if (e instanceof FileNotFoundException) return false;
+        return e instanceof WebClientRequestException || e instanceof IOException || e instanceof TimeoutException;
+    }
+}
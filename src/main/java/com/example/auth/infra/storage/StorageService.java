@@ -0,0 +1,89 @@
+package com.example.auth.infra.storage;
+
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Object storage for uploaded files. Objects are addressed by bucket and path and exposed through a public url;
+// the backend is picked with storage.backend (supabase by default, or local).
+public interface StorageService {
+
+    int DELETE_CONCURRENCY = 4;
+
+    // writes the file at the path, replacing any object already there, and emits its public url
+    Mono<String> uploadFileAsync(String bucket, String filePath, MultipartFile file);
+
+    String publicUrl(String bucket, String filePath);
+
+    // a missing object is not an error
+    void deleteFile(String bucket, String filePath);
+
+    // the returned resource reports exists() == false when there is no such object
+    Resource openFile(String bucket, String filePath);
+
+    // size and content type of an object, without reading it; empty when there is no such object
+    Optional<StoredObject> stat(String bucket, String filePath);
+
+    // Walks every object of the bucket, nested paths included, a page at a time. The cursor of a page can be
+    // stored and passed back later to continue from there; null starts from the beginning.
+    ObjectPage listObjects(String bucket, String cursor, int limit);
+
+    // lets a client upload the object itself, so the bytes never pass through the API
+    SignedUpload createSignedUpload(String bucket, String filePath);
+
+    default void deleteByPublicUrl(String bucket, String publicUrl) {
+        if (publicUrl == null || publicUrl.isBlank()) return;
+
+        String prefix = publicUrl(bucket, "");
+        if (!publicUrl.startsWith(prefix)) {
+            throw new IllegalArgumentException("url is not from bucket '" + bucket + "': " + publicUrl);
+        }
+
+        deleteFile(bucket, publicUrl.substring(prefix.length()));
+    }
+
+    // Deletes off the calling thread, a few objects at a time, and reports every object instead of stopping
+    // at the first failure. Backends with a bulk remove call override this.
+    default Mono<List<DeleteResult>> deleteFilesAsync(String bucket, List<String> filePaths) {
+        return Flux.fromIterable(filePaths)
+                .flatMapSequential(filePath -> Mono.fromCallable(() -> {
+                                    deleteFile(bucket, filePath);
+                                    return DeleteResult.deleted(filePath);
+                                })
+                                .onErrorResume(e -> Mono.just(DeleteResult.failed(filePath, e)))
+                                .subscribeOn(Schedulers.boundedElastic()),
+                        DELETE_CONCURRENCY)
+                .collectList();
+    }
+
+    // urls outside the bucket are reported as failed without a storage call
+    default Mono<List<DeleteResult>> deleteAllByPublicUrls(String bucket, List<String> publicUrls) {
+        if (publicUrls == null || publicUrls.isEmpty()) return Mono.just(List.of());
+
+        String prefix = publicUrl(bucket, "");
+        List<String> filePaths = new ArrayList<>();
+        List<DeleteResult> rejected = new ArrayList<>();
+        for (String url : publicUrls) {
+            if (url == null || url.isBlank()) continue;
+            if (url.startsWith(prefix)) {
+                filePaths.add(url.substring(prefix.length()));
+            } else {
+                rejected.add(DeleteResult.failed(url,
+                        new IllegalArgumentException("url is not from bucket '" + bucket + "': " + url)));
+            }
+        }
+
+        return deleteFilesAsync(bucket, filePaths).map(results -> {
+            if (rejected.isEmpty()) return results;
+            List<DeleteResult> all = new ArrayList<>(results);
+            all.addAll(rejected);
+            return all;
+        });
+    }
+}
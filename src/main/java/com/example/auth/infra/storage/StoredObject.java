@@ -0,0 +1,4 @@
+package com.example.auth.infra.storage;
+
+public record StoredObject(long size, String contentType) {
+}
@@ -0,0 +1,310 @@
+package com.example.auth.infra.storage;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "supabase", matchIfMissing = true)
+public class SupabaseStorageService implements StorageService {
+
+    private static final int UPLOAD_BUFFER_SIZE = 16 * 1024;
+    private static final Duration SIGNED_UPLOAD_TTL = Duration.ofHours(2);
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    private final WebClient webClient;
+    private final String supabaseUrl;
+    private final String supabaseKey;
+    private final MeterRegistry meterRegistry;
+    private final StorageResilience resilience;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+
+    public SupabaseStorageService(
+            WebClient.Builder builder,
+            @Value("${supabase.url}") String supabaseUrl,
+            @Value("${supabase.key}") String supabaseKey,
+            MeterRegistry meterRegistry,
+            StorageResilience resilience,
+            @Value("${storage.http.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${storage.http.response-timeout:30s}") Duration readTimeout
+    ) {
+        this.webClient = builder.build();
+        this.supabaseUrl = supabaseUrl;
+        this.supabaseKey = supabaseKey;
+        this.meterRegistry = meterRegistry;
+        this.resilience = resilience;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    public String uploadFile(String bucket, MultipartFile file) {
+        return uploadFileAsync(bucket, file).block();
+    }
+
+    public Mono<String> uploadFileAsync(String bucket, MultipartFile file) {
+        return Mono.defer(() -> uploadFileAsync(bucket, UUID.randomUUID() + "-" + file.getOriginalFilename(), file));
+    }
+
+    // Nothing is sent until subscription; the timer covers each attempt from the first byte to the response.
+    // Uploads overwrite an existing object at the same path, which is what content-addressed keys need when
+    // two uploads of the same image race, and what makes a retry safe.
+    @Override
+    public Mono<String> uploadFileAsync(String bucket, String filePath, MultipartFile file) {
+        return resilience.call(StorageResilience.Operation.UPLOAD, () -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            // a retry cancels the failed attempt while its error is still being delivered, so the first signal
+            // decides the outcome
+            AtomicBoolean stopped = new AtomicBoolean();
+            Consumer<String> stop = outcome -> {
+                if (stopped.compareAndSet(false, true)) sample.stop(uploadTimer(bucket, outcome));
+            };
+
+            return webClient.put()
+                    .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + encodePath(filePath)))
+                    .header("Authorization", "Bearer " + supabaseKey)
+                    .header("apikey", supabaseKey)
+                    .header("x-upsert", "true")
+                    .contentType(MediaType.parseMediaType(file.getContentType()))
+                    .contentLength(file.getSize())
+                    .body(BodyInserters.fromDataBuffers(contentOf(file)))
+                    .exchangeToMono(response -> {
+                        int code = response.statusCode().value();
+                        if (code == 200 || code == 201) {
+                            return response.releaseBody().thenReturn(publicUrl(bucket, filePath));
+                        }
+                        return response.createException().flatMap(Mono::error);
+                    })
+                    .doOnSuccess(url -> stop.accept("success"))
+                    .doOnError(e -> stop.accept("error"))
+                    .doOnCancel(() -> stop.accept("cancelled"));
+        }).onErrorMap(e -> !(e instanceof ResponseStatusException), e -> new RuntimeException("Error uploading to Supabase", e));
+    }
+
+    @Override
+    public String publicUrl(String bucket, String filePath) {
+        return supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + filePath;
+    }
+
+    private Timer uploadTimer(String bucket, String outcome) {
+        return Timer.builder("storage.upload")
+                .description("Time spent uploading one object to storage")
+                .tag("bucket", bucket)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Reads the part from its spooled temp file (or memory, for small parts) in fixed-size buffers that are
+    // released once written to the socket, so an upload never holds more than a few buffers on the heap.
+    private static Flux<DataBuffer> contentOf(MultipartFile file) {
+        return DataBufferUtils.readInputStream(file::getInputStream, DefaultDataBufferFactory.sharedInstance, UPLOAD_BUFFER_SIZE);
+    }
+
+    @Override
+    public void deleteFile(String bucket, String filePath) {
+        if (filePath == null || filePath.isBlank()) return;
+
+        resilience.call(StorageResilience.Operation.DELETE, () -> webClient.delete()
+                        .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + encodePath(filePath)))
+                        .header("Authorization", "Bearer " + supabaseKey)
+                        .header("apikey", supabaseKey)
+                        .exchangeToMono(response -> {
+                            int code = response.statusCode().value();
+                            if (code == 404) return Mono.empty();
+                            if (code >= 200 && code < 300) return Mono.empty();
+                            return response.createException().flatMap(Mono::error);
+                        }))
+                .block();
+    }
+
+    // One remove call per batch of paths instead of one DELETE per object. Storage answers with the objects it
+    // removed; paths missing from the answer were already gone, which counts as deleted here too.
+    @Override
+    public Mono<List<DeleteResult>> deleteFilesAsync(String bucket, List<String> filePaths) {
+        return Flux.fromIterable(filePaths)
+                .filter(filePath -> filePath != null && !filePath.isBlank())
+                .buffer(DELETE_BATCH_SIZE)
+                .flatMapSequential(batch -> removeBatch(bucket, batch), DELETE_CONCURRENCY)
+                .flatMapIterable(Function.identity())
+                .collectList();
+    }
+
+    private Mono<List<DeleteResult>> removeBatch(String bucket, List<String> batch) {
+        return resilience.call(StorageResilience.Operation.DELETE, () -> webClient.method(HttpMethod.DELETE)
+                        .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket))
+                        .header("Authorization", "Bearer " + supabaseKey)
+                        .header("apikey", supabaseKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("prefixes", batch))
+                        .exchangeToMono(response -> {
+                            if (response.statusCode().is2xxSuccessful()) {
+                                return response.releaseBody().thenReturn(batch.stream().map(DeleteResult::deleted).toList());
+                            }
+                            return response.createException().flatMap(Mono::<List<DeleteResult>>error);
+                        }))
+                .onErrorResume(e -> Mono.just(batch.stream().map(filePath -> DeleteResult.failed(filePath, e)).toList()));
+    }
+
+    // Opening the stream waits for the response headers under the read deadline, the retries and the breaker.
+    // The body is then read lazily, past the deadline; the connection gets the client's timeouts so a stalled
+    // read fails instead of hanging its thread.
+    @Override
+    public Resource openFile(String bucket, String filePath) {
+        try {
+            return new UrlResource(URI.create(supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + encodePath(filePath))) {
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    try {
+                        return resilience.call(StorageResilience.Operation.OPEN, () -> Mono.fromCallable(super::getInputStream)
+                                        .subscribeOn(Schedulers.boundedElastic()))
+                                .block();
+                    } catch (RuntimeException e) {
+                        if (Exceptions.unwrap(e) instanceof IOException io) throw io;
+                        throw e;
+                    }
+                }
+
+                @Override
+                protected void customizeConnection(URLConnection con) throws IOException {
+                    super.customizeConnection(con);
+                    con.setConnectTimeout(Math.toIntExact(connectTimeout.toMillis()));
+                    con.setReadTimeout(Math.toIntExact(readTimeout.toMillis()));
+                }
+            };
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("invalid object path: " + filePath, e);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String bucket, String filePath) {
+        return resilience.call(StorageResilience.Operation.STAT, () -> webClient.head()
+                        .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + encodePath(filePath)))
+                        .header("Authorization", "Bearer " + supabaseKey)
+                        .header("apikey", supabaseKey)
+                        .exchangeToMono(response -> {
+                            int code = response.statusCode().value();
+                            // storage answers 400 for some missing objects
+                            if (code == 404 || code == 400) return response.releaseBody().then(Mono.<StoredObject>empty());
+                            if (code < 200 || code >= 300) return response.createException().flatMap(Mono::error);
+                            ClientResponse.Headers headers = response.headers();
+                            StoredObject object = new StoredObject(
+                                    headers.contentLength().orElse(-1),
+                                    headers.contentType().map(type -> type.getType() + "/" + type.getSubtype()).orElse(null));
+                            return response.releaseBody().thenReturn(object);
+                        }))
+                .blockOptional();
+    }
+
+    // list-v2 without a delimiter lists nested objects too and pages by an opaque cursor instead of an offset,
+    // so a listing stays stable while objects are added and removed
+    @Override
+    public ObjectPage listObjects(String bucket, String cursor, int limit) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("prefix", "");
+        body.put("limit", limit);
+        body.put("with_delimiter", false);
+        if (cursor != null) body.put("cursor", cursor);
+
+        ListResponse response = resilience.call(StorageResilience.Operation.LIST, () -> webClient.post()
+                        .uri(URI.create(supabaseUrl + "/storage/v1/object/list-v2/" + bucket))
+                        .header("Authorization", "Bearer " + supabaseKey)
+                        .header("apikey", supabaseKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToMono(ListResponse.class))
+                .block();
+        if (response == null || response.objects() == null) return new ObjectPage(List.of(), null);
+
+        List<ListedObject> objects = response.objects().stream()
+                .map(entry -> new ListedObject(entry.name(), parseTimestamp(
+                        entry.updatedAt() != null ? entry.updatedAt() : entry.createdAt())))
+                .toList();
+        return new ObjectPage(objects, response.hasNext() ? response.nextCursor() : null);
+    }
+
+    private record ListResponse(List<ListEntry> objects, boolean hasNext, String nextCursor) {
+    }
+
+    private record ListEntry(String name,
+                             @JsonProperty("created_at") String createdAt,
+                             @JsonProperty("updated_at") String updatedAt) {
+    }
+
+    private static Instant parseTimestamp(String value) {
+        if (value == null) return null;
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // Storage fixes the lifetime of signed upload urls at two hours.
+    @Override
+    public SignedUpload createSignedUpload(String bucket, String filePath) {
+        SignedUrlResponse response = resilience.call(StorageResilience.Operation.SIGN, () -> webClient.post()
+                        .uri(URI.create(supabaseUrl + "/storage/v1/object/upload/sign/" + bucket + "/" + encodePath(filePath)))
+                        .header("Authorization", "Bearer " + supabaseKey)
+                        .header("apikey", supabaseKey)
+                        .retrieve()
+                        .bodyToMono(SignedUrlResponse.class))
+                .block();
+        if (response == null || response.url() == null) {
+            throw new IllegalStateException("storage did not return a signed upload url for " + filePath);
+        }
+        return new SignedUpload(supabaseUrl + "/storage/v1" + response.url(), Instant.now().plus(SIGNED_UPLOAD_TTL));
+    }
+
+    private record SignedUrlResponse(String url) {
+    }
+
+    private String encodePath(String path) {
+        return Arrays.stream(path.split("/"))
+                .map(seg -> URLEncoder.encode(seg, StandardCharsets.UTF_8).replace("+", "%20"))
+                .collect(Collectors.joining("/"));
+    }
+
+}
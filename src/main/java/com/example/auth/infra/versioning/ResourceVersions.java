@@ -0,0 +1,121 @@
+package com.example.auth.infra.versioning;
+
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.image.PetImageRenderedEvent;
+import com.example.auth.user.UserChangedEvent;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// In-memory versions of the catalogue, each pet and each user profile, bumped after every
+// committed write. Entities not written since startup share the startup version, but their
+// ETags carry the id, so the ETag of one pet never validates another, nor an id that does not
+// exist; deleting an entity bumps it, so ETags issued while it existed stop matching. The
+// random epoch turns ETags issued before a restart into misses instead of false hits.
+// Last-Modified moves at least one second per write, because HTTP dates drop the millis and
+// two writes in the same second would otherwise share an If-Modified-Since.
+@Component
+public class ResourceVersions {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final Map<Long, Version> pets = new ConcurrentHashMap<>();
+    private final Map<Long, Version> users = new ConcurrentHashMap<>();
+    private final Version initial;
+
+    private volatile Version catalogue;
+
+    public ResourceVersions() {
+        this.initial = new Version("", 0, wholeSeconds(System.currentTimeMillis()));
+        this.catalogue = initial;
+    }
+
+    public Version catalogue() {
+        return catalogue;
+    }
+
+    public Version pet(Long id) {
+        return pets.getOrDefault(id, initial).of("p" + id + "-");
+    }
+
+    public Version user(Long id) {
+        return users.getOrDefault(id, initial).of("u" + id + "-");
+    }
+
+    // Pet lists embed owners and user profiles embed pets, so each write bumps both sides
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        Pet pet = event.pet();
+        Version version = next();
+        if (pet.getId() != null) pets.put(pet.getId(), version);
+        if (pet.getUser() != null && pet.getUser().getId() != null) users.put(pet.getUser().getId(), version);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetImageRendered(PetImageRenderedEvent event) {
+        Version version = next();
+        event.petIds().forEach(id -> pets.put(id, version));
+        event.ownerIds().forEach(id -> users.put(id, version));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Version version = next();
+        users.put(event.userId(), version);
+        event.petIds().forEach(id -> pets.put(id, version));
+    }
+
+    private synchronized Version next() {
+        long lastModified = Math.max(catalogue.lastModified() + 1000, wholeSeconds(System.currentTimeMillis()));
+        Version version = new Version("", catalogue.number() + 1, lastModified);
+        catalogue = version;
+        return version;
+    }
+
+    private static long wholeSeconds(long millis) {
+        return millis - millis % 1000;
+    }
+
+    public final class Version {
+        private final String scope;
+        private final long number;
+        private final long lastModified;
+
+        private Version(String scope, long number, long lastModified) {
+            this.scope = scope;
+            this.number = number;
+            this.lastModified = lastModified;
+        }
+
+        private Version of(String scope) {
+            return new Version(scope, number, lastModified);
+        }
+
+        public long number() {
+            return number;
+        }
+
+        public long lastModified() {
+            return lastModified;
+        }
+
+        public String eTag() {
+            return "\"" + epoch + "-" + scope + number + "\"";
+        }
+
+        // Writes ETag, Last-Modified and Cache-Control: no-cache; true means a 304 was set and the
+        // handler should return without a body
+        public boolean checkNotModified(ServletWebRequest request) {
+            if (request.getResponse() != null) {
+                request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+            }
+            return request.checkNotModified(eTag(), lastModified);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record CreateResumableUploadDTO(
+        @NotBlank(message = "contentType is required")
+        @Schema(example = "image/jpeg")
+        String contentType,
+        @NotNull(message = "length is required")
+        @Positive(message = "length must be positive")
+        @Schema(example = "4194304", description = "Size of the whole image in bytes")
+        Long length
+) {
+}
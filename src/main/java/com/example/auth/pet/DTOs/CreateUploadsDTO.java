@@ -0,0 +1,16 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CreateUploadsDTO(
+        @NotEmpty(message = "At least one image is required")
+        @Size(max = 4, message = "each pet has a limit of 4 images")
+        @Schema(example = "[\"image/jpeg\", \"image/png\"]", description = "Content type of each image to upload")
+        List<@NotBlank String> contentTypes
+) {
+}
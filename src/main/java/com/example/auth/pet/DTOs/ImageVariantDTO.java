@@ -0,0 +1,14 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record ImageVariantDTO(
+        @Schema(example = "https://.../pet-images/variants/3a7bd3e2/w480.jpg")
+        String url,
+        @Schema(example = "480")
+        int width,
+        @Schema(example = "360")
+        int height,
+        @Schema(example = "38211")
+        long size
+) {}
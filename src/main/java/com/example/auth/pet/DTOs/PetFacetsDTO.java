@@ -0,0 +1,17 @@
+package com.example.auth.pet.DTOs;
+
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+
+import java.util.Map;
+
+// Available pets matching every filter, plus per-value counts of each dimension with the
+// other two filters applied
+public record PetFacetsDTO(
+        long total,
+        Map<Specie, Long> specie,
+        Map<Sex, Long> sex,
+        Map<Size, Long> size
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record PetNearbyDTO(
+        PetResponseDTO pet,
+        @Schema(example = "3.42")
+        double distanceKm
+) {
+}
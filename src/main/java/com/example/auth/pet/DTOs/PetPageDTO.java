@@ -0,0 +1,12 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record PetPageDTO(
+        List<PetResponseDTO> content,
+        @Schema(description = "Opaque cursor for the next page, null when there are no more results", example = "MTI")
+        String next
+) {
+}
@@ -7,6 +7,7 @@ import com.example.auth.user.DTOs.UserSummaryDTO;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.util.List;
+import java.util.Map;
 
 public record PetResponseDTO(
         @Schema(example = "1")
@@ -23,5 +24,11 @@ public record PetResponseDTO(
         String description,
         UserSummaryDTO user,
         @Schema(example = "[\"https://.../pet-images/uuid-dog.jpg\"]")
-        List<String> imageUrls
+        List<String> imageUrls,
+        @Schema(description = "Resized copies by image url, then by variant name (\"full\", \"w160\", ...); " +
+                "images still being processed have no entry")
+        Map<String, Map<String, ImageVariantDTO>> imageVariants,
+        @Schema(description = "BlurHash of each image url, to paint while the image loads",
+                example = "{\"https://.../pet-images/uuid-dog.jpg\": \"LEHV6nWB2yk8pyo0adR*.7kCMdnj\"}")
+        Map<String, String> imagePlaceholders
 ){}
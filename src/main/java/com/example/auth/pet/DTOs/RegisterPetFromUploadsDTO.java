@@ -0,0 +1,20 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record RegisterPetFromUploadsDTO(
+        @NotNull(message = "pet is required")
+        @Valid
+        RegisterPetDTO pet,
+        @NotEmpty(message = "At least one image is required")
+        @Size(max = 4, message = "each pet has a limit of 4 images")
+        @Schema(description = "Keys returned by POST /pet/uploads, after the images were uploaded")
+        List<String> imageKeys
+) {
+}
@@ -0,0 +1,17 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+public record ResumableUploadDTO(
+        String id,
+        @Schema(description = "Object key to send back when registering the pet, once the upload is complete")
+        String key,
+        @Schema(description = "Bytes received so far; the next chunk starts here")
+        long offset,
+        long length,
+        @Schema(description = "When the session expires if no chunk arrives")
+        Instant expiresAt
+) {
+}
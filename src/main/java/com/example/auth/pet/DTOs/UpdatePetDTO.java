@@ -3,6 +3,8 @@ package com.example.auth.pet.DTOs;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Specie;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -25,6 +27,14 @@ public record UpdatePetDTO(
         Specie specie,
         @NotNull(message = "size must not be null")
         @Schema(example = "MEDIUM")
-        com.example.auth.pet.enums.Size size
+        com.example.auth.pet.enums.Size size,
+        @DecimalMin(value = "-90.0", message = "latitude must be between -90 and 90")
+        @DecimalMax(value = "90.0", message = "latitude must be between -90 and 90")
+        @Schema(example = "-23.5505", description = "Optional; send together with longitude")
+        Double latitude,
+        @DecimalMin(value = "-180.0", message = "longitude must be between -180 and 180")
+        @DecimalMax(value = "180.0", message = "longitude must be between -180 and 180")
+        @Schema(example = "-46.6333", description = "Optional; send together with latitude")
+        Double longitude
 ) {
 }
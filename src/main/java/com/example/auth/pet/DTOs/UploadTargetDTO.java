@@ -0,0 +1,16 @@
+package com.example.auth.pet.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+public record UploadTargetDTO(
+        @Schema(description = "Object key to send back when registering the pet")
+        String key,
+        @Schema(description = "Signed url the image bytes are sent to")
+        String uploadUrl,
+        @Schema(example = "PUT")
+        String method,
+        Instant expiresAt
+) {
+}
@@ -17,8 +17,14 @@ import java.util.Objects;
 
 @Entity
 @Table(name= "pet")
+@NamedEntityGraph(name = Pet.WITH_OWNER_AND_IMAGES, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("imageUrls")
+})
 public class Pet implements Serializable {
 
+    public static final String WITH_OWNER_AND_IMAGES = "Pet.withOwnerAndImages";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,6 +37,9 @@ public class Pet implements Serializable {
 
     private boolean adopted;
 
+    private Double latitude;
+    private Double longitude;
+
     @Enumerated(EnumType.STRING)
     private Specie specie;
 
@@ -110,6 +119,22 @@ public class Pet implements Serializable {
         this.description = description;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     public Date getRegisteredAt() {
         return registeredAt;
     }
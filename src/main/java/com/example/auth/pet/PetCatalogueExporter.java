@@ -0,0 +1,136 @@
+package com.example.auth.pet;
+
+import com.example.auth.pet.DTOs.PetResponseDTO;
+import com.example.auth.pet.enums.ExportFormat;
+import com.example.auth.pet.image.PetImagePlaceholderRepository;
+import com.example.auth.pet.image.PetImageVariantRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Writes the catalogue as it is read from a database cursor. Rows are projections, so
+// nothing accumulates in the persistence context; only one chunk is held in memory.
+@Component
+public class PetCatalogueExporter {
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final String CSV_HEADER =
+            "id,nickname,sex,size,specie,description,owner_name,owner_email,owner_phone_number,image_urls";
+
+    private final PetRepository petRepository;
+    private final PetMapper petMapper;
+    private final PetImageVariantRepository petImageVariantRepository;
+    private final PetImagePlaceholderRepository petImagePlaceholderRepository;
+    private final ObjectWriter jsonWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    public PetCatalogueExporter(PetRepository petRepository, PetMapper petMapper,
+                                PetImageVariantRepository petImageVariantRepository,
+                                PetImagePlaceholderRepository petImagePlaceholderRepository, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.petRepository = petRepository;
+        this.petMapper = petMapper;
+        this.petImageVariantRepository = petImageVariantRepository;
+        this.petImagePlaceholderRepository = petImagePlaceholderRepository;
+        this.jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public void export(OutputStream out, ExportFormat format, boolean includeAdopted) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<PetRow> rows = includeAdopted ? petRepository.streamAllRows() : petRepository.streamAvailableRows()) {
+                    Iterator<PetRow> iterator = rows.iterator();
+                    List<PetRow> chunk = new ArrayList<>(CHUNK_SIZE);
+                    while (iterator.hasNext()) {
+                        chunk.add(iterator.next());
+                        if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                            writeChunk(writer, format, chunk);
+                            chunk.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeChunk(Writer writer, ExportFormat format, List<PetRow> chunk) throws IOException {
+        Map<Long, List<String>> imageUrls = petRepository.findImageRows(chunk.stream().map(PetRow::id).toList())
+                .stream()
+                .collect(Collectors.groupingBy(PetImageRow::petId,
+                        Collectors.mapping(PetImageRow::url, Collectors.toList())));
+
+        // csv keeps its columns; variants and placeholders only travel in the json lines
+        PetImageDetails details = PetImageDetails.none();
+        if (format != ExportFormat.CSV) {
+            Set<String> urls = imageUrls.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+            details = petMapper.toImageDetails(petImageVariantRepository.findAllBySourceUrlIn(urls),
+                    petImagePlaceholderRepository.findAllBySourceUrlIn(urls));
+        }
+
+        for (PetResponseDTO pet : petMapper.toDTOList(chunk, imageUrls, details)) {
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, pet);
+            } else {
+                jsonWriter.writeValue(writer, pet);
+            }
+            writer.write('\n');
+        }
+        // push each chunk to the client instead of letting the whole export pile up in buffers
+        writer.flush();
+    }
+
+    private void writeCsvLine(Writer writer, PetResponseDTO pet) throws IOException {
+        writer.write(String.join(",",
+                String.valueOf(pet.id()),
+                csv(pet.nickname()),
+                csv(pet.sex()),
+                csv(pet.size()),
+                csv(pet.specie()),
+                csv(pet.description()),
+                csv(pet.user() == null ? null : pet.user().name()),
+                csv(pet.user() == null ? null : pet.user().email()),
+                csv(pet.user() == null ? null : pet.user().phoneNumber()),
+                csv(String.join(" ", pet.imageUrls()))));
+    }
+
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
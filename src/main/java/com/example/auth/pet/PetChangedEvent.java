@@ -0,0 +1,13 @@
+package com.example.auth.pet;
+
+// Published by every write path that touches a pet; in-process indexes listen after commit
+public record PetChangedEvent(Pet pet, boolean removed) {
+
+    public static PetChangedEvent saved(Pet pet) {
+        return new PetChangedEvent(pet, false);
+    }
+
+    public static PetChangedEvent removed(Pet pet) {
+        return new PetChangedEvent(pet, true);
+    }
+}
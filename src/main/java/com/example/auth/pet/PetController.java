@@ -1,23 +1,41 @@
 package com.example.auth.pet;
 
 
+import com.example.auth.infra.versioning.ResourceVersions;
+import com.example.auth.pet.DTOs.CreateResumableUploadDTO;
+import com.example.auth.pet.DTOs.CreateUploadsDTO;
+import com.example.auth.pet.DTOs.PetFacetsDTO;
+import com.example.auth.pet.DTOs.PetNearbyDTO;
+import com.example.auth.pet.DTOs.PetPageDTO;
 import com.example.auth.pet.DTOs.RegisterPetDTO;
+import com.example.auth.pet.DTOs.RegisterPetFromUploadsDTO;
+import com.example.auth.pet.DTOs.ResumableUploadDTO;
+import com.example.auth.pet.DTOs.UploadTargetDTO;
 import com.example.auth.pet.DTOs.PetResponseDTO;
 import com.example.auth.pet.DTOs.UpdatePetDTO;
+import com.example.auth.pet.enums.ExportFormat;
+import com.example.auth.pet.enums.PetSort;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Size;
 import com.example.auth.pet.enums.Specie;
 import com.example.auth.user.User;
 import com.example.auth.user.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.net.URI;
 import java.security.Principal;
 import java.util.List;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,49 +50,159 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Pets", description = "Pet registration and lookup operations")
 public class PetController {
 
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
     private final PetService petService;
     private final UserService userService;
+    private final PetCatalogueExporter petCatalogueExporter;
+    private final ResourceVersions resourceVersions;
 
-    public PetController(PetService petService, UserService userService) {
+    public PetController(PetService petService, UserService userService, PetCatalogueExporter petCatalogueExporter,
+                         ResourceVersions resourceVersions) {
         this.petService = petService;
         this.userService = userService;
+        this.petCatalogueExporter = petCatalogueExporter;
+        this.resourceVersions = resourceVersions;
     }
 
     @GetMapping
-    @Operation(summary = "List available pets", description = "Returns pets that are not adopted.")
+    @Operation(summary = "List available pets", description = "Returns a page of pets that are not adopted. Pass the returned `next` cursor to fetch the following page.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "List returned")
+            @ApiResponse(responseCode = "200", description = "Page returned"),
+            @ApiResponse(responseCode = "304", description = "Catalogue unchanged since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
     })
-    public ResponseEntity<List<PetResponseDTO>> findAllByAdoptedFalse() {
-        List<PetResponseDTO> pets = petService.findAllByAdoptedFalse();
+    public ResponseEntity<PetPageDTO> findAllByAdoptedFalse(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Sort order (default NEWEST)") @RequestParam(required = false) PetSort sort,
+            ServletWebRequest request
+    ) {
+        if (resourceVersions.catalogue().checkNotModified(request)) {
+            return null;
+        }
+
+        PetPageDTO pets = petService.findAllByAdoptedFalse(cursor, limit, sort);
 
         return ResponseEntity.ok().body(pets);
     }
 
     @GetMapping("/filter")
-    @Operation(summary = "Filter pets", description = "Filters pets by species, sex, and size.")
+    @Operation(summary = "Filter pets", description = "Filters pets by species, sex, and size, one page at a time.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Filtered list"),
+            @ApiResponse(responseCode = "200", description = "Filtered page"),
+            @ApiResponse(responseCode = "304", description = "Catalogue unchanged since the given ETag"),
             @ApiResponse(responseCode = "400", description = "Invalid parameters")
     })
-    public List<PetResponseDTO> getPetsByCriteria(
+    public PetPageDTO getPetsByCriteria(
+            @RequestParam(required = false) Specie specie,
+            @RequestParam(required = false) Sex sex,
+            @RequestParam(required = false) Size size,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Sort order (default NEWEST)") @RequestParam(required = false) PetSort sort,
+            ServletWebRequest request
+    ) {
+        if (resourceVersions.catalogue().checkNotModified(request)) {
+            return null;
+        }
+
+        return petService.findByFilters(specie, sex, size, cursor, limit, sort);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search pets", description = "Searches available pets by nickname and description, tolerating typos and partial words. Results are ranked by relevance, then recency, and can be narrowed by species, sex, and size.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ranked page"),
+            @ApiResponse(responseCode = "400", description = "Blank query or invalid parameters"),
+            @ApiResponse(responseCode = "503", description = "Search index still loading")
+    })
+    public PetPageDTO searchPets(
+            @Parameter(description = "Words to search for") @RequestParam String q,
+            @RequestParam(required = false) Specie specie,
+            @RequestParam(required = false) Sex sex,
+            @RequestParam(required = false) Size size,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer limit
+    ) {
+        return petService.search(q, specie, sex, size, cursor, limit);
+    }
+
+    @GetMapping("/nearby")
+    @Operation(summary = "Find pets near a location", description = "Returns the available pets closest to the given coordinates within the radius, nearest first, optionally filtered by species, sex, and size.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Pets sorted by distance"),
+            @ApiResponse(responseCode = "400", description = "Invalid coordinates, radius or filters")
+    })
+    public List<PetNearbyDTO> findNearby(
+            @Parameter(description = "Latitude of the search center") @RequestParam Double lat,
+            @Parameter(description = "Longitude of the search center") @RequestParam Double lng,
+            @Parameter(description = "Search radius in km (default 25, max 500)") @RequestParam(required = false) Double radiusKm,
+            @Parameter(description = "Maximum number of pets (default 20, max 100)") @RequestParam(required = false) Integer limit,
             @RequestParam(required = false) Specie specie,
             @RequestParam(required = false) Sex sex,
             @RequestParam(required = false) Size size
     ) {
-        return petService.findByFilters(specie, sex, size);
+        return petService.findNearby(lat, lng, radiusKm, limit, specie, sex, size);
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Count available pets per filter value", description = "Returns how many available pets match the given filters, and for each species, sex and size how many would match if that value were selected.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Facet counts"),
+            @ApiResponse(responseCode = "304", description = "Catalogue unchanged since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    public PetFacetsDTO getFacets(
+            @RequestParam(required = false) Specie specie,
+            @RequestParam(required = false) Sex sex,
+            @RequestParam(required = false) Size size,
+            ServletWebRequest request
+    ) {
+        if (resourceVersions.catalogue().checkNotModified(request)) {
+            return null;
+        }
+
+        return petService.findFacets(specie, sex, size);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export the pet catalogue", description = "Streams every pet as NDJSON (one object per line) or CSV, written as rows are read from the database.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export stream"),
+            @ApiResponse(responseCode = "400", description = "Invalid format")
+    })
+    public StreamingResponseBody exportCatalogue(
+            @Parameter(description = "NDJSON (default) or CSV") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(description = "Include adopted pets (default false)") @RequestParam(defaultValue = "false") boolean includeAdopted,
+            HttpServletResponse response
+    ) throws IOException {
+        // Commits the headers here, so the security headers are written on this thread; the response filters
+        // would otherwise write them while the body is already streaming from the async thread.
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(format.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"pets." + format.getExtension() + "\"");
+        response.flushBuffer();
+
+        return out -> petCatalogueExporter.export(out, format, includeAdopted);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get pet by ID", description = "Returns pet details.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Pet found"),
+            @ApiResponse(responseCode = "304", description = "Pet unchanged since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Pet not found")
     })
-    public ResponseEntity<PetResponseDTO> getPet(@PathVariable Long id) {
-        PetResponseDTO pet = petService.findByIdAsDto(id);
+    public ResponseEntity<PetResponseDTO> getPet(@PathVariable Long id, ServletWebRequest request) {
+        // the version is read before the lookup, so a write racing it costs a refetch, never a stale body
+        ResourceVersions.Version version = resourceVersions.pet(id);
+        if (version.checkNotModified(request)) {
+            return null;
+        }
 
-        return ResponseEntity.ok(pet);
+        return ResponseEntity.ok(petService.findByIdAsDto(id));
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -96,6 +224,135 @@ public class PetController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Register pet from uploads",
+            description = "Registers a pet whose images were already uploaded through the targets from `POST /pet/uploads`.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Pet created"),
+            @ApiResponse(responseCode = "400", description = "Invalid payload, or an upload is missing, too big or of the wrong type"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "403", description = "An upload belongs to another user"),
+            @ApiResponse(responseCode = "409", description = "Duplicate pet, or an upload already used")
+    })
+    public ResponseEntity<PetResponseDTO> registerNewPetFromUploads(
+            @RequestBody @Valid RegisterPetFromUploadsDTO dto,
+            Principal principal) {
+
+        User user = (User) userService.findByEmail(principal.getName());
+        PetResponseDTO response = petService.registerNewPetFromUploads(dto.pet(), dto.imageKeys(), user);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/uploads")
+    @Operation(summary = "Request upload targets",
+            description = "Returns one short-lived signed url per image. PUT each image to its url, then register the pet with the returned keys.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Upload targets created"),
+            @ApiResponse(responseCode = "400", description = "Invalid payload"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated")
+    })
+    public ResponseEntity<List<UploadTargetDTO>> createUploads(
+            @RequestBody @Valid CreateUploadsDTO dto,
+            Principal principal) {
+
+        User user = (User) userService.findByEmail(principal.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(petService.createUploads(dto.contentTypes(), user));
+    }
+
+    @PostMapping("/uploads/resumable")
+    @Operation(summary = "Start a resumable upload",
+            description = "Opens an upload session for one image. Send the bytes in chunks with `PUT /pet/uploads/resumable/{id}`, "
+                    + "then complete it and register the pet with the returned key.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Upload session created"),
+            @ApiResponse(responseCode = "400", description = "Invalid payload, type or size"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "429", description = "Too many uploads of this user in progress")
+    })
+    public ResponseEntity<ResumableUploadDTO> createResumableUpload(
+            @RequestBody @Valid CreateResumableUploadDTO dto,
+            Principal principal) {
+
+        User user = (User) userService.findByEmail(principal.getName());
+        ResumableUploadDTO upload = petService.createResumableUpload(dto.contentType(), dto.length(), user);
+        return ResponseEntity.created(URI.create("/pet/uploads/resumable/" + upload.id())).body(upload);
+    }
+
+    @RequestMapping(value = "/uploads/resumable/{id}", method = RequestMethod.HEAD)
+    @Operation(summary = "Resumable upload offset",
+            description = "Returns the bytes received so far in `Upload-Offset`; a client resuming after a dropped connection sends the rest from there.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Offset in the headers"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "403", description = "Upload belongs to another user"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or expired")
+    })
+    public ResponseEntity<Void> findResumableUpload(@PathVariable String id, Principal principal) {
+        User user = (User) userService.findByEmail(principal.getName());
+        return uploadOffset(HttpStatus.OK, petService.findResumableUpload(id, user));
+    }
+
+    @PutMapping(value = "/uploads/resumable/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Send a chunk",
+            description = "Writes the body at `Upload-Offset`, which must equal the offset the server reports. "
+                    + "Bytes received before a connection drop are kept.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Chunk written; new offset in `Upload-Offset`"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "403", description = "Upload belongs to another user"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Offset does not match, or another chunk is being written"),
+            @ApiResponse(responseCode = "413", description = "Chunk goes past the declared length")
+    })
+    public ResponseEntity<Void> appendResumableUpload(
+            @PathVariable String id,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request,
+            Principal principal) throws IOException {
+
+        User user = (User) userService.findByEmail(principal.getName());
+        return uploadOffset(HttpStatus.NO_CONTENT, petService.appendResumableUpload(id, offset, request.getInputStream(), user));
+    }
+
+    @PostMapping("/uploads/resumable/{id}/complete")
+    @Operation(summary = "Complete a resumable upload",
+            description = "Checks the image and moves it to storage. The key can then be used with `POST /pet` in JSON.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Upload stored"),
+            @ApiResponse(responseCode = "400", description = "Content is not the declared image type"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "403", description = "Upload belongs to another user"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Bytes are still missing")
+    })
+    public ResponseEntity<ResumableUploadDTO> completeResumableUpload(@PathVariable String id, Principal principal) {
+        User user = (User) userService.findByEmail(principal.getName());
+        return ResponseEntity.ok(petService.completeResumableUpload(id, user));
+    }
+
+    @DeleteMapping("/uploads/resumable/{id}")
+    @Operation(summary = "Abort a resumable upload", description = "Drops the session and the bytes received so far.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Upload aborted"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "403", description = "Upload belongs to another user"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or expired")
+    })
+    public ResponseEntity<Void> abortResumableUpload(@PathVariable String id, Principal principal) {
+        User user = (User) userService.findByEmail(principal.getName());
+        petService.abortResumableUpload(id, user);
+        return ResponseEntity.noContent().build();
+    }
+
+    private static ResponseEntity<Void> uploadOffset(HttpStatus status, ResumableUploadDTO upload) {
+        return ResponseEntity.status(status)
+                .header(UPLOAD_OFFSET, String.valueOf(upload.offset()))
+                .header(UPLOAD_LENGTH, String.valueOf(upload.length()))
+                .cacheControl(CacheControl.noStore())
+                .build();
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update pet", description = "Updates a pet owned by the user.")
     @ApiResponses({
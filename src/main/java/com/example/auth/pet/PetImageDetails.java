@@ -0,0 +1,15 @@
+package com.example.auth.pet;
+
+import com.example.auth.pet.DTOs.ImageVariantDTO;
+
+import java.util.Map;
+
+// What the image pipeline wrote for a set of image urls: variants by name and BlurHash placeholders, by url
+public record PetImageDetails(Map<String, Map<String, ImageVariantDTO>> variants, Map<String, String> placeholders) {
+
+    private static final PetImageDetails NONE = new PetImageDetails(Map.of(), Map.of());
+
+    public static PetImageDetails none() {
+        return NONE;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.auth.pet;
+
+public record PetImageRow(Long petId, String url) {
+}
@@ -1,13 +1,21 @@
 package com.example.auth.pet;
 
 
+import com.example.auth.pet.DTOs.ImageVariantDTO;
 import com.example.auth.pet.DTOs.PetResponseDTO;
 import com.example.auth.pet.DTOs.RegisterPetDTO;
+import com.example.auth.pet.image.PetImagePlaceholder;
+import com.example.auth.pet.image.PetImageVariant;
+import com.example.auth.user.DTOs.UserSummaryDTO;
 import com.example.auth.user.User;
 import com.example.auth.user.UserMapper;
 import org.springframework.stereotype.Component;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class PetMapper {
@@ -25,11 +33,17 @@ public class PetMapper {
         pet.setSize(dto.size());
         pet.setSpecie(dto.specie());
         pet.setDescription(dto.description());
+        pet.setLatitude(dto.latitude());
+        pet.setLongitude(dto.longitude());
         pet.setUser(user);
         return pet;
     }
 
     public PetResponseDTO toDTO(Pet pet) {
+        return toDTO(pet, PetImageDetails.none());
+    }
+
+    public PetResponseDTO toDTO(Pet pet, PetImageDetails details) {
         return new PetResponseDTO(
                 pet.getId(),
                 pet.getNickname(),
@@ -38,13 +52,66 @@ public class PetMapper {
                 pet.getSpecie(),
                 pet.getDescription(),
                 pet.getUser() == null ? null : userMapper.toSummaryDTO(pet.getUser()),
-                pet.getImageUrls()
+                pet.getImageUrls(),
+                pick(pet.getImageUrls(), details.variants()),
+                pick(pet.getImageUrls(), details.placeholders())
+        );
+    }
+
+    public PetResponseDTO toDTO(PetRow row, List<String> imageUrls) {
+        return toDTO(row, imageUrls, PetImageDetails.none());
+    }
+
+    public PetResponseDTO toDTO(PetRow row, List<String> imageUrls, PetImageDetails details) {
+        return new PetResponseDTO(
+                row.id(),
+                row.nickname(),
+                row.sex(),
+                row.size(),
+                row.specie(),
+                row.description(),
+                row.ownerId() == null ? null : new UserSummaryDTO(
+                        row.ownerName(),
+                        row.ownerEmail(),
+                        row.ownerPhoneNumber()),
+                imageUrls,
+                pick(imageUrls, details.variants()),
+                pick(imageUrls, details.placeholders())
         );
     }
 
-    public List<PetResponseDTO> toDTOList(List<Pet> pets) {
-        return pets.stream()
-                .map(this::toDTO)
+    public List<PetResponseDTO> toDTOList(List<PetRow> rows, Map<Long, List<String>> imageUrlsByPetId) {
+        return toDTOList(rows, imageUrlsByPetId, PetImageDetails.none());
+    }
+
+    public List<PetResponseDTO> toDTOList(List<PetRow> rows, Map<Long, List<String>> imageUrlsByPetId,
+                                          PetImageDetails details) {
+        return rows.stream()
+                .map(row -> toDTO(row, imageUrlsByPetId.getOrDefault(row.id(), List.of()), details))
                 .toList();
     }
+
+    // variants by source url, then by name from the smallest to "full"
+    public PetImageDetails toImageDetails(List<PetImageVariant> variants, List<PetImagePlaceholder> placeholders) {
+        Map<String, Map<String, ImageVariantDTO>> variantsByUrl = new LinkedHashMap<>();
+        variants.stream()
+                .sorted(Comparator.comparing(PetImageVariant::getSourceUrl).thenComparingInt(PetImageVariant::getWidth))
+                .forEach(variant -> variantsByUrl.computeIfAbsent(variant.getSourceUrl(), url -> new LinkedHashMap<>())
+                        .put(variant.getName(), new ImageVariantDTO(
+                                variant.getUrl(), variant.getWidth(), variant.getHeight(), variant.getSize())));
+        Map<String, String> placeholdersByUrl = new HashMap<>();
+        placeholders.forEach(placeholder -> placeholdersByUrl.put(placeholder.getSourceUrl(), placeholder.getBlurhash()));
+        return new PetImageDetails(variantsByUrl, placeholdersByUrl);
+    }
+
+    // the entries of the pet's own images, in image order
+    private static <T> Map<String, T> pick(List<String> imageUrls, Map<String, T> byUrl) {
+        if (imageUrls == null || byUrl.isEmpty()) return Map.of();
+        Map<String, T> picked = new LinkedHashMap<>();
+        for (String url : imageUrls) {
+            T value = byUrl.get(url);
+            if (value != null) picked.put(url, value);
+        }
+        return picked;
+    }
 }
@@ -3,21 +3,33 @@ package com.example.auth.pet;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Size;
 import com.example.auth.pet.enums.Specie;
+import com.example.auth.pet.index.PetFacetRow;
+import com.example.auth.pet.index.PetFilterRow;
+import com.example.auth.pet.index.PetGeoRow;
+import com.example.auth.pet.index.PetSearchRow;
 import com.example.auth.user.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-@Repository
-public interface PetRepository extends JpaRepository<Pet, Long>, JpaSpecificationExecutor<Pet> {
-    List<Pet> findAllByAdoptedFalse();
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
+@Repository
+public interface PetRepository extends JpaRepository<Pet, Long>, JpaSpecificationExecutor<Pet>, PetRepositoryCustom {
+    // the update, delete and adopt paths read owner and images of the one pet they load
     @Override
+    @EntityGraph(Pet.WITH_OWNER_AND_IMAGES)
     Optional<Pet> findById(Long id);
 
     boolean existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
@@ -31,16 +43,88 @@ public interface PetRepository extends JpaRepository<Pet, Long>, JpaSpecificatio
 
     boolean existsByIdAndUserId(Long id, Long userId);
 
+    @Query("select count(p) > 0 from Pet p join p.imageUrls url where url in :urls")
+    boolean existsByImageUrlIn(@Param("urls") Collection<String> urls);
+
+    @Query("select distinct url from Pet p join p.imageUrls url where url in :urls")
+    List<String> findReferencedImageUrls(@Param("urls") Collection<String> urls);
+
+    @Query("select distinct p from Pet p join p.imageUrls url where url = :url")
+    List<Pet> findAllByImageUrl(@Param("url") String url);
+
+    // image urls in url order after the given one whose variants or placeholder were never written
     @Query("""
-            SELECT p FROM Pet p
-            WHERE (:specie IS NULL OR p.specie = :specie)
-            AND (:sex IS NULL OR p.sex = :sex)
-            AND (:size IS NULL OR p.size = :size)
+            SELECT DISTINCT url FROM Pet p JOIN p.imageUrls url
+            WHERE (:after IS NULL OR url > :after)
+            AND (NOT EXISTS (SELECT v FROM PetImageVariant v WHERE v.sourceUrl = url)
+                 OR NOT EXISTS (SELECT h FROM PetImagePlaceholder h WHERE h.sourceUrl = url))
+            ORDER BY url
            """)
-    List<Pet> findByFilters(
-            @Param("specie") Specie specie,
-            @Param("sex") Sex sex,
-            @Param("size") Size size
-    );
-}
+    List<String> findImageUrlsToRender(@Param("after") String after, Pageable pageable);
+
+    @Query("""
+            SELECT new com.example.auth.pet.PetRow(
+                p.id, p.nickname, p.sex, p.size, p.specie, p.description,
+                u.id, u.name, u.email, u.phoneNumber)
+            FROM Pet p LEFT JOIN p.user u
+            WHERE p.id = :id
+           """)
+    Optional<PetRow> findRowById(@Param("id") Long id);
+
+    @Query("""
+            SELECT new com.example.auth.pet.PetImageRow(p.id, url)
+            FROM Pet p JOIN p.imageUrls url
+            WHERE p.id IN :petIds
+           """)
+    List<PetImageRow> findImageRows(@Param("petIds") Collection<Long> petIds);
+
+    @Query("""
+            SELECT new com.example.auth.pet.index.PetFilterRow(p.id, p.specie, p.sex, p.size, p.adopted)
+            FROM Pet p
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<PetFilterRow> streamFilterRows();
 
+    @Query("""
+            SELECT new com.example.auth.pet.PetRow(
+                p.id, p.nickname, p.sex, p.size, p.specie, p.description,
+                u.id, u.name, u.email, u.phoneNumber)
+            FROM Pet p LEFT JOIN p.user u
+            ORDER BY p.id
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<PetRow> streamAllRows();
+
+    @Query("""
+            SELECT new com.example.auth.pet.PetRow(
+                p.id, p.nickname, p.sex, p.size, p.specie, p.description,
+                u.id, u.name, u.email, u.phoneNumber)
+            FROM Pet p LEFT JOIN p.user u
+            WHERE p.adopted = false
+            ORDER BY p.id
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<PetRow> streamAvailableRows();
+
+    @Query("""
+            SELECT new com.example.auth.pet.index.PetSearchRow(p.id, p.nickname, p.description)
+            FROM Pet p
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<PetSearchRow> streamSearchRows();
+
+    @Query("""
+            SELECT new com.example.auth.pet.index.PetGeoRow(p.id, p.latitude, p.longitude)
+            FROM Pet p
+            WHERE p.latitude IS NOT NULL AND p.longitude IS NOT NULL
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<PetGeoRow> streamGeoRows();
+
+    @Query("""
+            SELECT new com.example.auth.pet.index.PetFacetRow(p.specie, p.sex, p.size, p.adopted, COUNT(p))
+            FROM Pet p
+            GROUP BY p.specie, p.sex, p.size, p.adopted
+           """)
+    List<PetFacetRow> countFacets();
+}
@@ -0,0 +1,16 @@
+package com.example.auth.pet;
+
+import com.example.auth.pet.index.PetGeoRow;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface PetRepositoryCustom {
+
+    List<PetRow> findRows(Specification<Pet> spec, Sort sort, int limit);
+
+    List<PetGeoRow> findGeoRows(Specification<Pet> spec);
+
+    List<Long> findIds(Specification<Pet> spec);
+}
@@ -0,0 +1,85 @@
+package com.example.auth.pet;
+
+import com.example.auth.pet.index.PetGeoRow;
+import com.example.auth.user.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+class PetRepositoryCustomImpl implements PetRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    PetRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<PetRow> findRows(Specification<Pet> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PetRow> query = cb.createQuery(PetRow.class);
+        Root<Pet> pet = query.from(Pet.class);
+        Join<Pet, User> owner = pet.join("user", JoinType.LEFT);
+
+        query.select(cb.construct(PetRow.class,
+                pet.get("id"),
+                pet.get("nickname"),
+                pet.get("sex"),
+                pet.get("size"),
+                pet.get("specie"),
+                pet.get("description"),
+                owner.get("id"),
+                owner.get("name"),
+                owner.get("email"),
+                owner.get("phoneNumber")));
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(pet, query, cb);
+            if (predicate != null) query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, pet, cb));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<PetGeoRow> findGeoRows(Specification<Pet> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PetGeoRow> query = cb.createQuery(PetGeoRow.class);
+        Root<Pet> pet = query.from(Pet.class);
+
+        query.select(cb.construct(PetGeoRow.class, pet.get("id"), pet.get("latitude"), pet.get("longitude")));
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(pet, query, cb);
+            if (predicate != null) query.where(predicate);
+        }
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Pet> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Pet> pet = query.from(Pet.class);
+
+        query.select(pet.get("id"));
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(pet, query, cb);
+            if (predicate != null) query.where(predicate);
+        }
+
+        return entityManager.createQuery(query).getResultList();
+    }
+}
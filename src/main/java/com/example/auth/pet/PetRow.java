@@ -0,0 +1,20 @@
+package com.example.auth.pet;
+
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+
+// Flat read-side shape of a pet and its owner, built straight from the result set
+public record PetRow(
+        Long id,
+        String nickname,
+        Sex sex,
+        Size size,
+        Specie specie,
+        String description,
+        Long ownerId,
+        String ownerName,
+        String ownerEmail,
+        String ownerPhoneNumber
+) {
+}
@@ -1,26 +1,69 @@
 package com.example.auth.pet;
 
+import com.example.auth.infra.cache.DtoCaches;
+import com.example.auth.infra.storage.SignedUpload;
+import com.example.auth.infra.storage.StoredObject;
+import com.example.auth.pet.DTOs.PetFacetsDTO;
+import com.example.auth.pet.DTOs.PetNearbyDTO;
+import com.example.auth.pet.DTOs.PetPageDTO;
 import com.example.auth.pet.DTOs.RegisterPetDTO;
+import com.example.auth.pet.DTOs.ResumableUploadDTO;
 import com.example.auth.pet.DTOs.PetResponseDTO;
 import com.example.auth.pet.DTOs.UpdatePetDTO;
+import com.example.auth.pet.DTOs.UploadTargetDTO;
+import com.example.auth.pet.enums.PetSort;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Size;
 import com.example.auth.pet.enums.Specie;
+import com.example.auth.pet.index.FacetCounts;
+import com.example.auth.pet.index.GeoBox;
+import com.example.auth.pet.index.GeoHit;
+import com.example.auth.pet.index.PetFilterIndex;
+import com.example.auth.pet.index.PetGeoIndex;
+import com.example.auth.pet.index.PetSearchIndex;
+import com.example.auth.pet.image.HashedImage;
+import com.example.auth.pet.image.ImageHeader;
+import com.example.auth.pet.image.ImageSniffer;
+import com.example.auth.pet.image.NearDuplicateIndex;
+import com.example.auth.pet.image.PerceptualHash;
+import com.example.auth.pet.image.PetImagePlaceholderRepository;
+import com.example.auth.pet.image.PetImageStore;
+import com.example.auth.pet.image.PetImageVariantRepository;
+import com.example.auth.pet.image.ResumableUploadStore;
+import com.example.auth.pet.image.UploadSession;
 import com.example.auth.user.User;
 import com.example.auth.user.services.UserService;
 import jakarta.transaction.Transactional;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Base64;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class PetService {
@@ -28,7 +71,31 @@ public class PetService {
     private final PetRepository petRepository;
     private final UserService userService;
     private final PetMapper petMapper;
-    private final SupabaseStorageService supabaseStorageService;
+    private final PetImageStore petImageStore;
+    private final PetFilterIndex petFilterIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DtoCaches dtoCaches;
+    private final PetSearchIndex petSearchIndex;
+    private final PetGeoIndex petGeoIndex;
+    private final NearDuplicateIndex nearDuplicateIndex;
+    private final ResumableUploadStore resumableUploadStore;
+    private final PetImageVariantRepository petImageVariantRepository;
+    private final PetImagePlaceholderRepository petImagePlaceholderRepository;
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final double DEFAULT_RADIUS_KM = 25;
+    public static final double MAX_RADIUS_KM = 500;
+
+    private static final int MAX_IMAGES = 4;
+    private static final long MAX_IMAGE_BYTES = 10 * 1024 * 1024;
+    // room for two pets' worth of images in flight
+    private static final int MAX_RESUMABLE_UPLOADS_PER_USER = 2 * MAX_IMAGES;
+    // decoding cost grows with pixels, not bytes; a small file can still declare a huge canvas
+    private static final int MAX_IMAGE_SIDE = 12_000;
+    private static final long MAX_IMAGE_PIXELS = 40_000_000;
+    // uploads/<user id>/<uuid>.<ext>, as handed out by createUploads
+    private static final Pattern UPLOAD_KEY = Pattern.compile("uploads/(\\d+)/[0-9a-f-]{36}\\.(jpg|png|gif)");
 
     private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
             "image/png",
@@ -38,11 +105,24 @@ public class PetService {
     );
 
 
-    public PetService(PetRepository petRepository, PetMapper petMapper, UserService userService, SupabaseStorageService supabaseStorageService) {
+    public PetService(PetRepository petRepository, PetMapper petMapper, UserService userService, PetImageStore petImageStore,
+                      PetFilterIndex petFilterIndex, ApplicationEventPublisher eventPublisher, DtoCaches dtoCaches,
+                      PetSearchIndex petSearchIndex, PetGeoIndex petGeoIndex, NearDuplicateIndex nearDuplicateIndex,
+                      ResumableUploadStore resumableUploadStore, PetImageVariantRepository petImageVariantRepository,
+                      PetImagePlaceholderRepository petImagePlaceholderRepository) {
         this.petRepository = petRepository;
         this.userService = userService;
-        this.supabaseStorageService = supabaseStorageService;
+        this.petImageStore = petImageStore;
         this.petMapper = petMapper;
+        this.petFilterIndex = petFilterIndex;
+        this.eventPublisher = eventPublisher;
+        this.dtoCaches = dtoCaches;
+        this.petSearchIndex = petSearchIndex;
+        this.petGeoIndex = petGeoIndex;
+        this.nearDuplicateIndex = nearDuplicateIndex;
+        this.resumableUploadStore = resumableUploadStore;
+        this.petImageVariantRepository = petImageVariantRepository;
+        this.petImagePlaceholderRepository = petImagePlaceholderRepository;
     }
 
 
@@ -53,26 +133,294 @@ public class PetService {
     }
 
     public PetResponseDTO findByIdAsDto(Long id) {
-        return petMapper.toDTO(petRepository.findById(id)
+        return dtoCaches.pet(id, this::loadDto);
+    }
+
+    private PetResponseDTO loadDto(Long id) {
+        PetRow row = petRepository.findRowById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Pet with such Id not found")));
+                        "Pet with such Id not found"));
+        List<String> imageUrls = imageUrlsByPetId(List.of(id)).getOrDefault(id, List.of());
+        return petMapper.toDTO(row, imageUrls, imageDetails(imageUrls));
+    }
+
+    public PetPageDTO findAllByAdoptedFalse(String cursor, Integer limit, PetSort sort) {
+        return findPage(null, null, null, true, cursor, limit, sort);
+    }
+
+    public PetPageDTO findByFilters(Specie specie, Sex sex, Size size, String cursor, Integer limit, PetSort sort) {
+        return findPage(specie, sex, size, false, cursor, limit, sort);
+    }
+
+    public PetFacetsDTO findFacets(Specie specie, Sex sex, Size size) {
+        if (petFilterIndex.isReady()) {
+            return petFilterIndex.facets(specie, sex, size);
+        }
+        return FacetCounts.of(petRepository.countFacets()).facets(specie, sex, size);
+    }
+
+    // Ranked results have no stable key to seek from, so the cursor here is the result offset
+    public PetPageDTO search(String query, Specie specie, Sex sex, Size size, String cursor, Integer limit) {
+        if (query == null || query.isBlank())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be blank");
+        if (!petSearchIndex.isReady())
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is still loading");
+
+        int pageSize = pageSize(limit);
+        Long decoded = decodeCursor(cursor);
+        if (decoded != null && (decoded < 0 || decoded > Integer.MAX_VALUE - MAX_PAGE_SIZE))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        int offset = decoded == null ? 0 : decoded.intValue();
+        Specification<Pet> filter = PetSpecifications.available().and(PetSpecifications.matching(specie, sex, size));
+        RoaringBitmap allowed = allowedPets(specie, sex, size, filter);
+
+        List<Long> ids = petSearchIndex.search(query, allowed, offset, pageSize + 1);
+        String next = null;
+        if (ids.size() > pageSize) {
+            ids = ids.subList(0, pageSize);
+            next = encodeCursor((long) offset + pageSize);
+        }
+        if (ids.isEmpty()) return new PetPageDTO(List.of(), next);
+
+        Map<Long, PetRow> rowsById = petRepository.findRows(filter.and(PetSpecifications.idIn(ids)), Sort.unsorted(), ids.size())
+                .stream()
+                .collect(Collectors.toMap(PetRow::id, row -> row));
+        List<PetRow> rows = ids.stream().map(rowsById::get).filter(Objects::nonNull).toList();
+
+        return new PetPageDTO(toDTOList(rows), next);
+    }
+
+    // Nearest available pets within the radius. Candidates come from the geo index (or, while it
+    // loads, from the bounding box in SQL); rows are loaded with the box and filters re-checked.
+    public List<PetNearbyDTO> findNearby(Double latitude, Double longitude, Double radiusKm, Integer limit,
+                                         Specie specie, Sex sex, Size size) {
+        if (latitude == null || longitude == null || Math.abs(latitude) > 90 || Math.abs(longitude) > 180)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "latitude and longitude are required and must be valid coordinates");
+        double radius = radiusKm == null ? DEFAULT_RADIUS_KM : radiusKm;
+        if (!(radius > 0 && radius <= MAX_RADIUS_KM))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be greater than 0 and at most " + MAX_RADIUS_KM);
+        int pageSize = pageSize(limit);
+
+        GeoBox box = GeoBox.around(latitude, longitude, radius);
+        Specification<Pet> filter = PetSpecifications.available()
+                .and(PetSpecifications.matching(specie, sex, size))
+                .and(PetSpecifications.within(box));
+
+        List<GeoHit> hits;
+        if (petGeoIndex.isReady()) {
+            hits = petGeoIndex.nearest(latitude, longitude, radius, allowedPets(specie, sex, size, filter), pageSize);
+        } else {
+            hits = petRepository.findGeoRows(filter).stream()
+                    .map(row -> new GeoHit(row.id(), GeoBox.distanceKm(latitude, longitude, row.latitude(), row.longitude())))
+                    .filter(hit -> hit.distanceKm() <= radius)
+                    .sorted(Comparator.comparingDouble(GeoHit::distanceKm))
+                    .limit(pageSize)
+                    .toList();
+        }
+        if (hits.isEmpty()) return List.of();
+
+        List<Long> ids = hits.stream().map(GeoHit::id).toList();
+        Map<Long, PetRow> rowsById = petRepository.findRows(filter.and(PetSpecifications.idIn(ids)), Sort.unsorted(), ids.size())
+                .stream()
+                .collect(Collectors.toMap(PetRow::id, row -> row));
+        Map<Long, List<String>> imageUrls = imageUrlsByPetId(List.copyOf(rowsById.keySet()));
+        PetImageDetails details = imageDetails(imageUrls.values().stream().flatMap(List::stream).toList());
+
+        return hits.stream()
+                .filter(hit -> rowsById.containsKey(hit.id()))
+                .map(hit -> new PetNearbyDTO(
+                        petMapper.toDTO(rowsById.get(hit.id()), imageUrls.getOrDefault(hit.id(), List.of()), details),
+                        hit.distanceKm()))
+                .toList();
+    }
+
+    // The available pets matching the filters, which the ranked and nearest-k indexes pick from. While the filter
+    // index loads they come from SQL instead, through the caller's filter (which may narrow them further), so
+    // adopted or non-matching pets never take a slot and come back filtered out of a short page, and an offset
+    // cursor counts the same hits whichever source answered.
+    private RoaringBitmap allowedPets(Specie specie, Sex sex, Size size, Specification<Pet> filter) {
+        if (petFilterIndex.isReady()) return petFilterIndex.match(specie, sex, size, true);
+        RoaringBitmap allowed = new RoaringBitmap();
+        petRepository.findIds(filter).forEach(id -> allowed.add(Math.toIntExact(id)));
+        return allowed;
+    }
+
+    private PetPageDTO findPage(Specie specie, Sex sex, Size size, boolean onlyAvailable,
+                                String cursor, Integer limit, PetSort sort) {
+        PetSort order = sort == null ? PetSort.NEWEST : sort;
+        int pageSize = pageSize(limit);
+        Long after = decodeCursor(cursor);
+        Specification<Pet> filter = PetSpecifications.matching(specie, sex, size);
+        if (onlyAvailable) filter = filter.and(PetSpecifications.available());
+
+        // one extra row tells us whether a next page exists without a count query
+        List<PetRow> rows;
+        String next = null;
+        if (petFilterIndex.isReady()) {
+            List<Long> ids = petFilterIndex.page(specie, sex, size, onlyAvailable, after, order, pageSize + 1);
+            if (ids.size() > pageSize) {
+                ids = ids.subList(0, pageSize);
+                next = encodeCursor(ids.get(pageSize - 1));
+            }
+            // the filter is re-applied so a pet changed since the index was updated is not returned
+            rows = ids.isEmpty()
+                    ? List.of()
+                    : petRepository.findRows(filter.and(PetSpecifications.idIn(ids)), order.toSort(), ids.size());
+        } else {
+            rows = petRepository.findRows(filter.and(PetSpecifications.after(after, order)), order.toSort(), pageSize + 1);
+            if (rows.size() > pageSize) {
+                rows = rows.subList(0, pageSize);
+                next = encodeCursor(rows.get(pageSize - 1).id());
+            }
+        }
+
+        return new PetPageDTO(toDTOList(rows), next);
+    }
+
+    private List<PetResponseDTO> toDTOList(List<PetRow> rows) {
+        Map<Long, List<String>> imageUrls = imageUrlsByPetId(rows.stream().map(PetRow::id).toList());
+        return petMapper.toDTOList(rows, imageUrls,
+                imageDetails(imageUrls.values().stream().flatMap(List::stream).toList()));
+    }
+
+    private Map<Long, List<String>> imageUrlsByPetId(List<Long> petIds) {
+        if (petIds.isEmpty()) return Map.of();
+        return petRepository.findImageRows(petIds).stream()
+                .collect(Collectors.groupingBy(PetImageRow::petId,
+                        Collectors.mapping(PetImageRow::url, Collectors.toList())));
+    }
+
+    // one query each for the variants and placeholders of every image on the page; images still in the
+    // pipeline have neither
+    private PetImageDetails imageDetails(List<String> imageUrls) {
+        if (imageUrls == null || imageUrls.isEmpty()) return PetImageDetails.none();
+        Set<String> urls = Set.copyOf(imageUrls);
+        return petMapper.toImageDetails(petImageVariantRepository.findAllBySourceUrlIn(urls),
+                petImagePlaceholderRepository.findAllBySourceUrlIn(urls));
+    }
+
+    private static void requireBothOrNeither(Double latitude, Double longitude) {
+        if ((latitude == null) != (longitude == null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "latitude and longitude must be sent together");
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) return DEFAULT_PAGE_SIZE;
+        if (limit < 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be greater than zero");
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
 
-    public List<PetResponseDTO> findAllByAdoptedFalse() {
-        List<Pet> pets = petRepository.findAllByAdoptedFalse();
-        return petMapper.toDTOList(pets);
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
     }
 
-    public List<PetResponseDTO> findByFilters(Specie specie, Sex sex, Size size) {
-        return petMapper.toDTOList(petRepository.findByFilters(specie, sex, size));
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
     }
 
     @Transactional
     public Pet save(Pet pet) {
-        return petRepository.save(pet);
+        Pet saved = petRepository.save(pet);
+        eventPublisher.publishEvent(PetChangedEvent.saved(saved));
+        return saved;
     }
 
     public PetResponseDTO registerNewPet(RegisterPetDTO dto, List<MultipartFile> images, User user) throws IOException {
+        Pet pet = newPet(dto, user);
+        return persistNew(pet, processImages(images));
+    }
+
+    // second step of a direct upload: the images are already in storage, so only their metadata is checked
+    public PetResponseDTO registerNewPetFromUploads(RegisterPetDTO dto, List<String> imageKeys, User user) {
+        Pet pet = newPet(dto, user);
+        return persistNew(pet, claimUploads(imageKeys, user));
+    }
+
+    public List<UploadTargetDTO> createUploads(List<String> contentTypes, User user) {
+        if (contentTypes == null || contentTypes.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one image is required");
+        }
+        if (contentTypes.size() > MAX_IMAGES)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "each pet has a limit of 4 images");
+
+        List<UploadTargetDTO> targets = new ArrayList<>(contentTypes.size());
+        for (String contentType : contentTypes) {
+            if (!ALLOWED_CONTENT_TYPES.contains(contentType)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file type: " + contentType);
+            }
+            String key = "uploads/" + user.getId() + "/" + UUID.randomUUID() + PetImageStore.extensionOf(contentType);
+            SignedUpload upload = petImageStore.signUpload(key);
+            targets.add(new UploadTargetDTO(key, upload.url(), "PUT", upload.expiresAt()));
+        }
+        return targets;
+    }
+
+    public ResumableUploadDTO createResumableUpload(String contentType, long length, User user) {
+        if (!ALLOWED_CONTENT_TYPES.contains(contentType)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file type: " + contentType);
+        }
+        if (length <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "image length must be positive");
+        }
+        if (length > MAX_IMAGE_BYTES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "image file is too big");
+        }
+        String key = "uploads/" + user.getId() + "/" + UUID.randomUUID() + PetImageStore.extensionOf(contentType);
+        return toDto(resumableUploadStore.create(user.getId(), key, contentType, length, MAX_RESUMABLE_UPLOADS_PER_USER));
+    }
+
+    public ResumableUploadDTO findResumableUpload(String id, User user) {
+        return toDto(resumableUpload(id, user));
+    }
+
+    public ResumableUploadDTO appendResumableUpload(String id, long offset, InputStream chunk, User user) throws IOException {
+        UploadSession session = resumableUpload(id, user);
+        resumableUploadStore.append(session, offset, chunk);
+        return toDto(session);
+    }
+
+    // the header is checked before the bytes go to storage; a file that is not the declared image is dropped
+    public ResumableUploadDTO completeResumableUpload(String id, User user) {
+        UploadSession session = resumableUpload(id, user);
+        if (session.getOffset() == session.getLength()) {
+            try {
+                checkImage(resumableUploadStore.sniff(session), session.getContentType(), session.getKey());
+            } catch (ResponseStatusException e) {
+                resumableUploadStore.abort(session);
+                throw e;
+            }
+        }
+        resumableUploadStore.complete(session);
+        return toDto(session);
+    }
+
+    public void abortResumableUpload(String id, User user) {
+        resumableUploadStore.abort(resumableUpload(id, user));
+    }
+
+    private UploadSession resumableUpload(String id, User user) {
+        UploadSession session = resumableUploadStore.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found: " + id));
+        if (session.getUserId() != user.getId()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upload belongs to another user: " + id);
+        }
+        return session;
+    }
+
+    private ResumableUploadDTO toDto(UploadSession session) {
+        return new ResumableUploadDTO(session.getId(), session.getKey(), session.getOffset(), session.getLength(),
+                Instant.now().plus(resumableUploadStore.getTtl()));
+    }
+
+    private Pet newPet(RegisterPetDTO dto, User user) {
+        requireBothOrNeither(dto.latitude(), dto.longitude());
         Pet pet = petMapper.toEntity(dto, user);
 
         if (petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
@@ -84,29 +432,84 @@ public class PetService {
                 dto.sex())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "User already registered a pet with identical attributes");
         }
+        return pet;
+    }
 
-        List<String> imageUrls = processImages(images);
+    // The image references were taken by PetImageStore in transactions of their own, before this save. A crash in
+    // between leaves them counted with no pet behind them: their objects are then kept, never deleted early.
+    private PetResponseDTO persistNew(Pet pet, List<String> imageUrls) {
         pet.setImageUrls(imageUrls);
 
-        petRepository.save(pet);
+        try {
+            petRepository.save(pet);
+        } catch (RuntimeException e) {
+            petImageStore.release(imageUrls);
+            throw e;
+        }
+        eventPublisher.publishEvent(PetChangedEvent.saved(pet));
 
         return petMapper.toDTO(pet);
     }
 
-    private List<String> processImages(List<MultipartFile> images) throws IOException {
-        List<String> imageUrls = new ArrayList<>();
+    private List<String> claimUploads(List<String> keys, User user) {
+        if (keys == null || keys.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one image is required");
+        }
+        if (keys.size() > MAX_IMAGES)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "each pet has a limit of 4 images");
+
+        Set<String> seen = new HashSet<>();
+        Map<String, StoredObject> uploads = new LinkedHashMap<>();
+        for (String key : keys) {
+            Matcher matcher = key == null ? null : UPLOAD_KEY.matcher(key);
+            if (matcher == null || !matcher.matches()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid upload key: " + key);
+            }
+            if (!matcher.group(1).equals(String.valueOf(user.getId()))) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upload " + key + " belongs to another user");
+            }
+            if (!seen.add(key)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "duplicate file detected: " + key);
+            }
+
+            StoredObject object = petImageStore.stat(key)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload not found: " + key));
+            if (object.size() > MAX_IMAGE_BYTES)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "image file " + key + " is too big");
+            if (!ALLOWED_CONTENT_TYPES.contains(object.contentType())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file type: " + key);
+            }
+            checkImage(petImageStore.sniff(key), object.contentType(), key);
+            uploads.put(petImageStore.publicUrl(key), object);
+        }
+
+        // Each upload backs exactly one pet, which is what lets release() delete it with that pet. The lookup
+        // covers pets from before claims were recorded; the claim rows settle concurrent registrations.
+        List<String> urls = List.copyOf(uploads.keySet());
+        if (petRepository.existsByImageUrlIn(urls)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload already used by another pet");
+        }
+        try {
+            petImageStore.claim(uploads);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload already used by another pet");
+        }
+        return urls;
+    }
 
+    private List<String> processImages(List<MultipartFile> images) throws IOException {
         if(images == null || images.isEmpty()){
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one image is required");
         }
 
-        if (images.size() > 4)
+        if (images.size() > MAX_IMAGES)
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "each pet has a limit of 4 images");
 
         Set<String> hashes = new HashSet<>();
+        List<HashedImage> hashed = new ArrayList<>(images.size());
 
         for (MultipartFile image : images) {
-            if (image.getSize() > 10 * 1024 * 1024)
+            if (image.getSize() > MAX_IMAGE_BYTES)
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         "image file " + image.getOriginalFilename() + " is too big");
 
@@ -114,18 +517,45 @@ public class PetService {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         "Invalid file type: " + image.getOriginalFilename());
             }
+            Optional<ImageHeader> header;
+            try (InputStream in = image.getInputStream()) {
+                header = ImageSniffer.sniff(in);
+            }
+            checkImage(header, image.getContentType(), image.getOriginalFilename());
 
-            String hash = DigestUtils.md5DigestAsHex(image.getBytes());
+            String hash = PetImageStore.contentHash(image);
             if (!hashes.add(hash)) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         "duplicate file detected: " + image.getOriginalFilename());
             }
 
-            String url = supabaseStorageService.uploadFile("pet-images", image);
-            imageUrls.add(url);
+            OptionalLong perceptualHash;
+            try (InputStream in = image.getInputStream()) {
+                perceptualHash = PerceptualHash.of(in);
+            }
+            if (perceptualHash.isPresent() && nearDuplicateIndex.rejects(hash, perceptualHash.getAsLong(),
+                    image.getOriginalFilename())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "image " + image.getOriginalFilename() + " looks like one already in the catalogue");
+            }
+            hashed.add(new HashedImage(image, hash,
+                    perceptualHash.isPresent() ? perceptualHash.getAsLong() : null));
         }
 
-        return imageUrls;
+        return petImageStore.store(hashed);
+    }
+
+    // The declared type is only a claim; the magic bytes decide, and the header must fit the pixel limits.
+    private static void checkImage(Optional<ImageHeader> header, String declaredType, String name) {
+        String declared = "image/jpg".equals(declaredType) ? "image/jpeg" : declaredType;
+        if (header.isEmpty() || !header.get().contentType().equals(declared)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file type: " + name);
+        }
+        ImageHeader image = header.get();
+        if (image.width() > MAX_IMAGE_SIDE || image.height() > MAX_IMAGE_SIDE
+                || (long) image.width() * image.height() > MAX_IMAGE_PIXELS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "image file " + name + " has too many pixels");
+        }
     }
 
     public boolean isPetFromLoggedUser(Long id, Principal principal) {
@@ -135,6 +565,7 @@ public class PetService {
 
     @Transactional
     public PetResponseDTO updatePet(Long id, UpdatePetDTO dto, Principal principal) {
+        requireBothOrNeither(dto.latitude(), dto.longitude());
         Pet pet = this.findById(id);
         User user = (User) userService.findByEmail(principal.getName());
 
@@ -148,9 +579,12 @@ public class PetService {
         pet.setDescription(dto.description());
         pet.setSpecie(dto.specie());
         pet.setSize(dto.size());
+        pet.setLatitude(dto.latitude());
+        pet.setLongitude(dto.longitude());
 
         petRepository.save(pet);
-        return petMapper.toDTO(pet);
+        eventPublisher.publishEvent(PetChangedEvent.saved(pet));
+        return petMapper.toDTO(pet, imageDetails(pet.getImageUrls()));
     }
 
     @Transactional
@@ -167,7 +601,8 @@ public class PetService {
         List<String> urls = new ArrayList<>(pet.getImageUrls());
 
         petRepository.delete(pet);
+        eventPublisher.publishEvent(PetChangedEvent.removed(pet));
 
-        supabaseStorageService.deleteAllByPublicUrls("pet-images", urls);
+        petImageStore.release(urls);
     }
 }
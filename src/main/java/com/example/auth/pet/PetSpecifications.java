@@ -0,0 +1,58 @@
+package com.example.auth.pet;
+
+import com.example.auth.pet.enums.PetSort;
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+import com.example.auth.pet.index.GeoBox;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+// Only the filters that were supplied end up in the WHERE clause, so the planner
+// can use the composite indexes instead of evaluating (:param IS NULL OR ...) per row.
+public final class PetSpecifications {
+
+    private PetSpecifications() {
+    }
+
+    public static Specification<Pet> available() {
+        return (root, query, cb) -> cb.isFalse(root.get("adopted"));
+    }
+
+    public static Specification<Pet> matching(Specie specie, Sex sex, Size size) {
+        return Specification.where(equalTo("specie", specie))
+                .and(equalTo("sex", sex))
+                .and(equalTo("size", size));
+    }
+
+    public static Specification<Pet> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    // bounding-box prefilter served by idx_pet_location; pets without a location never match
+    public static Specification<Pet> within(GeoBox box) {
+        return (root, query, cb) -> {
+            Predicate latitude = cb.between(root.get("latitude"), box.minLatitude(), box.maxLatitude());
+            Predicate longitude = box.crossesAntimeridian()
+                    ? cb.or(cb.greaterThanOrEqualTo(root.get("longitude"), box.minLongitude()),
+                            cb.lessThanOrEqualTo(root.get("longitude"), box.maxLongitude()))
+                    : cb.between(root.get("longitude"), box.minLongitude(), box.maxLongitude());
+            return cb.and(latitude, longitude);
+        };
+    }
+
+    // keyset predicate: rows strictly after the given id in the requested order
+    public static Specification<Pet> after(Long id, PetSort sort) {
+        if (id == null) return null;
+        return (root, query, cb) -> sort == PetSort.OLDEST
+                ? cb.greaterThan(root.get("id"), id)
+                : cb.lessThan(root.get("id"), id);
+    }
+
+    private static Specification<Pet> equalTo(String attribute, Object value) {
+        if (value == null) return null;
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.auth.pet.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.springframework.http.MediaType;
+
+@JsonFormat(shape = JsonFormat.Shape.STRING)
+public enum ExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    @JsonCreator
+    public static ExportFormat fromString(String value) {
+        return value == null ? null : ExportFormat.valueOf(value.toUpperCase());
+    }
+}
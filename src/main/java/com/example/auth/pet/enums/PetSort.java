@@ -0,0 +1,30 @@
+package com.example.auth.pet.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.springframework.data.domain.Sort;
+
+@JsonFormat(shape = JsonFormat.Shape.STRING)
+public enum PetSort {
+    NEWEST(Sort.Direction.DESC),
+    OLDEST(Sort.Direction.ASC);
+
+    private final Sort.Direction direction;
+
+    PetSort(Sort.Direction direction) {
+        this.direction = direction;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Sort toSort() {
+        return Sort.by(direction, "id");
+    }
+
+    @JsonCreator
+    public static PetSort fromString(String value) {
+        return value == null ? null : PetSort.valueOf(value.toUpperCase());
+    }
+}
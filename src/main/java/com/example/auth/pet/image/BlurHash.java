@@ -0,0 +1,104 @@
+package com.example.auth.pet.image;
+
+import java.awt.image.BufferedImage;
+
+// BlurHash (https://blurha.sh): the image as a few cosine components in linear light, packed into a short
+// base 83 string. Clients decode it into a blurred placeholder while the image itself loads.
+public final class BlurHash {
+
+    private static final String DIGITS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+    private static final int COMPONENTS_X = 4;
+    private static final int COMPONENTS_Y = 3;
+    // the components are smooth, so a thumbnail this wide gives the same hash as the full image
+    private static final int SAMPLE_SIDE = 32;
+
+    private BlurHash() {
+    }
+
+    public static String encode(BufferedImage image) {
+        double ratio = Math.min(1.0, (double) SAMPLE_SIDE / Math.max(image.getWidth(), image.getHeight()));
+        BufferedImage sample = ImageVariants.scale(image,
+                Math.max(1, (int) Math.round(image.getWidth() * ratio)),
+                Math.max(1, (int) Math.round(image.getHeight() * ratio)), BufferedImage.TYPE_INT_RGB);
+
+        int width = sample.getWidth();
+        int height = sample.getHeight();
+        int[] pixels = sample.getRGB(0, 0, width, height, null, 0, width);
+        double[][] linear = new double[pixels.length][];
+        for (int i = 0; i < pixels.length; i++) {
+            linear[i] = new double[]{
+                    toLinear(pixels[i] >> 16 & 0xFF), toLinear(pixels[i] >> 8 & 0xFF), toLinear(pixels[i] & 0xFF)};
+        }
+
+        double[][] factors = new double[COMPONENTS_X * COMPONENTS_Y][];
+        for (int j = 0; j < COMPONENTS_Y; j++) {
+            for (int i = 0; i < COMPONENTS_X; i++) {
+                factors[j * COMPONENTS_X + i] = component(linear, width, height, i, j);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        append(hash, (COMPONENTS_X - 1) + (COMPONENTS_Y - 1) * 9, 1);
+
+        double maximum = 0;
+        for (int k = 1; k < factors.length; k++) {
+            for (double value : factors[k]) maximum = Math.max(maximum, Math.abs(value));
+        }
+        int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(maximum * 166 - 0.5)));
+        double maximumValue = (quantisedMaximum + 1) / 166.0;
+        append(hash, factors.length > 1 ? quantisedMaximum : 0, 1);
+
+        double[] dc = factors[0];
+        append(hash, toSrgb(dc[0]) << 16 | toSrgb(dc[1]) << 8 | toSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            append(hash, quantise(ac[0], maximumValue) * 19 * 19 + quantise(ac[1], maximumValue) * 19
+                    + quantise(ac[2], maximumValue), 2);
+        }
+        return hash.toString();
+    }
+
+    private static double[] component(double[][] linear, int width, int height, int i, int j) {
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        for (int y = 0; y < height; y++) {
+            double basisY = Math.cos(Math.PI * j * y / height);
+            for (int x = 0; x < width; x++) {
+                double basis = Math.cos(Math.PI * i * x / width) * basisY;
+                double[] pixel = linear[y * width + x];
+                r += basis * pixel[0];
+                g += basis * pixel[1];
+                b += basis * pixel[2];
+            }
+        }
+        double scale = (i == 0 && j == 0 ? 1.0 : 2.0) / (width * height);
+        return new double[]{r * scale, g * scale, b * scale};
+    }
+
+    private static int quantise(double value, double maximumValue) {
+        double normalised = value / maximumValue;
+        double root = Math.copySign(Math.sqrt(Math.abs(normalised)), normalised);
+        return (int) Math.max(0, Math.min(18, Math.floor(root * 9 + 9.5)));
+    }
+
+    private static double toLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int toSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void append(StringBuilder hash, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int divisor = (int) Math.pow(83, length - i);
+            hash.append(DIGITS.charAt(value / divisor % 83));
+        }
+    }
+}
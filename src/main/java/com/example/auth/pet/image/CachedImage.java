@@ -0,0 +1,7 @@
+package com.example.auth.pet.image;
+
+import java.nio.file.Path;
+
+// a copy of a stored image in the proxy's disk cache; etag is the quoted SHA-256 of the bytes
+public record CachedImage(Path file, long size, String contentType, String etag) {
+}
@@ -0,0 +1,7 @@
+package com.example.auth.pet.image;
+
+import org.springframework.web.multipart.MultipartFile;
+
+// perceptualHash is null when the image could not be decoded
+public record HashedImage(MultipartFile file, String hash, Long perceptualHash) {
+}
@@ -0,0 +1,46 @@
+package com.example.auth.pet.image;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageCleanupTaskRepository extends JpaRepository<ImageCleanupTask, Long> {
+
+    @Query("SELECT t.id FROM ImageCleanupTask t WHERE t.nextAttemptAt <= :now ORDER BY t.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") Instant now, Pageable pageable);
+
+    // Pushes the rows out of the due window while they are worked on. Only rows that are still due get the
+    // token, so two workers that picked the same ids never both process a row; a crashed worker's rows come
+    // back once the lease runs out.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ImageCleanupTask t SET t.leaseToken = :token, t.nextAttemptAt = :leaseUntil " +
+            "WHERE t.id IN :ids AND t.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") Instant now,
+              @Param("leaseUntil") Instant leaseUntil);
+
+    List<ImageCleanupTask> findAllByLeaseToken(String leaseToken);
+
+    @Query("SELECT DISTINCT t.url FROM ImageCleanupTask t WHERE t.url IN :urls")
+    List<String> findQueuedUrls(@Param("urls") Collection<String> urls);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImageCleanupTask t WHERE t.id IN :ids")
+    int deleteDone(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImageCleanupTask t SET t.attempts = t.attempts + 1, t.nextAttemptAt = :nextAttemptAt, " +
+            "t.leaseToken = null, t.lastError = :error WHERE t.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+}
@@ -0,0 +1,213 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.infra.storage.DeleteResult;
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.PetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Drains the image_cleanup_task outbox. Storage is only called here, after the deleting transaction has
+// committed, so delete endpoints never wait on it and an object is only forgotten once storage confirms.
+// Content-addressed objects are first marked deleting in a short transaction; storage is then called with no
+// transaction open and a second one clears the marks. A registration of the same content meanwhile is refused
+// instead of uploading an object the delete could still remove, and revives the tombstone once it is cleared.
+@Component
+public class ImageCleanupWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageCleanupWorker.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int WARN_AFTER_ATTEMPTS = 10;
+    private static final Pattern CONTENT_KEY = Pattern.compile("([0-9a-f]{64})(\\.[a-z]+)?");
+
+    private final ImageCleanupTaskRepository taskRepository;
+    private final PetRepository petRepository;
+    private final PetImageRepository petImageRepository;
+    private final PetImageVariantRepository variantRepository;
+    private final StorageService storageService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration deleteDeadline;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter deleted;
+    private final Counter failed;
+
+    public ImageCleanupWorker(ImageCleanupTaskRepository taskRepository,
+                              PetRepository petRepository,
+                              PetImageRepository petImageRepository,
+                              PetImageVariantRepository variantRepository,
+                              StorageService storageService,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${storage.cleanup.batch-size:100}") int batchSize,
+                              @Value("${storage.cleanup.lease:5m}") Duration lease,
+                              @Value("${storage.cleanup.initial-backoff:30s}") Duration initialBackoff,
+                              @Value("${storage.cleanup.max-backoff:1h}") Duration maxBackoff,
+                              @Value("${storage.resilience.deadline.delete:10s}") Duration deleteDeadline) {
+        this.taskRepository = taskRepository;
+        this.petRepository = petRepository;
+        this.petImageRepository = petImageRepository;
+        this.variantRepository = variantRepository;
+        this.storageService = storageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.deleteDeadline = deleteDeadline;
+        this.deleted = meterRegistry.counter("pet.image.cleanup", "outcome", "deleted");
+        this.failed = meterRegistry.counter("pet.image.cleanup", "outcome", "failed");
+    }
+
+    // keeps taking batches while they come back full, so a burst of deletions drains in one run
+    @Scheduled(fixedDelayString = "${storage.cleanup.interval:PT5S}")
+    public void drain() {
+        while (drainBatch() == batchSize) {
+            // next batch
+        }
+    }
+
+    // returns how many tasks were claimed
+    int drainBatch() {
+        Instant now = Instant.now();
+        List<Long> due = taskRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) return 0;
+
+        String token = UUID.randomUUID().toString();
+        if (taskRepository.claim(due, token, now, now.plus(lease)) == 0) return 0;
+        List<ImageCleanupTask> tasks = taskRepository.findAllByLeaseToken(token);
+
+        String prefix = storageService.publicUrl(PetImageStore.BUCKET, "");
+        addTombstones(tasks, prefix);
+        List<Long> done = new ArrayList<>();
+        Map<String, List<ImageCleanupTask>> byPath = new LinkedHashMap<>();
+        List<String> deleting = transactionTemplate.execute(status -> {
+            Set<String> inUse = inUse(tasks);
+            for (ImageCleanupTask task : tasks) {
+                if (inUse.contains(task.getUrl())) {
+                    log.info("skipping cleanup of {}: it is referenced again", task.getUrl());
+                    done.add(task.getId());
+                } else if (task.getUrl().startsWith(prefix)) {
+                    byPath.computeIfAbsent(task.getUrl().substring(prefix.length()), path -> new ArrayList<>()).add(task);
+                } else {
+                    // another backend's url can never be deleted from this one; retrying would only spin
+                    log.warn("dropping cleanup of {}: not an url of bucket {}", task.getUrl(), PetImageStore.BUCKET);
+                    done.add(task.getId());
+                }
+            }
+            List<String> urls = byPath.values().stream().flatMap(List::stream).map(ImageCleanupTask::getUrl).distinct().toList();
+            if (!urls.isEmpty()) petImageRepository.markDeleting(urls);
+            return urls;
+        });
+
+        Map<String, DeleteResult> results = delete(byPath.keySet());
+
+        // whatever storage answered, the rows go back to plain tombstones: a failed delete is retried under a new
+        // mark, and a registration may revive the row and upload the content again
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!deleting.isEmpty()) petImageRepository.clearDeleting(deleting);
+            for (Map.Entry<String, List<ImageCleanupTask>> entry : byPath.entrySet()) {
+                DeleteResult result = results.get(entry.getKey());
+                for (ImageCleanupTask task : entry.getValue()) {
+                    if (result != null && result.deleted()) {
+                        done.add(task.getId());
+                        deleted.increment();
+                    } else {
+                        retryLater(task, result == null ? "no result from storage" : result.error());
+                        failed.increment();
+                    }
+                }
+            }
+            if (!done.isEmpty()) taskRepository.deleteDone(done);
+        });
+        return tasks.size();
+    }
+
+    // Called with no transaction open. Each storage batch gives up at the delete deadline on its own; the wait here
+    // only guards against a backend that ignores it, so a stuck call cannot keep the rows marked for long.
+    private Map<String, DeleteResult> delete(Set<String> paths) {
+        if (paths.isEmpty()) return Map.of();
+        try {
+            return storageService.deleteFilesAsync(PetImageStore.BUCKET, new ArrayList<>(paths))
+                    .blockOptional(deleteDeadline.plusSeconds(1))
+                    .orElse(List.of())
+                    .stream()
+                    .collect(Collectors.toMap(DeleteResult::filePath, result -> result, (a, b) -> a.deleted() ? b : a));
+        } catch (RuntimeException e) {
+            log.warn("image cleanup batch failed: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    // A content-addressed object without a row (an upload that never got one, an orphan found by the collector)
+    // gets a tombstone first, so it is marked deleting like the others. An insert that loses the race against a
+    // registration is fine: that row is checked instead.
+    private void addTombstones(List<ImageCleanupTask> tasks, String prefix) {
+        Instant now = Instant.now();
+        for (ImageCleanupTask task : tasks) {
+            if (!task.getUrl().startsWith(prefix)) continue;
+            Matcher matcher = CONTENT_KEY.matcher(task.getUrl().substring(prefix.length()));
+            if (!matcher.matches()) continue;
+            try {
+                petImageRepository.insertTombstone(matcher.group(1), task.getUrl(), now);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("{} got a pet_image row concurrently", task.getUrl());
+            }
+        }
+    }
+
+    // Content-addressed keys can be uploaded again after their object was queued, and the orphan collector
+    // may queue an object just before a registration reuses it; those are kept, as are variants rendered again.
+    // The rows stay locked until the unreferenced ones are marked deleting, so no reference slips in between.
+    private Set<String> inUse(List<ImageCleanupTask> tasks) {
+        List<String> urls = tasks.stream().map(ImageCleanupTask::getUrl).distinct().toList();
+        Set<String> inUse = new HashSet<>(petRepository.findReferencedImageUrls(urls));
+        petImageRepository.lockAllByUrlIn(urls).stream()
+                .filter(image -> image.getRefCount() > 0)
+                .forEach(image -> inUse.add(image.getUrl()));
+        inUse.addAll(variantRepository.findExistingUrls(urls));
+        return inUse;
+    }
+
+    private void retryLater(ImageCleanupTask task, String error) {
+        int attempts = task.getAttempts() + 1;
+        if (attempts >= WARN_AFTER_ATTEMPTS) {
+            log.warn("could not delete {} after {} attempts: {}", task.getUrl(), attempts, error);
+        }
+        String lastError = error == null ? null : error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+        taskRepository.reschedule(task.getId(), Instant.now().plus(backoff(attempts)), lastError);
+    }
+
+    // exponential with jitter between half and the full delay, so tasks that failed together spread out
+    Duration backoff(int attempts) {
+        long base = initialBackoff.toMillis();
+        long max = maxBackoff.toMillis();
+        long delay = Math.max(1, Math.min(max, base << Math.min(attempts - 1, 30)));
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.infra.storage.StorageService;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Bounded disk cache of pet images for the /images proxy. The index is a Caffeine cache weighed by file size,
+// so eviction follows the same policy as the DTO caches and the file goes with its entry. Loads go through an
+// AsyncCache: concurrent misses of one key share the same future and storage is read once. A reader gets the
+// path and opens it later, when the response is written, so an evicted file is only deleted after a grace period,
+// and every load writes a file of its own so that deletion never hits a later copy of the same key.
+@Component
+@ConditionalOnProperty(name = "images.proxy.enabled", havingValue = "true")
+public class ImageDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDiskCache.class);
+
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9._-]+(/[A-Za-z0-9._-]+)*");
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+
+    private final StorageService storageService;
+    private final Path directory;
+    private final Duration evictedFileGrace;
+    private final AsyncCache<String, CachedImage> cache;
+
+    public ImageDiskCache(StorageService storageService, MeterRegistry meterRegistry,
+                          @Value("${images.proxy.cache-dir:./image-cache}") String directory,
+                          @Value("${images.proxy.max-size:1GB}") DataSize maxSize,
+                          @Value("${images.proxy.evicted-file-grace:1m}") Duration evictedFileGrace) throws IOException {
+        this.storageService = storageService;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.evictedFileGrace = evictedFileGrace;
+        Files.createDirectories(this.directory);
+        // the index lives in memory, so files left by a previous run are unknown and only take space
+        clear(this.directory);
+
+        // Loads read from storage, so they run on boundedElastic like the other blocking storage calls. The disk
+        // holds up to the limit plus what was evicted within the grace period; a reader that opened a file before
+        // its deletion keeps reading it.
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedImage image) -> (int) Math.min(image.size(), Integer.MAX_VALUE))
+                .executor(task -> Schedulers.boundedElastic().schedule(task))
+                .evictionListener((String key, CachedImage image, RemovalCause cause) -> {
+                    if (image != null) deleteLater(image.file());
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "imageProxy");
+    }
+
+    public static boolean isValidKey(String key) {
+        return key != null && KEY.matcher(key).matches() && !key.contains("..");
+    }
+
+    // completes with null when storage has no such object
+    public CompletableFuture<CachedImage> get(String key) {
+        if (!isValidKey(key)) return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<CachedImage> cached = cache.getIfPresent(key);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            CachedImage image = cached.join();
+            // evicted from under a reader or removed by hand; load it again
+            if (image != null && !Files.isRegularFile(image.file())) cache.synchronous().invalidate(key);
+        }
+        return cache.get(key, (k, executor) -> CompletableFuture.supplyAsync(() -> load(k), executor));
+    }
+
+    CachedImage load(String key) {
+        Resource resource = storageService.openFile(PetImageStore.BUCKET, key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, ".fill-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = 0;
+            try (InputStream in = new DigestInputStream(resource.getInputStream(), digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+
+            Path file = directory.resolve(fileName(key) + "-" + UUID.randomUUID());
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            String contentType = MediaTypeFactory.getMediaType(key)
+                    .map(MediaType::toString)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            return new CachedImage(file, size, contentType, "\"" + HexFormat.of().formatHex(digest.digest()) + "\"");
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (temp != null) deleteQuietly(temp);
+        }
+    }
+
+    // keys may nest and contain characters a file system dislikes; their hash is a flat, safe name
+    private static String fileName(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteLater(Path file) {
+        Schedulers.boundedElastic().schedule(() -> deleteQuietly(file), evictedFileGrace.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void clear(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile).forEach(ImageDiskCache::deleteQuietly);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("could not delete cached image {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.auth.pet.image;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "image_gc_checkpoint")
+public class ImageGcCheckpoint {
+
+    @Id
+    private String bucket;
+
+    @Column(length = 1024)
+    private String nextCursor;
+
+    private Instant lockedUntil;
+
+    private Instant passStartedAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    public ImageGcCheckpoint() {
+    }
+
+    public ImageGcCheckpoint(String bucket, Instant updatedAt) {
+        this.bucket = bucket;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public Instant getPassStartedAt() {
+        return passStartedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
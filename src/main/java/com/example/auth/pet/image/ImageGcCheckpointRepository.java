@@ -0,0 +1,38 @@
+package com.example.auth.pet.image;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface ImageGcCheckpointRepository extends JpaRepository<ImageGcCheckpoint, String> {
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ImageGcCheckpoint c SET c.lockedUntil = :until, c.updatedAt = :now " +
+            "WHERE c.bucket = :bucket AND (c.lockedUntil IS NULL OR c.lockedUntil < :now)")
+    int lock(@Param("bucket") String bucket, @Param("now") Instant now, @Param("until") Instant until);
+
+    // also extends the lock, so a long run keeps it as long as it makes progress
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ImageGcCheckpoint c SET c.nextCursor = :cursor, c.lockedUntil = :until, c.updatedAt = :now " +
+            "WHERE c.bucket = :bucket")
+    int advance(@Param("bucket") String bucket, @Param("cursor") String cursor, @Param("now") Instant now,
+                @Param("until") Instant until);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ImageGcCheckpoint c SET c.passStartedAt = :now, c.updatedAt = :now WHERE c.bucket = :bucket")
+    int startPass(@Param("bucket") String bucket, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ImageGcCheckpoint c SET c.lockedUntil = null WHERE c.bucket = :bucket")
+    int unlock(@Param("bucket") String bucket);
+}
@@ -0,0 +1,5 @@
+package com.example.auth.pet.image;
+
+// what the first bytes of an image say about it, whatever the client declared
+public record ImageHeader(String contentType, int width, int height) {
+}
@@ -0,0 +1,73 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.infra.storage.Sendfile;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+@RestController
+@RequestMapping("/images")
+@ConditionalOnProperty(name = "images.proxy.enabled", havingValue = "true")
+@Tag(name = "Images", description = "Pet images served from the node's disk cache")
+public class ImageProxyController {
+
+    // objects never change under a key once written, so browsers and CDNs may keep them for good
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final ImageDiskCache imageCache;
+
+    public ImageProxyController(ImageDiskCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
+    // The key is the object path in the pet-images bucket, the part of an image url after the bucket name.
+    @GetMapping("/{*key}")
+    @Operation(summary = "Read a pet image through the cache",
+            description = "Supports Range requests and If-None-Match against the strong ETag.")
+    public ResponseEntity<Resource> read(@PathVariable String key, @RequestHeader HttpHeaders headers,
+                                         HttpServletRequest request) throws IOException {
+        CachedImage image;
+        try {
+            image = imageCache.get(key.substring(1)).join();
+        } catch (CompletionException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Could not load image from storage");
+        }
+        if (image == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Image not found");
+        }
+
+        if (headers.getIfNoneMatch().stream().anyMatch(tag -> tag.equals(image.etag()) || tag.equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(image.etag()).cacheControl(IMMUTABLE).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(image.contentType()))
+                .eTag(image.etag())
+                .cacheControl(IMMUTABLE)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (headers.getRange().isEmpty() && Sendfile.isSupported(request)) {
+            Sendfile.send(request, image.file().toFile(), image.size());
+            return response.contentLength(image.size()).build();
+        }
+        return response.body(new FileSystemResource(image.file()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.auth.pet.image;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+// Recognizes JPEG, PNG and GIF by their magic bytes and reads the dimensions from the header, without
+// decoding pixels. At most MAX_HEADER_BYTES are read, so a fake or oversized image is turned away after
+// its first bytes whatever the size of the file.
+public final class ImageSniffer {
+
+    // a JPEG may carry EXIF (up to 64KB per segment) and ICC segments before its frame header
+    public static final int MAX_HEADER_BYTES = 256 * 1024;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private ImageSniffer() {
+    }
+
+    public static Optional<ImageHeader> sniff(InputStream content) throws IOException {
+        DataInputStream in = new DataInputStream(new BoundedInputStream(content, MAX_HEADER_BYTES));
+        try {
+            int first = in.readUnsignedByte();
+            int second = in.readUnsignedByte();
+            if (first == 0xFF && second == 0xD8) return jpeg(in);
+            if (first == 0x89 && second == 'P') return png(in);
+            if (first == 'G' && second == 'I') return gif(in);
+            return Optional.empty();
+        } catch (EOFException e) {
+            // truncated, or the frame header lies beyond the bytes we are willing to read
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<ImageHeader> png(DataInputStream in) throws IOException {
+        byte[] signature = new byte[6];
+        in.readFully(signature);
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] != PNG_SIGNATURE[i + 2]) return Optional.empty();
+        }
+        in.readInt(); // IHDR length
+        if (in.readInt() != 0x49484452) return Optional.empty(); // "IHDR"
+        return header("image/png", in.readInt(), in.readInt());
+    }
+
+    private static Optional<ImageHeader> gif(DataInputStream in) throws IOException {
+        byte[] version = new byte[4];
+        in.readFully(version);
+        String tag = new String(version, StandardCharsets.US_ASCII);
+        if (!tag.equals("F87a") && !tag.equals("F89a")) return Optional.empty();
+        int width = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+        int height = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+        return header("image/gif", width, height);
+    }
+
+    // walks the marker segments up to the first start-of-frame, which holds the dimensions
+    private static Optional<ImageHeader> jpeg(DataInputStream in) throws IOException {
+        while (true) {
+            int marker = in.readUnsignedByte();
+            if (marker != 0xFF) return Optional.empty();
+            while (marker == 0xFF) marker = in.readUnsignedByte(); // fill bytes
+
+            if (marker == 0xD8 || marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) continue;
+            if (marker == 0xD9 || marker == 0xDA) return Optional.empty(); // image data before any frame header
+
+            int length = in.readUnsignedShort();
+            if (length < 2) return Optional.empty();
+            if (isStartOfFrame(marker)) {
+                in.readUnsignedByte(); // sample precision
+                int height = in.readUnsignedShort();
+                int width = in.readUnsignedShort();
+                return header("image/jpeg", width, height);
+            }
+            in.skipNBytes(length - 2);
+        }
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static Optional<ImageHeader> header(String contentType, int width, int height) {
+        if (width <= 0 || height <= 0) return Optional.empty();
+        return Optional.of(new ImageHeader(contentType, width, height));
+    }
+
+    // ends the stream after limit bytes, so no header walk can read further than that
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) return -1;
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) remaining -= read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetImageRow;
+import com.example.auth.pet.PetRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Writes the variants of pet images (see ImageVariants) and their BlurHash placeholders after the pet is saved,
+// so registration never waits on decoding and resizing. Work runs on a fixed pool with a bounded queue: when
+// uploads outpace it, images are dropped from the queue and picked up by the backfill, which also covers images
+// from before the pipeline. Originals stay as uploaded; their keys are content hashes and are served as immutable.
+@Component
+public class ImageVariantPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantPipeline.class);
+
+    private final PetRepository petRepository;
+    private final PetImageVariantRepository variantRepository;
+    private final PetImagePlaceholderRepository placeholderRepository;
+    private final ImageCleanupTaskRepository cleanupTaskRepository;
+    private final StorageService storageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int maxDimension;
+    private final List<Integer> widths;
+    private final float quality;
+    private final int backfillBatch;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> rendering = ConcurrentHashMap.newKeySet();
+    // undecodable or unreachable images are not retried on every save and backfill
+    private final Cache<String, Boolean> failed;
+    private final Counter rendered;
+    private final Counter failures;
+    private final Counter dropped;
+    private String backfillCursor;
+
+    public ImageVariantPipeline(PetRepository petRepository,
+                                PetImageVariantRepository variantRepository,
+                                PetImagePlaceholderRepository placeholderRepository,
+                                ImageCleanupTaskRepository cleanupTaskRepository,
+                                StorageService storageService,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                @Value("${images.variants.enabled:true}") boolean enabled,
+                                @Value("${images.variants.max-dimension:2048}") int maxDimension,
+                                @Value("${images.variants.widths:160,480,1080}") List<Integer> widths,
+                                @Value("${images.variants.quality:0.8}") float quality,
+                                @Value("${images.variants.workers:2}") int workers,
+                                @Value("${images.variants.queue-capacity:500}") int queueCapacity,
+                                @Value("${images.variants.retry-failed-after:24h}") Duration retryFailedAfter,
+                                @Value("${images.variants.backfill-batch:100}") int backfillBatch) {
+        this.petRepository = petRepository;
+        this.variantRepository = variantRepository;
+        this.placeholderRepository = placeholderRepository;
+        this.cleanupTaskRepository = cleanupTaskRepository;
+        this.storageService = storageService;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.maxDimension = maxDimension;
+        this.widths = List.copyOf(widths);
+        this.quality = quality;
+        this.backfillBatch = backfillBatch;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "image-variants-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.failed = Caffeine.newBuilder().expireAfterWrite(retryFailedAfter).maximumSize(10_000).build();
+
+        this.rendered = meterRegistry.counter("pet.image.variants", "outcome", "rendered");
+        this.failures = meterRegistry.counter("pet.image.variants", "outcome", "failed");
+        this.dropped = meterRegistry.counter("pet.image.variants", "outcome", "dropped");
+        meterRegistry.gauge("pet.image.variants.queue", executor, pool -> pool.getQueue().size());
+    }
+
+    // the urls are read again on the worker, since the pet's collection is lazy and its session gone by then
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        if (!enabled || event.removed() || event.pet().getId() == null) return;
+        Long petId = event.pet().getId();
+        submit(() -> petRepository.findImageRows(List.of(petId)).stream()
+                .map(PetImageRow::url)
+                .distinct()
+                .forEach(this::render));
+    }
+
+    // Queues images missing variants or a placeholder, a batch per run, resuming after the last one queued. A
+    // pass ends with a short batch; the next one starts over and finds what was dropped or failed meanwhile.
+    @Scheduled(fixedDelayString = "${images.variants.backfill-interval:PT10M}",
+            initialDelayString = "${images.variants.backfill-interval:PT10M}")
+    public void backfill() {
+        if (!enabled) return;
+        List<String> urls = petRepository.findImageUrlsToRender(backfillCursor, PageRequest.of(0, backfillBatch));
+        for (String url : urls) {
+            if (failed.getIfPresent(url) == null && !submit(() -> render(url))) return;
+            backfillCursor = url;
+        }
+        if (urls.size() < backfillBatch) backfillCursor = null;
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            return false;
+        }
+    }
+
+    // Renders and stores the variants and the placeholder of one image, whichever it lacks. Pets showing it are
+    // saved again as far as caches and ETags are concerned, so their next read carries them.
+    void render(String url) {
+        if (failed.getIfPresent(url) != null || !rendering.add(url)) return;
+        try {
+            boolean hasVariants = variantRepository.existsBySourceUrl(url);
+            boolean hasPlaceholder = placeholderRepository.existsById(url);
+            if (hasVariants && hasPlaceholder) return;
+
+            String prefix = storageService.publicUrl(PetImageStore.BUCKET, "");
+            if (!url.startsWith(prefix)) {
+                log.info("not rendering variants of {}: not an url of bucket {}", url, PetImageStore.BUCKET);
+                failed.put(url, Boolean.TRUE);
+                return;
+            }
+            String key = url.substring(prefix.length());
+
+            List<PetImageVariant> rows = new ArrayList<>();
+            byte[] thumbnail;
+            if (hasVariants) {
+                // only the placeholder is missing: the smallest variant is enough to compute it
+                PetImageVariant smallest = variantRepository.findAllBySourceUrlIn(List.of(url)).stream()
+                        .min(Comparator.comparingInt(PetImageVariant::getWidth))
+                        .orElseThrow(() -> new IllegalStateException("variants of " + url + " vanished"));
+                thumbnail = read(smallest.getUrl().substring(prefix.length()));
+            } else {
+                List<RenderedVariant> variants = ImageVariants.render(read(key), maxDimension, widths, quality);
+                if (variants.isEmpty()) {
+                    log.info("not rendering variants of {}: the image cannot be decoded", url);
+                    failures.increment();
+                    failed.put(url, Boolean.TRUE);
+                    return;
+                }
+                rows = upload(url, key, variants);
+                thumbnail = variants.stream().min(Comparator.comparingInt(RenderedVariant::width)).orElseThrow().bytes();
+            }
+
+            PetImagePlaceholder placeholder = hasPlaceholder ? null : placeholder(url, thumbnail);
+            if (!save(url, rows, placeholder)) return;
+
+            rendered.increment();
+            eventPublisher.publishEvent(PetImageRenderedEvent.of(url, petRepository.findAllByImageUrl(url)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("could not render variants of {}: {}", url, e.getMessage());
+            failures.increment();
+            failed.put(url, Boolean.TRUE);
+        } finally {
+            rendering.remove(url);
+        }
+    }
+
+    private byte[] read(String key) throws IOException {
+        try (InputStream in = storageService.openFile(PetImageStore.BUCKET, key).getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private List<PetImageVariant> upload(String url, String key, List<RenderedVariant> variants) {
+        String directory = "variants/" + stripExtension(key) + "/";
+        Instant now = Instant.now();
+        List<PetImageVariant> rows = new ArrayList<>();
+        for (RenderedVariant variant : variants) {
+            String variantUrl = storageService.uploadFileAsync(PetImageStore.BUCKET,
+                    directory + variant.name() + PetImageStore.extensionOf(variant.contentType()),
+                    new VariantFile(variant)).block();
+            rows.add(new PetImageVariant(url, variant.name(), variantUrl, variant.contentType(),
+                    variant.width(), variant.height(), variant.bytes().length, now));
+        }
+        return rows;
+    }
+
+    private static PetImagePlaceholder placeholder(String url, byte[] thumbnail) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        if (image == null) throw new IOException("the thumbnail of " + url + " cannot be decoded");
+        return new PetImagePlaceholder(url, BlurHash.encode(image), Instant.now());
+    }
+
+    // The source may have been released while it was rendered, after its release looked for variants to
+    // queue; then the variants are queued here.
+    private boolean save(String url, List<PetImageVariant> rows, PetImagePlaceholder placeholder) {
+        try {
+            if (!rows.isEmpty()) variantRepository.saveAll(rows);
+            if (placeholder != null) placeholderRepository.save(placeholder);
+        } catch (DataIntegrityViolationException e) {
+            // another instance wrote them first, to the same keys
+            return false;
+        }
+        if (!petRepository.findReferencedImageUrls(List.of(url)).isEmpty()) return true;
+
+        variantRepository.deleteAllBySourceUrlIn(List.of(url));
+        placeholderRepository.deleteAllBySourceUrlIn(List.of(url));
+        Instant now = Instant.now();
+        cleanupTaskRepository.saveAll(rows.stream().map(row -> new ImageCleanupTask(row.getUrl(), now)).toList());
+        return false;
+    }
+
+    private static String stripExtension(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot > key.lastIndexOf('/') ? key.substring(0, dot) : key;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // a rendered variant as the storage backends expect an upload
+    private static final class VariantFile implements MultipartFile {
+        private final RenderedVariant variant;
+
+        private VariantFile(RenderedVariant variant) {
+            this.variant = variant;
+        }
+
+        @Override
+        public String getName() {
+            return variant.name();
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return variant.name() + PetImageStore.extensionOf(variant.contentType());
+        }
+
+        @Override
+        public String getContentType() {
+            return variant.contentType();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return variant.bytes().length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return variant.bytes().length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return variant.bytes();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(variant.bytes());
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.write(dest.toPath(), variant.bytes());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.auth.pet.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Renders the variants of a pet image: "full", the photo turned upright and clamped to a maximum side, and one
+// "w<width>" copy per configured width narrower than that. Everything is re-encoded from pixels, so EXIF and
+// any other metadata of the upload is left behind; opaque images become JPEG and transparent ones PNG.
+public final class ImageVariants {
+
+    public static final String FULL = "full";
+
+    private ImageVariants() {
+    }
+
+    // empty when no ImageIO reader can decode the content
+    public static List<RenderedVariant> render(byte[] source, int maxDimension, List<Integer> widths, float quality)
+            throws IOException {
+        BufferedImage decoded = decode(source, maxDimension);
+        if (decoded == null) return List.of();
+
+        boolean alpha = decoded.getColorModel().hasAlpha();
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(decoded.getWidth(), decoded.getHeight()));
+        BufferedImage full = orient(scale(decoded,
+                Math.max(1, (int) Math.round(decoded.getWidth() * ratio)),
+                Math.max(1, (int) Math.round(decoded.getHeight() * ratio)), type), orientation(source));
+
+        List<RenderedVariant> variants = new ArrayList<>();
+        variants.add(encode(FULL, full, alpha, quality));
+        for (int width : widths.stream().distinct().sorted().toList()) {
+            // no upscaling: a width the photo does not reach is served by the full copy
+            if (width <= 0 || width >= full.getWidth()) continue;
+            int height = Math.max(1, (int) Math.round((double) full.getHeight() * width / full.getWidth()));
+            variants.add(encode("w" + width, scale(full, width, height, type), alpha, quality));
+        }
+        return variants;
+    }
+
+    private static BufferedImage decode(byte[] source, int maxDimension) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // skip rows and columns while decoding, but keep at least maxDimension on the long side
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / maxDimension);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } catch (IOException | RuntimeException e) {
+                // truncated or corrupt data behind a valid header
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves with bilinear filtering until one more halving would pass the target, then draws the last step.
+    // A single bilinear draw from far above the target samples too few pixels and turns edges jagged.
+    static BufferedImage scale(BufferedImage image, int width, int height, int type) {
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, type);
+        }
+        return draw(current, width, height, type);
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static RenderedVariant encode(String name, BufferedImage image, boolean alpha, float quality)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return new RenderedVariant(name, "image/png", image.getWidth(), image.getHeight(), out.toByteArray());
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new RenderedVariant(name, "image/jpeg", image.getWidth(), image.getHeight(), out.toByteArray());
+    }
+
+    // Applies an EXIF orientation (1 to 8), which ImageIO ignores. Cameras store the sensor's pixels and
+    // only tag how to turn them, so without this a portrait photo would come out lying on its side.
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) return image;
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean transposed = orientation >= 5;
+        int targetWidth = transposed ? height : width;
+        int[] source = image.getRGB(0, 0, width, height, null, 0, width);
+        int[] target = new int[source.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int tx;
+                int ty;
+                switch (orientation) {
+                    case 2 -> { tx = width - 1 - x; ty = y; }
+                    case 3 -> { tx = width - 1 - x; ty = height - 1 - y; }
+                    case 4 -> { tx = x; ty = height - 1 - y; }
+                    case 5 -> { tx = y; ty = x; }
+                    case 6 -> { tx = height - 1 - y; ty = x; }
+                    case 7 -> { tx = height - 1 - y; ty = width - 1 - x; }
+                    default -> { tx = y; ty = width - 1 - x; }
+                }
+                target[ty * targetWidth + tx] = source[y * width + x];
+            }
+        }
+
+        BufferedImage oriented = new BufferedImage(targetWidth, transposed ? width : height, image.getType());
+        oriented.setRGB(0, 0, targetWidth, oriented.getHeight(), target, 0, targetWidth);
+        return oriented;
+    }
+
+    // the Orientation tag of IFD0 in a JPEG's Exif segment; 1 (upright) when there is none
+    static int orientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) return 1;
+
+        int pos = 2;
+        while (pos + 4 <= data.length) {
+            if ((data[pos] & 0xFF) != 0xFF) return 1;
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            // the Exif segment comes before the image data
+            if (marker == 0xDA || marker == 0xD9) return 1;
+            int length = (data[pos + 2] & 0xFF) << 8 | (data[pos + 3] & 0xFF);
+            if (length < 2) return 1;
+            int start = pos + 4;
+            int end = Math.min(data.length, pos + 2 + length);
+            if (marker == 0xE1 && end - start >= 14 && isExifHeader(data, start)) {
+                return exifOrientation(data, start + 6, end);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static boolean isExifHeader(byte[] data, int start) {
+        return data[start] == 'E' && data[start + 1] == 'x' && data[start + 2] == 'i' && data[start + 3] == 'f'
+                && data[start + 4] == 0 && data[start + 5] == 0;
+    }
+
+    private static int exifOrientation(byte[] data, int tiff, int end) {
+        ByteBuffer buffer = ByteBuffer.wrap(data, 0, end);
+        if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (data[tiff] != 'M' || data[tiff + 1] != 'M') {
+            return 1;
+        }
+
+        long directory = tiff + (buffer.getInt(tiff + 4) & 0xFFFFFFFFL);
+        if (directory + 2 > end) return 1;
+        int entries = buffer.getShort((int) directory) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) directory + 2 + i * 12;
+            if (entry + 12 > end) return 1;
+            if ((buffer.getShort(entry) & 0xFFFF) != 0x0112) continue;
+            // SHORT values sit left-aligned in the four value bytes
+            int value = (buffer.getShort(entry + 2) & 0xFFFF) == 3 ? buffer.getShort(entry + 8) & 0xFFFF : 1;
+            return value >= 1 && value <= 8 ? value : 1;
+        }
+        return 1;
+    }
+}
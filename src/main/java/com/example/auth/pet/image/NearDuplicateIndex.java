@@ -0,0 +1,248 @@
+package com.example.auth.pet.image;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Perceptual hashes of every stored image in a BK-tree, so "is anything within d bits of this hash" only
+// visits the branches whose distance to the query can still be within d instead of the whole catalogue.
+@Component
+public class NearDuplicateIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(NearDuplicateIndex.class);
+
+    private final PetImageRepository petImageRepository;
+    private final MeterRegistry meterRegistry;
+    private final int maxDistance;
+    private final boolean reject;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private BkTree tree = new BkTree();
+    // writes that happen while a rebuild is scanning the table, replayed onto the new tree
+    private List<Consumer<BkTree>> pending;
+    private volatile boolean ready;
+
+    public NearDuplicateIndex(PetImageRepository petImageRepository, MeterRegistry meterRegistry,
+                              @Value("${images.near-duplicates.max-distance:6}") int maxDistance,
+                              @Value("${images.near-duplicates.reject:true}") boolean reject) {
+        this.petImageRepository = petImageRepository;
+        this.meterRegistry = meterRegistry;
+        this.maxDistance = maxDistance;
+        this.reject = reject;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        BkTree fresh = new BkTree();
+        try (Stream<PetImageHashRow> rows = petImageRepository.streamPerceptualHashes()) {
+            rows.forEach(row -> fresh.put(row.hash(), row.perceptualHash()));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(op -> op.accept(fresh));
+            pending = null;
+            tree = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("near duplicate index built with {} image hashes", fresh.keys.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetImageChanged(PetImageChangedEvent event) {
+        event.added().forEach(row -> put(row.hash(), row.perceptualHash()));
+        event.removed().forEach(this::remove);
+    }
+
+    public void put(String hash, long perceptualHash) {
+        apply(tree -> tree.put(hash, perceptualHash));
+    }
+
+    public void remove(String hash) {
+        apply(tree -> tree.remove(hash));
+    }
+
+    // the stored image closest to perceptualHash, if one lies within maxDistance bits
+    public Optional<String> nearest(long perceptualHash) {
+        lock.readLock().lock();
+        try {
+            return tree.nearest(perceptualHash, maxDistance);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Whether an upload must be turned away as a near-duplicate. The same bytes as a stored image are not one:
+    // they share the stored object and only add a reference to it. With rejection off, matches are only logged
+    // and counted so the threshold can be tuned against real traffic first.
+    public boolean rejects(String hash, long perceptualHash, String name) {
+        Optional<String> match;
+        lock.readLock().lock();
+        try {
+            if (tree.keys.containsKey(hash)) return false;
+            match = tree.nearest(perceptualHash, maxDistance);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (match.isEmpty()) return false;
+
+        meterRegistry.counter("pet.image.near_duplicate", "outcome", reject ? "rejected" : "flagged").increment();
+        log.info("image {} is a near duplicate of stored image {}", name, match.get());
+        return reject;
+    }
+
+    private void apply(Consumer<BkTree> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(tree);
+            if (pending != null) pending.add(op);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every child hangs off its parent at the Hamming distance between their keys. By the triangle inequality,
+    // a match within d of the query can only sit under children whose edge is within d of the query's distance
+    // to the parent. Removed images leave their node behind as a routing point until the next rebuild.
+    private static final class BkTree {
+        private final Map<String, Long> keys = new HashMap<>();
+        private Node root;
+
+        private void put(String id, long key) {
+            remove(id);
+            keys.put(id, key);
+            if (root == null) {
+                root = new Node(key);
+                root.ids.add(id);
+                return;
+            }
+
+            Node node = root;
+            while (true) {
+                int distance = PerceptualHash.distance(node.key, key);
+                if (distance == 0) {
+                    node.ids.add(id);
+                    return;
+                }
+                Node child = node.child(distance);
+                if (child == null) {
+                    child = node.addChild(distance, new Node(key));
+                    child.ids.add(id);
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        private void remove(String id) {
+            Long key = keys.remove(id);
+            if (key == null) return;
+
+            Node node = root;
+            while (node != null) {
+                int distance = PerceptualHash.distance(node.key, key);
+                if (distance == 0) {
+                    node.ids.remove(id);
+                    return;
+                }
+                node = node.child(distance);
+            }
+        }
+
+        private Optional<String> nearest(long key, int maxDistance) {
+            if (root == null) return Optional.empty();
+
+            String best = null;
+            int bestDistance = maxDistance + 1;
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int distance = PerceptualHash.distance(node.key, key);
+                if (distance < bestDistance && !node.ids.isEmpty()) {
+                    best = node.ids.get(0);
+                    bestDistance = distance;
+                    if (distance == 0) break;
+                }
+                // anything better than the best so far is within bestDistance - 1 of the query
+                int radius = bestDistance - 1;
+                for (int i = 0; i < node.childCount; i++) {
+                    if (Math.abs(node.distances[i] - distance) <= radius) stack.push(node.children[i]);
+                }
+            }
+            return Optional.ofNullable(best);
+        }
+    }
+
+    private static final class Node {
+        private final long key;
+        private final List<String> ids = new ArrayList<>(1);
+        // children keyed by edge distance (1..64), kept in small parallel arrays instead of a map per node
+        private byte[] distances = new byte[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        private Node(long key) {
+            this.key = key;
+        }
+
+        private Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (distances[i] == distance) return children[i];
+            }
+            return null;
+        }
+
+        private Node addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                distances = Arrays.copyOf(distances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            distances[childCount] = (byte) distance;
+            children[childCount++] = child;
+            return child;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.infra.storage.ListedObject;
+import com.example.auth.infra.storage.ObjectPage;
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.PetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Finds objects in the pet image bucket that nothing points at: uploads whose pet was never saved, signed
+// uploads that were never claimed, leftovers of crashes. It walks the bucket listing page by page, keeps its
+// cursor in image_gc_checkpoint so a pass spans as many runs as it needs, and queues orphans on the cleanup
+// outbox instead of deleting them itself.
+@Component
+public class OrphanImageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(OrphanImageCollector.class);
+
+    private final StorageService storageService;
+    private final PetRepository petRepository;
+    private final PetImageRepository petImageRepository;
+    private final PetImageVariantRepository variantRepository;
+    private final ImageCleanupTaskRepository cleanupTaskRepository;
+    private final ImageGcCheckpointRepository checkpointRepository;
+    private final int pageSize;
+    private final int maxPagesPerRun;
+    private final int maxObjectsPerSecond;
+    private final Duration gracePeriod;
+    private final Duration lock;
+    private final Counter scanned;
+    private final Counter orphaned;
+
+    public OrphanImageCollector(StorageService storageService,
+                                PetRepository petRepository,
+                                PetImageRepository petImageRepository,
+                                PetImageVariantRepository variantRepository,
+                                ImageCleanupTaskRepository cleanupTaskRepository,
+                                ImageGcCheckpointRepository checkpointRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${storage.gc.page-size:1000}") int pageSize,
+                                @Value("${storage.gc.max-pages-per-run:50}") int maxPagesPerRun,
+                                @Value("${storage.gc.max-objects-per-second:500}") int maxObjectsPerSecond,
+                                @Value("${storage.gc.grace-period:24h}") Duration gracePeriod,
+                                @Value("${storage.gc.lock:30m}") Duration lock) {
+        this.storageService = storageService;
+        this.petRepository = petRepository;
+        this.petImageRepository = petImageRepository;
+        this.variantRepository = variantRepository;
+        this.cleanupTaskRepository = cleanupTaskRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.pageSize = pageSize;
+        this.maxPagesPerRun = maxPagesPerRun;
+        this.maxObjectsPerSecond = maxObjectsPerSecond;
+        this.gracePeriod = gracePeriod;
+        this.lock = lock;
+        this.scanned = meterRegistry.counter("pet.image.gc", "outcome", "scanned");
+        this.orphaned = meterRegistry.counter("pet.image.gc", "outcome", "orphaned");
+    }
+
+    @Scheduled(fixedDelayString = "${storage.gc.interval:PT1H}", initialDelayString = "${storage.gc.interval:PT1H}")
+    public void run() {
+        String bucket = PetImageStore.BUCKET;
+        if (!tryLock(bucket)) return;
+
+        try {
+            String cursor = checkpointRepository.findById(bucket).map(ImageGcCheckpoint::getNextCursor).orElse(null);
+            if (cursor == null) checkpointRepository.startPass(bucket, Instant.now());
+
+            for (int pages = 0; pages < maxPagesPerRun; pages++) {
+                long started = System.nanoTime();
+                ObjectPage page = storageService.listObjects(bucket, cursor, pageSize);
+                collect(page.objects());
+
+                cursor = page.nextCursor();
+                Instant now = Instant.now();
+                checkpointRepository.advance(bucket, cursor, now, now.plus(lock));
+                if (cursor == null) {
+                    log.info("orphan image collection finished a pass over {}", bucket);
+                    return;
+                }
+                if (!throttle(page.objects().size(), started)) return;
+            }
+        } catch (RuntimeException e) {
+            // the cursor of the last finished page is kept, so the next run retries only the failed page
+            log.warn("orphan image collection stopped: {}", e.getMessage());
+        } finally {
+            checkpointRepository.unlock(bucket);
+        }
+    }
+
+    // Old enough objects that no pet, pet_image row, variant row or queued cleanup mentions are queued for deletion. The
+    // grace period covers uploads whose pet is still being saved and signed uploads not yet claimed.
+    public int collect(List<ListedObject> objects) {
+        scanned.increment(objects.size());
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        Map<String, ListedObject> candidates = new LinkedHashMap<>();
+        for (ListedObject object : objects) {
+            if (object.lastModified() == null || !object.lastModified().isBefore(cutoff)) continue;
+            candidates.put(storageService.publicUrl(PetImageStore.BUCKET, object.path()), object);
+        }
+        if (candidates.isEmpty()) return 0;
+
+        Set<String> known = new HashSet<>(petRepository.findReferencedImageUrls(candidates.keySet()));
+        // a tombstone does not keep its object: an upload that crashed before taking the row may have put it back
+        petImageRepository.findAllByUrlIn(candidates.keySet()).stream()
+                .filter(image -> image.getRefCount() > 0)
+                .forEach(image -> known.add(image.getUrl()));
+        known.addAll(variantRepository.findExistingUrls(candidates.keySet()));
+        known.addAll(cleanupTaskRepository.findQueuedUrls(candidates.keySet()));
+
+        Instant now = Instant.now();
+        List<ImageCleanupTask> tasks = candidates.keySet().stream()
+                .filter(url -> !known.contains(url))
+                .map(url -> new ImageCleanupTask(url, now))
+                .toList();
+        if (!tasks.isEmpty()) {
+            cleanupTaskRepository.saveAll(tasks);
+            orphaned.increment(tasks.size());
+            log.info("queued {} orphaned pet images for deletion", tasks.size());
+        }
+        return tasks.size();
+    }
+
+    private boolean tryLock(String bucket) {
+        Instant now = Instant.now();
+        if (checkpointRepository.lock(bucket, now, now.plus(lock)) > 0) return true;
+        if (checkpointRepository.existsById(bucket)) return false;
+
+        try {
+            checkpointRepository.saveAndFlush(new ImageGcCheckpoint(bucket, now));
+        } catch (DataIntegrityViolationException e) {
+            // another instance created it first and takes this run
+            return false;
+        }
+        return checkpointRepository.lock(bucket, now, now.plus(lock)) > 0;
+    }
+
+    // keeps listing and lookups under maxObjectsPerSecond; returns false when the thread is interrupted
+    private boolean throttle(int objects, long startedNanos) {
+        if (maxObjectsPerSecond <= 0) return true;
+        long budgetMillis = objects * 1000L / maxObjectsPerSecond;
+        long spentMillis = (System.nanoTime() - startedNanos) / 1_000_000;
+        if (budgetMillis <= spentMillis) return true;
+        try {
+            Thread.sleep(budgetMillis - spentMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
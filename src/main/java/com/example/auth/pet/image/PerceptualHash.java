@@ -0,0 +1,76 @@
+package com.example.auth.pet.image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.OptionalLong;
+
+// 64-bit difference hash: the image shrunk to 9x8 grays, one bit per pair of horizontal neighbours telling
+// whether brightness rises. Re-encoding, resizing and mild edits flip only a few bits, so the Hamming
+// distance between two hashes says how alike the photos look.
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+    // decode at roughly this many pixels per side; the hash only needs a thumbnail's worth of detail
+    private static final int DECODE_SIDE = 64;
+
+    private PerceptualHash() {
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // empty when no ImageIO reader can decode the content
+    public static OptionalLong of(InputStream content) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(content)) {
+            if (in == null) return OptionalLong.empty();
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return OptionalLong.empty();
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // subsampling skips rows and columns while decoding, so a 40MP photo never lands on the heap
+                int step = Math.max(1, Math.min(reader.getWidth(0), reader.getHeight(0)) / DECODE_SIDE);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return OptionalLong.of(of(reader.read(0, param)));
+            } catch (IOException | RuntimeException e) {
+                // truncated or corrupt data behind a valid header
+                return OptionalLong.empty();
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static long of(BufferedImage image) {
+        BufferedImage gray = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, WIDTH, HEIGHT, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int left = gray.getRaster().getSample(x, y, 0);
+                int right = gray.getRaster().getSample(x + 1, y, 0);
+                hash = hash << 1 | (left < right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.auth.pet.image;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "pet_image")
+public class PetImage {
+
+    // the ref_count of a tombstone whose object ImageCleanupWorker is deleting right now
+    public static final int DELETING = -1;
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, unique = true)
+    private String url;
+
+    private String contentType;
+
+    private long size;
+
+    private int refCount;
+
+    @Column(name = "phash")
+    private Long perceptualHash;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public PetImage() {
+    }
+
+    public PetImage(String hash, String url, String contentType, long size, int refCount, Instant createdAt) {
+        this.hash = hash;
+        this.url = url;
+        this.contentType = contentType;
+        this.size = size;
+        this.refCount = refCount;
+        this.createdAt = createdAt;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public Long getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.auth.pet.image;
+
+import java.util.Collection;
+import java.util.List;
+
+// Published when pet_image rows appear or go away; the perceptual hash index listens after commit
+public record PetImageChangedEvent(Collection<PetImageHashRow> added, Collection<String> removed) {
+
+    public static PetImageChangedEvent added(PetImageHashRow row) {
+        return new PetImageChangedEvent(List.of(row), List.of());
+    }
+
+    public static PetImageChangedEvent removed(Collection<String> hashes) {
+        return new PetImageChangedEvent(List.of(), hashes);
+    }
+}
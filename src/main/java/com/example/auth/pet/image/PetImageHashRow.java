@@ -0,0 +1,4 @@
+package com.example.auth.pet.image;
+
+public record PetImageHashRow(String hash, Long perceptualHash) {
+}
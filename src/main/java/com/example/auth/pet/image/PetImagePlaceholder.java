@@ -0,0 +1,43 @@
+package com.example.auth.pet.image;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "pet_image_placeholder")
+public class PetImagePlaceholder {
+
+    @Id
+    private String sourceUrl;
+
+    @Column(nullable = false, length = 64)
+    private String blurhash;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public PetImagePlaceholder() {
+    }
+
+    public PetImagePlaceholder(String sourceUrl, String blurhash, Instant createdAt) {
+        this.sourceUrl = sourceUrl;
+        this.blurhash = blurhash;
+        this.createdAt = createdAt;
+    }
+
+    public String getSourceUrl() {
+        return sourceUrl;
+    }
+
+    public String getBlurhash() {
+        return blurhash;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
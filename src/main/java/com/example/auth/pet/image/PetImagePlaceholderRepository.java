@@ -0,0 +1,22 @@
+package com.example.auth.pet.image;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PetImagePlaceholderRepository extends JpaRepository<PetImagePlaceholder, String> {
+
+    List<PetImagePlaceholder> findAllBySourceUrlIn(Collection<String> sourceUrls);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PetImagePlaceholder p WHERE p.sourceUrl IN :sourceUrls")
+    int deleteAllBySourceUrlIn(@Param("sourceUrls") Collection<String> sourceUrls);
+}
@@ -0,0 +1,19 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.pet.Pet;
+import com.example.auth.user.User;
+
+import java.util.List;
+import java.util.Objects;
+
+// Published when the variants and placeholder of an image are written. Only the details of the pets showing it,
+// and the profiles of their owners, change; unlike PetChangedEvent it does not reach the indexes or the pipeline.
+public record PetImageRenderedEvent(String url, List<Long> petIds, List<Long> ownerIds) {
+
+    public static PetImageRenderedEvent of(String url, List<Pet> pets) {
+        return new PetImageRenderedEvent(url,
+                pets.stream().map(Pet::getId).toList(),
+                pets.stream().map(Pet::getUser).filter(Objects::nonNull).map(User::getId).filter(Objects::nonNull)
+                        .distinct().toList());
+    }
+}
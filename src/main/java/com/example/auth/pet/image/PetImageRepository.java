@@ -0,0 +1,91 @@
+package com.example.auth.pet.image;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface PetImageRepository extends JpaRepository<PetImage, String> {
+
+    List<PetImage> findAllByUrlIn(Collection<String> urls);
+
+    List<PetImage> findAllByUrlInAndRefCountLessThanEqual(Collection<String> urls, int refCount);
+
+    // held by ImageCleanupWorker while it checks which rows are still unreferenced and marks them deleting
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM PetImage i WHERE i.url IN :urls")
+    List<PetImage> lockAllByUrlIn(@Param("urls") Collection<String> urls);
+
+    // a plain insert, so a concurrent upload of the same content fails on the primary key instead of merging
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO pet_image (hash, url, content_type, size, ref_count, phash, created_at) " +
+            "VALUES (:hash, :url, :contentType, :size, 1, :phash, :createdAt)", nativeQuery = true)
+    void insert(@Param("hash") String hash, @Param("url") String url, @Param("contentType") String contentType,
+                @Param("size") long size, @Param("phash") Long perceptualHash, @Param("createdAt") Instant createdAt);
+
+    // An unreferenced row whose object is queued for deletion, or was already deleted. It is only written when no
+    // row exists, so the object is marked deleting before its delete like every other content-addressed one.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO pet_image (hash, url, content_type, size, ref_count, phash, created_at) " +
+            "SELECT :hash, :url, NULL, 0, 0, NULL, :createdAt " +
+            "WHERE NOT EXISTS (SELECT 1 FROM pet_image WHERE hash = :hash OR url = :url)", nativeQuery = true)
+    int insertTombstone(@Param("hash") String hash, @Param("url") String url, @Param("createdAt") Instant createdAt);
+
+    @Query("""
+            SELECT new com.example.auth.pet.image.PetImageHashRow(i.hash, i.perceptualHash)
+            FROM PetImage i
+            WHERE i.perceptualHash IS NOT NULL AND i.refCount > 0
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<PetImageHashRow> streamPerceptualHashes();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PetImage i SET i.refCount = i.refCount + 1 WHERE i.hash = :hash AND i.refCount > 0")
+    int addReference(@Param("hash") String hash);
+
+    // Takes the first reference of a tombstone. Its object may be gone, so the caller uploads the content again.
+    // A row marked deleting is skipped: an upload now could land before the delete that is still running.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE PetImage i
+            SET i.refCount = 1, i.contentType = :contentType, i.size = :size, i.perceptualHash = :phash
+            WHERE i.hash = :hash AND i.refCount = 0
+           """)
+    int revive(@Param("hash") String hash, @Param("contentType") String contentType, @Param("size") long size,
+               @Param("phash") Long perceptualHash);
+
+    // ImageCleanupWorker marks the tombstones it is about to delete with a negative count, in a short transaction
+    // of its own, and clears the mark once storage answered; no lock is held while storage is called
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PetImage i SET i.refCount = " + PetImage.DELETING + " WHERE i.url IN :urls AND i.refCount = 0")
+    int markDeleting(@Param("urls") Collection<String> urls);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PetImage i SET i.refCount = 0 WHERE i.url IN :urls AND i.refCount < 0")
+    int clearDeleting(@Param("urls") Collection<String> urls);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PetImage i SET i.refCount = i.refCount - :count WHERE i.url = :url")
+    int removeReferences(@Param("url") String url, @Param("count") int count);
+}
@@ -0,0 +1,310 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.infra.storage.SignedUpload;
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.infra.storage.StoredObject;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Pet images stored by content: the object key is the SHA-256 of the bytes, so an image already in the bucket
+// is referenced again instead of uploaded, and its object is only deleted with the last reference.
+@Service
+public class PetImageStore {
+
+    public static final String BUCKET = "pet-images";
+
+    private static final int MAX_CONCURRENT_UPLOADS = 4;
+    private static final int HASH_BUFFER_SIZE = 16 * 1024;
+
+    private final StorageService storageService;
+    private final PetImageRepository petImageRepository;
+    private final ImageCleanupTaskRepository cleanupTaskRepository;
+    private final PetImageVariantRepository variantRepository;
+    private final PetImagePlaceholderRepository placeholderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PetImageStore(StorageService storageService, PetImageRepository petImageRepository,
+                         ImageCleanupTaskRepository cleanupTaskRepository, PetImageVariantRepository variantRepository,
+                         PetImagePlaceholderRepository placeholderRepository, ApplicationEventPublisher eventPublisher) {
+        this.storageService = storageService;
+        this.petImageRepository = petImageRepository;
+        this.cleanupTaskRepository = cleanupTaskRepository;
+        this.variantRepository = variantRepository;
+        this.placeholderRepository = placeholderRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // streams the part through the digest so the image is never copied whole onto the heap
+    public static String contentHash(MultipartFile image) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = image.getInputStream()) {
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // the row key of a claimed direct upload, whose content was never hashed
+    static String claimHash(String url) {
+        return HexFormat.of().formatHex(sha256().digest(url.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Returns the urls in the order of the images. Known content only gains a reference; the rest is uploaded
+    // side by side, so registration waits for the slowest new image instead of the sum of all. A tombstone is
+    // revived before its upload; one whose object is being deleted right now cannot be revived until the delete
+    // finished, so the upload always lands after it.
+    public List<String> store(List<HashedImage> images) {
+        String[] urls = new String[images.size()];
+        String[] keys = new String[images.size()];
+        List<String> referenced = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+
+        for (int i = 0; i < images.size(); i++) {
+            HashedImage image = images.get(i);
+            String url = reference(image.hash());
+            if (url != null) {
+                urls[i] = url;
+                referenced.add(url);
+                continue;
+            }
+            url = revive(image);
+            if (url != null) {
+                urls[i] = url;
+                referenced.add(url);
+                keys[i] = keyOf(url);
+                // an url of another backend was never deleted from this one
+                if (keys[i] == null) continue;
+            } else {
+                keys[i] = objectKey(image);
+            }
+            missing.add(i);
+        }
+
+        List<String> uploaded = Collections.synchronizedList(new ArrayList<>());
+        try {
+            // errors are delayed until every upload settles so the ones that did land can be removed again
+            List<String> fresh = Flux.fromIterable(missing)
+                    .flatMapSequentialDelayError(i -> storageService.uploadFileAsync(BUCKET, keys[i], images.get(i).file())
+                            .doOnNext(uploaded::add), MAX_CONCURRENT_UPLOADS, 1)
+                    .collectList()
+                    .block();
+
+            for (int j = 0; j < missing.size(); j++) {
+                int i = missing.get(j);
+                if (urls[i] != null) continue;
+                urls[i] = register(images.get(i), fresh.get(j));
+                referenced.add(urls[i]);
+            }
+        } catch (RuntimeException e) {
+            discard(uploaded, referenced);
+            release(referenced);
+            List<Throwable> causes = Exceptions.unwrapMultiple(e);
+            if (causes.size() > 1 && causes.get(0) instanceof RuntimeException first) throw first;
+            throw e;
+        }
+
+        return List.of(urls);
+    }
+
+    // Drops one reference per url occurrence. Urls that predate content addressing have no row and belong to a
+    // single pet, so their objects go right away. A row that loses its last reference is kept as a tombstone:
+    // ImageCleanupWorker marks it deleting while storage removes the object, and reviving skips marked rows.
+    @Transactional
+    public void release(Collection<String> urls) {
+        if (urls == null || urls.isEmpty()) return;
+
+        Map<String, Long> counts = urls.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        Set<String> tracked = petImageRepository.findAllByUrlIn(counts.keySet()).stream()
+                .map(PetImage::getUrl)
+                .collect(Collectors.toSet());
+
+        List<String> unused = counts.keySet().stream()
+                .filter(url -> !tracked.contains(url))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        if (!tracked.isEmpty()) {
+            tracked.forEach(url -> petImageRepository.removeReferences(url, Math.toIntExact(counts.get(url))));
+            List<PetImage> unreferenced = petImageRepository.findAllByUrlInAndRefCountLessThanEqual(tracked, 0);
+            if (!unreferenced.isEmpty()) {
+                List<String> hashes = unreferenced.stream().map(PetImage::getHash).toList();
+                eventPublisher.publishEvent(PetImageChangedEvent.removed(hashes));
+                unreferenced.forEach(image -> unused.add(image.getUrl()));
+            }
+        }
+
+        deleteObjects(unused);
+    }
+
+    // The objects are queued in the same transaction that dropped their references and removed by
+    // ImageCleanupWorker after commit, so a rollback keeps them and a storage outage only delays them.
+    // Variants and the placeholder go with their source.
+    private void deleteObjects(List<String> urls) {
+        if (urls.isEmpty()) return;
+        placeholderRepository.deleteAllBySourceUrlIn(urls);
+        List<String> objects = new ArrayList<>(urls);
+        List<PetImageVariant> variants = variantRepository.findAllBySourceUrlIn(urls);
+        if (!variants.isEmpty()) {
+            variants.forEach(variant -> objects.add(variant.getUrl()));
+            variantRepository.deleteAllBySourceUrlIn(urls);
+        }
+        Instant now = Instant.now();
+        cleanupTaskRepository.saveAll(objects.stream().map(url -> new ImageCleanupTask(url, now)).toList());
+    }
+
+    private String reference(String hash) {
+        if (petImageRepository.addReference(hash) == 0) return null;
+        return urlOf(hash);
+    }
+
+    // the caller uploads the content again, since the cleanup of the tombstone may have deleted it already
+    private String revive(HashedImage image) {
+        if (petImageRepository.revive(image.hash(), image.file().getContentType(), image.file().getSize(),
+                image.perceptualHash()) == 0) return null;
+        if (image.perceptualHash() != null) {
+            eventPublisher.publishEvent(PetImageChangedEvent.added(new PetImageHashRow(image.hash(), image.perceptualHash())));
+        }
+        return urlOf(image.hash());
+    }
+
+    private String urlOf(String hash) {
+        return petImageRepository.findById(hash)
+                .map(PetImage::getUrl)
+                .orElseThrow(() -> new IllegalStateException("pet image " + hash + " vanished while referenced"));
+    }
+
+    // A concurrent registration of the same content may have inserted the row first; then it is just referenced.
+    // When that row is a tombstone, its cleanup may have deleted the object after this upload, so it goes again.
+    // A row marked deleting can be neither: the content is refused until its delete finished, within seconds.
+    private String register(HashedImage image, String url) {
+        try {
+            petImageRepository.insert(image.hash(), url, image.file().getContentType(), image.file().getSize(),
+                    image.perceptualHash(), Instant.now());
+            if (image.perceptualHash() != null) {
+                eventPublisher.publishEvent(PetImageChangedEvent.added(new PetImageHashRow(image.hash(), image.perceptualHash())));
+            }
+            return url;
+        } catch (DataIntegrityViolationException e) {
+            String existing = reference(image.hash());
+            if (existing != null) return existing;
+            existing = revive(image);
+            if (existing == null) {
+                if (isBeingDeleted(image.hash())) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "This image is being removed from storage, try again in a few seconds");
+                }
+                throw e;
+            }
+            String key = keyOf(existing);
+            if (key != null) storageService.uploadFileAsync(BUCKET, key, image.file()).block();
+            return existing;
+        }
+    }
+
+    private boolean isBeingDeleted(String hash) {
+        return petImageRepository.findById(hash).map(image -> image.getRefCount() < 0).orElse(false);
+    }
+
+    // Uploaded objects that never got a reference of their own, unless another registration holds the same key.
+    // A tombstone of the key does not keep it: its cleanup may already have run before this upload.
+    private void discard(List<String> uploaded, List<String> referenced) {
+        List<String> orphans = uploaded.stream().filter(url -> !referenced.contains(url)).toList();
+        if (orphans.isEmpty()) return;
+
+        Set<String> claimed = petImageRepository.findAllByUrlIn(orphans).stream()
+                .filter(image -> image.getRefCount() > 0)
+                .map(PetImage::getUrl)
+                .collect(Collectors.toSet());
+        deleteObjects(orphans.stream().filter(url -> !claimed.contains(url)).toList());
+    }
+
+    // the key of an url of this bucket, null for urls of another backend
+    private String keyOf(String url) {
+        String prefix = storageService.publicUrl(BUCKET, "");
+        return url.startsWith(prefix) ? url.substring(prefix.length()) : null;
+    }
+
+    // Direct uploads skip the content hash, since computing it would mean reading the object back.
+    public SignedUpload signUpload(String key) {
+        return storageService.createSignedUpload(BUCKET, key);
+    }
+
+    // Each direct upload backs exactly one pet. Claiming it inserts its pet_image row with one reference, so a
+    // second registration claiming the same upload fails on the unique url and none of its uploads are taken;
+    // release() then drops the upload with its pet like any other image.
+    @Transactional
+    public void claim(Map<String, StoredObject> uploads) {
+        Instant now = Instant.now();
+        uploads.forEach((url, object) ->
+                petImageRepository.insert(claimHash(url), url, object.contentType(), object.size(), null, now));
+    }
+
+    public Optional<StoredObject> stat(String key) {
+        return storageService.stat(BUCKET, key);
+    }
+
+    // reads only the first bytes of the object; empty when it is missing or not a known image format
+    public Optional<ImageHeader> sniff(String key) {
+        try (InputStream in = storageService.openFile(BUCKET, key).getInputStream()) {
+            return ImageSniffer.sniff(in);
+        } catch (FileNotFoundException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String publicUrl(String key) {
+        return storageService.publicUrl(BUCKET, key);
+    }
+
+    public static String extensionOf(String contentType) {
+        return switch (String.valueOf(contentType)) {
+            case "image/png" -> ".png";
+            case "image/gif" -> ".gif";
+            case "image/jpeg", "image/jpg" -> ".jpg";
+            default -> "";
+        };
+    }
+
+    static String objectKey(HashedImage image) {
+        return image.hash() + extensionOf(image.file().getContentType());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.auth.pet.image;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "pet_image_variant", uniqueConstraints = @UniqueConstraint(
+        name = "uk_pet_image_variant_source_name", columnNames = {"source_url", "name"}))
+public class PetImageVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "source_url", nullable = false)
+    private String sourceUrl;
+
+    @Column(nullable = false, length = 16)
+    private String name;
+
+    @Column(nullable = false)
+    private String url;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    private int width;
+
+    private int height;
+
+    private long size;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public PetImageVariant() {
+    }
+
+    public PetImageVariant(String sourceUrl, String name, String url, String contentType, int width, int height,
+                           long size, Instant createdAt) {
+        this.sourceUrl = sourceUrl;
+        this.name = name;
+        this.url = url;
+        this.contentType = contentType;
+        this.width = width;
+        this.height = height;
+        this.size = size;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSourceUrl() {
+        return sourceUrl;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
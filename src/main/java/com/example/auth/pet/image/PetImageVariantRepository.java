@@ -0,0 +1,27 @@
+package com.example.auth.pet.image;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PetImageVariantRepository extends JpaRepository<PetImageVariant, Long> {
+
+    List<PetImageVariant> findAllBySourceUrlIn(Collection<String> sourceUrls);
+
+    boolean existsBySourceUrl(String sourceUrl);
+
+    @Query("select v.url from PetImageVariant v where v.url in :urls")
+    List<String> findExistingUrls(@Param("urls") Collection<String> urls);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PetImageVariant v WHERE v.sourceUrl IN :sourceUrls")
+    int deleteAllBySourceUrlIn(@Param("sourceUrls") Collection<String> sourceUrls);
+}
@@ -0,0 +1,4 @@
+package com.example.auth.pet.image;
+
+public record RenderedVariant(String name, String contentType, int width, int height, byte[] bytes) {
+}
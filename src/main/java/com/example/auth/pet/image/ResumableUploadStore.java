@@ -0,0 +1,258 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.infra.storage.StorageService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Resumable uploads: the client sends an image in chunks, each one written at its offset into a local file,
+// and on completion the file goes to storage like a direct upload. A dropped connection keeps every byte that
+// was written, so the retry only sends the rest. Sessions live in memory, so a client has to resume against
+// the instance that started the upload.
+@Component
+public class ResumableUploadStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadStore.class);
+
+    private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+    // session files are named by the session id; anything else in the directory is left alone
+    private static final Pattern SESSION_FILE = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final StorageService storageService;
+    private final Path directory;
+    private final Duration ttl;
+    private final ExecutorService cleanup;
+    private final Cache<String, UploadSession> sessions;
+    private final Object creating = new Object();
+
+    public ResumableUploadStore(StorageService storageService,
+                                @Value("${uploads.resumable.dir:./resumable-uploads}") String directory,
+                                @Value("${uploads.resumable.ttl:24h}") Duration ttl,
+                                @Value("${uploads.resumable.max-sessions:10000}") long maxSessions) throws IOException {
+        this.storageService = storageService;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.ttl = ttl;
+        Files.createDirectories(this.directory);
+        // sessions do not survive a restart, so their files are only taking space
+        clear(this.directory);
+
+        // The scheduler expires idle sessions on time instead of on the next cache access, taking their files along.
+        // Removal waits for a chunk still being written, so it runs on a thread of its own, not the common pool.
+        this.cleanup = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "resumable-upload-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sessions = Caffeine.newBuilder()
+                .expireAfterAccess(ttl)
+                .maximumSize(maxSessions)
+                .executor(cleanup)
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String id, UploadSession session, RemovalCause cause) -> {
+                    if (session != null) discard(session);
+                })
+                .build();
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    // Refused with 429 once the user has maxPerUser sessions open: the global cap evicts the least recently used
+    // session with its file, so without it one user could push everyone else's uploads out. The count and the
+    // insert share a lock, so parallel requests cannot slip past the limit together.
+    public UploadSession create(long userId, String key, String contentType, long length, int maxPerUser) {
+        synchronized (creating) {
+            long open = sessions.asMap().values().stream().filter(session -> session.getUserId() == userId).count();
+            if (open >= maxPerUser) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "at most " + maxPerUser + " resumable uploads can be open at once");
+            }
+
+            String id = UUID.randomUUID().toString();
+            Path file = directory.resolve(id);
+            try {
+                Files.createFile(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            UploadSession session = new UploadSession(id, userId, key, contentType, length, file);
+            sessions.put(id, session);
+            return session;
+        }
+    }
+
+    public Optional<UploadSession> find(String id) {
+        return Optional.ofNullable(sessions.getIfPresent(id));
+    }
+
+    // Writes the body at offset, which has to be where the previous chunk ended. The offset advances with every
+    // write, so when the body breaks off midway the bytes that did arrive still count.
+    public long append(UploadSession session, long offset, InputStream body) throws IOException {
+        lock(session);
+        try {
+            if (offset != session.getOffset()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "upload is at offset " + session.getOffset());
+            }
+
+            try (FileChannel channel = FileChannel.open(session.getFile(), StandardOpenOption.WRITE)) {
+                byte[] chunk = new byte[CHUNK_BUFFER_SIZE];
+                long position = offset;
+                int read;
+                while ((read = body.read(chunk)) != -1) {
+                    if (position + read > session.getLength()) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "chunk goes past the declared length of " + session.getLength() + " bytes");
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    session.setOffset(position);
+                }
+            }
+            return session.getOffset();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    public Optional<ImageHeader> sniff(UploadSession session) {
+        try (InputStream in = Files.newInputStream(session.getFile())) {
+            return ImageSniffer.sniff(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // sends the finished file to storage under the session key and ends the session
+    public void complete(UploadSession session) {
+        lock(session);
+        try {
+            if (session.getOffset() != session.getLength()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "upload is incomplete: " + session.getOffset() + " of " + session.getLength() + " bytes");
+            }
+            storageService.uploadFileAsync(PetImageStore.BUCKET, session.getKey(), new SessionFile(session)).block();
+            session.close();
+        } finally {
+            session.lock.unlock();
+        }
+        sessions.invalidate(session.getId());
+    }
+
+    public void abort(UploadSession session) {
+        sessions.invalidate(session.getId());
+    }
+
+    private void lock(UploadSession session) {
+        if (!session.lock.tryLock()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "another request is writing this upload");
+        }
+        if (session.isClosed() || sessions.getIfPresent(session.getId()) != session) {
+            session.lock.unlock();
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found: " + session.getId());
+        }
+    }
+
+    // waits for a chunk still being written, so the file is not deleted under it
+    private void discard(UploadSession session) {
+        session.lock.lock();
+        try {
+            session.close();
+            Files.deleteIfExists(session.getFile());
+        } catch (IOException e) {
+            log.warn("could not delete resumable upload file {}", session.getFile(), e);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cleanup.shutdown();
+    }
+
+    private static void clear(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                if (SESSION_FILE.matcher(file.getFileName().toString()).matches()) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // the finished upload as the storage backends expect it, streamed from disk
+    private static final class SessionFile implements MultipartFile {
+        private final UploadSession session;
+
+        private SessionFile(UploadSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public String getName() {
+            return session.getId();
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return session.getKey();
+        }
+
+        @Override
+        public String getContentType() {
+            return session.getContentType();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return session.getLength() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return session.getLength();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(session.getFile());
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(session.getFile());
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(session.getFile(), dest.toPath());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.auth.pet.image;
+
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One resumable upload: its bytes so far live in file, and offset is how many of them arrived.
+public class UploadSession {
+
+    private final String id;
+    private final long userId;
+    private final String key;
+    private final String contentType;
+    private final long length;
+    private final Path file;
+    // chunks and completion of one session never overlap; a second writer is turned away instead of queued
+    final ReentrantLock lock = new ReentrantLock();
+    private volatile long offset;
+    private volatile boolean closed;
+
+    UploadSession(String id, long userId, String key, String contentType, long length, Path file) {
+        this.id = id;
+        this.userId = userId;
+        this.key = key;
+        this.contentType = contentType;
+        this.length = length;
+        this.file = file;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        this.closed = true;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.auth.pet.index;
+
+import com.example.auth.pet.DTOs.PetFacetsDTO;
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// One counter per (specie, sex, size, adopted) combination; slot 0 of each dimension holds nulls.
+// There are only a few dozen cells, so any facet query is a single pass over a small array.
+public final class FacetCounts {
+
+    private static final int SPECIES = Specie.values().length + 1;
+    private static final int SEXES = Sex.values().length + 1;
+    private static final int SIZES = Size.values().length + 1;
+
+    private final long[] cells = new long[SPECIES * SEXES * SIZES * 2];
+
+    public static FacetCounts of(List<PetFacetRow> rows) {
+        FacetCounts counts = new FacetCounts();
+        rows.forEach(row -> counts.add(row.specie(), row.sex(), row.size(), row.adopted(), row.count()));
+        return counts;
+    }
+
+    void add(Specie specie, Sex sex, Size size, boolean adopted, long delta) {
+        cells[cell(slot(specie), slot(sex), slot(size), adopted)] += delta;
+    }
+
+    public PetFacetsDTO facets(Specie specie, Sex sex, Size size) {
+        long total = 0;
+        long[] bySpecie = new long[SPECIES];
+        long[] bySex = new long[SEXES];
+        long[] bySize = new long[SIZES];
+
+        for (int sp = 0; sp < SPECIES; sp++) {
+            boolean specieMatches = specie == null || sp == slot(specie);
+            for (int sx = 0; sx < SEXES; sx++) {
+                boolean sexMatches = sex == null || sx == slot(sex);
+                for (int sz = 0; sz < SIZES; sz++) {
+                    boolean sizeMatches = size == null || sz == slot(size);
+                    long count = cells[cell(sp, sx, sz, false)];
+                    if (count == 0) continue;
+
+                    if (specieMatches && sexMatches && sizeMatches) total += count;
+                    if (sexMatches && sizeMatches) bySpecie[sp] += count;
+                    if (specieMatches && sizeMatches) bySex[sx] += count;
+                    if (specieMatches && sexMatches) bySize[sz] += count;
+                }
+            }
+        }
+
+        return new PetFacetsDTO(total,
+                toMap(Specie.class, Specie.values(), bySpecie),
+                toMap(Sex.class, Sex.values(), bySex),
+                toMap(Size.class, Size.values(), bySize));
+    }
+
+    FacetCounts copy() {
+        FacetCounts copy = new FacetCounts();
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FacetCounts counts && Arrays.equals(cells, counts.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cells);
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> toMap(Class<E> type, E[] values, long[] counts) {
+        Map<E, Long> map = new EnumMap<>(type);
+        for (E value : values) map.put(value, counts[value.ordinal() + 1]);
+        return map;
+    }
+
+    private static int cell(int specie, int sex, int size, boolean adopted) {
+        return ((specie * SEXES + sex) * SIZES + size) * 2 + (adopted ? 1 : 0);
+    }
+
+    private static int slot(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+}
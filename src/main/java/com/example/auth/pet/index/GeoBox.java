@@ -0,0 +1,54 @@
+package com.example.auth.pet.index;
+
+// Latitude/longitude rectangle enclosing a circle on the sphere. When the circle crosses the
+// antimeridian minLongitude > maxLongitude; when it reaches a pole every longitude is inside.
+public record GeoBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    public static GeoBox around(double latitude, double longitude, double radiusKm) {
+        double deltaLatitude = radiusKm / KM_PER_DEGREE;
+        double minLatitude = latitude - deltaLatitude;
+        double maxLatitude = latitude + deltaLatitude;
+        if (minLatitude <= -90 || maxLatitude >= 90) {
+            return new GeoBox(Math.max(minLatitude, -90), Math.min(maxLatitude, 90), -180, 180);
+        }
+
+        // The widest point of the circle is not on its centre's parallel, so the half-width is
+        // asin(sin r / cos lat) rather than r / cos lat, which falls short at high latitudes. When
+        // sin r reaches cos lat the circle wraps around the pole's axis and takes every longitude.
+        double sinRadius = Math.sin(radiusKm / EARTH_RADIUS_KM);
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        if (sinRadius >= cosLatitude) {
+            return new GeoBox(minLatitude, maxLatitude, -180, 180);
+        }
+        double deltaLongitude = Math.toDegrees(Math.asin(sinRadius / cosLatitude));
+        double minLongitude = longitude - deltaLongitude;
+        double maxLongitude = longitude + deltaLongitude;
+        if (minLongitude < -180) minLongitude += 360;
+        if (maxLongitude > 180) maxLongitude -= 360;
+        return new GeoBox(minLatitude, maxLatitude, minLongitude, maxLongitude);
+    }
+
+    public boolean crossesAntimeridian() {
+        return minLongitude > maxLongitude;
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        if (latitude < minLatitude || latitude > maxLatitude) return false;
+        return crossesAntimeridian()
+                ? longitude >= minLongitude || longitude <= maxLongitude
+                : longitude >= minLongitude && longitude <= maxLongitude;
+    }
+
+    // haversine great-circle distance
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(dLatitude / 2), 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.pow(Math.sin(dLongitude / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
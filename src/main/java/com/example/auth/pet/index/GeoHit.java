@@ -0,0 +1,4 @@
+package com.example.auth.pet.index;
+
+public record GeoHit(Long id, double distanceKm) {
+}
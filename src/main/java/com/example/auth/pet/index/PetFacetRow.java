@@ -0,0 +1,8 @@
+package com.example.auth.pet.index;
+
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+
+public record PetFacetRow(Specie specie, Sex sex, Size size, boolean adopted, long count) {
+}
@@ -0,0 +1,242 @@
+package com.example.auth.pet.index;
+
+import com.example.auth.pet.DTOs.PetFacetsDTO;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetRepository;
+import com.example.auth.pet.enums.PetSort;
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+import jakarta.transaction.Transactional;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Compressed bitmaps of pet ids per enum value and per availability. Filter queries
+// become bitmap ANDs; only the ids of the requested page are fetched from the database.
+// Facet counters live next to the bitmaps so they share the same rebuild and write path.
+@Component
+public class PetFilterIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PetFilterIndex.class);
+
+    private final PetRepository petRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Bitmaps bitmaps = new Bitmaps();
+    // writes that happen while a rebuild is scanning the table, replayed onto the new bitmaps
+    private List<Consumer<Bitmaps>> pending;
+    private volatile boolean ready;
+    private boolean drifted;
+
+    public PetFilterIndex(PetRepository petRepository) {
+        this.petRepository = petRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Bitmaps fresh = new Bitmaps();
+        try (Stream<PetFilterRow> rows = petRepository.streamFilterRows()) {
+            rows.forEach(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(op -> op.accept(fresh));
+            pending = null;
+            bitmaps = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("pet filter index built with {} pets", fresh.all.getCardinality());
+    }
+
+    // Counters only drift if an event was lost, so a difference must show up in two runs in a row
+    // before it counts; a single one is usually a write that committed between the two reads.
+    @Scheduled(fixedDelayString = "${pet.facets.reconcile-interval:PT10M}",
+            initialDelayString = "${pet.facets.reconcile-interval:PT10M}")
+    @Transactional
+    public void reconcile() {
+        if (!ready) return;
+
+        FacetCounts expected = FacetCounts.of(petRepository.countFacets());
+        FacetCounts actual;
+        lock.readLock().lock();
+        try {
+            actual = bitmaps.counts.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (expected.equals(actual)) {
+            drifted = false;
+        } else if (!drifted) {
+            drifted = true;
+        } else {
+            log.warn("pet facet counters drifted from the database, rebuilding the filter index");
+            drifted = false;
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        Pet pet = event.pet();
+        if (pet.getId() == null) return;
+
+        if (event.removed()) {
+            remove(pet.getId());
+        } else {
+            put(new PetFilterRow(pet.getId(), pet.getSpecie(), pet.getSex(), pet.getSize(), pet.isAdopted()));
+        }
+    }
+
+    public void put(PetFilterRow row) {
+        apply(bitmaps -> bitmaps.put(row));
+    }
+
+    public void remove(Long id) {
+        apply(bitmaps -> bitmaps.remove(Math.toIntExact(id)));
+    }
+
+    // null filters match everything; the result is a private copy the caller may modify
+    public RoaringBitmap match(Specie specie, Sex sex, Size size, boolean onlyAvailable) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> parts = new ArrayList<>(4);
+            parts.add(onlyAvailable ? bitmaps.available : bitmaps.all);
+            if (specie != null) parts.add(bitmaps.bySpecie.get(specie));
+            if (sex != null) parts.add(bitmaps.bySex.get(sex));
+            if (size != null) parts.add(bitmaps.bySize.get(size));
+            return parts.size() == 1 ? parts.get(0).clone() : FastAggregation.and(parts.iterator());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PetFacetsDTO facets(Specie specie, Sex sex, Size size) {
+        lock.readLock().lock();
+        try {
+            return bitmaps.counts.facets(specie, sex, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> page(Specie specie, Sex sex, Size size, boolean onlyAvailable,
+                           Long after, PetSort sort, int limit) {
+        return page(match(specie, sex, size, onlyAvailable), after, sort, limit);
+    }
+
+    // walks the bitmap from the keyset position, so the cost depends on the page size only
+    static List<Long> page(RoaringBitmap matches, Long after, PetSort sort, int limit) {
+        List<Long> ids = new ArrayList<>(limit);
+        if (sort == PetSort.OLDEST) {
+            long next = matches.nextValue(after == null ? 0 : Math.toIntExact(after) + 1);
+            while (next >= 0 && ids.size() < limit) {
+                ids.add(next);
+                next = next == Integer.MAX_VALUE ? -1 : matches.nextValue((int) next + 1);
+            }
+        } else {
+            if (after != null && after <= 0) return ids;
+            long next = matches.previousValue(after == null ? Integer.MAX_VALUE : Math.toIntExact(after) - 1);
+            while (next >= 0 && ids.size() < limit) {
+                ids.add(next);
+                next = next == 0 ? -1 : matches.previousValue((int) next - 1);
+            }
+        }
+        return ids;
+    }
+
+    private void apply(Consumer<Bitmaps> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(bitmaps);
+            if (pending != null) pending.add(op);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Bitmaps {
+        private final Map<Specie, RoaringBitmap> bySpecie = new EnumMap<>(Specie.class);
+        private final Map<Sex, RoaringBitmap> bySex = new EnumMap<>(Sex.class);
+        private final Map<Size, RoaringBitmap> bySize = new EnumMap<>(Size.class);
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final RoaringBitmap available = new RoaringBitmap();
+        private final FacetCounts counts = new FacetCounts();
+
+        private Bitmaps() {
+            for (Specie specie : Specie.values()) bySpecie.put(specie, new RoaringBitmap());
+            for (Sex sex : Sex.values()) bySex.put(sex, new RoaringBitmap());
+            for (Size size : Size.values()) bySize.put(size, new RoaringBitmap());
+        }
+
+        private void put(PetFilterRow row) {
+            int id = Math.toIntExact(row.id());
+            remove(id);
+            all.add(id);
+            if (!row.adopted()) available.add(id);
+            if (row.specie() != null) bySpecie.get(row.specie()).add(id);
+            if (row.sex() != null) bySex.get(row.sex()).add(id);
+            if (row.size() != null) bySize.get(row.size()).add(id);
+            counts.add(row.specie(), row.sex(), row.size(), row.adopted(), 1);
+        }
+
+        private void remove(int id) {
+            if (!all.contains(id)) return;
+            counts.add(valueContaining(bySpecie, id), valueContaining(bySex, id), valueContaining(bySize, id),
+                    !available.contains(id), -1);
+
+            all.remove(id);
+            available.remove(id);
+            bySpecie.values().forEach(bitmap -> bitmap.remove(id));
+            bySex.values().forEach(bitmap -> bitmap.remove(id));
+            bySize.values().forEach(bitmap -> bitmap.remove(id));
+        }
+
+        private static <E> E valueContaining(Map<E, RoaringBitmap> bitmaps, int id) {
+            for (Map.Entry<E, RoaringBitmap> entry : bitmaps.entrySet()) {
+                if (entry.getValue().contains(id)) return entry.getKey();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.auth.pet.index;
+
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetRepository;
+import jakarta.transaction.Transactional;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Pets with a location bucketed into a fixed 0.1 degree grid. A radius query only visits the
+// cells under the circle's bounding box (or the occupied cells, whichever is fewer) and
+// computes exact distances for the pets in them.
+@Component
+public class PetGeoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PetGeoIndex.class);
+
+    static final double CELL_DEGREES = 0.1;
+    private static final int ROWS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int COLUMNS = (int) Math.round(360 / CELL_DEGREES);
+
+    private final PetRepository petRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Grid grid = new Grid();
+    // writes that happen while a rebuild is scanning the table, replayed onto the new grid
+    private List<Consumer<Grid>> pending;
+    private volatile boolean ready;
+
+    public PetGeoIndex(PetRepository petRepository) {
+        this.petRepository = petRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Grid fresh = new Grid();
+        try (Stream<PetGeoRow> rows = petRepository.streamGeoRows()) {
+            rows.forEach(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(op -> op.accept(fresh));
+            pending = null;
+            grid = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("pet geo index built with {} located pets in {} cells", fresh.points.size(), fresh.cells.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        Pet pet = event.pet();
+        if (pet.getId() == null) return;
+
+        if (event.removed()) {
+            remove(pet.getId());
+        } else {
+            put(new PetGeoRow(pet.getId(), pet.getLatitude(), pet.getLongitude()));
+        }
+    }
+
+    public void put(PetGeoRow row) {
+        apply(grid -> grid.put(row));
+    }
+
+    public void remove(Long id) {
+        apply(grid -> grid.remove(Math.toIntExact(id)));
+    }
+
+    // up to limit pets within radiusKm, nearest first, restricted to allowed when given
+    public List<GeoHit> nearest(double latitude, double longitude, double radiusKm, RoaringBitmap allowed, int limit) {
+        lock.readLock().lock();
+        try {
+            return grid.nearest(latitude, longitude, radiusKm, allowed, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int row(double latitude) {
+        return Math.min(ROWS - 1, Math.max(0, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+    }
+
+    static int column(double longitude) {
+        return Math.min(COLUMNS - 1, Math.max(0, (int) Math.floor((longitude + 180) / CELL_DEGREES)));
+    }
+
+    private void apply(Consumer<Grid> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(grid);
+            if (pending != null) pending.add(op);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Grid {
+        private final Map<Integer, RoaringBitmap> cells = new HashMap<>();
+        private final Map<Integer, double[]> points = new HashMap<>();
+
+        private void put(PetGeoRow row) {
+            int id = Math.toIntExact(row.id());
+            remove(id);
+            if (row.latitude() == null || row.longitude() == null) return;
+
+            points.put(id, new double[]{row.latitude(), row.longitude()});
+            cells.computeIfAbsent(cell(row(row.latitude()), column(row.longitude())), key -> new RoaringBitmap()).add(id);
+        }
+
+        private void remove(int id) {
+            double[] point = points.remove(id);
+            if (point == null) return;
+
+            int cell = cell(row(point[0]), column(point[1]));
+            RoaringBitmap ids = cells.get(cell);
+            ids.remove(id);
+            if (ids.isEmpty()) cells.remove(cell);
+        }
+
+        private List<GeoHit> nearest(double latitude, double longitude, double radiusKm, RoaringBitmap allowed, int limit) {
+            GeoBox box = GeoBox.around(latitude, longitude, radiusKm);
+            int minRow = row(box.minLatitude());
+            int maxRow = row(box.maxLatitude());
+            int minColumn = column(box.minLongitude());
+            int maxColumn = column(box.maxLongitude());
+            boolean wraps = box.crossesAntimeridian();
+            long columns = wraps ? COLUMNS - minColumn + maxColumn + 1 : maxColumn - minColumn + 1;
+
+            Comparator<GeoHit> farthestFirst = Comparator.comparingDouble(GeoHit::distanceKm).reversed();
+            PriorityQueue<GeoHit> nearest = new PriorityQueue<>(farthestFirst);
+            Consumer<RoaringBitmap> visit = ids -> {
+                IntIterator iterator = ids.getIntIterator();
+                while (iterator.hasNext()) {
+                    int id = iterator.next();
+                    if (allowed != null && !allowed.contains(id)) continue;
+                    double[] point = points.get(id);
+                    double distance = GeoBox.distanceKm(latitude, longitude, point[0], point[1]);
+                    if (distance > radiusKm) continue;
+                    nearest.add(new GeoHit((long) id, distance));
+                    if (nearest.size() > limit) nearest.poll();
+                }
+            };
+
+            if ((long) (maxRow - minRow + 1) * columns <= cells.size()) {
+                for (int row = minRow; row <= maxRow; row++) {
+                    for (long offset = 0; offset < columns; offset++) {
+                        RoaringBitmap ids = cells.get(cell(row, (int) ((minColumn + offset) % COLUMNS)));
+                        if (ids != null) visit.accept(ids);
+                    }
+                }
+            } else {
+                cells.forEach((cell, ids) -> {
+                    int row = cell / COLUMNS;
+                    int column = cell % COLUMNS;
+                    boolean columnInside = wraps
+                            ? column >= minColumn || column <= maxColumn
+                            : column >= minColumn && column <= maxColumn;
+                    if (row >= minRow && row <= maxRow && columnInside) visit.accept(ids);
+                });
+            }
+
+            List<GeoHit> hits = new ArrayList<>(nearest);
+            hits.sort(farthestFirst.reversed());
+            return hits;
+        }
+
+        private static int cell(int row, int column) {
+            return row * COLUMNS + column;
+        }
+    }
+}
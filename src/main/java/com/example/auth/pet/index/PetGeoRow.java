@@ -0,0 +1,4 @@
+package com.example.auth.pet.index;
+
+public record PetGeoRow(Long id, Double latitude, Double longitude) {
+}
@@ -0,0 +1,275 @@
+package com.example.auth.pet.index;
+
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetRepository;
+import jakarta.transaction.Transactional;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Inverted index over nickname and description. Every query word must match some indexed term,
+// either exactly, as a prefix, or through shared trigrams (typos); matches are ranked by
+// similarity x field weight x idf, with a small boost for newer pets.
+@Component
+public class PetSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PetSearchIndex.class);
+
+    static final float NICKNAME_WEIGHT = 3f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+    private static final double PREFIX_SIMILARITY = 0.8;
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.45;
+    private static final double RECENCY_WEIGHT = 0.1;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final PetRepository petRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Terms terms = new Terms();
+    // writes that happen while a rebuild is scanning the table, replayed onto the new index
+    private List<Consumer<Terms>> pending;
+    private volatile boolean ready;
+
+    public PetSearchIndex(PetRepository petRepository) {
+        this.petRepository = petRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Terms fresh = new Terms();
+        try (Stream<PetSearchRow> rows = petRepository.streamSearchRows()) {
+            rows.forEach(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(op -> op.accept(fresh));
+            pending = null;
+            terms = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("pet search index built with {} pets and {} terms", fresh.docs.size(), fresh.postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        Pet pet = event.pet();
+        if (pet.getId() == null) return;
+
+        if (event.removed()) {
+            remove(pet.getId());
+        } else {
+            put(new PetSearchRow(pet.getId(), pet.getNickname(), pet.getDescription()));
+        }
+    }
+
+    public void put(PetSearchRow row) {
+        apply(terms -> terms.put(row));
+    }
+
+    public void remove(Long id) {
+        apply(terms -> terms.remove(Math.toIntExact(id)));
+    }
+
+    // Ranked ids of pets matching every word of the query, restricted to allowed when given
+    public List<Long> search(String query, RoaringBitmap allowed, int offset, int limit) {
+        List<String> words = List.copyOf(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            return terms.search(words, allowed, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (token.length() > 1) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) trigrams.add(padded.substring(i, i + 3));
+        return trigrams;
+    }
+
+    private void apply(Consumer<Terms> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(terms);
+            if (pending != null) pending.add(op);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Terms {
+        private final TreeMap<String, RoaringBitmap> postings = new TreeMap<>();
+        private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+        private final Map<Integer, Map<String, Float>> docs = new HashMap<>();
+        private final RoaringBitmap all = new RoaringBitmap();
+
+        private void put(PetSearchRow row) {
+            int id = Math.toIntExact(row.id());
+            remove(id);
+
+            Map<String, Float> weights = new HashMap<>();
+            tokenize(row.nickname()).forEach(term -> weights.merge(term, NICKNAME_WEIGHT, Float::sum));
+            tokenize(row.description()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Float::sum));
+
+            docs.put(id, weights);
+            all.add(id);
+            weights.keySet().forEach(term -> postings.computeIfAbsent(term, this::newTerm).add(id));
+        }
+
+        private void remove(int id) {
+            Map<String, Float> weights = docs.remove(id);
+            if (weights == null) return;
+            all.remove(id);
+
+            for (String term : weights.keySet()) {
+                RoaringBitmap ids = postings.get(term);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                    trigrams(term).forEach(trigram -> {
+                        Set<String> terms = termsByTrigram.get(trigram);
+                        terms.remove(term);
+                        if (terms.isEmpty()) termsByTrigram.remove(trigram);
+                    });
+                }
+            }
+        }
+
+        private RoaringBitmap newTerm(String term) {
+            trigrams(term).forEach(trigram -> termsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(term));
+            return new RoaringBitmap();
+        }
+
+        private List<Long> search(List<String> words, RoaringBitmap allowed, int offset, int limit) {
+            List<Map<String, Double>> expansions = new ArrayList<>(words.size());
+            List<RoaringBitmap> matches = new ArrayList<>(words.size() + 1);
+            for (String word : words) {
+                Map<String, Double> expansion = expand(word);
+                if (expansion.isEmpty()) return List.of();
+                expansions.add(expansion);
+                matches.add(FastAggregation.or(expansion.keySet().stream().map(postings::get).iterator()));
+            }
+            if (allowed != null) matches.add(allowed);
+            RoaringBitmap candidates = FastAggregation.and(matches.iterator());
+
+            // keep only the best offset + limit candidates instead of sorting every match
+            int wanted = offset + limit;
+            Comparator<ScoredPet> ranking = Comparator.comparingDouble(ScoredPet::score).thenComparingInt(ScoredPet::id);
+            PriorityQueue<ScoredPet> top = new PriorityQueue<>(ranking);
+            double newest = all.isEmpty() ? 1 : Math.max(1, all.last());
+            IntIterator ids = candidates.getIntIterator();
+            while (ids.hasNext()) {
+                int id = ids.next();
+                double score = score(docs.get(id), expansions) * (1 + RECENCY_WEIGHT * id / newest);
+                top.add(new ScoredPet(id, score));
+                if (top.size() > wanted) top.poll();
+            }
+
+            List<ScoredPet> ranked = new ArrayList<>(top);
+            ranked.sort(ranking.reversed());
+            return ranked.stream().skip(offset).map(pet -> (long) pet.id()).toList();
+        }
+
+        private double score(Map<String, Float> weights, List<Map<String, Double>> expansions) {
+            double score = 0;
+            for (Map<String, Double> expansion : expansions) {
+                double best = 0;
+                for (Map.Entry<String, Double> term : expansion.entrySet()) {
+                    Float weight = weights.get(term.getKey());
+                    if (weight != null) best = Math.max(best, term.getValue() * weight * idf(term.getKey()));
+                }
+                score += best;
+            }
+            return score;
+        }
+
+        private double idf(String term) {
+            return Math.log(1 + (double) docs.size() / postings.get(term).getCardinality());
+        }
+
+        // indexed terms a query word may stand for, with how closely each one matches
+        private Map<String, Double> expand(String word) {
+            Map<String, Double> expansion = new HashMap<>();
+            for (String term : postings.subMap(word, true, word + Character.MAX_VALUE, false).keySet()) {
+                expansion.put(term, term.equals(word) ? 1.0 : PREFIX_SIMILARITY);
+            }
+
+            Set<String> wordTrigrams = trigrams(word);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : wordTrigrams) {
+                for (String term : termsByTrigram.getOrDefault(trigram, Set.of())) shared.merge(term, 1, Integer::sum);
+            }
+            shared.forEach((term, count) -> {
+                double similarity = 2.0 * count / (wordTrigrams.size() + trigrams(term).size());
+                if (similarity >= MIN_TRIGRAM_SIMILARITY) expansion.merge(term, similarity, Math::max);
+            });
+            return expansion;
+        }
+    }
+
+    private record ScoredPet(int id, double score) {
+    }
+}
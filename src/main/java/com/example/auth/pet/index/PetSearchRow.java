@@ -0,0 +1,4 @@
+package com.example.auth.pet.index;
+
+public record PetSearchRow(Long id, String nickname, String description) {
+}
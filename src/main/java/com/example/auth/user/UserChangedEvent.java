@@ -0,0 +1,7 @@
+package com.example.auth.user;
+
+import java.util.List;
+
+// Published when a user's public profile changes; carries the pets whose details embed that profile
+public record UserChangedEvent(Long userId, List<Long> petIds) {
+}
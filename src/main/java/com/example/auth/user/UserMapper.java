@@ -7,6 +7,7 @@ import com.example.auth.user.DTOs.UserSummaryDTO;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class UserMapper {
@@ -42,7 +43,9 @@ public class UserMapper {
                         pet.getSpecie(),
                         pet.getDescription(),
                         ownerSummary,
-                        pet.getImageUrls()
+                        pet.getImageUrls() == null ? null : List.copyOf(pet.getImageUrls()),
+                        Map.of(),
+                        Map.of()
                 ))
                 .toList();
     }
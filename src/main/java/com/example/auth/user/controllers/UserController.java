@@ -1,7 +1,8 @@
 package com.example.auth.user.controllers;
 
+import com.example.auth.infra.cache.DtoCaches;
+import com.example.auth.infra.versioning.ResourceVersions;
 import com.example.auth.user.DTOs.UserResponseDTO;
-import com.example.auth.user.User;
 import com.example.auth.user.UserMapper;
 import com.example.auth.user.services.UserService;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -23,20 +25,31 @@ public class UserController {
 
     private final UserService userService;
     private final UserMapper userMapper;
+    private final ResourceVersions resourceVersions;
+    private final DtoCaches dtoCaches;
 
-    public UserController(UserService userService, UserMapper userMapper) {
+    public UserController(UserService userService, UserMapper userMapper, ResourceVersions resourceVersions,
+                          DtoCaches dtoCaches) {
         this.userService = userService;
         this.userMapper = userMapper;
+        this.resourceVersions = resourceVersions;
+        this.dtoCaches = dtoCaches;
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID", description = "Returns a public user by ID.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "User found"),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the given ETag"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
-    public ResponseEntity<UserResponseDTO> getUserById(@PathVariable Long id) {
-        User user = userService.findById(id);
-        return ResponseEntity.ok(userMapper.toDTO(user));
+    public ResponseEntity<UserResponseDTO> getUserById(@PathVariable Long id, ServletWebRequest request) {
+        // read before the lookup, as in PetController.getPet
+        ResourceVersions.Version version = resourceVersions.user(id);
+        if (version.checkNotModified(request)) {
+            return null;
+        }
+
+        return ResponseEntity.ok(dtoCaches.user(id, key -> userMapper.toDTO(userService.findById(key))));
     }
 }
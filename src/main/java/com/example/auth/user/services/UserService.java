@@ -1,11 +1,15 @@
 package com.example.auth.user.services;
 
 
-import com.example.auth.pet.SupabaseStorageService;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.image.PetImageStore;
 import com.example.auth.user.DTOs.UpdateDTO;
 import com.example.auth.user.User;
+import com.example.auth.user.UserChangedEvent;
 import com.example.auth.user.UserRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -20,12 +24,15 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
-    private final SupabaseStorageService supabaseStorageService;
+    private final PetImageStore petImageStore;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, SupabaseStorageService supabaseStorageService){
-        this.supabaseStorageService = supabaseStorageService;
+    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, PetImageStore petImageStore,
+                       ApplicationEventPublisher eventPublisher){
+        this.petImageStore = petImageStore;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     public User findById(Long id){
@@ -59,7 +66,9 @@ public class UserService {
         user.setEmail(dto.email());
         user.setPhoneNumber(dto.phoneNumber());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), petIds(saved)));
+        return saved;
     }
 
     @Transactional
@@ -93,13 +102,21 @@ public class UserService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Given password is wrong!");
         }
 
-        List<String> allUrls = user.getRegisteredPets().stream()
+        List<Pet> pets = List.copyOf(user.getRegisteredPets());
+        List<String> allUrls = pets.stream()
                 .flatMap(p -> p.getImageUrls().stream())
                 .toList();
 
         userRepository.delete(user); // cascade deleta os pets
+        pets.forEach(pet -> eventPublisher.publishEvent(PetChangedEvent.removed(pet)));
+        eventPublisher.publishEvent(new UserChangedEvent(id, pets.stream().map(Pet::getId).toList()));
 
-        supabaseStorageService.deleteAllByPublicUrls("pet-images", allUrls);
+        petImageStore.release(allUrls);
     }
-}
 
+    private List<Long> petIds(User user) {
+        return user.getRegisteredPets() == null
+                ? List.of()
+                : user.getRegisteredPets().stream().map(Pet::getId).toList();
+    }
+}
@@ -0,0 +1,7 @@
+-- BlurHash of each pet image url, written by ImageVariantPipeline next to the variants. Clients paint it
+-- while the image loads. Rows follow their source url like pet_image_variant.
+CREATE TABLE pet_image_placeholder (
+    source_url VARCHAR(255) PRIMARY KEY,
+    blurhash VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,8 @@
+-- Keyset pagination walks pets by id, so the composite indexes end with id to
+-- serve both the filter and the ORDER BY ... LIMIT without a sort step.
+CREATE INDEX idx_pet_adopted_id ON pet(adopted, id);
+CREATE INDEX idx_pet_filters_id ON pet(specie, sex, size, id);
+
+-- Superseded by the indexes above (same leading columns).
+DROP INDEX idx_pet_adopted;
+DROP INDEX idx_pet_filters;
@@ -0,0 +1,6 @@
+-- Optional pet location. The geo index answers radius queries in memory; this
+-- index serves the bounding-box prefilter used to re-check and as a fallback.
+ALTER TABLE pet ADD COLUMN latitude DOUBLE PRECISION;
+ALTER TABLE pet ADD COLUMN longitude DOUBLE PRECISION;
+
+CREATE INDEX idx_pet_location ON pet(latitude, longitude);
@@ -0,0 +1,11 @@
+-- Image objects are keyed by the SHA-256 of their content, so the same photo is stored
+-- once however many pets use it. ref_count is the number of pet image slots pointing at
+-- the object; the object is removed from storage when it drops to zero.
+CREATE TABLE pet_image (
+    hash VARCHAR(64) PRIMARY KEY,
+    url VARCHAR(255) NOT NULL UNIQUE,
+    content_type VARCHAR(255),
+    size BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
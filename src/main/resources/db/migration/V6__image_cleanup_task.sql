@@ -0,0 +1,14 @@
+-- Outbox of image objects to remove from storage. Rows are written in the transaction that
+-- drops the last reference, and a background worker deletes the objects, retrying with
+-- backoff until storage confirms. lease_token marks the worker run that claimed a row.
+CREATE TABLE image_cleanup_task (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    url VARCHAR(255) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    lease_token VARCHAR(36),
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_image_cleanup_task_next_attempt_at ON image_cleanup_task(next_attempt_at);
@@ -0,0 +1,10 @@
+-- Progress of the orphan image collector through a bucket listing. next_cursor is where the next
+-- run continues (null starts a new pass); locked_until keeps a second instance from walking
+-- the same bucket at the same time.
+CREATE TABLE image_gc_checkpoint (
+    bucket VARCHAR(255) PRIMARY KEY,
+    next_cursor VARCHAR(1024),
+    locked_until TIMESTAMP WITH TIME ZONE,
+    pass_started_at TIMESTAMP WITH TIME ZONE,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,4 @@
+-- 64-bit difference hash of the decoded image. Re-encoded or resized copies of a photo land a few
+-- bits apart, which the in-memory index uses to spot near-duplicates. NULL when the image could
+-- not be decoded or was stored before the column existed.
+ALTER TABLE pet_image ADD COLUMN phash BIGINT;
@@ -0,0 +1,17 @@
+-- Resized, re-encoded copies of a pet image, written by ImageVariantPipeline after the pet is saved.
+-- name is "full" for the copy clamped to the maximum dimension or "w<width>" for a fixed width.
+-- Rows follow their source url: they are removed when the source object is queued for deletion.
+CREATE TABLE pet_image_variant (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    source_url VARCHAR(255) NOT NULL,
+    name VARCHAR(16) NOT NULL,
+    url VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    width INTEGER NOT NULL,
+    height INTEGER NOT NULL,
+    size BIGINT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_pet_image_variant_source_name UNIQUE (source_url, name)
+);
+
+CREATE INDEX idx_pet_image_variant_url ON pet_image_variant(url);
@@ -0,0 +1,164 @@
+package com.example.auth.Benchmarks;
+
+import com.example.auth.pet.enums.PetSort;
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+import com.example.auth.pet.index.PetFilterIndex;
+import com.example.auth.pet.index.PetFilterRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Compares one page of /pet/filter as SQL (the query findRows renders for the supplied filters and the
+// keyset predicate, LIMIT 21 for the page and its probe row) against the same page read from the bitmap
+// index, both at the first page and deep into the results. See the README for the command that runs it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetFilterBenchmark {
+
+    private static final int PAGE_ROWS = 21;
+    private static final String FIRST_PAGE = """
+            SELECT p.id FROM pet p
+            WHERE p.adopted = FALSE AND p.specie = ? AND p.size = ?
+            ORDER BY p.id DESC
+            LIMIT %d
+            """.formatted(PAGE_ROWS);
+    private static final String NEXT_PAGE = """
+            SELECT p.id FROM pet p
+            WHERE p.adopted = FALSE AND p.specie = ? AND p.size = ? AND p.id < ?
+            ORDER BY p.id DESC
+            LIMIT %d
+            """.formatted(PAGE_ROWS);
+
+    @Param({"10000", "100000"})
+    public int pets;
+
+    private Connection connection;
+    private PreparedStatement firstPageQuery;
+    private PreparedStatement nextPageQuery;
+    private PetFilterIndex index;
+    // keyset position halfway through the ids, for the deep page
+    private long middle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:pet-filter-benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS pet");
+            statement.execute("""
+                    CREATE TABLE pet (
+                        id BIGINT PRIMARY KEY,
+                        adopted BOOLEAN,
+                        specie VARCHAR(255),
+                        size VARCHAR(255),
+                        sex VARCHAR(255)
+                    )""");
+            // the indexes of the migrations
+            statement.execute("CREATE INDEX idx_pet_adopted_id ON pet(adopted, id)");
+            statement.execute("CREATE INDEX idx_pet_filters_id ON pet(specie, sex, size, id)");
+        }
+
+        index = new PetFilterIndex(null);
+        Random random = new Random(42);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO pet (id, adopted, specie, size, sex) VALUES (?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= pets; id++) {
+                PetFilterRow row = new PetFilterRow(
+                        id,
+                        Specie.values()[random.nextInt(Specie.values().length)],
+                        Sex.values()[random.nextInt(Sex.values().length)],
+                        Size.values()[random.nextInt(Size.values().length)],
+                        random.nextInt(10) == 0);
+                insert.setLong(1, id);
+                insert.setBoolean(2, row.adopted());
+                insert.setString(3, row.specie().name());
+                insert.setString(4, row.size().name());
+                insert.setString(5, row.sex().name());
+                insert.addBatch();
+                index.put(row);
+            }
+            insert.executeBatch();
+        }
+        middle = pets / 2;
+        firstPageQuery = connection.prepareStatement(FIRST_PAGE);
+        nextPageQuery = connection.prepareStatement(NEXT_PAGE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> sqlFirstPage() throws SQLException {
+        firstPageQuery.setString(1, Specie.DOG.name());
+        firstPageQuery.setString(2, Size.BIG.name());
+        return ids(firstPageQuery);
+    }
+
+    @Benchmark
+    public List<Long> sqlDeepPage() throws SQLException {
+        nextPageQuery.setString(1, Specie.DOG.name());
+        nextPageQuery.setString(2, Size.BIG.name());
+        nextPageQuery.setLong(3, middle);
+        return ids(nextPageQuery);
+    }
+
+    @Benchmark
+    public List<Long> bitmapFirstPage() {
+        return index.page(Specie.DOG, null, Size.BIG, true, null, PetSort.NEWEST, PAGE_ROWS);
+    }
+
+    @Benchmark
+    public List<Long> bitmapDeepPage() {
+        return index.page(Specie.DOG, null, Size.BIG, true, middle, PetSort.NEWEST, PAGE_ROWS);
+    }
+
+    @Benchmark
+    public int bitmapFilterCount() {
+        return index.match(Specie.DOG, null, Size.BIG, true).getCardinality();
+    }
+
+    private static List<Long> ids(PreparedStatement query) throws SQLException {
+        List<Long> ids = new ArrayList<>(PAGE_ROWS);
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) ids.add(rs.getLong(1));
+        }
+        return ids;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PetFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
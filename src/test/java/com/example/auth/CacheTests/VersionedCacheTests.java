@@ -0,0 +1,67 @@
+package com.example.auth.CacheTests;
+
+import com.example.auth.infra.cache.VersionedCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Versioned Cache Tests")
+class VersionedCacheTests {
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final VersionedCache<String> cache =
+            new VersionedCache<>(1_000, Duration.ofMinutes(1), String::length, id -> version.get());
+
+    @Test
+    @DisplayName("get should load once and serve hits while the version is unchanged")
+    void get_shouldServeHits() {
+        assertEquals("v0", cache.get(1L, this::load));
+        assertEquals("v0", cache.get(1L, this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.nativeCache().stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("get should reload when the version moved past the cached entry")
+    void get_shouldReload_whenVersionChanged() {
+        cache.get(1L, this::load);
+        version.incrementAndGet();
+
+        assertEquals("v1", cache.get(1L, this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("get should not cache values whose load failed")
+    void get_shouldNotCacheFailures() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, id -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("v0", cache.get(1L, this::load));
+    }
+
+    @Test
+    @DisplayName("cache should evict entries once their weight exceeds the bound")
+    void cache_shouldBoundWeight() {
+        VersionedCache<String> small = new VersionedCache<>(10, Duration.ofMinutes(1), String::length, id -> 0L);
+        for (long id = 0; id < 100; id++) {
+            small.get(id, key -> "12345");
+        }
+        small.nativeCache().cleanUp();
+
+        assertTrue(small.nativeCache().estimatedSize() <= 2);
+    }
+
+    private String load(Long id) {
+        loads.incrementAndGet();
+        return "v" + version.get();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.PetTests.TestImages;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BlurHash Tests")
+class BlurHashTests {
+
+    @Test
+    @DisplayName("encode should write 4x3 components in 28 characters")
+    void encode_shouldWriteCompactHash() {
+        String hash = BlurHash.encode(TestImages.photo(1200, 800, 1));
+
+        assertEquals(28, hash.length());
+        // size flag (4 - 1) + (3 - 1) * 9 = 21, the base 83 digit "L"
+        assertEquals('L', hash.charAt(0));
+        assertTrue(hash.chars().allMatch(c -> c < 128 && c != '"' && c != '\\'));
+    }
+
+    @Test
+    @DisplayName("encode should carry the average colour of the image in its first four digits")
+    void encode_shouldEncodeAverageColour() {
+        assertEquals("TI:j", BlurHash.encode(solid(64, 48, Color.RED)).substring(2, 6));
+        assertEquals("L00000" + "fQ".repeat(11), BlurHash.encode(solid(10, 10, Color.BLACK)));
+    }
+
+    @Test
+    @DisplayName("encode should tell apart images with different layouts")
+    void encode_shouldDependOnLayout() {
+        BufferedImage left = solid(100, 100, Color.WHITE);
+        BufferedImage right = solid(100, 100, Color.WHITE);
+        fill(left, 0, 50, Color.BLUE);
+        fill(right, 50, 50, Color.BLUE);
+
+        assertNotEquals(BlurHash.encode(left), BlurHash.encode(right));
+        assertEquals(BlurHash.encode(left).substring(2, 6), BlurHash.encode(right).substring(2, 6));
+    }
+
+    private static BufferedImage solid(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        fill(image, 0, width, color);
+        return image;
+    }
+
+    private static void fill(BufferedImage image, int x, int width, Color color) {
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(x, 0, width, image.getHeight());
+        graphics.dispose();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.image.ImageCleanupTask;
+import com.example.auth.pet.image.ImageCleanupTaskRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("Image Cleanup Task Repository Tests")
+class ImageCleanupTaskRepositoryTests {
+
+    @Autowired
+    private ImageCleanupTaskRepository taskRepository;
+
+    @Test
+    @DisplayName("findDueIds should skip tasks scheduled for later")
+    void findDueIds_shouldSkipFutureTasks() {
+        Instant now = Instant.now();
+        ImageCleanupTask due = taskRepository.save(new ImageCleanupTask("https://cdn/due.jpg", now.minusSeconds(1)));
+        taskRepository.save(new ImageCleanupTask("https://cdn/later.jpg", now.plusSeconds(60)));
+
+        assertEquals(List.of(due.getId()), taskRepository.findDueIds(now, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    @DisplayName("claim should only take tasks that are still due")
+    void claim_shouldOnlyTakeDueTasks() {
+        Instant now = Instant.now();
+        ImageCleanupTask task = taskRepository.save(new ImageCleanupTask("https://cdn/a.jpg", now.minusSeconds(1)));
+        List<Long> ids = List.of(task.getId());
+
+        assertEquals(1, taskRepository.claim(ids, "first", now, now.plus(Duration.ofMinutes(5))));
+        assertEquals(0, taskRepository.claim(ids, "second", now, now.plus(Duration.ofMinutes(5))));
+
+        assertEquals(ids, taskRepository.findAllByLeaseToken("first").stream().map(ImageCleanupTask::getId).toList());
+        assertTrue(taskRepository.findAllByLeaseToken("second").isEmpty());
+    }
+
+    @Test
+    @DisplayName("reschedule should count the attempt and release the lease")
+    void reschedule_shouldCountAttempt() {
+        Instant now = Instant.now();
+        ImageCleanupTask task = taskRepository.save(new ImageCleanupTask("https://cdn/a.jpg", now.minusSeconds(1)));
+        taskRepository.claim(List.of(task.getId()), "token", now, now.plus(Duration.ofMinutes(5)));
+
+        taskRepository.reschedule(task.getId(), now.plusSeconds(30), "storage error");
+
+        ImageCleanupTask stored = taskRepository.findById(task.getId()).orElseThrow();
+        assertEquals(1, stored.getAttempts());
+        assertNull(stored.getLeaseToken());
+        assertEquals("storage error", stored.getLastError());
+        assertTrue(taskRepository.findDueIds(now, PageRequest.of(0, 10)).isEmpty());
+    }
+}
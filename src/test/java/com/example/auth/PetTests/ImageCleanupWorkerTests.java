@@ -0,0 +1,224 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.infra.storage.DeleteResult;
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.image.ImageCleanupTask;
+import com.example.auth.pet.image.ImageCleanupTaskRepository;
+import com.example.auth.pet.PetRepository;
+import com.example.auth.pet.image.ImageCleanupWorker;
+import com.example.auth.pet.image.PetImage;
+import com.example.auth.pet.image.PetImageRepository;
+import com.example.auth.pet.image.PetImageVariantRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Image Cleanup Worker Tests")
+class ImageCleanupWorkerTests {
+
+    private static final String PREFIX = "https://cdn/pet-images/";
+
+    @Mock
+    private ImageCleanupTaskRepository taskRepository;
+    @Mock
+    private PetRepository petRepository;
+    @Mock
+    private PetImageRepository petImageRepository;
+    @Mock
+    private PetImageVariantRepository variantRepository;
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageCleanupWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        worker = new ImageCleanupWorker(taskRepository, petRepository, petImageRepository, variantRepository, storageService,
+                transactionManager, meterRegistry, 2,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("drain should delete the objects and drop finished tasks")
+    void drain_shouldDeleteAndDropTasks() {
+        ImageCleanupTask a = task(1L, PREFIX + "a.jpg", 0);
+        ImageCleanupTask b = task(2L, PREFIX + "b.jpg", 0);
+        claims(List.of(a, b));
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L, 2L)).thenReturn(List.of());
+        when(storageService.deleteFilesAsync("pet-images", List.of("a.jpg", "b.jpg")))
+                .thenReturn(Mono.just(List.of(DeleteResult.deleted("a.jpg"), DeleteResult.deleted("b.jpg"))));
+
+        worker.drain();
+
+        verify(taskRepository).deleteDone(List.of(1L, 2L));
+        verify(taskRepository, never()).reschedule(anyLong(), any(), any());
+        assertEquals(2, meterRegistry.get("pet.image.cleanup").tag("outcome", "deleted").counter().count());
+    }
+
+    @Test
+    @DisplayName("drain should reschedule failed objects with backoff")
+    void drain_shouldRescheduleFailures() {
+        ImageCleanupTask a = task(1L, PREFIX + "a.jpg", 0);
+        ImageCleanupTask b = task(2L, PREFIX + "b.jpg", 3);
+        claims(List.of(a, b));
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L, 2L)).thenReturn(List.of());
+        when(storageService.deleteFilesAsync("pet-images", List.of("a.jpg", "b.jpg")))
+                .thenReturn(Mono.just(List.of(DeleteResult.deleted("a.jpg"),
+                        DeleteResult.failed("b.jpg", new RuntimeException("storage error")))));
+
+        Instant before = Instant.now();
+        worker.drain();
+
+        verify(taskRepository).deleteDone(List.of(1L));
+        ArgumentCaptor<Instant> next = ArgumentCaptor.forClass(Instant.class);
+        verify(taskRepository).reschedule(eq(2L), next.capture(), eq("storage error"));
+        // fourth attempt: 30s doubled three times, jittered between half and the full delay
+        assertFalse(next.getValue().isBefore(before.plusSeconds(120)));
+        assertFalse(next.getValue().isAfter(Instant.now().plusSeconds(240)));
+    }
+
+    @Test
+    @DisplayName("drain should reschedule the whole batch when storage cannot be reached")
+    void drain_shouldReschedule_whenStorageFails() {
+        claims(List.of(task(1L, PREFIX + "a.jpg", 0)));
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(storageService.deleteFilesAsync(eq("pet-images"), anyList()))
+                .thenReturn(Mono.error(new RuntimeException("connection refused")));
+
+        worker.drain();
+
+        verify(taskRepository).reschedule(eq(1L), any(), anyString());
+        verify(taskRepository, never()).deleteDone(anyCollection());
+    }
+
+    @Test
+    @DisplayName("drain should keep objects that are referenced again")
+    void drain_shouldKeepReferencedObjects() {
+        claims(List.of(task(1L, PREFIX + "a.jpg", 0), task(2L, PREFIX + "b.jpg", 0),
+                task(3L, PREFIX + "variants/b/w160.jpg", 0)));
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L, 2L, 3L)).thenReturn(List.of());
+        when(petRepository.findReferencedImageUrls(anyCollection())).thenReturn(List.of(PREFIX + "a.jpg"));
+        when(petImageRepository.lockAllByUrlIn(anyCollection()))
+                .thenReturn(List.of(new PetImage("b", PREFIX + "b.jpg", "image/jpeg", 10, 1, Instant.now())));
+        when(variantRepository.findExistingUrls(anyCollection())).thenReturn(List.of(PREFIX + "variants/b/w160.jpg"));
+
+        worker.drain();
+
+        verify(taskRepository).deleteDone(List.of(1L, 2L, 3L));
+        verify(storageService, never()).deleteFilesAsync(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("drain should mark the rows deleting and call storage only after that transaction committed")
+    void drain_shouldDeleteOutsideTransaction() {
+        String hash = "a".repeat(64);
+        List<String> urls = List.of(PREFIX + hash + ".jpg", PREFIX + "legacy.jpg");
+        claims(List.of(task(1L, urls.get(0), 0), task(2L, urls.get(1), 0)));
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L, 2L)).thenReturn(List.of());
+        when(storageService.deleteFilesAsync("pet-images", List.of(hash + ".jpg", "legacy.jpg")))
+                .thenReturn(Mono.just(List.of(DeleteResult.deleted(hash + ".jpg"), DeleteResult.deleted("legacy.jpg"))));
+
+        worker.drain();
+
+        InOrder order = inOrder(petImageRepository, transactionManager, storageService, taskRepository);
+        order.verify(petImageRepository).insertTombstone(eq(hash), eq(urls.get(0)), any());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(petImageRepository).lockAllByUrlIn(urls);
+        order.verify(petImageRepository).markDeleting(urls);
+        order.verify(transactionManager).commit(any());
+        order.verify(storageService).deleteFilesAsync(eq("pet-images"), anyList());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(petImageRepository).clearDeleting(urls);
+        order.verify(taskRepository).deleteDone(List.of(1L, 2L));
+        order.verify(transactionManager).commit(any());
+        verify(petImageRepository, never()).insertTombstone(anyString(), eq(urls.get(1)), any());
+    }
+
+    @Test
+    @DisplayName("drain should clear the deleting mark when storage fails, so the content can be registered again")
+    void drain_shouldClearMark_whenStorageFails() {
+        String url = PREFIX + "a".repeat(64) + ".jpg";
+        claims(List.of(task(1L, url, 0)));
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(storageService.deleteFilesAsync(eq("pet-images"), anyList()))
+                .thenReturn(Mono.error(new RuntimeException("connection refused")));
+
+        worker.drain();
+
+        verify(petImageRepository).markDeleting(List.of(url));
+        verify(petImageRepository).clearDeleting(List.of(url));
+        verify(taskRepository).reschedule(eq(1L), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("drain should give up on storage at the delete deadline")
+    void drain_shouldBoundWaitByDeleteDeadline() {
+        worker = new ImageCleanupWorker(taskRepository, petRepository, petImageRepository, variantRepository, storageService,
+                transactionManager, meterRegistry, 2,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMillis(100));
+        claims(List.of(task(1L, PREFIX + "a.jpg", 0)));
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(storageService.deleteFilesAsync(eq("pet-images"), anyList())).thenReturn(Mono.never());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> worker.drain());
+
+        verify(taskRepository).reschedule(eq(1L), any(), anyString());
+        verify(petImageRepository).clearDeleting(List.of(PREFIX + "a.jpg"));
+    }
+
+    @Test
+    @DisplayName("drain should stop when another worker claimed the tasks")
+    void drain_shouldStop_whenNothingClaimed() {
+        when(taskRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(taskRepository.claim(anyCollection(), anyString(), any(), any())).thenReturn(0);
+
+        worker.drain();
+
+        verifyNoInteractions(storageService);
+    }
+
+    @Test
+    @DisplayName("backoff should grow exponentially up to the cap")
+    void backoff_shouldGrowUpToCap() {
+        Duration first = ReflectionTestUtils.invokeMethod(worker, "backoff", 1);
+        Duration capped = ReflectionTestUtils.invokeMethod(worker, "backoff", 40);
+
+        assertTrue(first.compareTo(Duration.ofSeconds(15)) >= 0 && first.compareTo(Duration.ofSeconds(30)) <= 0);
+        assertTrue(capped.compareTo(Duration.ofMinutes(30)) >= 0 && capped.compareTo(Duration.ofHours(1)) <= 0);
+    }
+
+    private void claims(List<ImageCleanupTask> tasks) {
+        when(storageService.publicUrl("pet-images", "")).thenReturn(PREFIX);
+        when(taskRepository.claim(anyCollection(), anyString(), any(), any())).thenReturn(tasks.size());
+        when(taskRepository.findAllByLeaseToken(anyString())).thenReturn(tasks);
+    }
+
+    private ImageCleanupTask task(Long id, String url, int attempts) {
+        ImageCleanupTask task = new ImageCleanupTask(url, Instant.now());
+        ReflectionTestUtils.setField(task, "id", id);
+        ReflectionTestUtils.setField(task, "attempts", attempts);
+        return task;
+    }
+}
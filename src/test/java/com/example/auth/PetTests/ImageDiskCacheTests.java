@@ -0,0 +1,194 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.image.CachedImage;
+import com.example.auth.pet.image.ImageDiskCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Image Disk Cache Tests")
+class ImageDiskCacheTests {
+
+    @TempDir
+    Path directory;
+
+    private final StorageService storageService = mock(StorageService.class);
+
+    @Test
+    @DisplayName("get should copy the object to disk with its content hash as etag")
+    void get_shouldCacheObjectOnDisk() throws Exception {
+        byte[] content = "image-bytes".getBytes();
+        when(storageService.openFile("pet-images", "abc.jpg")).thenReturn(new ByteArrayResource(content));
+        ImageDiskCache cache = cache(DataSize.ofMegabytes(1));
+
+        CachedImage image = cache.get("abc.jpg").join();
+        CachedImage again = cache.get("abc.jpg").join();
+
+        assertArrayEquals(content, Files.readAllBytes(image.file()));
+        assertEquals(content.length, image.size());
+        assertEquals("image/jpeg", image.contentType());
+        assertEquals("\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)) + "\"",
+                image.etag());
+        assertSame(image, again);
+        verify(storageService, times(1)).openFile("pet-images", "abc.jpg");
+    }
+
+    @Test
+    @DisplayName("get should fetch once for concurrent misses of the same key")
+    void get_shouldShareConcurrentMisses() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(storageService.openFile("pet-images", "abc.jpg")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ByteArrayResource("image-bytes".getBytes());
+        });
+        ImageDiskCache cache = cache(DataSize.ofMegabytes(1));
+
+        List<CompletableFuture<CachedImage>> loads = IntStream.range(0, 8).mapToObj(i -> cache.get("abc.jpg")).toList();
+        release.countDown();
+
+        loads.forEach(load -> assertEquals("image-bytes".length(), load.join().size()));
+        verify(storageService, times(1)).openFile("pet-images", "abc.jpg");
+    }
+
+    @Test
+    @DisplayName("get should complete with null when storage has no such object")
+    void get_shouldReturnNull_whenMissing() throws Exception {
+        when(storageService.openFile("pet-images", "missing.jpg")).thenReturn(new AbstractResource() {
+            @Override
+            public String getDescription() {
+                return "missing";
+            }
+
+            @Override
+            public InputStream getInputStream() throws FileNotFoundException {
+                throw new FileNotFoundException("missing");
+            }
+        });
+        ImageDiskCache cache = cache(DataSize.ofMegabytes(1));
+
+        assertNull(cache.get("missing.jpg").join());
+    }
+
+    @Test
+    @DisplayName("get should reject keys that could leave the bucket")
+    void get_shouldRejectInvalidKeys() throws Exception {
+        ImageDiskCache cache = cache(DataSize.ofMegabytes(1));
+
+        assertNull(cache.get("../secret").join());
+        assertNull(cache.get("a//b.jpg").join());
+        verifyNoInteractions(storageService);
+    }
+
+    @Test
+    @DisplayName("the cache should remove files from disk when it evicts them")
+    void cache_shouldDeleteEvictedFiles() throws Exception {
+        byte[] content = new byte[600];
+        when(storageService.openFile(eq("pet-images"), anyString())).thenAnswer(invocation -> new ByteArrayResource(content));
+        ImageDiskCache cache = cache(DataSize.ofBytes(1000));
+
+        for (int i = 0; i < 5; i++) {
+            cache.get(i + ".jpg").join();
+            cache.get(i + ".jpg").join();
+        }
+
+        // eviction is done by the cache's maintenance, which reads trigger; keep reading until it caught up
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        long files;
+        do {
+            cache.get("4.jpg").join();
+            try (var listing = Files.list(directory)) {
+                files = listing.count();
+            }
+        } while (files > 1 && System.nanoTime() < deadline && sleep());
+        assertTrue(files <= 1, "files on disk: " + files);
+    }
+
+    @Test
+    @DisplayName("the cache should keep evicted files for a grace period, for readers that already got their path")
+    void cache_shouldDeleteEvictedFilesAfterGrace() throws Exception {
+        byte[] content = new byte[600];
+        when(storageService.openFile(eq("pet-images"), anyString())).thenAnswer(invocation -> new ByteArrayResource(content));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ImageDiskCache cache = new ImageDiskCache(storageService, meterRegistry, directory.toString(),
+                DataSize.ofBytes(1000), Duration.ofSeconds(2));
+
+        List<Path> loaded = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            loaded.add(cache.get(i + ".jpg").join().file());
+            cache.get(i + ".jpg").join();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (evictions(meterRegistry) < 4 && System.nanoTime() < deadline) {
+            cache.get("4.jpg").join();
+        }
+        // the admission policy may also turn away the last image, which the reads then load again
+        assertTrue(evictions(meterRegistry) >= 4);
+
+        // every copy is still on disk right after the evictions
+        assertTrue(loaded.stream().allMatch(Files::isRegularFile));
+
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        long files;
+        do {
+            try (var listing = Files.list(directory)) {
+                files = listing.count();
+            }
+        } while (files > 1 && System.nanoTime() < deadline && sleep());
+        assertTrue(files <= 1, "files on disk: " + files);
+        Path kept = cache.get("4.jpg").join().file();
+        assertTrue(Files.isRegularFile(kept));
+    }
+
+    @Test
+    @DisplayName("a new cache should clear files left by a previous run")
+    void constructor_shouldClearDirectory() throws Exception {
+        Files.writeString(directory.resolve("stale"), "old");
+
+        cache(DataSize.ofMegabytes(1));
+
+        assertFalse(Files.exists(directory.resolve("stale")));
+    }
+
+    private ImageDiskCache cache(DataSize maxSize) throws Exception {
+        return cache(maxSize, Duration.ZERO);
+    }
+
+    private ImageDiskCache cache(DataSize maxSize, Duration evictedFileGrace) throws Exception {
+        return new ImageDiskCache(storageService, new SimpleMeterRegistry(), directory.toString(), maxSize, evictedFileGrace);
+    }
+
+    private static double evictions(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.get("cache.evictions").tag("cache", "imageProxy").functionCounter().count();
+    }
+
+    private static boolean sleep() {
+        try {
+            Thread.sleep(20);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.image.ImageGcCheckpoint;
+import com.example.auth.pet.image.ImageGcCheckpointRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("Image GC Checkpoint Repository Tests")
+class ImageGcCheckpointRepositoryTests {
+
+    @Autowired
+    private ImageGcCheckpointRepository checkpointRepository;
+
+    @Test
+    @DisplayName("lock should be held by one run until it is released or expires")
+    void lock_shouldBeExclusive() {
+        Instant now = Instant.now();
+        checkpointRepository.saveAndFlush(new ImageGcCheckpoint("pet-images", now));
+
+        assertEquals(1, checkpointRepository.lock("pet-images", now, now.plus(Duration.ofMinutes(30))));
+        assertEquals(0, checkpointRepository.lock("pet-images", now, now.plus(Duration.ofMinutes(30))));
+        assertEquals(1, checkpointRepository.lock("pet-images", now.plus(Duration.ofHours(1)),
+                now.plus(Duration.ofHours(2))));
+
+        checkpointRepository.unlock("pet-images");
+        assertEquals(1, checkpointRepository.lock("pet-images", now, now.plus(Duration.ofMinutes(30))));
+    }
+
+    @Test
+    @DisplayName("advance should store the cursor for the next run")
+    void advance_shouldStoreCursor() {
+        Instant now = Instant.now();
+        checkpointRepository.saveAndFlush(new ImageGcCheckpoint("pet-images", now));
+
+        checkpointRepository.advance("pet-images", "uploads/1/a.jpg", now, now.plus(Duration.ofMinutes(30)));
+
+        assertEquals("uploads/1/a.jpg", checkpointRepository.findById("pet-images").orElseThrow().getNextCursor());
+    }
+}
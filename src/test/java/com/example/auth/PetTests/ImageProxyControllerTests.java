@@ -0,0 +1,119 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.infra.security.SecurityConfigurations;
+import com.example.auth.infra.security.SecurityFilter;
+import com.example.auth.infra.security.TokenService;
+import com.example.auth.pet.image.CachedImage;
+import com.example.auth.pet.image.ImageDiskCache;
+import com.example.auth.pet.image.ImageProxyController;
+import com.example.auth.user.services.UserDetailsServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ImageProxyController.class, properties = "images.proxy.enabled=true")
+@Import({SecurityConfigurations.class, SecurityFilter.class})
+@DisplayName("Image Proxy Controller Tests")
+class ImageProxyControllerTests {
+
+    private static final String ETAG = "\"0123abcd\"";
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ImageDiskCache imageCache;
+    @MockBean
+    private TokenService tokenService;
+    @MockBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    @DisplayName("GET /images/{key} should serve the cached image with an etag and immutable caching")
+    void read_shouldServeCachedImage() throws Exception {
+        cached("uploads/1/abc.jpg");
+
+        mockMvc.perform(get("/images/uploads/1/abc.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @DisplayName("GET /images/{key} should answer 304 when the etag matches")
+    void read_shouldAnswerNotModified() throws Exception {
+        cached("abc.jpg");
+
+        mockMvc.perform(get("/images/abc.jpg").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /images/{key} should answer Range requests with 206")
+    void read_shouldServeRange() throws Exception {
+        cached("abc.jpg");
+
+        mockMvc.perform(get("/images/abc.jpg").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    @DisplayName("GET /images/{key} should hand whole images to sendfile when the connector supports it")
+    void read_shouldUseSendfile_whenSupported() throws Exception {
+        Path file = cached("abc.jpg");
+
+        mockMvc.perform(get("/images/abc.jpg").requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toRealPath().toString()))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /images/{key} should return 404 when storage has no such image")
+    void read_shouldReturnNotFound() throws Exception {
+        when(imageCache.get("missing.jpg")).thenReturn(CompletableFuture.completedFuture(null));
+
+        mockMvc.perform(get("/images/missing.jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /images/{key} should return 502 when storage fails")
+    void read_shouldReturnBadGateway_whenStorageFails() throws Exception {
+        when(imageCache.get("abc.jpg")).thenReturn(CompletableFuture.failedFuture(new RuntimeException("down")));
+
+        mockMvc.perform(get("/images/abc.jpg"))
+                .andExpect(status().isBadGateway());
+    }
+
+    private Path cached(String key) throws Exception {
+        Path file = Files.writeString(directory.resolve("image"), "0123456789");
+        when(imageCache.get(key)).thenReturn(CompletableFuture.completedFuture(
+                new CachedImage(file, 10, "image/jpeg", ETAG)));
+        return file;
+    }
+}
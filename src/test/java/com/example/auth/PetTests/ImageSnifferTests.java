@@ -0,0 +1,87 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.image.ImageHeader;
+import com.example.auth.pet.image.ImageSniffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Image Sniffer Tests")
+class ImageSnifferTests {
+
+    @Test
+    @DisplayName("sniff should read type and dimensions of jpeg, png and gif headers")
+    void sniff_shouldReadKnownFormats() throws IOException {
+        assertEquals(Optional.of(new ImageHeader("image/jpeg", 1024, 768)), sniff(TestImages.jpeg(1024, 768, "pixels")));
+        assertEquals(Optional.of(new ImageHeader("image/png", 300, 40_000)), sniff(TestImages.png(300, 40_000, "pixels")));
+        assertEquals(Optional.of(new ImageHeader("image/gif", 640, 480)), sniff(TestImages.gif(640, 480, "pixels")));
+    }
+
+    @Test
+    @DisplayName("sniff should be empty for content that is not a known image")
+    void sniff_shouldBeEmpty_forUnknownContent() throws IOException {
+        assertTrue(sniff("%PDF-1.7".getBytes()).isEmpty());
+        assertTrue(sniff("<html><body></body></html>".getBytes()).isEmpty());
+        assertTrue(sniff(new byte[0]).isEmpty());
+    }
+
+    @Test
+    @DisplayName("sniff should be empty for truncated headers and zero dimensions")
+    void sniff_shouldBeEmpty_forBrokenHeaders() throws IOException {
+        byte[] png = TestImages.png(800, 600, "");
+        assertTrue(sniff(Arrays.copyOf(png, 20)).isEmpty());
+        assertTrue(sniff(TestImages.gif(0, 600, "")).isEmpty());
+        assertTrue(sniff(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0x00, 0x02}).isEmpty());
+    }
+
+    @Test
+    @DisplayName("sniff should skip segments before the jpeg frame header")
+    void sniff_shouldSkipJpegSegments() throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xD8});
+        // an EXIF-sized APP1 segment and a huffman table, neither of which holds dimensions
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) 0xFF, (byte) 0xF0});
+        jpeg.writeBytes(new byte[0xFFF0 - 2]);
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xC4, 0x00, 0x04, 0x00, 0x00});
+        byte[] frame = TestImages.jpeg(4000, 3000, "pixels");
+        jpeg.write(frame, 2, frame.length - 2);
+
+        assertEquals(Optional.of(new ImageHeader("image/jpeg", 4000, 3000)), sniff(jpeg.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("sniff should give up after MAX_HEADER_BYTES instead of reading the whole stream")
+    void sniff_shouldStopAtHeaderLimit() throws IOException {
+        // a jpeg made of nothing but comment segments never reaches a frame header
+        long[] position = {0};
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                long p = position[0]++;
+                if (p < 2) return p == 0 ? 0xFF : 0xD8;
+                return switch ((int) ((p - 2) % 1002)) {
+                    case 0 -> 0xFF;
+                    case 1 -> 0xFE;
+                    case 2 -> 0x03;
+                    case 3 -> 0xE8;
+                    default -> 0;
+                };
+            }
+        };
+
+        assertTrue(ImageSniffer.sniff(endless).isEmpty());
+        assertTrue(position[0] <= ImageSniffer.MAX_HEADER_BYTES);
+    }
+
+    private Optional<ImageHeader> sniff(byte[] content) throws IOException {
+        return ImageSniffer.sniff(new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.PetTests.TestImages;
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetRepository;
+import com.example.auth.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Image Variant Pipeline Tests")
+class ImageVariantPipelineTests {
+
+    private static final String PREFIX = "https://cdn/pet-images/";
+    private static final String URL = PREFIX + "abc.jpg";
+
+    @Mock
+    private PetRepository petRepository;
+    @Mock
+    private PetImageVariantRepository variantRepository;
+    @Mock
+    private PetImagePlaceholderRepository placeholderRepository;
+    @Mock
+    private ImageCleanupTaskRepository cleanupTaskRepository;
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Captor
+    private ArgumentCaptor<List<ImageCleanupTask>> queuedTasks;
+    @Captor
+    private ArgumentCaptor<List<PetImageVariant>> savedRows;
+
+    private ImageVariantPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new ImageVariantPipeline(petRepository, variantRepository, placeholderRepository,
+                cleanupTaskRepository, storageService, eventPublisher, new SimpleMeterRegistry(), true, 1024, List.of(160, 480), 0.8f, 1, 10,
+                Duration.ofHours(24), 2);
+        lenient().when(storageService.publicUrl(eq(PetImageStore.BUCKET), anyString()))
+                .thenAnswer(invocation -> PREFIX + invocation.getArgument(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    @DisplayName("render should upload every variant, record it with a placeholder and refresh the pets showing the image")
+    void render_shouldStoreVariants() {
+        User owner = new User();
+        owner.setId(3L);
+        Pet pet = new Pet();
+        pet.setId(7L);
+        pet.setUser(owner);
+        when(storageService.openFile(PetImageStore.BUCKET, "abc.jpg"))
+                .thenReturn(new ByteArrayResource(TestImages.encode(TestImages.photo(1200, 800, 1), "jpg")));
+        when(storageService.uploadFileAsync(eq(PetImageStore.BUCKET), anyString(), any()))
+                .thenAnswer(invocation -> Mono.just(PREFIX + invocation.getArgument(1)));
+        when(petRepository.findReferencedImageUrls(List.of(URL))).thenReturn(List.of(URL));
+        when(petRepository.findAllByImageUrl(URL)).thenReturn(List.of(pet));
+
+        pipeline.render(URL);
+
+        List<PetImageVariant> rows = savedVariants();
+        assertEquals(List.of("full", "w160", "w480"), rows.stream().map(PetImageVariant::getName).toList());
+        assertEquals(PREFIX + "variants/abc/w160.jpg", rows.get(1).getUrl());
+        assertEquals(URL, rows.get(1).getSourceUrl());
+        assertEquals(1024, rows.get(0).getWidth());
+        assertTrue(rows.get(1).getSize() > 0);
+        ArgumentCaptor<PetImagePlaceholder> placeholder = ArgumentCaptor.forClass(PetImagePlaceholder.class);
+        verify(placeholderRepository).save(placeholder.capture());
+        assertEquals(URL, placeholder.getValue().getSourceUrl());
+        assertEquals(28, placeholder.getValue().getBlurhash().length());
+        // a PetChangedEvent would queue the image again through onPetChanged
+        verify(eventPublisher).publishEvent(new PetImageRenderedEvent(URL, List.of(7L), List.of(3L)));
+        verify(eventPublisher, never()).publishEvent(any(PetChangedEvent.class));
+        verifyNoInteractions(cleanupTaskRepository);
+    }
+
+    @Test
+    @DisplayName("render should skip images that already have variants and a placeholder")
+    void render_shouldSkipRenderedImages() {
+        when(variantRepository.existsBySourceUrl(URL)).thenReturn(true);
+        when(placeholderRepository.existsById(URL)).thenReturn(true);
+
+        pipeline.render(URL);
+
+        verifyNoInteractions(storageService, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("render should compute a missing placeholder from the smallest variant without rendering again")
+    void render_shouldOnlyAddPlaceholder_whenVariantsExist() {
+        when(variantRepository.existsBySourceUrl(URL)).thenReturn(true);
+        when(variantRepository.findAllBySourceUrlIn(List.of(URL))).thenReturn(List.of(
+                new PetImageVariant(URL, "full", PREFIX + "variants/abc/full.jpg", "image/jpeg", 1024, 683, 90_000, Instant.now()),
+                new PetImageVariant(URL, "w160", PREFIX + "variants/abc/w160.jpg", "image/jpeg", 160, 107, 4_000, Instant.now())));
+        when(storageService.openFile(PetImageStore.BUCKET, "variants/abc/w160.jpg"))
+                .thenReturn(new ByteArrayResource(TestImages.encode(TestImages.photo(160, 107, 1), "jpg")));
+        when(petRepository.findReferencedImageUrls(List.of(URL))).thenReturn(List.of(URL));
+
+        pipeline.render(URL);
+
+        verify(placeholderRepository).save(any(PetImagePlaceholder.class));
+        verify(variantRepository, never()).saveAll(anyList());
+        verify(storageService, never()).uploadFileAsync(anyString(), anyString(), any());
+        verify(storageService, never()).openFile(PetImageStore.BUCKET, "abc.jpg");
+    }
+
+    @Test
+    @DisplayName("render should not retry an image it could not decode")
+    void render_shouldRememberFailures() {
+        when(storageService.openFile(PetImageStore.BUCKET, "abc.jpg"))
+                .thenReturn(new ByteArrayResource(TestImages.jpeg(800, 600, "not really pixels")));
+
+        pipeline.render(URL);
+        pipeline.render(URL);
+
+        verify(storageService, times(1)).openFile(anyString(), anyString());
+        verify(variantRepository, never()).saveAll(anyList());
+        verify(storageService, never()).uploadFileAsync(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("render should queue the variants for deletion when the image was released meanwhile")
+    void render_shouldQueueVariants_whenSourceWasReleased() {
+        when(storageService.openFile(PetImageStore.BUCKET, "abc.jpg"))
+                .thenReturn(new ByteArrayResource(TestImages.encode(TestImages.photo(300, 200, 2), "jpg")));
+        when(storageService.uploadFileAsync(eq(PetImageStore.BUCKET), anyString(), any()))
+                .thenAnswer(invocation -> Mono.just(PREFIX + invocation.getArgument(1)));
+        when(petRepository.findReferencedImageUrls(List.of(URL))).thenReturn(List.of());
+
+        pipeline.render(URL);
+
+        verify(variantRepository).deleteAllBySourceUrlIn(List.of(URL));
+        verify(placeholderRepository).deleteAllBySourceUrlIn(List.of(URL));
+        verify(cleanupTaskRepository).saveAll(queuedTasks.capture());
+        assertEquals(List.of(PREFIX + "variants/abc/full.jpg", PREFIX + "variants/abc/w160.jpg"),
+                queuedTasks.getValue().stream().map(ImageCleanupTask::getUrl).toList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("backfill should resume after the last queued url and start over after a short batch")
+    void backfill_shouldWalkUrlsWithoutVariants() {
+        lenient().when(variantRepository.existsBySourceUrl(anyString())).thenReturn(true);
+        lenient().when(placeholderRepository.existsById(anyString())).thenReturn(true);
+        when(petRepository.findImageUrlsToRender(null, PageRequest.of(0, 2)))
+                .thenReturn(List.of(PREFIX + "a.jpg", PREFIX + "b.jpg"));
+        when(petRepository.findImageUrlsToRender(PREFIX + "b.jpg", PageRequest.of(0, 2)))
+                .thenReturn(List.of(PREFIX + "c.jpg"));
+
+        pipeline.backfill();
+        pipeline.backfill();
+        pipeline.backfill();
+
+        verify(petRepository, times(2)).findImageUrlsToRender(null, PageRequest.of(0, 2));
+        verify(petRepository).findImageUrlsToRender(PREFIX + "b.jpg", PageRequest.of(0, 2));
+    }
+
+    private List<PetImageVariant> savedVariants() {
+        verify(variantRepository).saveAll(savedRows.capture());
+        return savedRows.getValue();
+    }
+}
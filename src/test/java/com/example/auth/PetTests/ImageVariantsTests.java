@@ -0,0 +1,141 @@
+package com.example.auth.pet.image;
+
+import com.example.auth.PetTests.TestImages;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Image Variants Tests")
+class ImageVariantsTests {
+
+    @Test
+    @DisplayName("render should clamp the full copy and only write widths narrower than it")
+    void render_shouldClampAndResize() throws IOException {
+        byte[] source = TestImages.encode(TestImages.photo(3000, 2000, 1), "jpg");
+
+        List<RenderedVariant> variants = ImageVariants.render(source, 1024, List.of(480, 160, 2000), 0.8f);
+
+        assertEquals(List.of("full", "w160", "w480"), variants.stream().map(RenderedVariant::name).toList());
+        assertVariant(variants.get(0), "image/jpeg", 1024, 683);
+        assertVariant(variants.get(1), "image/jpeg", 160, 107);
+        assertVariant(variants.get(2), "image/jpeg", 480, 320);
+        assertTrue(variants.get(1).bytes().length < variants.get(0).bytes().length);
+    }
+
+    @Test
+    @DisplayName("render should keep the size of images smaller than the maximum and never upscale")
+    void render_shouldNotUpscale() throws IOException {
+        byte[] source = TestImages.encode(TestImages.photo(300, 200, 2), "png");
+
+        List<RenderedVariant> variants = ImageVariants.render(source, 2048, List.of(160, 480, 1080), 0.8f);
+
+        assertEquals(List.of("full", "w160"), variants.stream().map(RenderedVariant::name).toList());
+        assertVariant(variants.get(0), "image/jpeg", 300, 200);
+    }
+
+    @Test
+    @DisplayName("render should write transparent images as png")
+    void render_shouldKeepTransparency() throws IOException {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(10, 10, new Color(255, 0, 0, 128).getRGB());
+
+        List<RenderedVariant> variants = ImageVariants.render(TestImages.encode(image, "png"), 2048, List.of(160), 0.8f);
+
+        assertVariant(variants.get(0), "image/png", 400, 300);
+        assertTrue(ImageIO.read(new ByteArrayInputStream(variants.get(0).bytes())).getColorModel().hasAlpha());
+    }
+
+    @Test
+    @DisplayName("render should turn the photo upright and leave the Exif segment behind")
+    void render_shouldApplyOrientationAndStripExif() throws IOException {
+        byte[] source = withOrientation(TestImages.encode(TestImages.photo(400, 200, 3), "jpg"), 6, ByteOrder.BIG_ENDIAN);
+
+        List<RenderedVariant> variants = ImageVariants.render(source, 2048, List.of(), 0.8f);
+
+        assertVariant(variants.get(0), "image/jpeg", 200, 400);
+        assertFalse(new String(variants.get(0).bytes(), StandardCharsets.ISO_8859_1).contains("Exif"));
+    }
+
+    @Test
+    @DisplayName("render should be empty for content no reader can decode")
+    void render_shouldBeEmpty_forUndecodableContent() throws IOException {
+        assertTrue(ImageVariants.render(TestImages.jpeg(800, 600, "not really pixels"), 2048, List.of(160), 0.8f).isEmpty());
+        assertTrue(ImageVariants.render("%PDF-1.7".getBytes(), 2048, List.of(160), 0.8f).isEmpty());
+    }
+
+    @Test
+    @DisplayName("orientation should read the tag in both byte orders and default to upright")
+    void orientation_shouldReadExifTag() {
+        byte[] jpeg = TestImages.encode(TestImages.photo(40, 20, 4), "jpg");
+
+        assertEquals(6, ImageVariants.orientation(withOrientation(jpeg, 6, ByteOrder.BIG_ENDIAN)));
+        assertEquals(8, ImageVariants.orientation(withOrientation(jpeg, 8, ByteOrder.LITTLE_ENDIAN)));
+        assertEquals(1, ImageVariants.orientation(withOrientation(jpeg, 42, ByteOrder.BIG_ENDIAN)));
+        assertEquals(1, ImageVariants.orientation(jpeg));
+        assertEquals(1, ImageVariants.orientation(TestImages.png(40, 20, "")));
+    }
+
+    @Test
+    @DisplayName("orient should move pixels the way each orientation asks")
+    void orient_shouldRotateAndFlip() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000);
+        image.setRGB(1, 0, 0x0000FF);
+
+        BufferedImage clockwise = ImageVariants.orient(image, 6);
+        assertEquals(1, clockwise.getWidth());
+        assertEquals(2, clockwise.getHeight());
+        assertEquals(0xFF0000, clockwise.getRGB(0, 0) & 0xFFFFFF);
+
+        BufferedImage counterClockwise = ImageVariants.orient(image, 8);
+        assertEquals(0x0000FF, counterClockwise.getRGB(0, 0) & 0xFFFFFF);
+
+        BufferedImage mirrored = ImageVariants.orient(image, 2);
+        assertEquals(0x0000FF, mirrored.getRGB(0, 0) & 0xFFFFFF);
+        assertSame(image, ImageVariants.orient(image, 1));
+    }
+
+    private static void assertVariant(RenderedVariant variant, String contentType, int width, int height)
+            throws IOException {
+        assertEquals(contentType, variant.contentType());
+        assertEquals(width, variant.width());
+        assertEquals(height, variant.height());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(variant.bytes()));
+        assertEquals(width, decoded.getWidth());
+        assertEquals(height, decoded.getHeight());
+    }
+
+    // an APP1 Exif segment with a single IFD0 entry, spliced in right after SOI
+    private static byte[] withOrientation(byte[] jpeg, int orientation, ByteOrder order) {
+        ByteBuffer tiff = ByteBuffer.allocate(26).order(order);
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? "MM".getBytes() : "II".getBytes());
+        tiff.putShort((short) 42).putInt(8).putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+
+        byte[] header = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+        int length = 2 + header.length + tiff.capacity();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.write(header, 0, header.length);
+        out.write(tiff.array(), 0, tiff.capacity());
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.image.NearDuplicateIndex;
+import com.example.auth.pet.image.PerceptualHash;
+import com.example.auth.pet.image.PetImageChangedEvent;
+import com.example.auth.pet.image.PetImageHashRow;
+import com.example.auth.pet.image.PetImageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Near Duplicate Index Tests")
+class NearDuplicateIndexTests {
+
+    @Mock
+    private PetImageRepository petImageRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NearDuplicateIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NearDuplicateIndex(petImageRepository, meterRegistry, 6, true);
+    }
+
+    @Test
+    @DisplayName("rebuild should load the stored hashes and mark the index ready")
+    void rebuild_shouldLoadStoredHashes() {
+        when(petImageRepository.streamPerceptualHashes())
+                .thenReturn(Stream.of(new PetImageHashRow("a", 0L), new PetImageHashRow("b", -1L)));
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(Optional.of("a"), index.nearest(0b111L));
+        assertEquals(Optional.of("b"), index.nearest(-1L << 3));
+        assertEquals(Optional.empty(), index.nearest(0xFFFF_FFFFL));
+    }
+
+    @Test
+    @DisplayName("nearest should agree with a linear scan over random hashes")
+    void nearest_shouldMatchLinearScan() {
+        Random random = new Random(7);
+        Map<String, Long> stored = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            long hash = random.nextLong();
+            stored.put("img" + i, hash);
+            index.put("img" + i, hash);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            // half the queries are close copies of a stored hash, the rest random
+            long query = i % 2 == 0
+                    ? stored.get("img" + random.nextInt(5_000)) ^ (1L << random.nextInt(64)) ^ (1L << random.nextInt(64))
+                    : random.nextLong();
+            int best = stored.values().stream().mapToInt(hash -> PerceptualHash.distance(hash, query)).min().orElseThrow();
+
+            Optional<String> match = index.nearest(query);
+            if (best <= 6) {
+                assertEquals(best, PerceptualHash.distance(stored.get(match.orElseThrow()), query));
+            } else {
+                assertTrue(match.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("remove should drop an image while keeping the ones routed through it")
+    void remove_shouldKeepOtherImages() {
+        index.put("root", 0L);
+        index.put("child", 0xFFL);
+        index.put("grandchild", 0xFFFL);
+
+        index.remove("root");
+
+        assertEquals(Optional.empty(), index.nearest(0L));
+        assertEquals(Optional.of("child"), index.nearest(0xFEL));
+        assertEquals(Optional.of("grandchild"), index.nearest(0xFFFL));
+    }
+
+    @Test
+    @DisplayName("onPetImageChanged should apply added and removed images")
+    void onPetImageChanged_shouldApplyChanges() {
+        index.onPetImageChanged(PetImageChangedEvent.added(new PetImageHashRow("a", 42L)));
+        assertEquals(Optional.of("a"), index.nearest(43L));
+
+        index.onPetImageChanged(PetImageChangedEvent.removed(List.of("a")));
+        assertEquals(Optional.empty(), index.nearest(43L));
+    }
+
+    @Test
+    @DisplayName("rejects should count matches and only reject when configured to")
+    void rejects_shouldFollowConfiguration() {
+        index.put("a", 0L);
+        NearDuplicateIndex flagging = new NearDuplicateIndex(petImageRepository, meterRegistry, 6, false);
+        flagging.put("a", 0L);
+
+        assertTrue(index.rejects("b", 0b11L, "dog.jpg"));
+        assertFalse(index.rejects("c", 0xFFFFL, "cat.jpg"));
+        assertFalse(flagging.rejects("b", 0b11L, "dog.jpg"));
+
+        assertEquals(1, meterRegistry.counter("pet.image.near_duplicate", "outcome", "rejected").count());
+        assertEquals(1, meterRegistry.counter("pet.image.near_duplicate", "outcome", "flagged").count());
+    }
+
+    @Test
+    @DisplayName("rejects should let the exact bytes of a stored image through to share it")
+    void rejects_shouldAllowExactReuse() {
+        index.put("a", 0L);
+
+        assertFalse(index.rejects("a", 0L, "dog.jpg"));
+        assertTrue(index.rejects("b", 0L, "dog-copy.jpg"));
+    }
+}
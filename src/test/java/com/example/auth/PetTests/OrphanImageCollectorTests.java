@@ -0,0 +1,166 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.infra.storage.ListedObject;
+import com.example.auth.infra.storage.ObjectPage;
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.PetRepository;
+import com.example.auth.pet.image.ImageCleanupTask;
+import com.example.auth.pet.image.ImageCleanupTaskRepository;
+import com.example.auth.pet.image.ImageGcCheckpoint;
+import com.example.auth.pet.image.ImageGcCheckpointRepository;
+import com.example.auth.pet.image.OrphanImageCollector;
+import com.example.auth.pet.image.PetImage;
+import com.example.auth.pet.image.PetImageRepository;
+import com.example.auth.pet.image.PetImageVariantRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Orphan Image Collector Tests")
+class OrphanImageCollectorTests {
+
+    private static final String PREFIX = "https://cdn/pet-images/";
+
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private PetRepository petRepository;
+    @Mock
+    private PetImageRepository petImageRepository;
+    @Mock
+    private PetImageVariantRepository variantRepository;
+    @Mock
+    private ImageCleanupTaskRepository cleanupTaskRepository;
+    @Mock
+    private ImageGcCheckpointRepository checkpointRepository;
+
+    private OrphanImageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        collector = new OrphanImageCollector(storageService, petRepository, petImageRepository, variantRepository,
+                cleanupTaskRepository,
+                checkpointRepository, new SimpleMeterRegistry(), 2, 3, 0, Duration.ofHours(24), Duration.ofMinutes(30));
+        lenient().when(storageService.publicUrl(eq("pet-images"), anyString()))
+                .thenAnswer(invocation -> PREFIX + invocation.getArgument(1));
+    }
+
+    @Test
+    @DisplayName("collect should queue old objects that nothing references")
+    void collect_shouldQueueUnreferencedObjects() {
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        when(petRepository.findReferencedImageUrls(anyCollection())).thenReturn(List.of(PREFIX + "pet.jpg"));
+        when(petImageRepository.findAllByUrlIn(anyCollection()))
+                .thenReturn(List.of(new PetImage("hash", PREFIX + "hash.jpg", "image/jpeg", 10, 1, old)));
+        when(cleanupTaskRepository.findQueuedUrls(anyCollection())).thenReturn(List.of(PREFIX + "queued.jpg"));
+        when(variantRepository.findExistingUrls(anyCollection())).thenReturn(List.of(PREFIX + "variants/hash/w160.jpg"));
+
+        int queued = collector.collect(List.of(
+                new ListedObject("pet.jpg", old),
+                new ListedObject("variants/hash/w160.jpg", old),
+                new ListedObject("hash.jpg", old),
+                new ListedObject("queued.jpg", old),
+                new ListedObject("uploads/1/orphan.jpg", old),
+                new ListedObject("fresh.jpg", Instant.now()),
+                new ListedObject("unknown-age.jpg", null)
+        ));
+
+        assertEquals(1, queued);
+        assertEquals(List.of(PREFIX + "uploads/1/orphan.jpg"), queuedUrls());
+    }
+
+    @Test
+    @DisplayName("collect should not touch the database when every object is within the grace period")
+    void collect_shouldSkipRecentObjects() {
+        assertEquals(0, collector.collect(List.of(new ListedObject("fresh.jpg", Instant.now()))));
+
+        verifyNoInteractions(petRepository, petImageRepository, variantRepository, cleanupTaskRepository);
+    }
+
+    @Test
+    @DisplayName("run should resume from the checkpoint and store the cursor of each page")
+    void run_shouldResumeFromCheckpoint() {
+        ImageGcCheckpoint checkpoint = new ImageGcCheckpoint("pet-images", Instant.now());
+        ReflectionTestUtils.setField(checkpoint, "nextCursor", "b.jpg");
+        when(checkpointRepository.lock(eq("pet-images"), any(), any())).thenReturn(1);
+        when(checkpointRepository.findById("pet-images")).thenReturn(Optional.of(checkpoint));
+        when(storageService.listObjects("pet-images", "b.jpg", 2))
+                .thenReturn(new ObjectPage(List.of(new ListedObject("c.jpg", Instant.now())), "c.jpg"));
+        when(storageService.listObjects("pet-images", "c.jpg", 2))
+                .thenReturn(new ObjectPage(List.of(new ListedObject("d.jpg", Instant.now())), null));
+
+        collector.run();
+
+        verify(checkpointRepository, never()).startPass(anyString(), any());
+        verify(checkpointRepository).advance(eq("pet-images"), eq("c.jpg"), any(), any());
+        verify(checkpointRepository).advance(eq("pet-images"), isNull(), any(), any());
+        verify(checkpointRepository).unlock("pet-images");
+    }
+
+    @Test
+    @DisplayName("run should stop after the page limit and keep its place")
+    void run_shouldStopAtPageLimit() {
+        when(checkpointRepository.lock(eq("pet-images"), any(), any())).thenReturn(1);
+        when(checkpointRepository.findById("pet-images")).thenReturn(Optional.empty());
+        when(storageService.listObjects(eq("pet-images"), any(), eq(2))).thenAnswer(invocation -> {
+            String cursor = invocation.getArgument(1);
+            String next = cursor == null ? "1" : String.valueOf(Integer.parseInt(cursor) + 1);
+            return new ObjectPage(List.of(), next);
+        });
+
+        collector.run();
+
+        verify(checkpointRepository).startPass(eq("pet-images"), any());
+        verify(storageService, times(3)).listObjects(eq("pet-images"), any(), eq(2));
+        verify(checkpointRepository).advance(eq("pet-images"), eq("3"), any(), any());
+        verify(checkpointRepository).unlock("pet-images");
+    }
+
+    @Test
+    @DisplayName("run should keep the last cursor when listing fails")
+    void run_shouldKeepCursor_whenListingFails() {
+        when(checkpointRepository.lock(eq("pet-images"), any(), any())).thenReturn(1);
+        when(checkpointRepository.findById("pet-images")).thenReturn(Optional.empty());
+        when(storageService.listObjects(eq("pet-images"), any(), eq(2))).thenThrow(new RuntimeException("storage down"));
+
+        assertDoesNotThrow(() -> collector.run());
+
+        verify(checkpointRepository, never()).advance(anyString(), any(), any(), any());
+        verify(checkpointRepository).unlock("pet-images");
+    }
+
+    @Test
+    @DisplayName("run should skip when another instance holds the lock")
+    void run_shouldSkip_whenLocked() {
+        when(checkpointRepository.lock(eq("pet-images"), any(), any())).thenReturn(0);
+        when(checkpointRepository.existsById("pet-images")).thenReturn(true);
+
+        collector.run();
+
+        verify(storageService, never()).listObjects(anyString(), any(), anyInt());
+        verify(checkpointRepository, never()).unlock(anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> queuedUrls() {
+        ArgumentCaptor<List<ImageCleanupTask>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(cleanupTaskRepository).saveAll(tasks.capture());
+        return tasks.getValue().stream().map(ImageCleanupTask::getUrl).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.image.PerceptualHash;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Perceptual Hash Tests")
+class PerceptualHashTests {
+
+    @Test
+    @DisplayName("of should hash a re-encoded and resized copy within a few bits of the original")
+    void of_shouldBeStableAcrossReencoding() throws IOException {
+        BufferedImage original = TestImages.photo(1200, 900, 1);
+        long png = PerceptualHash.of(new ByteArrayInputStream(TestImages.encode(original, "png"))).orElseThrow();
+        long jpeg = PerceptualHash.of(new ByteArrayInputStream(
+                TestImages.encode(TestImages.resize(original, 600, 450), "jpg"))).orElseThrow();
+
+        assertTrue(PerceptualHash.distance(png, jpeg) <= 4);
+    }
+
+    @Test
+    @DisplayName("of should hash different photos far apart")
+    void of_shouldSeparateDifferentImages() throws IOException {
+        long first = PerceptualHash.of(new ByteArrayInputStream(TestImages.encode(TestImages.photo(800, 600, 1), "png"))).orElseThrow();
+        long second = PerceptualHash.of(new ByteArrayInputStream(TestImages.encode(TestImages.photo(800, 600, 2), "png"))).orElseThrow();
+
+        assertTrue(PerceptualHash.distance(first, second) > 10);
+    }
+
+    @Test
+    @DisplayName("of should be empty when the content cannot be decoded")
+    void of_shouldBeEmpty_forUndecodableContent() throws IOException {
+        assertEquals(OptionalLong.empty(), PerceptualHash.of(new ByteArrayInputStream("%PDF-1.7".getBytes())));
+        assertEquals(OptionalLong.empty(), PerceptualHash.of(new ByteArrayInputStream(TestImages.png(800, 600, "truncated"))));
+    }
+
+    @Test
+    @DisplayName("of should hash a flat image to zero")
+    void of_shouldHashFlatImageToZero() {
+        BufferedImage flat = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = flat.createGraphics();
+        graphics.setColor(Color.GRAY);
+        graphics.fillRect(0, 0, 50, 50);
+        graphics.dispose();
+
+        assertEquals(0L, PerceptualHash.of(flat));
+    }
+}
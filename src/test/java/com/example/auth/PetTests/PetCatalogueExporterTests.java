@@ -0,0 +1,128 @@
+package com.example.auth.pet;
+
+import com.example.auth.pet.enums.ExportFormat;
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+import com.example.auth.pet.image.PetImagePlaceholder;
+import com.example.auth.pet.image.PetImagePlaceholderRepository;
+import com.example.auth.pet.image.PetImageVariant;
+import com.example.auth.pet.image.PetImageVariantRepository;
+import com.example.auth.user.UserMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pet Catalogue Exporter Tests")
+class PetCatalogueExporterTests {
+
+    @Mock
+    private PetRepository petRepository;
+    @Mock
+    private PetImageVariantRepository petImageVariantRepository;
+    @Mock
+    private PetImagePlaceholderRepository petImagePlaceholderRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PetCatalogueExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new PetCatalogueExporter(petRepository, new PetMapper(new UserMapper()), petImageVariantRepository,
+                petImagePlaceholderRepository, new ObjectMapper(), transactionManager);
+    }
+
+    @Test
+    @DisplayName("export should write one JSON object per line inside a read-only transaction")
+    void export_shouldWriteNdjson() throws Exception {
+        when(petRepository.streamAvailableRows()).thenReturn(Stream.of(row(1L, "Rex"), row(2L, "Luna")));
+        when(petRepository.findImageRows(List.of(1L, 2L))).thenReturn(List.of(new PetImageRow(1L, "a.jpg")));
+        when(petImageVariantRepository.findAllBySourceUrlIn(Set.of("a.jpg"))).thenReturn(List.of(
+                new PetImageVariant("a.jpg", "w160", "a-160.jpg", "image/jpeg", 160, 120, 4000, Instant.now())));
+        when(petImagePlaceholderRepository.findAllBySourceUrlIn(Set.of("a.jpg"))).thenReturn(List.of(
+                new PetImagePlaceholder("a.jpg", "LEHV6nWB2yk8pyo0adR*.7kCMdnj", Instant.now())));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(out, ExportFormat.NDJSON, false);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"nickname\":\"Rex\""));
+        assertTrue(lines[0].contains("\"imageUrls\":[\"a.jpg\"]"));
+        assertTrue(lines[0].contains("\"imageVariants\":{\"a.jpg\":{\"w160\":{\"url\":\"a-160.jpg\",\"width\":160,\"height\":120,\"size\":4000}}}"));
+        assertTrue(lines[0].contains("\"imagePlaceholders\":{\"a.jpg\":\"LEHV6nWB2yk8pyo0adR*.7kCMdnj\"}"));
+        assertTrue(lines[1].contains("\"nickname\":\"Luna\""));
+        assertTrue(lines[1].contains("\"imageUrls\":[]"));
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        verify(petRepository, never()).streamAllRows();
+    }
+
+    @Test
+    @DisplayName("export should write a header and quote CSV values that need it")
+    void export_shouldWriteCsv() throws Exception {
+        PetRow row = new PetRow(1L, "Rex", Sex.MALE, Size.MEDIUM, Specie.DOG, "Friendly, \"calm\"",
+                7L, "Owner", "owner@test.com", "11999999999");
+        when(petRepository.streamAllRows()).thenReturn(Stream.of(row));
+        when(petRepository.findImageRows(List.of(1L)))
+                .thenReturn(List.of(new PetImageRow(1L, "a.jpg"), new PetImageRow(1L, "b.jpg")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(out, ExportFormat.CSV, true);
+
+        assertEquals(
+                "id,nickname,sex,size,specie,description,owner_name,owner_email,owner_phone_number,image_urls\n"
+                        + "1,Rex,MALE,MEDIUM,DOG,\"Friendly, \"\"calm\"\"\",Owner,owner@test.com,11999999999,a.jpg b.jpg\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("export should look up images once per chunk of rows")
+    void export_shouldBatchImageLookups() throws Exception {
+        int total = PetCatalogueExporter.CHUNK_SIZE * 2 + 1;
+        when(petRepository.streamAvailableRows())
+                .thenReturn(LongStream.rangeClosed(1, total).mapToObj(id -> row(id, "Pet" + id)));
+        when(petRepository.findImageRows(anyCollection())).thenReturn(List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(out, ExportFormat.NDJSON, false);
+
+        assertEquals(total, out.toString(StandardCharsets.UTF_8).lines().count());
+        verify(petRepository, times(3)).findImageRows(anyCollection());
+    }
+
+    @Test
+    @DisplayName("export should write only the header when the catalogue is empty")
+    void export_shouldHandleEmptyCatalogue() throws Exception {
+        when(petRepository.streamAvailableRows()).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(out, ExportFormat.CSV, false);
+
+        assertEquals(1, out.toString(StandardCharsets.UTF_8).lines().count());
+        verify(petRepository, never()).findImageRows(any());
+    }
+
+    private PetRow row(Long id, String nickname) {
+        return new PetRow(id, nickname, Sex.MALE, Size.MEDIUM, Specie.DOG, "Friendly", null, null, null, null);
+    }
+}
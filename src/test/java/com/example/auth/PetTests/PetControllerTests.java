@@ -1,11 +1,21 @@
 package com.example.auth.pet;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.DTOs.PetFacetsDTO;
+import com.example.auth.pet.DTOs.PetNearbyDTO;
+import com.example.auth.pet.DTOs.PetPageDTO;
 import com.example.auth.pet.DTOs.PetResponseDTO;
+import com.example.auth.pet.DTOs.ResumableUploadDTO;
+import com.example.auth.pet.DTOs.UploadTargetDTO;
+import com.example.auth.pet.enums.ExportFormat;
+import com.example.auth.pet.enums.PetSort;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Size;
 import com.example.auth.pet.enums.Specie;
 import com.example.auth.infra.security.SecurityConfigurations;
+import com.example.auth.infra.versioning.ResourceVersions;
 import com.example.auth.infra.security.SecurityFilter;
 import com.example.auth.infra.security.TokenService;
 import com.example.auth.user.User;
@@ -24,9 +34,15 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -37,7 +53,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(PetController.class)
-@Import({SecurityConfigurations.class, SecurityFilter.class})
+@Import({SecurityConfigurations.class, SecurityFilter.class, ResourceVersions.class})
 @DisplayName("Pet Controller Tests")
 class PetControllerTests {
 
@@ -54,45 +70,99 @@ class PetControllerTests {
     private TokenService tokenService;
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
+    @MockBean
+    private PetCatalogueExporter petCatalogueExporter;
+    @Autowired
+    private ResourceVersions resourceVersions;
 
     @Test
-    @DisplayName("GET /pet should return pet list")
+    @DisplayName("GET /pet should return pet page")
     void findAllByAdoptedFalse_shouldReturnPets() throws Exception {
-        when(petService.findAllByAdoptedFalse()).thenReturn(List.of(
+        when(petService.findAllByAdoptedFalse(null, null, null)).thenReturn(new PetPageDTO(List.of(
                 petDto(1L, "Rex"),
                 petDto(2L, "Luna")
-        ));
+        ), "MQ"));
 
         mockMvc.perform(get("/pet"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].nickname").value("Rex"))
-                .andExpect(jsonPath("$[1].nickname").value("Luna"));
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].nickname").value("Rex"))
+                .andExpect(jsonPath("$.content[1].nickname").value("Luna"))
+                .andExpect(jsonPath("$.next").value("MQ"));
     }
 
     @Test
-    @DisplayName("GET /pet should return empty list when no pets exist")
+    @DisplayName("GET /pet should return empty page when no pets exist")
     void findAllByAdoptedFalse_shouldReturnEmptyList() throws Exception {
-        when(petService.findAllByAdoptedFalse()).thenReturn(List.of());
+        when(petService.findAllByAdoptedFalse(null, null, null)).thenReturn(new PetPageDTO(List.of(), null));
 
         mockMvc.perform(get("/pet"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[]"));
+                .andExpect(content().json("{\"content\":[],\"next\":null}"));
+    }
+
+    @Test
+    @DisplayName("GET /pet should forward cursor, limit and sort to the service")
+    void findAllByAdoptedFalse_shouldForwardPagingParameters() throws Exception {
+        when(petService.findAllByAdoptedFalse("MQ", 5, PetSort.OLDEST))
+                .thenReturn(new PetPageDTO(List.of(petDto(2L, "Luna")), null));
+
+        mockMvc.perform(get("/pet")
+                        .param("cursor", "MQ")
+                        .param("limit", "5")
+                        .param("sort", "OLDEST"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].nickname").value("Luna"));
+    }
+
+    @Test
+    @DisplayName("GET /pet should return BAD_REQUEST for invalid sort")
+    void findAllByAdoptedFalse_shouldReturnBadRequest_forInvalidSort() throws Exception {
+        mockMvc.perform(get("/pet").param("sort", "RANDOM"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /pet should return NOT_MODIFIED without querying when the catalogue ETag matches")
+    void findAllByAdoptedFalse_shouldReturnNotModified_whenETagMatches() throws Exception {
+        String eTag = resourceVersions.catalogue().eTag();
+
+        mockMvc.perform(get("/pet").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        verifyNoInteractions(petService);
+    }
+
+    @Test
+    @DisplayName("GET /pet should return the page again once a pet changed")
+    void findAllByAdoptedFalse_shouldReturnPage_afterPetChanged() throws Exception {
+        String eTag = resourceVersions.catalogue().eTag();
+        Pet pet = new Pet();
+        pet.setId(1L);
+        resourceVersions.onPetChanged(PetChangedEvent.saved(pet));
+        when(petService.findAllByAdoptedFalse(null, null, null)).thenReturn(new PetPageDTO(List.of(), null));
+
+        mockMvc.perform(get("/pet").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", resourceVersions.catalogue().eTag()))
+                .andExpect(header().string("Cache-Control", "no-cache"));
     }
 
     @Test
     @DisplayName("GET /pet/filter should return filtered pets")
     void getPetsByCriteria_shouldReturnFilteredPets() throws Exception {
-        when(petService.findByFilters(Specie.DOG, Sex.MALE, Size.BIG))
-                .thenReturn(List.of(petDto(1L, "Thor")));
+        when(petService.findByFilters(Specie.DOG, Sex.MALE, Size.BIG, null, null, null))
+                .thenReturn(new PetPageDTO(List.of(petDto(1L, "Thor")), null));
 
         mockMvc.perform(get("/pet/filter")
                         .param("specie", "DOG")
                         .param("sex", "MALE")
                         .param("size", "BIG"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(1))
-                .andExpect(jsonPath("$[0].nickname").value("Thor"));
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].nickname").value("Thor"));
     }
 
     @Test
@@ -102,6 +172,116 @@ class PetControllerTests {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("GET /pet/search should forward the query, filters and paging")
+    void searchPets_shouldForwardParameters() throws Exception {
+        when(petService.search("luna", Specie.DOG, null, null, "MQ", 5))
+                .thenReturn(new PetPageDTO(List.of(petDto(1L, "Luna")), null));
+
+        mockMvc.perform(get("/pet/search")
+                        .param("q", "luna")
+                        .param("specie", "DOG")
+                        .param("cursor", "MQ")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].nickname").value("Luna"));
+    }
+
+    @Test
+    @DisplayName("GET /pet/search should return BAD_REQUEST without a query")
+    void searchPets_shouldReturnBadRequest_withoutQuery() throws Exception {
+        mockMvc.perform(get("/pet/search"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(petService);
+    }
+
+    @Test
+    @DisplayName("GET /pet/nearby should return pets with their distance")
+    void findNearby_shouldReturnPetsWithDistance() throws Exception {
+        when(petService.findNearby(-23.55, -46.63, 10.0, null, Specie.DOG, null, null))
+                .thenReturn(List.of(new PetNearbyDTO(petDto(1L, "Rex"), 1.5)));
+
+        mockMvc.perform(get("/pet/nearby")
+                        .param("lat", "-23.55")
+                        .param("lng", "-46.63")
+                        .param("radiusKm", "10")
+                        .param("specie", "DOG"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].pet.nickname").value("Rex"))
+                .andExpect(jsonPath("$[0].distanceKm").value(1.5));
+    }
+
+    @Test
+    @DisplayName("GET /pet/nearby should return BAD_REQUEST without coordinates")
+    void findNearby_shouldReturnBadRequest_withoutCoordinates() throws Exception {
+        mockMvc.perform(get("/pet/nearby").param("lat", "-23.55"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(petService);
+    }
+
+    @Test
+    @DisplayName("GET /pet/facets should return counts for the given filters")
+    void getFacets_shouldReturnCounts() throws Exception {
+        when(petService.findFacets(Specie.DOG, null, null)).thenReturn(new PetFacetsDTO(3,
+                Map.of(Specie.DOG, 3L, Specie.CAT, 1L),
+                Map.of(Sex.MALE, 3L),
+                Map.of(Size.BIG, 2L)));
+
+        mockMvc.perform(get("/pet/facets").param("specie", "DOG"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.specie.CAT").value(1))
+                .andExpect(jsonPath("$.size.BIG").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /pet/export should stream NDJSON by default")
+    void exportCatalogue_shouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(petCatalogueExporter).export(any(), eq(ExportFormat.NDJSON), eq(false));
+
+        MvcResult result = mockMvc.perform(get("/pet/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"pets.ndjson\""))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    @DisplayName("GET /pet/export should forward format and includeAdopted")
+    void exportCatalogue_shouldForwardCsvAndIncludeAdopted() throws Exception {
+        MvcResult result = mockMvc.perform(get("/pet/export")
+                        .param("format", "CSV")
+                        .param("includeAdopted", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"));
+
+        verify(petCatalogueExporter).export(any(), eq(ExportFormat.CSV), eq(true));
+    }
+
+    @Test
+    @DisplayName("GET /pet/export should return BAD_REQUEST for invalid format")
+    void exportCatalogue_shouldReturnBadRequest_forInvalidFormat() throws Exception {
+        mockMvc.perform(get("/pet/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(petCatalogueExporter);
+    }
+
     @Test
     @DisplayName("GET /pet/{id} should return pet when ID exists")
     void getPet_shouldReturnPet_whenIdExists() throws Exception {
@@ -113,6 +293,71 @@ class PetControllerTests {
                 .andExpect(jsonPath("$.nickname").value("Rex"));
     }
 
+    @Test
+    @DisplayName("GET /pet/{id} should return NOT_MODIFIED without loading the pet when the ETag matches")
+    void getPet_shouldReturnNotModified_whenETagMatches() throws Exception {
+        ResourceVersions.Version version = resourceVersions.pet(1L);
+
+        mockMvc.perform(get("/pet/1").header("If-None-Match", version.eTag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(content().string(""));
+
+        verify(petService, never()).findByIdAsDto(anyLong());
+    }
+
+    @Test
+    @DisplayName("GET /pet/{id} should let a stale ETag win over a matching If-Modified-Since")
+    void getPet_shouldPreferETagOverIfModifiedSince() throws Exception {
+        ResourceVersions.Version version = resourceVersions.pet(1L);
+        when(petService.findByIdAsDto(1L)).thenReturn(petDto(1L, "Rex"));
+
+        mockMvc.perform(get("/pet/1")
+                        .header("If-None-Match", "\"stale\"")
+                        .header("If-Modified-Since", version.lastModified() + 60_000))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nickname").value("Rex"));
+    }
+
+    @Test
+    @DisplayName("GET /pet/{id} should return NOT_FOUND for an unknown id sent with the ETag of another pet")
+    void getPet_shouldReturnNotFound_whenETagIsOfAnotherPet() throws Exception {
+        when(petService.findByIdAsDto(999L))
+                .thenThrow(new ResponseStatusException(NOT_FOUND, "Pet with such Id not found"));
+
+        mockMvc.perform(get("/pet/999").header("If-None-Match", resourceVersions.pet(1L).eTag()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /pet/{id} should not answer If-Modified-Since with 304 after a write in the same second")
+    void getPet_shouldReturnPet_whenWrittenSinceIfModifiedSince() throws Exception {
+        Pet pet = new Pet();
+        pet.setId(997L);
+        resourceVersions.onPetChanged(PetChangedEvent.saved(pet));
+        long seen = resourceVersions.pet(997L).lastModified();
+        resourceVersions.onPetChanged(PetChangedEvent.saved(pet));
+        when(petService.findByIdAsDto(997L)).thenReturn(petDto(997L, "Rex"));
+
+        mockMvc.perform(get("/pet/997").header("If-Modified-Since", seen))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nickname").value("Rex"));
+    }
+
+    @Test
+    @DisplayName("GET /pet/{id} should return NOT_FOUND for a deleted pet sent with the ETag it had")
+    void getPet_shouldReturnNotFound_whenPetWasDeleted() throws Exception {
+        String eTag = resourceVersions.pet(998L).eTag();
+        Pet deleted = new Pet();
+        deleted.setId(998L);
+        resourceVersions.onPetChanged(PetChangedEvent.removed(deleted));
+        when(petService.findByIdAsDto(998L))
+                .thenThrow(new ResponseStatusException(NOT_FOUND, "Pet with such Id not found"));
+
+        mockMvc.perform(get("/pet/998").header("If-None-Match", eTag))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("GET /pet/{id} should return NOT_FOUND when pet does not exist")
     void getPet_shouldReturnNotFound_whenIdDoesNotExist() throws Exception {
@@ -123,6 +368,185 @@ class PetControllerTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("POST /pet/uploads should return signed upload targets")
+    @WithMockUser(username = "user@test.com")
+    void createUploads_shouldReturnTargets() throws Exception {
+        User loggedUser = user();
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+        when(petService.createUploads(List.of("image/jpeg"), loggedUser)).thenReturn(List.of(new UploadTargetDTO(
+                "uploads/1/key.jpg", "https://storage.test/upload?token=t", "PUT", Instant.parse("2026-01-01T00:00:00Z"))));
+
+        mockMvc.perform(post("/pet/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contentTypes\": [\"image/jpeg\"]}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].key").value("uploads/1/key.jpg"))
+                .andExpect(jsonPath("$[0].uploadUrl").value("https://storage.test/upload?token=t"))
+                .andExpect(jsonPath("$[0].method").value("PUT"));
+    }
+
+    @Test
+    @DisplayName("POST /pet/uploads should reject more than four images")
+    @WithMockUser(username = "user@test.com")
+    void createUploads_shouldRejectTooManyImages() throws Exception {
+        mockMvc.perform(post("/pet/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contentTypes\": [\"image/jpeg\", \"image/jpeg\", \"image/jpeg\", \"image/jpeg\", \"image/jpeg\"]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(petService, never()).createUploads(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("POST /pet/uploads/resumable should open a session and point to it")
+    @WithMockUser(username = "user@test.com")
+    void createResumableUpload_shouldReturnSession() throws Exception {
+        User loggedUser = user();
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+        when(petService.createResumableUpload("image/jpeg", 4096L, loggedUser)).thenReturn(resumableUpload(0));
+
+        mockMvc.perform(post("/pet/uploads/resumable")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contentType\": \"image/jpeg\", \"length\": 4096}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/pet/uploads/resumable/session-1"))
+                .andExpect(jsonPath("$.key").value("uploads/1/key.jpg"))
+                .andExpect(jsonPath("$.offset").value(0));
+    }
+
+    @Test
+    @DisplayName("POST /pet/uploads/resumable should require a positive length")
+    @WithMockUser(username = "user@test.com")
+    void createResumableUpload_shouldRequireLength() throws Exception {
+        mockMvc.perform(post("/pet/uploads/resumable")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contentType\": \"image/jpeg\", \"length\": 0}"))
+                .andExpect(status().isBadRequest());
+
+        verify(petService, never()).createResumableUpload(anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("PUT /pet/uploads/resumable/{id} should write the chunk at its offset and report the new one")
+    @WithMockUser(username = "user@test.com")
+    void appendResumableUpload_shouldReturnNewOffset() throws Exception {
+        User loggedUser = user();
+        byte[] chunk = new byte[1024];
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+        when(petService.appendResumableUpload(eq("session-1"), eq(2048L), any(), eq(loggedUser)))
+                .thenAnswer(invocation -> {
+                    // the body reaches the service as a stream, not a buffered argument
+                    InputStream body = invocation.getArgument(2);
+                    return body.readAllBytes().length == 1024 ? resumableUpload(3072) : resumableUpload(2048);
+                });
+
+        mockMvc.perform(put("/pet/uploads/resumable/session-1")
+                        .header("Upload-Offset", "2048")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(chunk))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Upload-Offset", "3072"))
+                .andExpect(header().string("Upload-Length", "4096"));
+    }
+
+    @Test
+    @DisplayName("PUT /pet/uploads/resumable/{id} should answer CONFLICT with a stale offset")
+    @WithMockUser(username = "user@test.com")
+    void appendResumableUpload_shouldReturnConflict_forStaleOffset() throws Exception {
+        User loggedUser = user();
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+        when(petService.appendResumableUpload(eq("session-1"), eq(0L), any(), eq(loggedUser)))
+                .thenThrow(new ResponseStatusException(CONFLICT, "upload is at offset 2048"));
+
+        mockMvc.perform(put("/pet/uploads/resumable/session-1")
+                        .header("Upload-Offset", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[10]))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("HEAD /pet/uploads/resumable/{id} should report the offset to resume from")
+    @WithMockUser(username = "user@test.com")
+    void findResumableUpload_shouldReturnOffset() throws Exception {
+        User loggedUser = user();
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+        when(petService.findResumableUpload("session-1", loggedUser)).thenReturn(resumableUpload(2048));
+
+        mockMvc.perform(head("/pet/uploads/resumable/session-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", "2048"))
+                .andExpect(header().string("Cache-Control", "no-store"));
+    }
+
+    @Test
+    @DisplayName("HEAD /pet/uploads/resumable/{id} should require authentication")
+    void findResumableUpload_shouldRequireAuthentication() throws Exception {
+        mockMvc.perform(head("/pet/uploads/resumable/session-1"))
+                .andExpect(status().isForbidden());
+
+        verify(petService, never()).findResumableUpload(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("POST /pet/uploads/resumable/{id}/complete should return the stored key")
+    @WithMockUser(username = "user@test.com")
+    void completeResumableUpload_shouldReturnKey() throws Exception {
+        User loggedUser = user();
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+        when(petService.completeResumableUpload("session-1", loggedUser)).thenReturn(resumableUpload(4096));
+
+        mockMvc.perform(post("/pet/uploads/resumable/session-1/complete"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key").value("uploads/1/key.jpg"))
+                .andExpect(jsonPath("$.offset").value(4096));
+    }
+
+    @Test
+    @DisplayName("DELETE /pet/uploads/resumable/{id} should abort the upload")
+    @WithMockUser(username = "user@test.com")
+    void abortResumableUpload_shouldReturnNoContent() throws Exception {
+        User loggedUser = user();
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+
+        mockMvc.perform(delete("/pet/uploads/resumable/session-1"))
+                .andExpect(status().isNoContent());
+
+        verify(petService).abortResumableUpload("session-1", loggedUser);
+    }
+
+    @Test
+    @DisplayName("POST /pet with JSON should register the pet from uploaded keys")
+    @WithMockUser(username = "user@test.com")
+    void registerNewPetFromUploads_shouldCreatePet() throws Exception {
+        User loggedUser = user();
+        when(userService.findByEmail("user@test.com")).thenReturn(loggedUser);
+        when(petService.registerNewPetFromUploads(any(), eq(List.of("uploads/1/key.jpg")), eq(loggedUser)))
+                .thenReturn(petDto(10L, "Mel"));
+
+        String body = "{\"pet\": " + new String(validPetJson(), StandardCharsets.UTF_8)
+                + ", \"imageKeys\": [\"uploads/1/key.jpg\"]}";
+
+        mockMvc.perform(post("/pet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(10));
+    }
+
+    @Test
+    @DisplayName("POST /pet with JSON should require image keys")
+    @WithMockUser(username = "user@test.com")
+    void registerNewPetFromUploads_shouldRequireImageKeys() throws Exception {
+        String body = "{\"pet\": " + new String(validPetJson(), StandardCharsets.UTF_8) + ", \"imageKeys\": []}";
+
+        mockMvc.perform(post("/pet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("POST /pet should require authentication")
     void registerNewPet_shouldRequireAuthentication() throws Exception {
@@ -517,10 +941,16 @@ class PetControllerTests {
                 Specie.DOG,
                 "Friendly",
                 null,
-                List.of("img.jpg")
+                List.of("img.jpg"),
+                Map.of(),
+                Map.of()
         );
     }
 
+    private ResumableUploadDTO resumableUpload(long offset) {
+        return new ResumableUploadDTO("session-1", "uploads/1/key.jpg", offset, 4096, Instant.parse("2026-01-01T00:00:00Z"));
+    }
+
     private User user() {
         return new User(1L, "User", "user@test.com", "11999999999", "secret", UserRole.USER);
     }
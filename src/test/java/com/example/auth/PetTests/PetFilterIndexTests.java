@@ -0,0 +1,164 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.DTOs.PetFacetsDTO;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetRepository;
+import com.example.auth.pet.enums.PetSort;
+import com.example.auth.pet.enums.Sex;
+import com.example.auth.pet.enums.Size;
+import com.example.auth.pet.enums.Specie;
+import com.example.auth.pet.index.PetFacetRow;
+import com.example.auth.pet.index.PetFilterIndex;
+import com.example.auth.pet.index.PetFilterRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Pet Filter Index Tests")
+class PetFilterIndexTests {
+
+    private PetRepository petRepository;
+    private PetFilterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        petRepository = mock(PetRepository.class);
+        when(petRepository.streamFilterRows()).thenReturn(Stream.of(
+                new PetFilterRow(1L, Specie.DOG, Sex.MALE, Size.BIG, false),
+                new PetFilterRow(2L, Specie.CAT, Sex.FEMALE, Size.SMALL, false),
+                new PetFilterRow(3L, Specie.DOG, Sex.FEMALE, Size.BIG, true),
+                new PetFilterRow(4L, Specie.DOG, Sex.MALE, Size.BIG, false),
+                new PetFilterRow(5L, Specie.DOG, Sex.MALE, Size.MEDIUM, false)
+        ));
+        index = new PetFilterIndex(petRepository);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("rebuild should mark the index ready")
+    void rebuild_shouldMarkIndexReady() {
+        assertTrue(index.isReady());
+        assertFalse(new PetFilterIndex(petRepository).isReady());
+    }
+
+    @Test
+    @DisplayName("match should AND the supplied filters")
+    void match_shouldAndSuppliedFilters() {
+        assertArrayEquals(new int[]{1, 3, 4}, index.match(Specie.DOG, null, Size.BIG, false).toArray());
+        assertArrayEquals(new int[]{1, 4}, index.match(Specie.DOG, Sex.MALE, Size.BIG, true).toArray());
+        assertArrayEquals(new int[]{1, 2, 4, 5}, index.match(null, null, null, true).toArray());
+    }
+
+    @Test
+    @DisplayName("page should walk ids after the cursor in both directions")
+    void page_shouldWalkIdsAfterCursor() {
+        assertEquals(List.of(5L, 4L), index.page(null, null, null, false, null, PetSort.NEWEST, 2));
+        assertEquals(List.of(3L, 2L), index.page(null, null, null, false, 4L, PetSort.NEWEST, 2));
+        assertEquals(List.of(4L, 5L), index.page(Specie.DOG, null, null, false, 3L, PetSort.OLDEST, 5));
+        assertEquals(List.of(), index.page(null, null, null, false, 1L, PetSort.NEWEST, 5));
+    }
+
+    @Test
+    @DisplayName("onPetChanged should move updated pets between bitmaps and drop removed ones")
+    void onPetChanged_shouldKeepIndexInSync() {
+        Pet pet = new Pet();
+        pet.setId(2L);
+        pet.setSpecie(Specie.DOG);
+        pet.setSex(Sex.FEMALE);
+        pet.setSize(Size.SMALL);
+        pet.setAdopted(true);
+
+        index.onPetChanged(PetChangedEvent.saved(pet));
+
+        assertFalse(index.match(Specie.CAT, null, null, false).contains(2));
+        assertTrue(index.match(Specie.DOG, null, null, false).contains(2));
+        assertFalse(index.match(null, null, null, true).contains(2));
+
+        index.onPetChanged(PetChangedEvent.removed(pet));
+
+        assertFalse(index.match(null, null, null, false).contains(2));
+    }
+
+    @Test
+    @DisplayName("facets should count available pets per value with the other filters applied")
+    void facets_shouldCountAvailablePets() {
+        PetFacetsDTO all = index.facets(null, null, null);
+        assertEquals(4, all.total());
+        assertEquals(3L, all.specie().get(Specie.DOG));
+        assertEquals(1L, all.specie().get(Specie.CAT));
+        assertEquals(0L, all.specie().get(Specie.BIRD));
+        assertEquals(3L, all.sex().get(Sex.MALE));
+        assertEquals(2L, all.size().get(Size.BIG));
+
+        PetFacetsDTO dogs = index.facets(Specie.DOG, null, null);
+        assertEquals(3, dogs.total());
+        assertEquals(1L, dogs.specie().get(Specie.CAT));
+        assertEquals(0L, dogs.sex().get(Sex.FEMALE));
+        assertEquals(1L, dogs.size().get(Size.MEDIUM));
+        assertEquals(0L, dogs.size().get(Size.SMALL));
+    }
+
+    @Test
+    @DisplayName("facets should follow adoptions, updates and removals")
+    void facets_shouldFollowWrites() {
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecie(Specie.DOG);
+        pet.setSex(Sex.MALE);
+        pet.setSize(Size.BIG);
+        pet.setAdopted(true);
+        index.onPetChanged(PetChangedEvent.saved(pet));
+
+        assertEquals(3, index.facets(null, null, null).total());
+        assertEquals(1L, index.facets(null, null, null).size().get(Size.BIG));
+
+        pet.setAdopted(false);
+        pet.setSpecie(Specie.BIRD);
+        index.onPetChanged(PetChangedEvent.saved(pet));
+        assertEquals(1L, index.facets(null, null, null).specie().get(Specie.BIRD));
+        assertEquals(2L, index.facets(null, null, null).specie().get(Specie.DOG));
+
+        index.onPetChanged(PetChangedEvent.removed(pet));
+        assertEquals(3, index.facets(null, null, null).total());
+        assertEquals(0L, index.facets(null, null, null).specie().get(Specie.BIRD));
+    }
+
+    @Test
+    @DisplayName("reconcile should keep the index when the counters match the database")
+    void reconcile_shouldKeepIndex_whenCountersMatch() {
+        when(petRepository.countFacets()).thenReturn(List.of(
+                new PetFacetRow(Specie.DOG, Sex.MALE, Size.BIG, false, 2),
+                new PetFacetRow(Specie.CAT, Sex.FEMALE, Size.SMALL, false, 1),
+                new PetFacetRow(Specie.DOG, Sex.FEMALE, Size.BIG, true, 1),
+                new PetFacetRow(Specie.DOG, Sex.MALE, Size.MEDIUM, false, 1)));
+
+        index.reconcile();
+        index.reconcile();
+
+        verify(petRepository, times(1)).streamFilterRows();
+    }
+
+    @Test
+    @DisplayName("reconcile should rebuild the index once the counters drift twice in a row")
+    void reconcile_shouldRebuild_whenCountersDriftTwice() {
+        when(petRepository.countFacets()).thenReturn(List.of(
+                new PetFacetRow(Specie.BIRD, Sex.MALE, Size.SMALL, false, 1)));
+        when(petRepository.streamFilterRows()).thenAnswer(invocation -> Stream.of(
+                new PetFilterRow(9L, Specie.BIRD, Sex.MALE, Size.SMALL, false)));
+
+        index.reconcile();
+        verify(petRepository, times(1)).streamFilterRows();
+
+        index.reconcile();
+        verify(petRepository, times(2)).streamFilterRows();
+        assertEquals(1, index.facets(null, null, null).total());
+        assertEquals(1L, index.facets(null, null, null).specie().get(Specie.BIRD));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetRepository;
+import com.example.auth.pet.index.GeoBox;
+import com.example.auth.pet.index.GeoHit;
+import com.example.auth.pet.index.PetGeoIndex;
+import com.example.auth.pet.index.PetGeoRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Pet Geo Index Tests")
+class PetGeoIndexTests {
+
+    private static final double SP_LATITUDE = -23.5505;
+    private static final double SP_LONGITUDE = -46.6333;
+
+    private PetRepository petRepository;
+    private PetGeoIndex index;
+
+    @BeforeEach
+    void setUp() {
+        petRepository = mock(PetRepository.class);
+        when(petRepository.streamGeoRows()).thenReturn(Stream.of(
+                new PetGeoRow(1L, SP_LATITUDE, SP_LONGITUDE),
+                new PetGeoRow(2L, -23.5955, SP_LONGITUDE),
+                new PetGeoRow(3L, -22.9068, -43.1729),
+                new PetGeoRow(4L, -17.7, 179.95),
+                new PetGeoRow(5L, -17.7, -179.95),
+                new PetGeoRow(6L, null, null)
+        ));
+        index = new PetGeoIndex(petRepository);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("nearest should return pets inside the radius, nearest first")
+    void nearest_shouldReturnPetsInsideRadius() {
+        List<GeoHit> hits = index.nearest(SP_LATITUDE, SP_LONGITUDE, 10, null, 10);
+
+        assertEquals(List.of(1L, 2L), ids(hits));
+        assertEquals(0, hits.get(0).distanceKm(), 0.001);
+        assertEquals(5.0, hits.get(1).distanceKm(), 0.1);
+    }
+
+    @Test
+    @DisplayName("nearest should keep only the closest pets up to the limit")
+    void nearest_shouldApplyLimit() {
+        assertEquals(List.of(1L, 2L, 3L), ids(index.nearest(SP_LATITUDE, SP_LONGITUDE, 500, null, 10)));
+        assertEquals(List.of(1L, 2L), ids(index.nearest(SP_LATITUDE, SP_LONGITUDE, 500, null, 2)));
+    }
+
+    @Test
+    @DisplayName("nearest should skip pets outside the allowed ids")
+    void nearest_shouldRespectAllowedIds() {
+        assertEquals(List.of(2L, 3L), ids(index.nearest(SP_LATITUDE, SP_LONGITUDE, 500, RoaringBitmap.bitmapOf(2, 3), 10)));
+    }
+
+    @Test
+    @DisplayName("nearest should find pets across the antimeridian")
+    void nearest_shouldCrossAntimeridian() {
+        assertEquals(List.of(4L, 5L), ids(index.nearest(-17.7, 179.96, 20, null, 10)));
+    }
+
+    @Test
+    @DisplayName("onPetChanged should move, clear and remove locations")
+    void onPetChanged_shouldKeepIndexInSync() {
+        Pet pet = new Pet();
+        pet.setId(3L);
+        pet.setLatitude(-23.56);
+        pet.setLongitude(SP_LONGITUDE);
+
+        index.onPetChanged(PetChangedEvent.saved(pet));
+        assertEquals(List.of(1L, 3L, 2L), ids(index.nearest(SP_LATITUDE, SP_LONGITUDE, 10, null, 10)));
+
+        pet.setLatitude(null);
+        pet.setLongitude(null);
+        index.onPetChanged(PetChangedEvent.saved(pet));
+        assertEquals(List.of(1L, 2L), ids(index.nearest(SP_LATITUDE, SP_LONGITUDE, 500, null, 10)));
+
+        pet.setId(1L);
+        index.onPetChanged(PetChangedEvent.removed(pet));
+        assertEquals(List.of(2L), ids(index.nearest(SP_LATITUDE, SP_LONGITUDE, 10, null, 10)));
+    }
+
+    @Test
+    @DisplayName("GeoBox should wrap at the antimeridian and open up at the poles")
+    void geoBox_shouldHandleEdges() {
+        GeoBox wrapped = GeoBox.around(-17.7, 179.96, 20);
+        assertTrue(wrapped.crossesAntimeridian());
+        assertTrue(wrapped.contains(-17.7, -179.95));
+        assertFalse(wrapped.contains(-17.7, 0));
+
+        GeoBox polar = GeoBox.around(89.9, 10, 50);
+        assertEquals(-180, polar.minLongitude());
+        assertEquals(180, polar.maxLongitude());
+        assertEquals(90, polar.maxLatitude());
+    }
+
+    @Test
+    @DisplayName("GeoBox should be wide enough for a large radius at a high latitude")
+    void geoBox_shouldEncloseCircleAtHighLatitude() {
+        double latitude = 70;
+        double radiusKm = 1500;
+        GeoBox box = GeoBox.around(latitude, 0, radiusKm);
+
+        // the easternmost point of the circle, north of the centre's parallel
+        double angle = radiusKm / 6371.0088;
+        double phi = Math.toRadians(latitude);
+        double widest = Math.toDegrees(Math.asin(Math.sin(angle) / Math.cos(phi)));
+        double widestLatitude = Math.toDegrees(Math.asin(Math.sin(phi) / Math.cos(angle)));
+        assertEquals(radiusKm, GeoBox.distanceKm(latitude, 0, widestLatitude, widest), 0.5);
+        assertTrue(box.contains(widestLatitude, widest - 0.01));
+        assertTrue(box.contains(widestLatitude, -widest + 0.01));
+        // the flat approximation, radius over cos(latitude), gave about 39.4 degrees here
+        assertTrue(box.maxLongitude() > 42.9);
+    }
+
+    private List<Long> ids(List<GeoHit> hits) {
+        return hits.stream().map(GeoHit::id).toList();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.image.PetImage;
+import com.example.auth.pet.image.PetImageHashRow;
+import com.example.auth.pet.image.PetImageRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("Pet Image Repository Tests")
+class PetImageRepositoryTests {
+
+    @Autowired
+    private PetImageRepository petImageRepository;
+
+    @Test
+    @DisplayName("insert should start the reference count at one")
+    void insert_shouldStartWithOneReference() {
+        petImageRepository.insert("abc", "https://cdn/abc.jpg", "image/jpeg", 10, null, Instant.now());
+
+        PetImage image = petImageRepository.findById("abc").orElseThrow();
+        assertEquals(1, image.getRefCount());
+        assertEquals("https://cdn/abc.jpg", image.getUrl());
+    }
+
+    @Test
+    @DisplayName("insert should fail when the content is already recorded")
+    void insert_shouldFail_whenHashExists() {
+        petImageRepository.insert("abc", "https://cdn/abc.jpg", "image/jpeg", 10, null, Instant.now());
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> petImageRepository.insert("abc", "https://cdn/abc.jpg", "image/jpeg", 10, null, Instant.now()));
+    }
+
+    @Test
+    @DisplayName("insert should fail when the url is already recorded, so an upload is claimed only once")
+    void insert_shouldFail_whenUrlExists() {
+        petImageRepository.insert("claim-1", "https://cdn/uploads/1/a.jpg", "image/jpeg", 10, null, Instant.now());
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> petImageRepository.insert("claim-2", "https://cdn/uploads/1/a.jpg", "image/jpeg", 10, null, Instant.now()));
+    }
+
+    @Test
+    @DisplayName("addReference should only touch recorded content")
+    void addReference_shouldOnlyTouchRecordedContent() {
+        petImageRepository.insert("abc", "https://cdn/abc.jpg", "image/jpeg", 10, null, Instant.now());
+
+        assertEquals(1, petImageRepository.addReference("abc"));
+        assertEquals(0, petImageRepository.addReference("missing"));
+        assertEquals(2, petImageRepository.findById("abc").orElseThrow().getRefCount());
+    }
+
+    @Test
+    @DisplayName("an image that lost its last reference should stay as a tombstone that only revive takes back")
+    void removeReferences_shouldLeaveTombstone() {
+        petImageRepository.insert("kept", "https://cdn/kept.jpg", "image/jpeg", 10, null, Instant.now());
+        petImageRepository.insert("gone", "https://cdn/gone.jpg", "image/jpeg", 10, null, Instant.now());
+        petImageRepository.addReference("kept");
+
+        petImageRepository.removeReferences("https://cdn/kept.jpg", 1);
+        petImageRepository.removeReferences("https://cdn/gone.jpg", 1);
+
+        List<PetImage> unreferenced = petImageRepository.findAllByUrlInAndRefCountLessThanEqual(
+                List.of("https://cdn/kept.jpg", "https://cdn/gone.jpg"), 0);
+        assertEquals(List.of("gone"), unreferenced.stream().map(PetImage::getHash).toList());
+
+        assertEquals(0, petImageRepository.addReference("gone"));
+        assertEquals(0, petImageRepository.revive("kept", "image/jpeg", 10, null));
+        assertEquals(1, petImageRepository.revive("gone", "image/png", 20, 7L));
+        PetImage revived = petImageRepository.findById("gone").orElseThrow();
+        assertEquals(1, revived.getRefCount());
+        assertEquals("image/png", revived.getContentType());
+        assertEquals(7L, revived.getPerceptualHash());
+    }
+
+    @Test
+    @DisplayName("a tombstone marked deleting should not be revived until the mark is cleared")
+    void markDeleting_shouldBlockRevive() {
+        petImageRepository.insert("live", "https://cdn/live.jpg", "image/jpeg", 10, null, Instant.now());
+        petImageRepository.insertTombstone("gone", "https://cdn/gone.jpg", Instant.now());
+        List<String> urls = List.of("https://cdn/live.jpg", "https://cdn/gone.jpg");
+
+        assertEquals(1, petImageRepository.markDeleting(urls));
+        assertEquals(PetImage.DELETING, petImageRepository.findById("gone").orElseThrow().getRefCount());
+        assertEquals(0, petImageRepository.revive("gone", "image/jpeg", 10, null));
+        assertEquals(0, petImageRepository.addReference("gone"));
+
+        assertEquals(1, petImageRepository.clearDeleting(urls));
+        assertEquals(1, petImageRepository.findById("live").orElseThrow().getRefCount());
+        assertEquals(1, petImageRepository.revive("gone", "image/jpeg", 10, null));
+    }
+
+    @Test
+    @DisplayName("insertTombstone should only record content that has no row yet")
+    void insertTombstone_shouldSkipRecordedContent() {
+        petImageRepository.insert("abc", "https://cdn/abc.jpg", "image/jpeg", 10, null, Instant.now());
+
+        assertEquals(0, petImageRepository.insertTombstone("abc", "https://cdn/abc.jpg", Instant.now()));
+        assertEquals(1, petImageRepository.insertTombstone("def", "https://cdn/def.jpg", Instant.now()));
+
+        assertEquals(1, petImageRepository.findById("abc").orElseThrow().getRefCount());
+        assertEquals(0, petImageRepository.findById("def").orElseThrow().getRefCount());
+    }
+
+    @Test
+    @DisplayName("streamPerceptualHashes should list the referenced images that have a perceptual hash")
+    void streamPerceptualHashes_shouldSkipImagesWithoutHash() {
+        petImageRepository.insert("hashed", "https://cdn/hashed.jpg", "image/jpeg", 10, -42L, Instant.now());
+        petImageRepository.insert("legacy", "https://cdn/legacy.jpg", "image/jpeg", 10, null, Instant.now());
+        petImageRepository.insert("released", "https://cdn/released.jpg", "image/jpeg", 10, 42L, Instant.now());
+        petImageRepository.removeReferences("https://cdn/released.jpg", 1);
+
+        try (Stream<PetImageHashRow> rows = petImageRepository.streamPerceptualHashes()) {
+            assertEquals(List.of(new PetImageHashRow("hashed", -42L)), rows.toList());
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.infra.storage.StoredObject;
+import com.example.auth.pet.image.HashedImage;
+import com.example.auth.pet.image.ImageCleanupTask;
+import com.example.auth.pet.image.ImageCleanupTaskRepository;
+import com.example.auth.pet.image.ImageHeader;
+import com.example.auth.pet.image.ImageSniffer;
+import com.example.auth.pet.image.PetImage;
+import com.example.auth.pet.image.PetImageChangedEvent;
+import com.example.auth.pet.image.PetImageHashRow;
+import com.example.auth.pet.image.PetImageRepository;
+import com.example.auth.pet.image.PetImagePlaceholderRepository;
+import com.example.auth.pet.image.PetImageStore;
+import com.example.auth.pet.image.PetImageVariant;
+import com.example.auth.pet.image.PetImageVariantRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pet Image Store Tests")
+class PetImageStoreTests {
+
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private PetImageRepository petImageRepository;
+    @Mock
+    private ImageCleanupTaskRepository cleanupTaskRepository;
+    @Mock
+    private PetImageVariantRepository variantRepository;
+    @Mock
+    private PetImagePlaceholderRepository placeholderRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @InjectMocks
+    private PetImageStore petImageStore;
+
+    @Test
+    @DisplayName("contentHash should be the SHA-256 of the image bytes")
+    void contentHash_shouldBeSha256OfBytes() throws Exception {
+        byte[] content = "x".repeat(50_000).getBytes();
+        MockMultipartFile image = spy(new MockMultipartFile("image", "dog.jpg", "image/jpeg", content));
+
+        String hash = PetImageStore.contentHash(image);
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), hash);
+        verify(image, never()).getBytes();
+    }
+
+    @Test
+    @DisplayName("store should reference known content without uploading it")
+    void store_shouldReferenceKnownContent() {
+        HashedImage image = hashed("dog.jpg", "image/jpeg", "abc");
+        when(petImageRepository.addReference("abc")).thenReturn(1);
+        when(petImageRepository.findById("abc")).thenReturn(Optional.of(petImage("abc", "https://cdn/abc.jpg", 2)));
+
+        List<String> urls = petImageStore.store(List.of(image));
+
+        assertEquals(List.of("https://cdn/abc.jpg"), urls);
+        verify(storageService, never()).uploadFileAsync(anyString(), anyString(), any());
+        verify(petImageRepository, never()).insert(any(), any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("store should upload new content under its hash and record it")
+    void store_shouldUploadNewContentUnderHash() {
+        HashedImage image = hashed("dog.png", "image/png", "abc");
+        when(petImageRepository.addReference("abc")).thenReturn(0);
+        when(storageService.uploadFileAsync("pet-images", "abc.png", image.file()))
+                .thenReturn(Mono.just("https://cdn/abc.png"));
+
+        List<String> urls = petImageStore.store(List.of(image));
+
+        assertEquals(List.of("https://cdn/abc.png"), urls);
+        verify(petImageRepository).insert(eq("abc"), eq("https://cdn/abc.png"), eq("image/png"),
+                eq(image.file().getSize()), isNull(), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("store should record the perceptual hash of new content and announce it")
+    void store_shouldRecordPerceptualHash() {
+        MockMultipartFile file = new MockMultipartFile("image", "dog.png", "image/png", "dog".getBytes());
+        HashedImage image = new HashedImage(file, "abc", 0x0F0FL);
+        when(storageService.uploadFileAsync("pet-images", "abc.png", file)).thenReturn(Mono.just("https://cdn/abc.png"));
+
+        petImageStore.store(List.of(image));
+
+        verify(petImageRepository).insert(eq("abc"), eq("https://cdn/abc.png"), eq("image/png"),
+                eq(file.getSize()), eq(0x0F0FL), any(Instant.class));
+        verify(eventPublisher).publishEvent(PetImageChangedEvent.added(new PetImageHashRow("abc", 0x0F0FL)));
+    }
+
+    @Test
+    @DisplayName("store should upload new images concurrently and keep their order")
+    void store_shouldUploadConcurrently() {
+        List<HashedImage> images = List.of(
+                hashed("img1.jpg", "image/jpeg", "h1"),
+                hashed("img2.png", "image/png", "h2"),
+                hashed("img3.gif", "image/gif", "h3")
+        );
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        when(storageService.uploadFileAsync(eq("pet-images"), anyString(), any(MultipartFile.class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(1);
+            // the first image finishes last, so a sequential pipeline would be visible in the order
+            long delay = key.startsWith("h1") ? 150 : 50;
+            return Mono.fromCallable(() -> {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        return "https://cdn/" + key;
+                    })
+                    .delayElement(Duration.ofMillis(delay))
+                    .doFinally(signal -> active.decrementAndGet());
+        });
+
+        List<String> urls = petImageStore.store(images);
+
+        assertEquals(List.of("https://cdn/h1.jpg", "https://cdn/h2.png", "https://cdn/h3.gif"), urls);
+        assertEquals(3, maxActive.get());
+    }
+
+    @Test
+    @DisplayName("store should undo uploads and references when an upload fails")
+    void store_shouldUndo_whenAnUploadFails() {
+        HashedImage known = hashed("known.jpg", "image/jpeg", "known");
+        HashedImage fresh = hashed("fresh.jpg", "image/jpeg", "fresh");
+        HashedImage broken = hashed("broken.jpg", "image/jpeg", "broken");
+        when(petImageRepository.addReference("known")).thenReturn(1);
+        when(petImageRepository.findById("known")).thenReturn(Optional.of(petImage("known", "https://cdn/known.jpg", 2)));
+        when(storageService.uploadFileAsync("pet-images", "fresh.jpg", fresh.file()))
+                .thenReturn(Mono.just("https://cdn/fresh.jpg"));
+        when(storageService.uploadFileAsync("pet-images", "broken.jpg", broken.file()))
+                .thenReturn(Mono.error(new RuntimeException("storage error")));
+        when(petImageRepository.findAllByUrlIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).contains("https://cdn/known.jpg")
+                        ? List.of(petImage("known", "https://cdn/known.jpg", 2))
+                        : List.of());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> petImageStore.store(List.of(known, fresh, broken)));
+
+        assertEquals("storage error", exception.getMessage());
+        assertQueued("https://cdn/fresh.jpg");
+        verify(petImageRepository).removeReferences("https://cdn/known.jpg", 1);
+        verify(petImageRepository, never()).insert(any(), any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("store should reference the row inserted by a concurrent upload of the same content")
+    void store_shouldReference_whenInsertConflicts() {
+        HashedImage image = hashed("dog.jpg", "image/jpeg", "abc");
+        when(petImageRepository.addReference("abc")).thenReturn(0, 1);
+        when(storageService.uploadFileAsync("pet-images", "abc.jpg", image.file()))
+                .thenReturn(Mono.just("https://cdn/abc.jpg"));
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(petImageRepository).insert(any(), any(), any(), anyLong(), any(), any());
+        when(petImageRepository.findById("abc")).thenReturn(Optional.of(petImage("abc", "https://cdn/abc.jpg", 2)));
+
+        List<String> urls = petImageStore.store(List.of(image));
+
+        assertEquals(List.of("https://cdn/abc.jpg"), urls);
+        verify(cleanupTaskRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("store should revive a tombstone and upload its content again before using it")
+    void store_shouldReviveTombstone() {
+        MockMultipartFile file = new MockMultipartFile("image", "dog.jpg", "image/jpeg", "dog".getBytes());
+        HashedImage image = new HashedImage(file, "abc", 0x0F0FL);
+        when(storageService.publicUrl("pet-images", "")).thenReturn("https://cdn/");
+        when(petImageRepository.revive("abc", "image/jpeg", file.getSize(), 0x0F0FL)).thenReturn(1);
+        when(petImageRepository.findById("abc")).thenReturn(Optional.of(petImage("abc", "https://cdn/abc.jpeg", 1)));
+        when(storageService.uploadFileAsync("pet-images", "abc.jpeg", file)).thenReturn(Mono.just("https://cdn/abc.jpeg"));
+
+        List<String> urls = petImageStore.store(List.of(image));
+
+        assertEquals(List.of("https://cdn/abc.jpeg"), urls);
+        InOrder order = inOrder(petImageRepository, storageService);
+        order.verify(petImageRepository).revive("abc", "image/jpeg", file.getSize(), 0x0F0FL);
+        order.verify(storageService).uploadFileAsync("pet-images", "abc.jpeg", file);
+        verify(petImageRepository, never()).insert(any(), any(), any(), anyLong(), any(), any());
+        verify(eventPublisher).publishEvent(PetImageChangedEvent.added(new PetImageHashRow("abc", 0x0F0FL)));
+    }
+
+    @Test
+    @DisplayName("store should upload again when its insert meets a tombstone, since its cleanup may have run meanwhile")
+    void store_shouldUploadAgain_whenInsertMeetsTombstone() {
+        HashedImage image = hashed("dog.jpg", "image/jpeg", "abc");
+        when(storageService.publicUrl("pet-images", "")).thenReturn("https://cdn/");
+        when(storageService.uploadFileAsync("pet-images", "abc.jpg", image.file()))
+                .thenReturn(Mono.just("https://cdn/abc.jpg"));
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(petImageRepository).insert(any(), any(), any(), anyLong(), any(), any());
+        when(petImageRepository.revive(eq("abc"), any(), anyLong(), any())).thenReturn(0, 1);
+        when(petImageRepository.findById("abc")).thenReturn(Optional.of(petImage("abc", "https://cdn/abc.jpg", 1)));
+
+        List<String> urls = petImageStore.store(List.of(image));
+
+        assertEquals(List.of("https://cdn/abc.jpg"), urls);
+        verify(storageService, times(2)).uploadFileAsync("pet-images", "abc.jpg", image.file());
+        verify(cleanupTaskRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("store should refuse content whose object is being deleted and queue its own upload for cleanup")
+    void store_shouldRefuse_whenContentIsBeingDeleted() {
+        HashedImage image = hashed("dog.jpg", "image/jpeg", "abc");
+        when(storageService.uploadFileAsync("pet-images", "abc.jpg", image.file()))
+                .thenReturn(Mono.just("https://cdn/abc.jpg"));
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(petImageRepository).insert(any(), any(), any(), anyLong(), any(), any());
+        when(petImageRepository.findById("abc"))
+                .thenReturn(Optional.of(petImage("abc", "https://cdn/abc.jpg", PetImage.DELETING)));
+        when(petImageRepository.findAllByUrlIn(List.of("https://cdn/abc.jpg")))
+                .thenReturn(List.of(petImage("abc", "https://cdn/abc.jpg", PetImage.DELETING)));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> petImageStore.store(List.of(image)));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        verify(storageService, times(1)).uploadFileAsync("pet-images", "abc.jpg", image.file());
+        assertQueued("https://cdn/abc.jpg");
+    }
+
+    @Test
+    @DisplayName("release should queue objects only when their last reference goes away, keeping their rows")
+    void release_shouldDeleteUnreferencedObjects() {
+        PetImage shared = petImage("shared", "https://cdn/shared.jpg", 3);
+        PetImage single = petImage("single", "https://cdn/single.jpg", 1);
+        when(petImageRepository.findAllByUrlIn(anyCollection())).thenReturn(List.of(shared, single));
+        when(petImageRepository.findAllByUrlInAndRefCountLessThanEqual(anyCollection(), eq(0)))
+                .thenReturn(List.of(single));
+        petImageStore.release(List.of("https://cdn/shared.jpg", "https://cdn/single.jpg", "https://cdn/legacy.jpg"));
+
+        verify(petImageRepository).removeReferences("https://cdn/shared.jpg", 1);
+        verify(petImageRepository).removeReferences("https://cdn/single.jpg", 1);
+        verify(eventPublisher).publishEvent(PetImageChangedEvent.removed(List.of("single")));
+        assertQueued("https://cdn/legacy.jpg", "https://cdn/single.jpg");
+        verify(storageService, never()).deleteAllByPublicUrls(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("release should queue the variants of deleted objects and drop their rows and placeholders")
+    void release_shouldDeleteVariants() {
+        when(variantRepository.findAllBySourceUrlIn(List.of("https://cdn/legacy.jpg"))).thenReturn(List.of(
+                new PetImageVariant("https://cdn/legacy.jpg", "full", "https://cdn/variants/legacy/full.jpg",
+                        "image/jpeg", 1024, 768, 90_000, Instant.now()),
+                new PetImageVariant("https://cdn/legacy.jpg", "w160", "https://cdn/variants/legacy/w160.jpg",
+                        "image/jpeg", 160, 120, 5_000, Instant.now())));
+
+        petImageStore.release(List.of("https://cdn/legacy.jpg"));
+
+        verify(variantRepository).deleteAllBySourceUrlIn(List.of("https://cdn/legacy.jpg"));
+        verify(placeholderRepository).deleteAllBySourceUrlIn(List.of("https://cdn/legacy.jpg"));
+        assertQueued("https://cdn/legacy.jpg", "https://cdn/variants/legacy/full.jpg",
+                "https://cdn/variants/legacy/w160.jpg");
+    }
+
+    @Test
+    @DisplayName("release should drop one reference per occurrence of an url")
+    void release_shouldCountRepeatedUrls() {
+        when(petImageRepository.findAllByUrlIn(anyCollection()))
+                .thenReturn(List.of(petImage("shared", "https://cdn/shared.jpg", 3)));
+
+        petImageStore.release(List.of("https://cdn/shared.jpg", "https://cdn/shared.jpg"));
+
+        verify(petImageRepository).removeReferences("https://cdn/shared.jpg", 2);
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(cleanupTaskRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("claim should record each direct upload with one reference under a hash of its url")
+    void claim_shouldRecordUploads() {
+        Map<String, StoredObject> uploads = new LinkedHashMap<>();
+        uploads.put("https://cdn/uploads/1/a.jpg", new StoredObject(1000, "image/jpeg"));
+        uploads.put("https://cdn/uploads/1/b.png", new StoredObject(2000, "image/png"));
+
+        petImageStore.claim(uploads);
+
+        ArgumentCaptor<String> hashes = ArgumentCaptor.forClass(String.class);
+        verify(petImageRepository).insert(hashes.capture(), eq("https://cdn/uploads/1/a.jpg"), eq("image/jpeg"),
+                eq(1000L), isNull(), any(Instant.class));
+        verify(petImageRepository).insert(hashes.capture(), eq("https://cdn/uploads/1/b.png"), eq("image/png"),
+                eq(2000L), isNull(), any(Instant.class));
+        assertTrue(hashes.getAllValues().stream().allMatch(hash -> hash.matches("[0-9a-f]{64}")));
+        assertNotEquals(hashes.getAllValues().get(0), hashes.getAllValues().get(1));
+    }
+
+    @Test
+    @DisplayName("sniff should read the header of a stored object without reading the rest of it")
+    void sniff_shouldReadOnlyTheHeader() throws IOException {
+        byte[] image = TestImages.ofType("image/png", 5 * 1024 * 1024);
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(image));
+        when(storageService.openFile(PetImageStore.BUCKET, "uploads/1/a.png")).thenReturn(new InputStreamResource(in));
+
+        assertEquals(Optional.of(new ImageHeader("image/png", 800, 600)), petImageStore.sniff("uploads/1/a.png"));
+        assertTrue(in.read < ImageSniffer.MAX_HEADER_BYTES);
+    }
+
+    @Test
+    @DisplayName("sniff should be empty when the object does not exist")
+    void sniff_shouldBeEmpty_whenObjectIsMissing() {
+        when(storageService.openFile(PetImageStore.BUCKET, "uploads/1/a.png")).thenReturn(new ClassPathResource("missing.png"));
+
+        assertTrue(petImageStore.sniff("uploads/1/a.png").isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertQueued(String... urls) {
+        ArgumentCaptor<List<ImageCleanupTask>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(cleanupTaskRepository).saveAll(tasks.capture());
+        assertEquals(List.of(urls), tasks.getValue().stream().map(ImageCleanupTask::getUrl).toList());
+    }
+
+    private HashedImage hashed(String name, String contentType, String hash) {
+        return new HashedImage(new MockMultipartFile("image", name, contentType, (name + hash).getBytes()), hash, null);
+    }
+
+    private PetImage petImage(String hash, String url, int refCount) {
+        return new PetImage(hash, url, "image/jpeg", 10, refCount, Instant.now());
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long read;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) read++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) read += n;
+            return n;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.auth.pet;
 
+import com.example.auth.pet.DTOs.ImageVariantDTO;
 import com.example.auth.pet.DTOs.PetResponseDTO;
 import com.example.auth.pet.DTOs.RegisterPetDTO;
+import com.example.auth.pet.image.PetImagePlaceholder;
+import com.example.auth.pet.image.PetImageVariant;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Size;
 import com.example.auth.pet.enums.Specie;
@@ -12,6 +15,7 @@ import com.example.auth.user.UserRole;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,7 +34,9 @@ class PetMapperTests {
                 Sex.FEMALE,
                 "Calm and playful",
                 Specie.CAT,
-                Size.SMALL
+                Size.SMALL,
+                -23.5505,
+                -46.6333
         );
         User user = new User(1L, "Ana", "ana@test.com", "11999999999", "secret", UserRole.USER);
 
@@ -42,6 +48,8 @@ class PetMapperTests {
                 () -> assertEquals(Size.SMALL, result.getSize()),
                 () -> assertEquals(Specie.CAT, result.getSpecie()),
                 () -> assertEquals("Calm and playful", result.getDescription()),
+                () -> assertEquals(-23.5505, result.getLatitude()),
+                () -> assertEquals(-46.6333, result.getLongitude()),
                 () -> assertEquals(user, result.getUser())
         );
     }
@@ -76,36 +84,43 @@ class PetMapperTests {
     }
 
     @Test
-    @DisplayName("toDTOList should map list of pets to list of response DTOs")
-    void toDtoList_shouldMapListOfPets() {
-        User user = new User(3L, "Maria", "maria@test.com", "11977777777", "secret", UserRole.USER);
-
-        Pet first = new Pet();
-        first.setId(1L);
-        first.setNickname("Luna");
-        first.setSex(Sex.FEMALE);
-        first.setSize(Size.MEDIUM);
-        first.setSpecie(Specie.DOG);
-        first.setDescription("Very active");
-        first.setUser(user);
-        first.setImageUrls(List.of("luna1.jpg"));
-
-        Pet second = new Pet();
-        second.setId(2L);
-        second.setNickname("Nina");
-        second.setSex(Sex.FEMALE);
-        second.setSize(Size.SMALL);
-        second.setSpecie(Specie.CAT);
-        second.setDescription("Calm");
-        second.setUser(user);
-        second.setImageUrls(List.of("nina1.jpg"));
-
-        List<PetResponseDTO> result = petMapper.toDTOList(List.of(first, second));
+    @DisplayName("toDTOList should map projected rows with their image urls")
+    void toDtoList_shouldMapRowsWithImageUrls() {
+        PetRow withOwner = new PetRow(1L, "Rex", Sex.MALE, Size.BIG, Specie.DOG, "Friendly",
+                2L, "Joao", "joao@test.com", "11988888888");
+        PetRow withoutOwner = new PetRow(2L, "Mel", Sex.FEMALE, Size.SMALL, Specie.CAT, null,
+                null, null, null, null);
+
+        List<PetResponseDTO> result = petMapper.toDTOList(
+                List.of(withOwner, withoutOwner),
+                java.util.Map.of(1L, List.of("a.jpg")));
 
         assertAll(
-                () -> assertEquals(2, result.size()),
-                () -> assertEquals("Luna", result.get(0).nickname()),
-                () -> assertEquals("Nina", result.get(1).nickname())
+                () -> assertEquals(new UserSummaryDTO("Joao", "joao@test.com", "11988888888"), result.get(0).user()),
+                () -> assertEquals(List.of("a.jpg"), result.get(0).imageUrls()),
+                () -> assertNull(result.get(1).user()),
+                () -> assertEquals(List.of(), result.get(1).imageUrls())
         );
     }
+
+    @Test
+    @DisplayName("toDTOList should attach the variants and placeholders of each pet's images, smallest variant first")
+    void toDtoList_shouldAttachVariants() {
+        PetRow row = new PetRow(1L, "Rex", Sex.MALE, Size.BIG, Specie.DOG, null, null, null, null, null);
+        Instant now = Instant.now();
+        PetImageDetails details = petMapper.toImageDetails(List.of(
+                new PetImageVariant("a.jpg", "full", "a/full.jpg", "image/jpeg", 2048, 1536, 300_000, now),
+                new PetImageVariant("a.jpg", "w160", "a/w160.jpg", "image/jpeg", 160, 120, 5_000, now),
+                new PetImageVariant("other.jpg", "w160", "o/w160.jpg", "image/jpeg", 160, 120, 5_000, now)),
+                List.of(new PetImagePlaceholder("b.jpg", "L00000fQfQfQfQfQfQfQfQfQfQfQ", now),
+                        new PetImagePlaceholder("other.jpg", "L11111fQfQfQfQfQfQfQfQfQfQfQ", now)));
+
+        PetResponseDTO result = petMapper.toDTOList(List.of(row),
+                java.util.Map.of(1L, List.of("a.jpg", "b.jpg")), details).get(0);
+
+        assertEquals(java.util.Set.of("a.jpg"), result.imageVariants().keySet());
+        assertEquals(List.of("w160", "full"), List.copyOf(result.imageVariants().get("a.jpg").keySet()));
+        assertEquals(new ImageVariantDTO("a/w160.jpg", 160, 120, 5_000), result.imageVariants().get("a.jpg").get("w160"));
+        assertEquals(java.util.Map.of("b.jpg", "L00000fQfQfQfQfQfQfQfQfQfQfQ"), result.imagePlaceholders());
+    }
 }
@@ -1,23 +1,46 @@
 package com.example.auth.PetTests;
 
 import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetMapper;
 import com.example.auth.pet.PetRepository;
+import com.example.auth.pet.PetImageRow;
+import com.example.auth.pet.PetRow;
+import com.example.auth.pet.PetSpecifications;
+import com.example.auth.pet.DTOs.PetResponseDTO;
+import com.example.auth.pet.enums.PetSort;
+import com.example.auth.pet.image.PetImagePlaceholder;
+import com.example.auth.pet.image.PetImageVariant;
+import com.example.auth.pet.index.PetFacetRow;
+import com.example.auth.pet.index.GeoBox;
+import com.example.auth.pet.index.PetFilterRow;
+import com.example.auth.pet.index.PetGeoRow;
+import com.example.auth.pet.index.PetSearchRow;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Size;
 import com.example.auth.pet.enums.Specie;
 import com.example.auth.user.User;
+import com.example.auth.user.UserMapper;
 import com.example.auth.user.UserRepository;
 import com.example.auth.user.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @DisplayName("Pet Repository Tests")
 class PetRepositoryTests {
 
@@ -25,10 +48,16 @@ class PetRepositoryTests {
     private PetRepository petRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final PetMapper petMapper = new PetMapper(new UserMapper());
 
     @Test
-    @DisplayName("findAllByAdoptedFalse should return only not adopted pets")
-    void findAllByAdoptedFalse_shouldReturnOnlyNotAdopted() {
+    @DisplayName("findRows should return only not adopted pets under the available specification")
+    void findRows_shouldReturnOnlyNotAdopted() {
         User user = userRepository.save(user());
 
         Pet adopted = pet(false);
@@ -39,12 +68,11 @@ class PetRepositoryTests {
         Pet notAdopted = pet(true);
         notAdopted.setAdopted(false);
         notAdopted.setUser(user);
-        petRepository.save(notAdopted);
+        Pet saved = petRepository.save(notAdopted);
 
-        List<Pet> result = petRepository.findAllByAdoptedFalse();
+        List<PetRow> result = petRepository.findRows(PetSpecifications.available(), PetSort.NEWEST.toSort(), 10);
 
-        assertEquals(1, result.size());
-        assertFalse(result.get(0).isAdopted());
+        assertEquals(List.of(saved.getId()), result.stream().map(PetRow::id).toList());
     }
 
     @Test
@@ -80,8 +108,8 @@ class PetRepositoryTests {
     }
 
     @Test
-    @DisplayName("findByFilters should filter by specie, sex and size")
-    void findByFilters_shouldFilterBySpecieSexAndSize() {
+    @DisplayName("findRows should filter by specie, sex and size")
+    void findRows_shouldFilterBySpecieSexAndSize() {
         User user = userRepository.save(user());
 
         Pet match = pet(true);
@@ -98,29 +126,264 @@ class PetRepositoryTests {
         nonMatch.setSize(Size.SMALL);
         petRepository.save(nonMatch);
 
-        List<Pet> result = petRepository.findByFilters(Specie.DOG, Sex.MALE, Size.BIG);
+        List<PetRow> result = petRepository.findRows(
+                PetSpecifications.available().and(PetSpecifications.matching(Specie.DOG, Sex.MALE, Size.BIG)),
+                PetSort.NEWEST.toSort(), 10);
 
         assertEquals(1, result.size());
-        assertEquals("Rex", result.get(0).getNickname());
+        assertEquals("Rex", result.get(0).nickname());
+        assertEquals(Size.BIG, result.get(0).size());
     }
 
     @Test
-    @DisplayName("findByFilters should ignore null filters")
-    void findByFilters_shouldIgnoreNullFilters() {
+    @DisplayName("keyset specifications should page available pets by id without overlap")
+    void keysetSpecifications_shouldPageAvailablePetsById() {
         User user = userRepository.save(user());
+        for (int i = 0; i < 5; i++) {
+            Pet pet = pet(true);
+            pet.setUser(user);
+            petRepository.save(pet);
+        }
+        Pet adopted = pet(true);
+        adopted.setUser(user);
+        adopted.setAdopted(true);
+        petRepository.save(adopted);
+
+        List<PetRow> firstPage = petRepository.findRows(PetSpecifications.available(), PetSort.NEWEST.toSort(), 3);
+
+        Long lastId = firstPage.get(firstPage.size() - 1).id();
+        List<PetRow> secondPage = petRepository.findRows(
+                PetSpecifications.available().and(PetSpecifications.after(lastId, PetSort.NEWEST)),
+                PetSort.NEWEST.toSort(),
+                3);
+
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertTrue(firstPage.get(0).id() > firstPage.get(1).id());
+        assertTrue(secondPage.stream().allMatch(p -> p.id() < lastId && !p.id().equals(adopted.getId())));
+    }
+
+    @Test
+    @DisplayName("matching specification should only apply supplied filters")
+    void matchingSpecification_shouldOnlyApplySuppliedFilters() {
+        User user = userRepository.save(user());
+
+        Pet dog = pet(true);
+        dog.setUser(user);
+        petRepository.save(dog);
+
+        Pet cat = pet(true);
+        cat.setUser(user);
+        cat.setSpecie(Specie.CAT);
+        petRepository.save(cat);
+
+        List<Pet> onlyCats = petRepository.findAll(PetSpecifications.matching(Specie.CAT, null, null));
+        List<Pet> all = petRepository.findAll(PetSpecifications.matching(null, null, null));
+
+        assertEquals(1, onlyCats.size());
+        assertEquals(Specie.CAT, onlyCats.get(0).getSpecie());
+        assertEquals(2, all.size());
+    }
+
+    @Test
+    @DisplayName("findRows and findImageRows should read a page with two statements and no managed entities")
+    void findRows_shouldReadPageWithoutHydratingEntities() {
+        persistPetsWithImages(6);
+        Statistics statistics = statistics();
+
+        List<PetRow> page = petRepository.findRows(PetSpecifications.available(), PetSort.NEWEST.toSort(), 10);
+        List<PetImageRow> images = petRepository.findImageRows(page.stream().map(PetRow::id).toList());
+
+        assertEquals(6, page.size());
+        assertEquals(12, images.size());
+        assertTrue(page.stream().allMatch(row -> row.ownerEmail() != null));
+        // one select for pets joined with owners, one select for image urls
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("findRowById should project pet and owner columns")
+    void findRowById_shouldProjectPetAndOwner() {
+        Pet saved = persistPetsWithImages(1).get(0);
+
+        PetRow row = petRepository.findRowById(saved.getId()).orElseThrow();
+
+        assertEquals("Rex", row.nickname());
+        assertEquals("user0@test.com", row.ownerEmail());
+        assertTrue(petRepository.findRowById(999L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("findById should load owner and images in a single statement")
+    void findById_shouldLoadOwnerAndImagesInOneStatement() {
+        Long id = persistPetsWithImages(1).get(0).getId();
+        Statistics statistics = statistics();
+
+        Pet pet = petRepository.findById(id).orElseThrow();
+        serialize(List.of(petMapper.toDTO(pet)));
+
+        assertEquals(2, pet.getImageUrls().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("streamFilterRows should stream the filter columns of every pet")
+    void streamFilterRows_shouldStreamEveryPet() {
+        List<Pet> pets = persistPetsWithImages(3);
+
+        try (var rows = petRepository.streamFilterRows()) {
+            assertEquals(
+                    pets.stream().map(Pet::getId).sorted().toList(),
+                    rows.map(PetFilterRow::id).sorted().toList());
+        }
+    }
+
+    @Test
+    @DisplayName("streamAvailableRows should stream available pets in id order without managed entities")
+    void streamAvailableRows_shouldSkipAdoptedPets() {
+        List<Pet> pets = persistPetsWithImages(3);
+        Pet adopted = petRepository.findById(pets.get(1).getId()).orElseThrow();
+        adopted.setAdopted(true);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
 
+        try (var rows = petRepository.streamAvailableRows()) {
+            assertEquals(List.of(pets.get(0).getId(), pets.get(2).getId()), rows.map(PetRow::id).toList());
+        }
+        try (var rows = petRepository.streamAllRows()) {
+            assertEquals(pets.stream().map(Pet::getId).toList(), rows.map(PetRow::id).toList());
+        }
+
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("streamSearchRows should stream the searchable text of every pet")
+    void streamSearchRows_shouldStreamEveryPet() {
+        List<Pet> pets = persistPetsWithImages(2);
+
+        try (var rows = petRepository.streamSearchRows()) {
+            List<PetSearchRow> result = rows.sorted(Comparator.comparing(PetSearchRow::id)).toList();
+            assertEquals(List.of(
+                    new PetSearchRow(pets.get(0).getId(), "Rex", "Friendly"),
+                    new PetSearchRow(pets.get(1).getId(), "Rex", "Friendly")), result);
+        }
+    }
+
+    @Test
+    @DisplayName("findGeoRows should return only located pets inside the bounding box")
+    void findGeoRows_shouldApplyBoundingBox() {
+        List<Pet> pets = persistPetsWithImages(3);
+        locate(pets.get(0).getId(), -23.5505, -46.6333);
+        locate(pets.get(1).getId(), -22.9068, -43.1729);
+
+        List<PetGeoRow> rows = petRepository.findGeoRows(
+                PetSpecifications.available().and(PetSpecifications.within(GeoBox.around(-23.5505, -46.6333, 50))));
+
+        assertEquals(List.of(new PetGeoRow(pets.get(0).getId(), -23.5505, -46.6333)), rows);
+        try (var located = petRepository.streamGeoRows()) {
+            assertEquals(2, located.count());
+        }
+    }
+
+    @Test
+    @DisplayName("findIds should return the ids of the pets the specification matches")
+    void findIds_shouldApplySpecification() {
+        List<Pet> pets = persistPetsWithImages(3);
+        Pet adopted = petRepository.findById(pets.get(0).getId()).orElseThrow();
+        adopted.setAdopted(true);
+        entityManager.flush();
+
+        List<Long> ids = petRepository.findIds(PetSpecifications.available());
+
+        assertEquals(Set.of(pets.get(1).getId(), pets.get(2).getId()), Set.copyOf(ids));
+    }
+
+    @Test
+    @DisplayName("countFacets should group pets by specie, sex, size and adoption")
+    void countFacets_shouldGroupPets() {
+        List<Pet> pets = persistPetsWithImages(3);
+        Pet adopted = petRepository.findById(pets.get(0).getId()).orElseThrow();
+        adopted.setAdopted(true);
+        entityManager.flush();
+
+        List<PetFacetRow> rows = petRepository.countFacets();
+
+        assertEquals(2, rows.size());
+        assertTrue(rows.contains(new PetFacetRow(Specie.DOG, Sex.MALE, Size.MEDIUM, false, 2)));
+        assertTrue(rows.contains(new PetFacetRow(Specie.DOG, Sex.MALE, Size.MEDIUM, true, 1)));
+    }
+
+    @Test
+    @DisplayName("existsByImageUrlIn should tell whether any pet uses one of the urls")
+    void existsByImageUrlIn_shouldMatchPetImages() {
+        persistPetsWithImages(2);
+
+        assertTrue(petRepository.existsByImageUrlIn(List.of("missing.jpg", "b1.jpg")));
+        assertFalse(petRepository.existsByImageUrlIn(List.of("missing.jpg")));
+    }
+
+    private void locate(Long petId, double latitude, double longitude) {
+        Pet pet = petRepository.findById(petId).orElseThrow();
+        pet.setLatitude(latitude);
+        pet.setLongitude(longitude);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<Pet> persistPetsWithImages(int count) {
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User owner = userRepository.save(
+                    new User(null, "User", "user" + i + "@test.com", "11999999999", "secret", UserRole.USER));
+            Pet pet = pet(true);
+            pet.setUser(owner);
+            pet.setImageUrls(new ArrayList<>(List.of("a" + i + ".jpg", "b" + i + ".jpg")));
+            pets.add(petRepository.save(pet));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return pets;
+    }
+
+    // touches every field the way Jackson would when writing the response
+    private void serialize(List<PetResponseDTO> dtos) {
+        dtos.forEach(dto -> {
+            dto.user().email();
+            dto.imageUrls().size();
+        });
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    @Test
+    @DisplayName("findImageUrlsToRender should page through image urls missing variants or a placeholder")
+    void findImageUrlsToRender_shouldSkipRenderedUrls() {
+        User user = userRepository.save(user());
         Pet first = pet(true);
         first.setUser(user);
+        first.setImageUrls(new ArrayList<>(List.of("a.jpg", "b.jpg")));
         petRepository.save(first);
-
         Pet second = pet(true);
         second.setUser(user);
-        second.setSpecie(Specie.CAT);
+        second.setImageUrls(new ArrayList<>(List.of("b.jpg", "c.jpg", "d.jpg")));
         petRepository.save(second);
+        entityManager.persist(new PetImageVariant("c.jpg", "full", "variants/c/full.jpg", "image/jpeg",
+                100, 100, 1000, Instant.now()));
+        entityManager.persist(new PetImagePlaceholder("c.jpg", "LEHV6nWB2yk8pyo0adR*.7kCMdnj", Instant.now()));
+        entityManager.persist(new PetImageVariant("d.jpg", "full", "variants/d/full.jpg", "image/jpeg",
+                100, 100, 1000, Instant.now()));
+        entityManager.flush();
 
-        List<Pet> result = petRepository.findByFilters(null, null, null);
-
-        assertEquals(2, result.size());
+        assertEquals(List.of("a.jpg", "b.jpg"), petRepository.findImageUrlsToRender(null, PageRequest.of(0, 2)));
+        assertEquals(List.of("d.jpg"), petRepository.findImageUrlsToRender("b.jpg", PageRequest.of(0, 2)));
+        assertEquals(2, petRepository.findAllByImageUrl("b.jpg").size());
     }
 
     private User user() {
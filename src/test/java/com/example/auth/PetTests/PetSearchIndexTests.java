@@ -0,0 +1,98 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.PetRepository;
+import com.example.auth.pet.index.PetSearchIndex;
+import com.example.auth.pet.index.PetSearchRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Pet Search Index Tests")
+class PetSearchIndexTests {
+
+    private PetRepository petRepository;
+    private PetSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        petRepository = mock(PetRepository.class);
+        when(petRepository.streamSearchRows()).thenReturn(Stream.of(
+                new PetSearchRow(1L, "Luna", "Calm labrador who loves kids"),
+                new PetSearchRow(2L, "Rex", "Energetic dog, friends with Luna"),
+                new PetSearchRow(3L, "Mel", "Gata tranquila e carinhosa"),
+                new PetSearchRow(4L, "Thor", "Playful labrador puppy"),
+                new PetSearchRow(5L, "Bolinha", null)
+        ));
+        index = new PetSearchIndex(petRepository);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("rebuild should mark the index ready")
+    void rebuild_shouldMarkIndexReady() {
+        assertTrue(index.isReady());
+        assertFalse(new PetSearchIndex(petRepository).isReady());
+    }
+
+    @Test
+    @DisplayName("search should rank nickname matches above description matches")
+    void search_shouldRankNicknameFirst() {
+        assertEquals(List.of(1L, 2L), index.search("luna", null, 0, 10));
+    }
+
+    @Test
+    @DisplayName("search should tolerate typos, accents and partial words")
+    void search_shouldMatchFuzzily() {
+        assertEquals(List.of(1L, 2L), index.search("Lunna", null, 0, 10));
+        assertEquals(List.of(3L), index.search("carinhósa", null, 0, 10));
+        assertEquals(List.of(4L, 1L), index.search("lab", null, 0, 10));
+        assertEquals(List.of(), index.search("giraffe", null, 0, 10));
+    }
+
+    @Test
+    @DisplayName("search should require every word and prefer newer pets on equal relevance")
+    void search_shouldAndWordsAndBreakTiesByRecency() {
+        assertEquals(List.of(4L), index.search("playful labrador", null, 0, 10));
+        assertEquals(List.of(4L, 1L), index.search("labrador", null, 0, 10));
+    }
+
+    @Test
+    @DisplayName("search should respect the allowed ids and the offset")
+    void search_shouldRestrictAndPage() {
+        assertEquals(List.of(1L), index.search("labrador", RoaringBitmap.bitmapOf(1, 2), 0, 10));
+        assertEquals(List.of(1L), index.search("labrador", null, 1, 10));
+        assertEquals(List.of(4L), index.search("labrador", null, 0, 1));
+    }
+
+    @Test
+    @DisplayName("onPetChanged should reindex updated pets and drop removed ones")
+    void onPetChanged_shouldKeepIndexInSync() {
+        Pet pet = new Pet();
+        pet.setId(5L);
+        pet.setNickname("Bolinha");
+        pet.setDescription("Gentle labrador");
+
+        index.onPetChanged(PetChangedEvent.saved(pet));
+        assertEquals(List.of(5L, 4L, 1L), index.search("labrador", null, 0, 10).subList(0, 3));
+
+        index.onPetChanged(PetChangedEvent.removed(pet));
+        assertEquals(List.of(), index.search("bolinha", null, 0, 10));
+        assertEquals(List.of(4L, 1L), index.search("labrador", null, 0, 10));
+    }
+
+    @Test
+    @DisplayName("search should ignore queries without words")
+    void search_shouldIgnoreEmptyQueries() {
+        assertEquals(List.of(), index.search(" - ", null, 0, 10));
+    }
+}
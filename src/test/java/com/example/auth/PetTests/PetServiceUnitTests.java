@@ -1,11 +1,41 @@
 package com.example.auth.pet;
 
+import com.example.auth.PetTests.TestImages;
+import com.example.auth.infra.cache.DtoCaches;
+import com.example.auth.infra.storage.SignedUpload;
+import com.example.auth.infra.storage.StoredObject;
+import com.example.auth.infra.versioning.ResourceVersions;
+import com.example.auth.pet.DTOs.PetFacetsDTO;
+import com.example.auth.pet.DTOs.PetNearbyDTO;
+import com.example.auth.pet.DTOs.PetPageDTO;
 import com.example.auth.pet.DTOs.RegisterPetDTO;
+import com.example.auth.pet.DTOs.ResumableUploadDTO;
+import com.example.auth.pet.DTOs.ImageVariantDTO;
 import com.example.auth.pet.DTOs.PetResponseDTO;
 import com.example.auth.pet.DTOs.UpdatePetDTO;
+import com.example.auth.pet.DTOs.UploadTargetDTO;
+import com.example.auth.pet.enums.PetSort;
 import com.example.auth.pet.enums.Sex;
 import com.example.auth.pet.enums.Size;
 import com.example.auth.pet.enums.Specie;
+import com.example.auth.pet.index.PetFacetRow;
+import com.example.auth.pet.index.GeoHit;
+import com.example.auth.pet.index.PetFilterIndex;
+import com.example.auth.pet.index.PetGeoIndex;
+import com.example.auth.pet.index.PetGeoRow;
+import com.example.auth.pet.index.PetSearchIndex;
+import com.example.auth.pet.image.HashedImage;
+import com.example.auth.pet.image.ImageHeader;
+import com.example.auth.pet.image.NearDuplicateIndex;
+import com.example.auth.pet.image.PerceptualHash;
+import com.example.auth.pet.image.PetImageRepository;
+import com.example.auth.pet.image.PetImageStore;
+import com.example.auth.pet.image.PetImagePlaceholder;
+import com.example.auth.pet.image.PetImagePlaceholderRepository;
+import com.example.auth.pet.image.PetImageVariant;
+import com.example.auth.pet.image.PetImageVariantRepository;
+import com.example.auth.pet.image.ResumableUploadStore;
+import com.example.auth.pet.image.UploadSession;
 import com.example.auth.user.User;
 import com.example.auth.user.UserMapper;
 import com.example.auth.user.services.UserService;
@@ -13,21 +43,31 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.roaringbitmap.RoaringBitmap;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
 import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static com.example.auth.pet.enums.Sex.MALE;
 import static com.example.auth.pet.enums.Size.*;
@@ -47,9 +87,29 @@ class PetServiceUnitTests {
     @Mock
     private UserService userService;
     @Mock
-    private SupabaseStorageService supabaseStorageService;
+    private PetImageStore petImageStore;
+    @Mock
+    private PetFilterIndex petFilterIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PetSearchIndex petSearchIndex;
+    @Mock
+    private PetGeoIndex petGeoIndex;
+    @Mock
+    private NearDuplicateIndex nearDuplicateIndex;
+    @Mock
+    private ResumableUploadStore resumableUploadStore;
+    @Mock
+    private PetImageVariantRepository petImageVariantRepository;
+    @Mock
+    private PetImagePlaceholderRepository petImagePlaceholderRepository;
     @Mock
     private Principal principal;
+    private final ResourceVersions resourceVersions = new ResourceVersions();
+    @Spy
+    private DtoCaches dtoCaches = new DtoCaches(resourceVersions, new SimpleMeterRegistry(),
+            DataSize.ofMegabytes(1), Duration.ofMinutes(1));
     @InjectMocks
     private PetService petService;
 
@@ -82,7 +142,9 @@ class PetServiceUnitTests {
                 MALE,
                 "Friendly dog",
                 DOG,
-                MEDIUM
+                MEDIUM,
+                null,
+                null
         );
 
         lenient().when(petMapper.toEntity(any(RegisterPetDTO.class), any(User.class))).thenAnswer(invocation -> {
@@ -108,25 +170,25 @@ class PetServiceUnitTests {
                     pet.getSpecie(),
                     pet.getDescription(),
                     pet.getUser() == null ? null : userMapper.toSummaryDTO(pet.getUser()),
-                    pet.getImageUrls()
+                    pet.getImageUrls(),
+                    Map.of(),
+                    Map.of()
             );
         });
 
-        lenient().when(petMapper.toDTOList(anyList())).thenAnswer(invocation -> {
-            List<Pet> pets = invocation.getArgument(0);
-            return pets.stream()
-                    .map(pet -> new PetResponseDTO(
-                            pet.getId(),
-                            pet.getNickname(),
-                            pet.getSex(),
-                            pet.getSize(),
-                            pet.getSpecie(),
-                            pet.getDescription(),
-                            pet.getUser() == null ? null : userMapper.toSummaryDTO(pet.getUser()),
-                            pet.getImageUrls()
-                    ))
-                    .collect(Collectors.toList());
-        });
+        lenient().when(petMapper.toDTO(any(Pet.class), any(PetImageDetails.class))).thenAnswer(invocation ->
+                new PetMapper(userMapper).toDTO(invocation.<Pet>getArgument(0), invocation.getArgument(1)));
+
+        lenient().when(petMapper.toDTO(any(PetRow.class), anyList(), any(PetImageDetails.class))).thenAnswer(invocation ->
+                new PetMapper(userMapper).toDTO(invocation.<PetRow>getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2)));
+
+        lenient().when(petMapper.toDTOList(anyList(), anyMap(), any(PetImageDetails.class))).thenAnswer(invocation ->
+                new PetMapper(userMapper).toDTOList(invocation.<List<PetRow>>getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2)));
+
+        lenient().when(petMapper.toImageDetails(anyList(), anyList())).thenAnswer(invocation ->
+                new PetMapper(userMapper).toImageDetails(invocation.getArgument(0), invocation.getArgument(1)));
     }
 
     //findById method tests
@@ -164,7 +226,11 @@ class PetServiceUnitTests {
     @Test
     @DisplayName("findByIdAsDto should return pet DTO when ID exists")
     void findByIdAsDto_shouldReturnDto_whenIdExists() {
-        when(petRepository.findById(1L)).thenReturn(Optional.of(mockPet));
+        when(petRepository.findRowById(1L)).thenReturn(Optional.of(
+                new PetRow(1L, "Rex", MALE, MEDIUM, DOG, "Friendly dog", 1L, "User", "user@test.com", null)));
+        when(petRepository.findImageRows(List.of(1L))).thenReturn(List.of(
+                new PetImageRow(1L, "a.jpg"),
+                new PetImageRow(1L, "b.jpg")));
 
         PetResponseDTO result = petService.findByIdAsDto(1L);
 
@@ -174,15 +240,38 @@ class PetServiceUnitTests {
                 () -> assertEquals("Rex", result.nickname()),
                 () -> assertEquals(MALE, result.sex()),
                 () -> assertEquals(MEDIUM, result.size()),
-                () -> assertEquals(DOG, result.specie())
+                () -> assertEquals(DOG, result.specie()),
+                () -> assertEquals(List.of("a.jpg", "b.jpg"), result.imageUrls()),
+                () -> assertEquals("user@test.com", result.user().email())
         );
-        verify(petRepository, times(1)).findById(1L);
+        verify(petRepository, times(1)).findRowById(1L);
+        verify(petRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("findByIdAsDto should attach the variants and placeholders written for the pet's images")
+    void findByIdAsDto_shouldAttachVariants() {
+        when(petRepository.findRowById(1L)).thenReturn(Optional.of(
+                new PetRow(1L, "Rex", MALE, MEDIUM, DOG, null, null, null, null, null)));
+        when(petRepository.findImageRows(List.of(1L))).thenReturn(List.of(
+                new PetImageRow(1L, "a.jpg"),
+                new PetImageRow(1L, "b.jpg")));
+        when(petImageVariantRepository.findAllBySourceUrlIn(java.util.Set.of("a.jpg", "b.jpg"))).thenReturn(List.of(
+                new PetImageVariant("a.jpg", "w160", "a/w160.jpg", "image/jpeg", 160, 120, 5_000, java.time.Instant.now())));
+        when(petImagePlaceholderRepository.findAllBySourceUrlIn(java.util.Set.of("a.jpg", "b.jpg"))).thenReturn(List.of(
+                new PetImagePlaceholder("b.jpg", "LEHV6nWB2yk8pyo0adR*.7kCMdnj", java.time.Instant.now())));
+
+        PetResponseDTO result = petService.findByIdAsDto(1L);
+
+        assertEquals(Map.of("a.jpg", Map.of("w160", new ImageVariantDTO("a/w160.jpg", 160, 120, 5_000))),
+                result.imageVariants());
+        assertEquals(Map.of("b.jpg", "LEHV6nWB2yk8pyo0adR*.7kCMdnj"), result.imagePlaceholders());
     }
 
     @Test
     @DisplayName("findByIdAsDto should throw ResponseStatusException when ID does not exist")
     void findByIdAsDto_shouldThrowException_whenIdDoesNotExist() {
-        when(petRepository.findById(999L)).thenReturn(Optional.empty());
+        when(petRepository.findRowById(999L)).thenReturn(Optional.empty());
 
         ResponseStatusException exception = assertThrows(
                 ResponseStatusException.class,
@@ -191,34 +280,310 @@ class PetServiceUnitTests {
 
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
         assertTrue(exception.getReason().contains("Pet with such Id not found"));
-        verify(petRepository, times(1)).findById(999L);
+        verify(petRepository, times(1)).findRowById(999L);
+    }
+
+    @Test
+    @DisplayName("findByIdAsDto should serve repeated reads from the cache until the pet changes")
+    void findByIdAsDto_shouldCacheUntilPetChanges() {
+        when(petRepository.findRowById(1L)).thenReturn(Optional.of(row(1L, "Rex")));
+        when(petRepository.findImageRows(List.of(1L))).thenReturn(List.of());
+
+        petService.findByIdAsDto(1L);
+        petService.findByIdAsDto(1L);
+        verify(petRepository, times(1)).findRowById(1L);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        resourceVersions.onPetChanged(PetChangedEvent.saved(pet));
+        petService.findByIdAsDto(1L);
+
+        verify(petRepository, times(2)).findRowById(1L);
+    }
+
+    @Test
+    @DisplayName("findByIdAsDto should not cache a missing pet")
+    void findByIdAsDto_shouldNotCacheNotFound() {
+        when(petRepository.findRowById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> petService.findByIdAsDto(999L));
+        assertThrows(ResponseStatusException.class, () -> petService.findByIdAsDto(999L));
+
+        verify(petRepository, times(2)).findRowById(999L);
+    }
+
+    // ==================== findFacets() TESTS ====================
+
+    @Test
+    @DisplayName("findFacets should answer from the index when it is ready")
+    void findFacets_shouldUseIndex_whenReady() {
+        PetFacetsDTO facets = new PetFacetsDTO(1, Map.of(), Map.of(), Map.of());
+        when(petFilterIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.facets(DOG, null, null)).thenReturn(facets);
+
+        assertSame(facets, petService.findFacets(DOG, null, null));
+        verify(petRepository, never()).countFacets();
+    }
+
+    @Test
+    @DisplayName("findFacets should group in SQL while the index is not ready")
+    void findFacets_shouldFallBackToGroupBy_whenIndexNotReady() {
+        when(petFilterIndex.isReady()).thenReturn(false);
+        when(petRepository.countFacets()).thenReturn(List.of(
+                new PetFacetRow(DOG, MALE, MEDIUM, false, 2),
+                new PetFacetRow(DOG, MALE, MEDIUM, true, 5)));
+
+        PetFacetsDTO facets = petService.findFacets(null, null, null);
+
+        assertEquals(2, facets.total());
+        assertEquals(2L, facets.specie().get(DOG));
+    }
+
+    // ==================== search() TESTS ====================
+
+    @Test
+    @DisplayName("search should return rows in ranking order with an offset cursor")
+    void search_shouldKeepRankingOrder() {
+        RoaringBitmap available = RoaringBitmap.bitmapOf(3, 5, 7);
+        when(petSearchIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.match(null, null, null, true)).thenReturn(available);
+        when(petSearchIndex.search("luna", available, 0, 3)).thenReturn(List.of(7L, 3L, 5L));
+        when(petRepository.findRows(any(), any(), anyInt()))
+                .thenReturn(List.of(row(3L, "Rex"), row(7L, "Luna")));
+
+        PetPageDTO result = petService.search("luna", null, null, null, null, 2);
+
+        assertEquals(List.of(7L, 3L), result.content().stream().map(PetResponseDTO::id).toList());
+        assertEquals("Mg", result.next());
+    }
+
+    @Test
+    @DisplayName("search should restrict candidates with SQL while the filter index is loading, so adopted pets take no slot")
+    void search_shouldRestrictWithSql_whenFilterIndexIsLoading() {
+        RoaringBitmap dogs = RoaringBitmap.bitmapOf(3, 7, 9);
+        when(petSearchIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.isReady()).thenReturn(false);
+        when(petRepository.findIds(any())).thenReturn(List.of(3L, 7L, 9L));
+        when(petSearchIndex.search("luna", dogs, 2, 3)).thenReturn(List.of(9L, 3L, 7L));
+        when(petRepository.findRows(any(), any(), anyInt()))
+                .thenReturn(List.of(row(3L, "Rex"), row(9L, "Luna")));
+
+        PetPageDTO result = petService.search("luna", DOG, null, null, "Mg", 2);
+
+        assertEquals(List.of(9L, 3L), result.content().stream().map(PetResponseDTO::id).toList());
+        assertEquals("NA", result.next());
+        verify(petFilterIndex, never()).match(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("search should restrict candidates with the filter index when it is ready")
+    void search_shouldPassFilterBitmap() {
+        RoaringBitmap dogs = RoaringBitmap.bitmapOf(1, 2);
+        when(petSearchIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.match(DOG, null, null, true)).thenReturn(dogs);
+        when(petSearchIndex.search("rex", dogs, 2, PetService.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of());
+
+        PetPageDTO result = petService.search("rex", DOG, null, null, "Mg", null);
+
+        assertTrue(result.content().isEmpty());
+        assertNull(result.next());
+        verify(petRepository, never()).findRows(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("search should reject blank queries and report a loading index")
+    void search_shouldRejectBlankQueryAndLoadingIndex() {
+        ResponseStatusException blank = assertThrows(ResponseStatusException.class,
+                () -> petService.search(" ", null, null, null, null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, blank.getStatusCode());
+
+        when(petSearchIndex.isReady()).thenReturn(false);
+        ResponseStatusException loading = assertThrows(ResponseStatusException.class,
+                () -> petService.search("rex", null, null, null, null, null));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, loading.getStatusCode());
+    }
+
+    // ==================== findNearby() TESTS ====================
+
+    @Test
+    @DisplayName("findNearby should return pets in index distance order")
+    void findNearby_shouldUseGeoIndex() {
+        RoaringBitmap available = RoaringBitmap.bitmapOf(2, 4);
+        when(petGeoIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.match(null, null, null, true)).thenReturn(available);
+        when(petGeoIndex.nearest(-23.55, -46.63, 10.0, available, PetService.DEFAULT_PAGE_SIZE))
+                .thenReturn(List.of(new GeoHit(4L, 0.5), new GeoHit(2L, 3.2)));
+        when(petRepository.findRows(any(), any(), anyInt()))
+                .thenReturn(List.of(row(2L, "Luna"), row(4L, "Rex")));
+
+        List<PetNearbyDTO> result = petService.findNearby(-23.55, -46.63, 10.0, null, null, null, null);
+
+        assertEquals(List.of(4L, 2L), result.stream().map(nearby -> nearby.pet().id()).toList());
+        assertEquals(3.2, result.get(1).distanceKm());
+        verify(petRepository, never()).findGeoRows(any());
+    }
+
+    @Test
+    @DisplayName("findNearby should restrict candidates with SQL while the filter index is loading, so adopted pets take no slot")
+    void findNearby_shouldRestrictWithSql_whenFilterIndexIsLoading() {
+        RoaringBitmap available = RoaringBitmap.bitmapOf(2, 4);
+        when(petGeoIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.isReady()).thenReturn(false);
+        when(petRepository.findIds(any())).thenReturn(List.of(2L, 4L));
+        when(petGeoIndex.nearest(-23.55, -46.63, 10.0, available, 2))
+                .thenReturn(List.of(new GeoHit(4L, 0.5), new GeoHit(2L, 3.2)));
+        when(petRepository.findRows(any(), any(), anyInt()))
+                .thenReturn(List.of(row(2L, "Luna"), row(4L, "Rex")));
+
+        List<PetNearbyDTO> result = petService.findNearby(-23.55, -46.63, 10.0, 2, null, null, null);
+
+        assertEquals(List.of(4L, 2L), result.stream().map(nearby -> nearby.pet().id()).toList());
+        verify(petFilterIndex, never()).match(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("findNearby should rank bounding-box rows from SQL while the index is loading")
+    void findNearby_shouldFallBackToBoundingBox() {
+        when(petGeoIndex.isReady()).thenReturn(false);
+        when(petRepository.findGeoRows(any())).thenReturn(List.of(
+                new PetGeoRow(1L, -23.70, -46.63),
+                new PetGeoRow(2L, -23.56, -46.63),
+                new PetGeoRow(3L, -23.55, -46.86)));
+        when(petRepository.findRows(any(), any(), anyInt()))
+                .thenReturn(List.of(row(1L, "Far"), row(2L, "Near")));
+
+        List<PetNearbyDTO> result = petService.findNearby(-23.55, -46.63, 20.0, 2, null, null, null);
+
+        assertEquals(List.of("Near", "Far"), result.stream().map(nearby -> nearby.pet().nickname()).toList());
+    }
+
+    @Test
+    @DisplayName("findNearby should reject missing coordinates and radius out of range")
+    void findNearby_shouldValidateArguments() {
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.findNearby(null, -46.63, null, null, null, null, null)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.findNearby(-91.0, -46.63, null, null, null, null, null)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.findNearby(-23.55, -46.63, 501.0, null, null, null, null)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.findNearby(-23.55, -46.63, 0.0, null, null, null, null)).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("registerNewPet should reject a latitude without a longitude")
+    void registerNewPet_shouldRejectHalfCoordinate() {
+        RegisterPetDTO dto = new RegisterPetDTO("Rex", MALE, "Friendly dog", DOG, MEDIUM, -23.55, null);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPet(dto, List.of(), mockUser));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(petRepository, never()).save(any(Pet.class));
     }
 
     // ==================== findAllByAdoptedFalse() TESTS ====================
 
     @Test
-    @DisplayName("findAllByAdoptedFalse should return list of available pets")
+    @DisplayName("findAllByAdoptedFalse should return a page of available pets")
     void findAllByAdoptedFalse_shouldReturnListOfAvailablePets() {
-        List<Pet> mockPets = List.of(mockPet, mockPet);
-        when(petRepository.findAllByAdoptedFalse()).thenReturn(mockPets);
+        List<PetRow> rows = List.of(row(1L, "Rex"), row(2L, "Luna"));
+        when(petRepository.findRows(any(), any(), anyInt())).thenReturn(rows);
 
-        List<PetResponseDTO> result = petService.findAllByAdoptedFalse();
+        PetPageDTO result = petService.findAllByAdoptedFalse(null, null, null);
 
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(petRepository, times(1)).findAllByAdoptedFalse();
+        assertEquals(2, result.content().size());
+        assertNull(result.next());
+        verify(petRepository, times(1)).findRows(any(), any(), anyInt());
     }
 
     @Test
-    @DisplayName("findAllByAdoptedFalse should return empty list when no pets available")
+    @DisplayName("findAllByAdoptedFalse should return empty page when no pets available")
     void findAllByAdoptedFalse_shouldReturnEmptyList_whenNoPetsAvailable() {
-        when(petRepository.findAllByAdoptedFalse()).thenReturn(List.of());
+        when(petRepository.findRows(any(), any(), anyInt())).thenReturn(List.of());
 
-        List<PetResponseDTO> result = petService.findAllByAdoptedFalse();
+        PetPageDTO result = petService.findAllByAdoptedFalse(null, null, null);
 
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(petRepository, times(1)).findAllByAdoptedFalse();
+        assertTrue(result.content().isEmpty());
+        assertNull(result.next());
+    }
+
+    @Test
+    @DisplayName("findAllByAdoptedFalse should trim the probe row and return a cursor to the last pet")
+    void findAllByAdoptedFalse_shouldReturnNextCursor_whenMoreRowsExist() {
+        List<PetRow> rows = List.of(row(30L, "Rex"), row(20L, "Luna"), row(10L, "Thor"));
+        when(petRepository.findRows(any(), any(), anyInt())).thenReturn(rows);
+
+        PetPageDTO first = petService.findAllByAdoptedFalse(null, 2, PetSort.NEWEST);
+
+        assertEquals(2, first.content().size());
+        assertEquals(20L, first.content().get(1).id());
+        assertNotNull(first.next());
+
+        when(petRepository.findRows(any(), any(), anyInt())).thenReturn(List.of(row(10L, "Thor")));
+
+        PetPageDTO second = petService.findAllByAdoptedFalse(first.next(), 2, PetSort.NEWEST);
+
+        assertEquals(1, second.content().size());
+        assertNull(second.next());
+    }
+
+    @Test
+    @DisplayName("findAllByAdoptedFalse should throw BAD_REQUEST for malformed cursor")
+    void findAllByAdoptedFalse_shouldThrowBadRequest_forMalformedCursor() {
+        ResponseStatusException exception = assertThrows(
+                ResponseStatusException.class,
+                () -> petService.findAllByAdoptedFalse("not a cursor!", null, null)
+        );
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(petRepository, never()).findRows(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("findAllByAdoptedFalse should throw BAD_REQUEST for non positive limit")
+    void findAllByAdoptedFalse_shouldThrowBadRequest_forNonPositiveLimit() {
+        ResponseStatusException exception = assertThrows(
+                ResponseStatusException.class,
+                () -> petService.findAllByAdoptedFalse(null, 0, null)
+        );
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("findByFilters should resolve ids from the filter index and fetch only the page")
+    void findByFilters_shouldUseFilterIndex_whenReady() {
+        when(petFilterIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.page(DOG, null, null, false, null, PetSort.NEWEST, 3))
+                .thenReturn(List.of(30L, 20L, 10L));
+        when(petRepository.findRows(any(), any(), eq(2)))
+                .thenReturn(List.of(row(30L, "Rex"), row(20L, "Luna")));
+
+        PetPageDTO result = petService.findByFilters(DOG, null, null, null, 2, null);
+
+        assertEquals(2, result.content().size());
+        assertNotNull(result.next());
+        verify(petRepository, times(1)).findRows(any(), any(), eq(2));
+    }
+
+    @Test
+    @DisplayName("findAllByAdoptedFalse should not query the database when the index has no match")
+    void findAllByAdoptedFalse_shouldSkipDatabase_whenIndexHasNoMatch() {
+        when(petFilterIndex.isReady()).thenReturn(true);
+        when(petFilterIndex.page(null, null, null, true, null, PetSort.NEWEST, PetService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of());
+
+        PetPageDTO result = petService.findAllByAdoptedFalse(null, null, null);
+
+        assertTrue(result.content().isEmpty());
+        assertNull(result.next());
+        verifyNoInteractions(petRepository);
     }
 
     // ==================== save() TESTS ====================
@@ -233,6 +598,7 @@ class PetServiceUnitTests {
         assertNotNull(result);
         assertEquals("Rex", result.getNickname());
         verify(petRepository, times(1)).save(mockPet);
+        verify(eventPublisher).publishEvent(PetChangedEvent.saved(mockPet));
     }
 
 
@@ -295,7 +661,7 @@ class PetServiceUnitTests {
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
         assertTrue(exception.getReason().contains("At least one image is required"));
         verify(petRepository, never()).save(any());
-        verify(supabaseStorageService, never()).uploadFile(anyString(), any());
+        verify(petImageStore, never()).store(any());
     }
 
     @Test
@@ -313,7 +679,7 @@ class PetServiceUnitTests {
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
         assertTrue(exception.getReason().contains("At least one image is required"));
         verify(petRepository, never()).save(any());
-        verify(supabaseStorageService, never()).uploadFile(anyString(), any());
+        verify(petImageStore, never()).store(any());
     }
 
     @Test
@@ -323,22 +689,20 @@ class PetServiceUnitTests {
                 "image1",
                 "dog1.jpg",
                 "image/jpeg",
-                "image content 1".getBytes()
+                TestImages.jpeg(800, 600, "image content 1")
         );
         MockMultipartFile image2 = new MockMultipartFile(
                 "image2",
                 "dog2.png",
                 "image/png",
-                "image content 2".getBytes()
+                TestImages.png(800, 600, "image content 2")
         );
         List<MultipartFile> images = List.of(image1, image2);
 
         when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
                 any(), anyString(), any(), any(), anyString(), any()
         )).thenReturn(false);
-        when(supabaseStorageService.uploadFile(eq("pet-images"), any(MultipartFile.class)))
-                .thenReturn("url1.jpg")
-                .thenReturn("url2.png");
+        when(petImageStore.store(anyList())).thenReturn(List.of("url1.jpg", "url2.png"));
         when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> {
             Pet pet = invocation.getArgument(0);
             pet.setId(1L);
@@ -349,7 +713,7 @@ class PetServiceUnitTests {
 
         assertNotNull(result);
         assertEquals(2, result.imageUrls().size());
-        verify(supabaseStorageService, times(2)).uploadFile(eq("pet-images"), any(MultipartFile.class));
+        verify(petImageStore).store(argThat(hashed -> hashed.size() == 2));
         verify(petRepository, times(1)).save(any(Pet.class));
     }
 
@@ -444,6 +808,109 @@ class PetServiceUnitTests {
         assertTrue(exception.getReason().contains("Invalid file type"));
     }
 
+    @Test
+    @DisplayName("registerNewPet should throw BAD_REQUEST when the bytes are not the declared image type")
+    void registerNewPet_shouldThrowBadRequest_whenContentIsNotDeclaredImage() {
+        MockMultipartFile renamedPdf = new MockMultipartFile("image", "dog.jpg", "image/jpeg", "%PDF-1.7".getBytes());
+        MockMultipartFile pngAsJpeg = new MockMultipartFile("image", "cat.jpg", "image/jpeg",
+                TestImages.png(800, 600, "image content"));
+
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+
+        for (MockMultipartFile image : List.of(renamedPdf, pngAsJpeg)) {
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> petService.registerNewPet(registerPetDTO, List.of(image), mockUser));
+
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+            assertTrue(exception.getReason().contains("Invalid file type: " + image.getOriginalFilename()));
+        }
+        verify(petImageStore, never()).store(any());
+    }
+
+    @Test
+    @DisplayName("registerNewPet should throw BAD_REQUEST when the image header declares too many pixels")
+    void registerNewPet_shouldThrowBadRequest_whenImageHasTooManyPixels() {
+        MockMultipartFile bomb = new MockMultipartFile("image", "bomb.png", "image/png",
+                TestImages.png(30_000, 30_000, "tiny"));
+
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPet(registerPetDTO, List.of(bomb), mockUser));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertTrue(exception.getReason().contains("too many pixels"));
+        verify(petImageStore, never()).store(any());
+    }
+
+    @Test
+    @DisplayName("registerNewPet should throw CONFLICT when an image looks like one already in the catalogue")
+    void registerNewPet_shouldThrowConflict_whenImageIsNearDuplicate() {
+        byte[] photo = TestImages.encode(TestImages.photo(800, 600, 1), "png");
+        MockMultipartFile image = new MockMultipartFile("image", "dog.png", "image/png", photo);
+        long perceptualHash = PerceptualHash.of(TestImages.photo(800, 600, 1));
+
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+        when(nearDuplicateIndex.rejects(anyString(), longThat(hash -> PerceptualHash.distance(hash, perceptualHash) <= 4), eq("dog.png")))
+                .thenReturn(true);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPet(registerPetDTO, List.of(image), mockUser));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertTrue(exception.getReason().contains("looks like one already in the catalogue"));
+        verify(petImageStore, never()).store(any());
+    }
+
+    @Test
+    @DisplayName("registerNewPet should share an image whose exact bytes are stored, but reject a re-encoded copy")
+    void registerNewPet_shouldReuseExactImage_withRealNearDuplicateIndex() throws IOException {
+        byte[] photo = TestImages.encode(TestImages.photo(800, 600, 1), "png");
+        MockMultipartFile same = new MockMultipartFile("image", "dog.png", "image/png", photo);
+        MockMultipartFile reencoded = new MockMultipartFile("image", "dog.jpg", "image/jpeg",
+                TestImages.encode(TestImages.photo(800, 600, 1), "jpg"));
+        NearDuplicateIndex index = new NearDuplicateIndex(mock(PetImageRepository.class), new SimpleMeterRegistry(), 6, true);
+        index.put(PetImageStore.contentHash(same), PerceptualHash.of(TestImages.photo(800, 600, 1)));
+        ReflectionTestUtils.setField(petService, "nearDuplicateIndex", index);
+
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+        when(petImageStore.store(anyList())).thenReturn(List.of("url1.png"));
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        petService.registerNewPet(registerPetDTO, List.of(same), mockUser);
+        verify(petImageStore).store(anyList());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPet(registerPetDTO, List.of(reencoded), mockUser));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("registerNewPet should store the perceptual hash of images that pass the near duplicate check")
+    void registerNewPet_shouldStorePerceptualHash() throws IOException {
+        MockMultipartFile image = new MockMultipartFile("image", "dog.png", "image/png",
+                TestImages.encode(TestImages.photo(800, 600, 1), "png"));
+
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+        when(petImageStore.store(anyList())).thenReturn(List.of("url1.png"));
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        petService.registerNewPet(registerPetDTO, List.of(image), mockUser);
+
+        verify(nearDuplicateIndex).rejects(anyString(), anyLong(), eq("dog.png"));
+        verify(petImageStore).store(argThat((List<HashedImage> hashed) -> hashed.get(0).perceptualHash() != null));
+    }
+
     @Test
     @DisplayName("registerNewPet should propagate upload error and not save pet")
     void registerNewPet_shouldPropagateUploadError_whenStorageFails() {
@@ -451,14 +918,13 @@ class PetServiceUnitTests {
                 "image",
                 "dog.jpg",
                 "image/jpeg",
-                "image content".getBytes()
+                TestImages.jpeg(800, 600, "image content")
         );
 
         when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
                 any(), anyString(), any(), any(), anyString(), any()
         )).thenReturn(false);
-        when(supabaseStorageService.uploadFile(eq("pet-images"), any(MultipartFile.class)))
-                .thenThrow(new RuntimeException("storage error"));
+        when(petImageStore.store(anyList())).thenThrow(new RuntimeException("storage error"));
 
         RuntimeException exception = assertThrows(
                 RuntimeException.class,
@@ -469,10 +935,27 @@ class PetServiceUnitTests {
         verify(petRepository, never()).save(any(Pet.class));
     }
 
+    @Test
+    @DisplayName("registerNewPet should release stored images when the pet cannot be saved")
+    void registerNewPet_shouldReleaseImages_whenSaveFails() {
+        MockMultipartFile image = new MockMultipartFile("image", "dog.jpg", "image/jpeg", TestImages.jpeg(800, 600, "image content"));
+
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+        when(petImageStore.store(anyList())).thenReturn(List.of("url1.jpg"));
+        when(petRepository.save(any(Pet.class))).thenThrow(new RuntimeException("db error"));
+
+        assertThrows(RuntimeException.class,
+                () -> petService.registerNewPet(registerPetDTO, List.of(image), mockUser));
+
+        verify(petImageStore).release(List.of("url1.jpg"));
+    }
+
     @Test
     @DisplayName("registerNewPet should throw BAD_REQUEST when duplicate images detected")
     void registerNewPet_shouldThrowBadRequest_whenDuplicateImagesDetected() {
-        byte[] sameContent = "identical image content".getBytes();
+        byte[] sameContent = TestImages.jpeg(800, 600, "identical image content");
         MockMultipartFile image1 = new MockMultipartFile(
                 "image1",
                 "dog1.jpg",
@@ -497,6 +980,7 @@ class PetServiceUnitTests {
 
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
         assertTrue(exception.getReason().contains("duplicate file detected"));
+        verify(petImageStore, never()).store(any());
     }
 
     @Test
@@ -512,8 +996,7 @@ class PetServiceUnitTests {
         when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
                 any(), anyString(), any(), any(), anyString(), any()
         )).thenReturn(false);
-        when(supabaseStorageService.uploadFile(anyString(), any(MultipartFile.class)))
-                .thenReturn("url1.jpg", "url2.png", "url3.jpg", "url4.gif");
+        when(petImageStore.store(anyList())).thenReturn(List.of("url1.jpg", "url2.png", "url3.jpg", "url4.gif"));
         when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> {
             Pet pet = invocation.getArgument(0);
             pet.setId(1L);
@@ -524,7 +1007,254 @@ class PetServiceUnitTests {
 
         assertNotNull(result);
         assertEquals(4, result.imageUrls().size());
-        verify(supabaseStorageService, times(4)).uploadFile(eq("pet-images"), any(MultipartFile.class));
+        verify(petImageStore).store(argThat(hashed -> hashed.size() == 4));
+    }
+
+    @Test
+    @DisplayName("registerNewPet should hash images from their stream without loading them whole")
+    void registerNewPet_shouldHashImagesFromStream() throws IOException {
+        MockMultipartFile image = spy(new MockMultipartFile("image", "dog.jpg", "image/jpeg", TestImages.jpeg(800, 600, "image content")));
+
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+        when(petImageStore.store(anyList())).thenReturn(List.of("url1.jpg"));
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        petService.registerNewPet(registerPetDTO, List.of(image), mockUser);
+
+        verify(image, atLeastOnce()).getInputStream();
+        verify(image, never()).getBytes();
+    }
+
+    //createUploads() and registerNewPetFromUploads() tests
+
+    private static final String UPLOAD_KEY_1 = "uploads/1/0f8fad5b-d9cb-469f-a165-70867728950e.jpg";
+    private static final String UPLOAD_KEY_2 = "uploads/1/7c9e6679-7425-40de-944b-e07fc1f90ae7.png";
+
+    @Test
+    @DisplayName("createUploads should sign one key per image under the user prefix")
+    void createUploads_shouldSignKeysUnderUserPrefix() {
+        when(petImageStore.signUpload(anyString())).thenAnswer(invocation ->
+                new SignedUpload("https://storage.test/" + invocation.getArgument(0), Instant.parse("2026-01-01T00:00:00Z")));
+
+        List<UploadTargetDTO> targets = petService.createUploads(List.of("image/jpeg", "image/png"), mockUser);
+
+        assertEquals(2, targets.size());
+        assertTrue(targets.get(0).key().matches("uploads/1/[0-9a-f-]{36}\\.jpg"));
+        assertTrue(targets.get(1).key().matches("uploads/1/[0-9a-f-]{36}\\.png"));
+        assertEquals("https://storage.test/" + targets.get(0).key(), targets.get(0).uploadUrl());
+        assertEquals("PUT", targets.get(0).method());
+    }
+
+    @Test
+    @DisplayName("createUploads should reject content types that are not images")
+    void createUploads_shouldRejectInvalidContentType() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.createUploads(List.of("application/pdf"), mockUser));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(petImageStore, never()).signUpload(anyString());
+    }
+
+    @Test
+    @DisplayName("registerNewPetFromUploads should save the pet with the public urls of its uploads")
+    void registerNewPetFromUploads_shouldSavePet() {
+        when(petRepository.existsByUserAndNicknameAndSizeAndSpecieAndDescriptionAndSex(
+                any(), anyString(), any(), any(), anyString(), any()
+        )).thenReturn(false);
+        when(petImageStore.stat(UPLOAD_KEY_1)).thenReturn(Optional.of(new StoredObject(1000, "image/jpeg")));
+        when(petImageStore.stat(UPLOAD_KEY_2)).thenReturn(Optional.of(new StoredObject(2000, "image/png")));
+        when(petImageStore.sniff(UPLOAD_KEY_1)).thenReturn(Optional.of(new ImageHeader("image/jpeg", 800, 600)));
+        when(petImageStore.sniff(UPLOAD_KEY_2)).thenReturn(Optional.of(new ImageHeader("image/png", 800, 600)));
+        when(petImageStore.publicUrl(anyString())).thenAnswer(invocation -> "https://cdn/" + invocation.getArgument(0));
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PetResponseDTO result = petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1, UPLOAD_KEY_2), mockUser);
+
+        assertEquals(List.of("https://cdn/" + UPLOAD_KEY_1, "https://cdn/" + UPLOAD_KEY_2), result.imageUrls());
+        verify(petImageStore).claim(Map.of("https://cdn/" + UPLOAD_KEY_1, new StoredObject(1000, "image/jpeg"),
+                "https://cdn/" + UPLOAD_KEY_2, new StoredObject(2000, "image/png")));
+        verify(petImageStore, never()).store(any());
+        verify(eventPublisher).publishEvent(any(PetChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("registerNewPetFromUploads should refuse uploads of another user")
+    void registerNewPetFromUploads_shouldRefuseOtherUsersUploads() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO,
+                        List.of(UPLOAD_KEY_1.replace("uploads/1/", "uploads/2/")), mockUser));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verify(petRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("registerNewPetFromUploads should reject keys it did not hand out")
+    void registerNewPetFromUploads_shouldRejectUnknownKeyFormat() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of("uploads/1/../../secret.jpg"), mockUser));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(petImageStore, never()).stat(anyString());
+    }
+
+    @Test
+    @DisplayName("registerNewPetFromUploads should reject uploads that are missing, too big or not images")
+    void registerNewPetFromUploads_shouldCheckStoredObjects() {
+        when(petImageStore.stat(UPLOAD_KEY_1)).thenReturn(Optional.empty());
+        assertEquals("Upload not found: " + UPLOAD_KEY_1, assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser)).getReason());
+
+        when(petImageStore.stat(UPLOAD_KEY_1)).thenReturn(Optional.of(new StoredObject(11 * 1024 * 1024, "image/jpeg")));
+        assertTrue(assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser))
+                .getReason().contains("too big"));
+
+        when(petImageStore.stat(UPLOAD_KEY_1)).thenReturn(Optional.of(new StoredObject(1000, "text/html")));
+        assertTrue(assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser))
+                .getReason().contains("Invalid file type"));
+
+        verify(petRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("registerNewPetFromUploads should reject uploads whose bytes are not the declared image")
+    void registerNewPetFromUploads_shouldSniffStoredObjects() {
+        when(petImageStore.stat(UPLOAD_KEY_1)).thenReturn(Optional.of(new StoredObject(1000, "image/jpeg")));
+
+        when(petImageStore.sniff(UPLOAD_KEY_1)).thenReturn(Optional.empty());
+        assertTrue(assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser))
+                .getReason().contains("Invalid file type"));
+
+        when(petImageStore.sniff(UPLOAD_KEY_1)).thenReturn(Optional.of(new ImageHeader("image/png", 800, 600)));
+        assertTrue(assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser))
+                .getReason().contains("Invalid file type"));
+
+        when(petImageStore.sniff(UPLOAD_KEY_1)).thenReturn(Optional.of(new ImageHeader("image/jpeg", 20_000, 20_000)));
+        assertTrue(assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser))
+                .getReason().contains("too many pixels"));
+
+        verify(petImageStore, never()).publicUrl(anyString());
+        verify(petRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("registerNewPetFromUploads should refuse uploads already used by a pet")
+    void registerNewPetFromUploads_shouldRefuseUsedUploads() {
+        when(petImageStore.stat(UPLOAD_KEY_1)).thenReturn(Optional.of(new StoredObject(1000, "image/jpeg")));
+        when(petImageStore.sniff(UPLOAD_KEY_1)).thenReturn(Optional.of(new ImageHeader("image/jpeg", 800, 600)));
+        when(petImageStore.publicUrl(UPLOAD_KEY_1)).thenReturn("https://cdn/" + UPLOAD_KEY_1);
+        when(petRepository.existsByImageUrlIn(List.of("https://cdn/" + UPLOAD_KEY_1))).thenReturn(true);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(petRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("registerNewPetFromUploads should refuse an upload claimed concurrently by another registration")
+    void registerNewPetFromUploads_shouldRefuseConcurrentlyClaimedUploads() {
+        when(petImageStore.stat(UPLOAD_KEY_1)).thenReturn(Optional.of(new StoredObject(1000, "image/jpeg")));
+        when(petImageStore.sniff(UPLOAD_KEY_1)).thenReturn(Optional.of(new ImageHeader("image/jpeg", 800, 600)));
+        when(petImageStore.publicUrl(UPLOAD_KEY_1)).thenReturn("https://cdn/" + UPLOAD_KEY_1);
+        doThrow(new DataIntegrityViolationException("duplicate url")).when(petImageStore).claim(anyMap());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.registerNewPetFromUploads(registerPetDTO, List.of(UPLOAD_KEY_1), mockUser));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(petRepository, never()).save(any());
+    }
+
+    //resumable upload tests
+
+    @Test
+    @DisplayName("createResumableUpload should open a session under the user prefix")
+    void createResumableUpload_shouldOpenSession() {
+        UploadSession session = uploadSession(1L, 1000, 0);
+        when(resumableUploadStore.getTtl()).thenReturn(Duration.ofHours(24));
+        when(resumableUploadStore.create(eq(1L), argThat(key -> key.matches("uploads/1/[0-9a-f-]{36}\\.png")),
+                eq("image/png"), eq(1000L), eq(8))).thenReturn(session);
+
+        ResumableUploadDTO upload = petService.createResumableUpload("image/png", 1000, mockUser);
+
+        assertEquals("session-1", upload.id());
+        assertEquals(0, upload.offset());
+        assertEquals(1000, upload.length());
+    }
+
+    @Test
+    @DisplayName("createResumableUpload should reject invalid types, empty images and images over the size limit")
+    void createResumableUpload_shouldValidateTypeAndLength() {
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.createResumableUpload("application/pdf", 1000, mockUser)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.createResumableUpload("image/png", 0, mockUser)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.createResumableUpload("image/png", -1, mockUser)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> petService.createResumableUpload("image/png", 11 * 1024 * 1024, mockUser)).getStatusCode());
+
+        verify(resumableUploadStore, never()).create(anyLong(), anyString(), anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("appendResumableUpload should refuse sessions of another user")
+    void appendResumableUpload_shouldRefuseOtherUsersSession() throws IOException {
+        UploadSession session = uploadSession(2L, 1000, 0);
+        when(resumableUploadStore.find("session-1")).thenReturn(Optional.of(session));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.appendResumableUpload("session-1", 0, InputStream.nullInputStream(), mockUser));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verify(resumableUploadStore, never()).append(any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("findResumableUpload should answer NOT_FOUND for unknown or expired sessions")
+    void findResumableUpload_shouldThrowNotFound() {
+        when(resumableUploadStore.find("gone")).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> petService.findResumableUpload("gone", mockUser)).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("completeResumableUpload should store an upload whose bytes match the declared image")
+    void completeResumableUpload_shouldStoreCheckedImage() {
+        UploadSession session = uploadSession(1L, 1000, 1000);
+        when(resumableUploadStore.find("session-1")).thenReturn(Optional.of(session));
+        when(resumableUploadStore.getTtl()).thenReturn(Duration.ofHours(24));
+        when(resumableUploadStore.sniff(session)).thenReturn(Optional.of(new ImageHeader("image/png", 800, 600)));
+
+        ResumableUploadDTO upload = petService.completeResumableUpload("session-1", mockUser);
+
+        assertEquals(session.getKey(), upload.key());
+        verify(resumableUploadStore).complete(session);
+    }
+
+    @Test
+    @DisplayName("completeResumableUpload should drop an upload that is not the declared image")
+    void completeResumableUpload_shouldDropFakeImage() {
+        UploadSession session = uploadSession(1L, 1000, 1000);
+        when(resumableUploadStore.find("session-1")).thenReturn(Optional.of(session));
+        when(resumableUploadStore.sniff(session)).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> petService.completeResumableUpload("session-1", mockUser));
+
+        assertTrue(exception.getReason().contains("Invalid file type"));
+        verify(resumableUploadStore).abort(session);
+        verify(resumableUploadStore, never()).complete(any());
     }
 
     //findByFilters() method tests
@@ -537,54 +1267,65 @@ class PetServiceUnitTests {
         Sex sex = MALE;
         Size size = BIG;
 
-        List<Pet> filteredPets = List.of(
-                createPet("Rex",  BIG, DOG, MALE),
-                createPet("Thor", BIG, DOG, MALE)
+        List<PetRow> filteredPets = List.of(
+                row(1L, "Rex"),
+                row(2L, "Thor")
         );
 
-        when(petRepository.findByFilters(specie, sex, size))
+        when(petRepository.findRows(any(), any(), anyInt()))
                 .thenReturn(filteredPets);
 
-        List<PetResponseDTO> result = petService.findByFilters(specie, sex, size);
+        PetPageDTO result = petService.findByFilters(specie, sex, size, null, null, null);
 
         assertAll(
                 () -> assertNotNull(result),
-                () -> assertEquals(2, result.size()),
-                () -> assertEquals("Rex", result.get(0).nickname()),
-                () -> assertEquals("Thor", result.get(1).nickname())
+                () -> assertEquals(2, result.content().size()),
+                () -> assertEquals("Rex", result.content().get(0).nickname()),
+                () -> assertEquals("Thor", result.content().get(1).nickname())
         );
 
-        verify(petRepository).findByFilters(specie, sex, size);
+        verify(petRepository).findRows(any(), any(), anyInt());
     }
 
     @Test
-    @DisplayName("findByFilters should return empty list when no pets match filters")
+    @DisplayName("findByFilters should return empty page when no pets match filters")
     void findByFilters_shouldReturnEmptyList_whenNoPetsMatch() {
-        Specie specie = DOG;
-        Sex sex = MALE;
-        Size size = BIG;
-
-        when(petRepository.findByFilters(specie, sex, size))
+        when(petRepository.findRows(any(), any(), anyInt()))
                 .thenReturn(List.of());
 
-        List<PetResponseDTO> result = petService.findByFilters(specie, sex, size);
+        PetPageDTO result = petService.findByFilters(DOG, MALE, BIG, null, null, null);
 
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(petRepository).findByFilters(specie, sex, size);
+        assertTrue(result.content().isEmpty());
+        verify(petRepository).findRows(any(), any(), anyInt());
     }
 
    //helper methods
 
+    private UploadSession uploadSession(long userId, long length, long offset) {
+        UploadSession session = mock(UploadSession.class);
+        lenient().when(session.getId()).thenReturn("session-1");
+        lenient().when(session.getUserId()).thenReturn(userId);
+        lenient().when(session.getKey()).thenReturn("uploads/" + userId + "/0f8fad5b-d9cb-469f-a165-70867728950e.png");
+        lenient().when(session.getContentType()).thenReturn("image/png");
+        lenient().when(session.getLength()).thenReturn(length);
+        lenient().when(session.getOffset()).thenReturn(offset);
+        return session;
+    }
+
     private MockMultipartFile createMockImage(String name, String contentType, int size) {
         return new MockMultipartFile(
                 name,
                 name,
                 contentType,
-                new byte[size]
+                TestImages.ofType(contentType, size)
         );
     }
 
+    private PetRow row(Long id, String nickname) {
+        return new PetRow(id, nickname, MALE, BIG, DOG, "Friendly", 1L, "User", "user@test.com", "11999999999");
+    }
+
     private Pet createPet(String nickname, Size size, Specie specie, Sex sex) {
         Pet pet = new Pet();
         pet.setNickname(nickname);
@@ -609,7 +1350,9 @@ class PetServiceUnitTests {
                 Sex.FEMALE,
                 "Updated desc",
                 Specie.CAT,
-                Size.SMALL
+                Size.SMALL,
+                null,
+                null
         );
 
         PetResponseDTO result = petService.updatePet(1L, dto, principal);
@@ -621,6 +1364,7 @@ class PetServiceUnitTests {
         assertEquals(Specie.CAT, mockPet.getSpecie());
         assertEquals(Size.SMALL, mockPet.getSize());
         verify(petRepository).save(mockPet);
+        verify(eventPublisher).publishEvent(PetChangedEvent.saved(mockPet));
     }
 
     @Test
@@ -639,7 +1383,9 @@ class PetServiceUnitTests {
                 Sex.FEMALE,
                 "Updated desc",
                 Specie.CAT,
-                Size.SMALL
+                Size.SMALL,
+                null,
+                null
         );
 
         ResponseStatusException exception = assertThrows(
@@ -661,7 +1407,9 @@ class PetServiceUnitTests {
                 Sex.FEMALE,
                 "Updated desc",
                 Specie.CAT,
-                Size.SMALL
+                Size.SMALL,
+                null,
+                null
         );
 
         ResponseStatusException exception = assertThrows(
@@ -684,6 +1432,20 @@ class PetServiceUnitTests {
         petService.deletePet(1L, principal);
 
         verify(petRepository).delete(mockPet);
+        verify(eventPublisher).publishEvent(PetChangedEvent.removed(mockPet));
+    }
+
+    @Test
+    @DisplayName("deletePet should release the references to the pet images")
+    void deletePet_shouldReleaseImageReferences() {
+        mockPet.setImageUrls(new ArrayList<>(List.of("url1.jpg", "url2.png")));
+        when(principal.getName()).thenReturn("user@test.com");
+        when(userService.findByEmail("user@test.com")).thenReturn(mockUser);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(mockPet));
+
+        petService.deletePet(1L, principal);
+
+        verify(petImageStore).release(List.of("url1.jpg", "url2.png"));
     }
 
     @Test
@@ -0,0 +1,266 @@
+package com.example.auth.PetTests;
+
+import com.example.auth.infra.storage.StorageService;
+import com.example.auth.pet.image.ImageHeader;
+import com.example.auth.pet.image.PetImageStore;
+import com.example.auth.pet.image.ResumableUploadStore;
+import com.example.auth.pet.image.UploadSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Resumable Upload Store Tests")
+class ResumableUploadStoreTests {
+
+    private static final String KEY = "uploads/1/0f8fad5b-d9cb-469f-a165-70867728950e.png";
+
+    @Mock
+    private StorageService storageService;
+    @TempDir
+    private Path directory;
+
+    private ResumableUploadStore store;
+    private final byte[] image = TestImages.ofType("image/png", 200_000);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new ResumableUploadStore(storageService, directory.toString(), Duration.ofHours(1), 100);
+    }
+
+    @Test
+    @DisplayName("constructor should clear session files left by a previous run and nothing else")
+    void constructor_shouldClearLeftovers() throws IOException {
+        Path stale = directory.resolve("0f8fad5b-d9cb-469f-a165-70867728950e");
+        Files.writeString(stale, "left over");
+        Files.writeString(directory.resolve("notes.txt"), "not ours");
+
+        new ResumableUploadStore(storageService, directory.toString(), Duration.ofHours(1), 100);
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(directory.resolve("notes.txt")));
+    }
+
+    @Test
+    @DisplayName("create should refuse a user over the session limit without touching other users' sessions")
+    void create_shouldLimitSessionsPerUser() {
+        UploadSession first = store.create(1L, KEY, "image/png", image.length, 2);
+        store.create(1L, KEY, "image/png", image.length, 2);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> store.create(1L, KEY, "image/png", image.length, 2));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertTrue(store.find(first.getId()).isPresent());
+        assertNotNull(store.create(2L, KEY, "image/png", image.length, 2));
+
+        store.abort(first);
+        assertNotNull(store.create(1L, KEY, "image/png", image.length, 2));
+    }
+
+    @Test
+    @DisplayName("append should write chunks at their offsets into one file")
+    void append_shouldAssembleChunks() throws IOException {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+
+        assertEquals(70_000, store.append(session, 0, chunk(0, 70_000)));
+        assertEquals(image.length, store.append(session, 70_000, chunk(70_000, image.length)));
+
+        assertArrayEquals(image, Files.readAllBytes(directory.resolve(session.getId())));
+        assertEquals(Optional.of(new ImageHeader("image/png", 800, 600)), store.sniff(session));
+    }
+
+    @Test
+    @DisplayName("append should keep the bytes received before the body broke off")
+    void append_shouldKeepProgress_whenBodyBreaksOff() throws IOException {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+        InputStream dropped = new InputStream() {
+            private final InputStream delegate = chunk(0, 100_000);
+
+            @Override
+            public int read() throws IOException {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = delegate.read(buffer, offset, length);
+                if (read == -1) throw new IOException("connection reset");
+                return read;
+            }
+        };
+
+        assertThrows(IOException.class, () -> store.append(session, 0, dropped));
+
+        assertEquals(100_000, session.getOffset());
+        assertEquals(image.length, store.append(session, 100_000, chunk(100_000, image.length)));
+        assertArrayEquals(image, Files.readAllBytes(directory.resolve(session.getId())));
+    }
+
+    @Test
+    @DisplayName("append should refuse a chunk that does not start at the current offset")
+    void append_shouldRejectWrongOffset() throws IOException {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+        store.append(session, 0, chunk(0, 1000));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> store.append(session, 500, chunk(500, 2000)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertEquals("upload is at offset 1000", exception.getReason());
+        assertEquals(1000, session.getOffset());
+    }
+
+    @Test
+    @DisplayName("append should stop at the declared length")
+    void append_shouldRejectBytesPastLength() throws IOException {
+        UploadSession session = store.create(1L, KEY, "image/png", 1000, 8);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> store.append(session, 0, chunk(0, 5000)));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+        assertTrue(Files.size(directory.resolve(session.getId())) <= 1000);
+    }
+
+    @Test
+    @DisplayName("append should turn away a second writer while a chunk is being written")
+    void append_shouldRejectConcurrentWriter() throws Exception {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slow = new InputStream() {
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                writing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return -1;
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> first = executor.submit(() -> store.append(session, 0, slow));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> store.append(session, 0, chunk(0, 10)));
+            assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+
+            release.countDown();
+            assertEquals(0L, first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("complete should send the file to storage under the session key and drop the session")
+    void complete_shouldForwardFileToStorage() throws Exception {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+        store.append(session, 0, chunk(0, image.length));
+        ArgumentCaptor<MultipartFile> file = ArgumentCaptor.forClass(MultipartFile.class);
+        when(storageService.uploadFileAsync(eq(PetImageStore.BUCKET), eq(KEY), file.capture())).thenAnswer(invocation -> {
+            MultipartFile sent = invocation.getArgument(2);
+            try (InputStream in = sent.getInputStream()) {
+                assertArrayEquals(image, in.readAllBytes());
+            }
+            return Mono.just("https://cdn/" + KEY);
+        });
+
+        store.complete(session);
+
+        assertEquals("image/png", file.getValue().getContentType());
+        assertEquals(image.length, file.getValue().getSize());
+        assertTrue(store.find(session.getId()).isEmpty());
+        awaitDeleted(directory.resolve(session.getId()));
+    }
+
+    @Test
+    @DisplayName("complete should refuse an upload with bytes still missing and keep it")
+    void complete_shouldRejectIncompleteUpload() throws IOException {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+        store.append(session, 0, chunk(0, 1000));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> store.complete(session));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertTrue(store.find(session.getId()).isPresent());
+        verifyNoInteractions(storageService);
+    }
+
+    @Test
+    @DisplayName("complete should keep the session when storage fails, so it can be retried")
+    void complete_shouldKeepSession_whenStorageFails() throws IOException {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+        store.append(session, 0, chunk(0, image.length));
+        when(storageService.uploadFileAsync(anyString(), anyString(), any()))
+                .thenReturn(Mono.error(new RuntimeException("storage error")));
+
+        assertThrows(RuntimeException.class, () -> store.complete(session));
+
+        assertTrue(store.find(session.getId()).isPresent());
+        assertTrue(Files.exists(directory.resolve(session.getId())));
+    }
+
+    @Test
+    @DisplayName("abort should drop the session and its file, and later writes should find nothing")
+    void abort_shouldDropSession() throws Exception {
+        UploadSession session = store.create(1L, KEY, "image/png", image.length, 8);
+        store.append(session, 0, chunk(0, 1000));
+
+        store.abort(session);
+
+        assertTrue(store.find(session.getId()).isEmpty());
+        awaitDeleted(directory.resolve(session.getId()));
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> store.append(session, 1000, chunk(1000, 2000))).getStatusCode());
+    }
+
+    private InputStream chunk(int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(image, from, to));
+    }
+
+    // removal listeners run on the cache executor
+    private static void awaitDeleted(Path file) throws InterruptedException {
+        for (int i = 0; i < 100 && Files.exists(file); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(Files.exists(file));
+    }
+}
@@ -1,27 +1,57 @@
 package com.example.auth.PetTests;
 
-import com.example.auth.pet.SupabaseStorageService;
+import com.example.auth.infra.storage.DeleteResult;
+import com.example.auth.infra.storage.ListedObject;
+import com.example.auth.infra.storage.ObjectPage;
+import com.example.auth.infra.storage.SignedUpload;
+import com.example.auth.infra.storage.StorageResilience;
+import com.example.auth.infra.storage.StoredObject;
+import com.example.auth.infra.storage.SupabaseStorageService;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import reactor.core.publisher.Mono;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 @DisplayName("Supabase Storage Service Tests")
 class SupabaseStorageServiceTests {
@@ -32,7 +62,11 @@ class SupabaseStorageServiceTests {
         SupabaseStorageService service = new SupabaseStorageService(
                 WebClient.builder(),
                 "http://localhost:1",
-                "test-key"
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
         );
 
         MockMultipartFile file = new MockMultipartFile(
@@ -45,13 +79,100 @@ class SupabaseStorageServiceTests {
         assertThrows(RuntimeException.class, () -> service.uploadFile("pet-images", file));
     }
 
+    @Test
+    @DisplayName("uploadFile should PUT the file and return its public url")
+    void uploadFile_shouldPutFileAndReturnPublicUrl() {
+        AtomicReference<ClientRequest> captured = new AtomicReference<>();
+        ExchangeFunction exchangeFunction = request -> {
+            captured.set(request);
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                meterRegistry,
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        MockMultipartFile file = new MockMultipartFile("file", "dog.jpg", "image/jpeg", "content".getBytes());
+        String url = service.uploadFile("pet-images", file);
+
+        assertEquals(HttpMethod.PUT, captured.get().method());
+        assertEquals("Bearer test-key", captured.get().headers().getFirst("Authorization"));
+        assertTrue(captured.get().url().toString().startsWith("https://supabase.test/storage/v1/object/pet-images/"));
+        assertTrue(url.startsWith("https://supabase.test/storage/v1/object/public/pet-images/"));
+        assertTrue(url.endsWith("-dog.jpg"));
+        assertEquals(1, meterRegistry.get("storage.upload").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("uploadFile should stream the file from its input stream with a known length")
+    void uploadFile_shouldStreamFileContent() throws IOException {
+        AtomicReference<String> body = new AtomicReference<>();
+        AtomicReference<Long> contentLength = new AtomicReference<>();
+        ExchangeFunction exchangeFunction = request -> {
+            MockClientHttpRequest sent = new MockClientHttpRequest(request.method(), request.url());
+            contentLength.set(request.headers().getContentLength());
+            return request.body().insert(sent, insertContext())
+                    .then(Mono.fromRunnable(() -> body.set(sent.getBodyAsString().block())))
+                    .thenReturn(ClientResponse.create(HttpStatus.CREATED).build());
+        };
+
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        String content = "x".repeat(40 * 1024);
+        MockMultipartFile file = spy(new MockMultipartFile("file", "dog.jpg", "image/jpeg", content.getBytes()));
+        service.uploadFile("pet-images", file);
+
+        assertEquals(content, body.get());
+        assertEquals(content.length(), contentLength.get());
+        verify(file, never()).getBytes();
+    }
+
+    @Test
+    @DisplayName("uploadFileAsync should fail and record the error when storage rejects the file")
+    void uploadFileAsync_shouldFail_whenStorageRejects() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SupabaseStorageService service = new SupabaseStorageService(
+                webClientBuilderReturning(HttpStatus.BAD_REQUEST),
+                "https://supabase.test",
+                "test-key",
+                meterRegistry,
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        MockMultipartFile file = new MockMultipartFile("file", "dog.jpg", "image/jpeg", "content".getBytes());
+
+        assertThrows(RuntimeException.class, () -> service.uploadFileAsync("pet-images", file).block());
+        assertEquals(1, meterRegistry.get("storage.upload").tag("outcome", "error").timer().count());
+    }
+
     @Test
     @DisplayName("deleteFile should ignore 404")
     void deleteFile_shouldIgnoreNotFound() {
         SupabaseStorageService service = new SupabaseStorageService(
                 webClientBuilderReturning(HttpStatus.NOT_FOUND),
                 "https://supabase.test",
-                "test-key"
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
         );
 
         assertDoesNotThrow(() -> service.deleteFile("pet-images", "missing.jpg"));
@@ -63,7 +184,11 @@ class SupabaseStorageServiceTests {
         SupabaseStorageService service = new SupabaseStorageService(
                 webClientBuilderReturning(HttpStatus.NO_CONTENT),
                 "https://supabase.test",
-                "test-key"
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
         );
 
         assertDoesNotThrow(() -> service.deleteFile("pet-images", "exists.jpg"));
@@ -75,20 +200,51 @@ class SupabaseStorageServiceTests {
         SupabaseStorageService service = new SupabaseStorageService(
                 webClientBuilderReturning(HttpStatus.INTERNAL_SERVER_ERROR),
                 "https://supabase.test",
-                "test-key"
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
         );
 
         assertThrows(WebClientResponseException.class,
                 () -> service.deleteFile("pet-images", "broken.jpg"));
     }
 
+    @Test
+    @DisplayName("deleteFile should retry when storage is briefly unavailable")
+    void deleteFile_shouldRetryTransientFailures() {
+        AtomicInteger calls = new AtomicInteger(0);
+        ExchangeFunction exchangeFunction = request -> Mono.just(ClientResponse.create(
+                calls.incrementAndGet() < 3 ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.NO_CONTENT).build());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                meterRegistry,
+                resilience(meterRegistry),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        assertDoesNotThrow(() -> service.deleteFile("pet-images", "a.jpg"));
+        assertEquals(3, calls.get());
+        assertEquals(2, meterRegistry.get("storage.retries").tag("operation", "delete").counter().count());
+        assertEquals(1, meterRegistry.get("storage.call").tag("operation", "delete").tag("outcome", "success").timer().count());
+    }
+
     @Test
     @DisplayName("deleteByPublicUrl should validate bucket prefix")
     void deleteByPublicUrl_shouldValidateBucketPrefix() {
         SupabaseStorageService service = new SupabaseStorageService(
                 webClientBuilderReturning(HttpStatus.NO_CONTENT),
                 "https://supabase.test",
-                "test-key"
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
         );
 
         assertThrows(IllegalArgumentException.class,
@@ -107,7 +263,11 @@ class SupabaseStorageServiceTests {
         SupabaseStorageService service = new SupabaseStorageService(
                 WebClient.builder().exchangeFunction(exchangeFunction),
                 "https://supabase.test",
-                "test-key"
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
         );
 
         service.deleteByPublicUrl("pet-images", "https://supabase.test/storage/v1/object/public/pet-images/folder name/file 1.jpg");
@@ -119,29 +279,312 @@ class SupabaseStorageServiceTests {
     }
 
     @Test
-    @DisplayName("deleteAllByPublicUrls should ignore failures and continue")
-    void deleteAllByPublicUrls_shouldIgnoreFailures() {
+    @DisplayName("deleteAllByPublicUrls should remove the objects in one batch call")
+    void deleteAllByPublicUrls_shouldRemoveInOneBatch() {
+        List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        ExchangeFunction exchangeFunction = request -> {
+            requests.add(request);
+            MockClientHttpRequest sent = new MockClientHttpRequest(request.method(), request.url());
+            return request.body().insert(sent, insertContext())
+                    .then(Mono.fromRunnable(() -> bodies.add(sent.getBodyAsString().block())))
+                    .thenReturn(ClientResponse.create(HttpStatus.OK).build());
+        };
+
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        List<DeleteResult> results = service.deleteAllByPublicUrls("pet-images", List.of(
+                "https://supabase.test/storage/v1/object/public/pet-images/a.jpg",
+                "https://supabase.test/storage/v1/object/public/pet-images/b.jpg"
+        )).block();
+
+        assertEquals(List.of(DeleteResult.deleted("a.jpg"), DeleteResult.deleted("b.jpg")), results);
+        assertEquals(1, requests.size());
+        assertEquals(HttpMethod.DELETE, requests.get(0).method());
+        assertEquals("https://supabase.test/storage/v1/object/pet-images", requests.get(0).url().toString());
+        assertEquals("{\"prefixes\":[\"a.jpg\",\"b.jpg\"]}", bodies.get(0));
+    }
+
+    @Test
+    @DisplayName("deleteAllByPublicUrls should report the objects of a failed batch and keep going")
+    void deleteAllByPublicUrls_shouldReportFailedBatch() {
         AtomicInteger calls = new AtomicInteger(0);
         ExchangeFunction exchangeFunction = request -> {
             int count = calls.incrementAndGet();
-            HttpStatus status = (count == 1) ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.NO_CONTENT;
+            // a rejection, not an outage, so the batch is not retried
+            HttpStatus status = (count == 1) ? HttpStatus.BAD_REQUEST : HttpStatus.OK;
             return Mono.just(ClientResponse.create(status).build());
         };
 
         SupabaseStorageService service = new SupabaseStorageService(
                 WebClient.builder().exchangeFunction(exchangeFunction),
                 "https://supabase.test",
-                "test-key"
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
         );
 
-        assertDoesNotThrow(() -> service.deleteAllByPublicUrls("pet-images", List.of(
-                "https://supabase.test/storage/v1/object/public/pet-images/a.jpg",
-                "https://supabase.test/storage/v1/object/public/pet-images/b.jpg"
-        )));
+        List<String> paths = IntStream.range(0, 150).mapToObj(i -> i + ".jpg").toList();
+        List<DeleteResult> results = service.deleteFilesAsync("pet-images", paths).block();
 
         assertEquals(2, calls.get());
+        assertEquals(150, results.size());
+        assertEquals(paths, results.stream().map(DeleteResult::filePath).toList());
+        assertEquals(100, results.stream().filter(result -> !result.deleted()).count());
+        assertFalse(results.get(0).deleted());
+        assertTrue(results.get(149).deleted());
+    }
+
+    @Test
+    @DisplayName("deleteAllByPublicUrls should report urls from another bucket without calling storage")
+    void deleteAllByPublicUrls_shouldRejectForeignUrls() {
+        AtomicInteger calls = new AtomicInteger(0);
+        ExchangeFunction exchangeFunction = request -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        };
+
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        List<DeleteResult> results = service.deleteAllByPublicUrls("pet-images",
+                List.of("https://other.test/other-bucket/a.jpg")).block();
+
+        assertEquals(0, calls.get());
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).deleted());
     }
 
+    @Test
+    @DisplayName("listObjects should page the bucket through list-v2")
+    void listObjects_shouldUseListV2() {
+        AtomicReference<String> body = new AtomicReference<>();
+        AtomicReference<ClientRequest> captured = new AtomicReference<>();
+        ExchangeFunction exchangeFunction = request -> {
+            captured.set(request);
+            MockClientHttpRequest sent = new MockClientHttpRequest(request.method(), request.url());
+            return request.body().insert(sent, insertContext())
+                    .then(Mono.fromRunnable(() -> body.set(sent.getBodyAsString().block())))
+                    .thenReturn(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .body("""
+                                    {"hasNext": true, "nextCursor": "next",
+                                     "objects": [{"name": "uploads/1/a.jpg", "created_at": "2024-01-01T00:00:00.000Z",
+                                                  "updated_at": "2024-01-02T00:00:00.000Z"}]}
+                                    """)
+                            .build());
+        };
+
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        ObjectPage page = service.listObjects("pet-images", "previous", 100);
+
+        assertEquals("https://supabase.test/storage/v1/object/list-v2/pet-images", captured.get().url().toString());
+        assertTrue(body.get().contains("\"cursor\":\"previous\""));
+        assertTrue(body.get().contains("\"with_delimiter\":false"));
+        assertEquals(new ObjectPage(List.of(new ListedObject("uploads/1/a.jpg", Instant.parse("2024-01-02T00:00:00Z"))),
+                "next"), page);
+    }
+
+    @Test
+    @DisplayName("openFile should point at the encoded public url of the object")
+    void openFile_shouldUsePublicUrl() throws IOException {
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder(),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        assertEquals("https://supabase.test/storage/v1/object/public/pet-images/folder%20name/a.jpg",
+                service.openFile("pet-images", "folder name/a.jpg").getURL().toString());
+    }
+
+    @Test
+    @DisplayName("openFile should retry opening the object while storage answers 5xx")
+    void openFile_shouldRetryTransientFailures() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = server(exchange -> {
+            byte[] body = "image-bytes".getBytes();
+            exchange.sendResponseHeaders(requests.incrementAndGet() < 3 ? 503 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try {
+            SupabaseStorageService service = service(server, meterRegistry);
+
+            try (InputStream in = service.openFile("pet-images", "a.jpg").getInputStream()) {
+                assertEquals("image-bytes", new String(in.readAllBytes()));
+            }
+            assertEquals(3, requests.get());
+            assertEquals(2, meterRegistry.get("storage.retries").tag("operation", "open").counter().count());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("openFile should report a missing object without retrying")
+    void openFile_shouldNotRetry_whenObjectIsMissing() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = server(exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        try {
+            SupabaseStorageService service = service(server, new SimpleMeterRegistry());
+
+            assertThrows(FileNotFoundException.class, () -> service.openFile("pet-images", "a.jpg").getInputStream());
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("stat should read size and content type from the object headers")
+    void stat_shouldReadObjectHeaders() {
+        ExchangeFunction exchangeFunction = request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_LENGTH, "1234")
+                .header(HttpHeaders.CONTENT_TYPE, "image/png")
+                .build());
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        assertEquals(Optional.of(new StoredObject(1234, "image/png")), service.stat("pet-images", "uploads/1/a.png"));
+    }
+
+    @Test
+    @DisplayName("stat should be empty when the object does not exist")
+    void stat_shouldBeEmpty_whenObjectIsMissing() {
+        SupabaseStorageService service = new SupabaseStorageService(
+                webClientBuilderReturning(HttpStatus.NOT_FOUND),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        assertEquals(Optional.empty(), service.stat("pet-images", "uploads/1/a.png"));
+    }
+
+    @Test
+    @DisplayName("createSignedUpload should return the signed url issued by storage")
+    void createSignedUpload_shouldReturnSignedUrl() {
+        AtomicReference<ClientRequest> captured = new AtomicReference<>();
+        ExchangeFunction exchangeFunction = request -> {
+            captured.set(request);
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .body("{\"url\": \"/object/upload/sign/pet-images/uploads/1/a.png?token=abc\"}")
+                    .build());
+        };
+        SupabaseStorageService service = new SupabaseStorageService(
+                WebClient.builder().exchangeFunction(exchangeFunction),
+                "https://supabase.test",
+                "test-key",
+                new SimpleMeterRegistry(),
+                resilience(),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+
+        SignedUpload upload = service.createSignedUpload("pet-images", "uploads/1/a.png");
+
+        assertEquals(HttpMethod.POST, captured.get().method());
+        assertEquals("https://supabase.test/storage/v1/object/upload/sign/pet-images/uploads/1/a.png",
+                captured.get().url().toString());
+        assertEquals("https://supabase.test/storage/v1/object/upload/sign/pet-images/uploads/1/a.png?token=abc", upload.url());
+        assertTrue(upload.expiresAt().isAfter(Instant.now()));
+    }
+
+    private BodyInserter.Context insertContext() {
+        return new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return ExchangeStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        };
+    }
+
+    private static HttpServer server(HttpHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", handler);
+        server.start();
+        return server;
+    }
+
+    private static SupabaseStorageService service(HttpServer server, SimpleMeterRegistry meterRegistry) {
+        return new SupabaseStorageService(
+                WebClient.builder(),
+                "http://localhost:" + server.getAddress().getPort(),
+                "test-key",
+                meterRegistry,
+                resilience(meterRegistry),
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30)
+        );
+    }
+
+    private static StorageResilience resilience() {
+        return resilience(new SimpleMeterRegistry());
+    }
+
+    // short backoffs keep the retrying tests fast
+    private static StorageResilience resilience(SimpleMeterRegistry meterRegistry) {
+        return new StorageResilience(meterRegistry, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(5),
+                3, Duration.ofMillis(1), Duration.ofMillis(5), 0.1, 20, Duration.ofMillis(50),
+                20, 10, 0.5, Duration.ofSeconds(30), 3);
+    }
 
     private WebClient.Builder webClientBuilderReturning(HttpStatus status) {
         ExchangeFunction exchangeFunction = request ->
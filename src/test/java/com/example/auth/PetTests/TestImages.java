@@ -0,0 +1,104 @@
+package com.example.auth.PetTests;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// Smallest byte sequences the image sniffer accepts: a real header with the given dimensions, followed by
+// filler that stands in for the pixel data. photo() and encode() build real, decodable images instead.
+public final class TestImages {
+
+    private TestImages() {
+    }
+
+    public static byte[] jpeg(int width, int height, String payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xD8});
+        // APP0 JFIF segment, which the sniffer has to skip
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00,
+                0x01, 0x01, 0x00, 0x00, 0x01, 0x00, 0x01, 0x00, 0x00});
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xC0, 0x00, 0x0B, 0x08,
+                (byte) (height >> 8), (byte) height, (byte) (width >> 8), (byte) width, 0x01, 0x01, 0x11, 0x00});
+        out.writeBytes(payload.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    public static byte[] png(int width, int height, String payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0x00, 0x00, 0x00, 0x0D,
+                'I', 'H', 'D', 'R'});
+        out.writeBytes(new byte[]{(byte) (width >> 24), (byte) (width >> 16), (byte) (width >> 8), (byte) width,
+                (byte) (height >> 24), (byte) (height >> 16), (byte) (height >> 8), (byte) height});
+        out.writeBytes(payload.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    public static byte[] gif(int width, int height, String payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("GIF89a".getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(new byte[]{(byte) width, (byte) (width >> 8), (byte) height, (byte) (height >> 8)});
+        out.writeBytes(payload.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    // an image of the declared content type, padded with zeros to exactly size bytes
+    public static byte[] ofType(String contentType, int size) {
+        byte[] header = switch (contentType) {
+            case "image/png" -> png(800, 600, "");
+            case "image/gif" -> gif(800, 600, "");
+            default -> jpeg(800, 600, "");
+        };
+        byte[] image = new byte[Math.max(size, header.length)];
+        System.arraycopy(header, 0, image, 0, header.length);
+        return image;
+    }
+
+    // random soft blobs on a gradient: enough structure for a perceptual hash, different for every seed
+    public static BufferedImage photo(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            for (int x = 0; x < width; x += 4) {
+                graphics.setColor(new Color(0, (x * 255) / width, 128));
+                graphics.fillRect(x, 0, 4, height);
+            }
+            for (int i = 0; i < 12; i++) {
+                graphics.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+                graphics.fillOval(random.nextInt(width), random.nextInt(height), width / 3, height / 3);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    public static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    public static byte[] encode(BufferedImage image, String format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, format, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.auth.SecurityTests;
+
+import com.example.auth.infra.security.UploadSizeFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Upload Size Filter Tests")
+class UploadSizeFilterTests {
+
+    @Mock
+    private HandlerExceptionResolver handlerExceptionResolver;
+    @Mock
+    private FilterChain filterChain;
+
+    private UploadSizeFilter uploadSizeFilter;
+
+    @BeforeEach
+    void setUp() {
+        uploadSizeFilter = new UploadSizeFilter(handlerExceptionResolver, DataSize.ofMegabytes(41));
+    }
+
+    @Test
+    @DisplayName("doFilterInternal should reject a multipart request announcing a body over the limit")
+    void doFilterInternal_shouldReject_whenContentLengthIsOverLimit() throws ServletException, IOException {
+        MockHttpServletRequest request = multipart(DataSize.ofMegabytes(200).toBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        uploadSizeFilter.doFilter(request, response, filterChain);
+
+        ArgumentCaptor<Exception> error = ArgumentCaptor.forClass(Exception.class);
+        verify(handlerExceptionResolver).resolveException(eq(request), eq(response), isNull(), error.capture());
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ((ResponseStatusException) error.getValue()).getStatusCode());
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("doFilterInternal should pass multipart requests within the limit and without a length")
+    void doFilterInternal_shouldPassThrough_whenWithinLimit() throws ServletException, IOException {
+        MockHttpServletRequest withinLimit = multipart(DataSize.ofMegabytes(41).toBytes());
+        MockHttpServletRequest chunked = multipart(-1);
+
+        uploadSizeFilter.doFilter(withinLimit, new MockHttpServletResponse(), filterChain);
+        uploadSizeFilter.doFilter(chunked, new MockHttpServletResponse(), filterChain);
+
+        verify(filterChain).doFilter(eq(withinLimit), any());
+        verify(filterChain).doFilter(eq(chunked), any());
+        verifyNoInteractions(handlerExceptionResolver);
+    }
+
+    @Test
+    @DisplayName("doFilterInternal should ignore requests that are not multipart")
+    void doFilterInternal_shouldIgnoreOtherContentTypes() throws ServletException, IOException {
+        MockHttpServletRequest request = withContentLength("/auth/login", DataSize.ofMegabytes(200).toBytes());
+        request.setContentType("application/json");
+
+        uploadSizeFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        verify(filterChain).doFilter(eq(request), any());
+        verifyNoInteractions(handlerExceptionResolver);
+    }
+
+    private MockHttpServletRequest multipart(long contentLength) {
+        MockHttpServletRequest request = withContentLength("/pets", contentLength);
+        request.setContentType("multipart/form-data; boundary=x");
+        return request;
+    }
+
+    // the mock derives its length from a body it holds in memory; announce one without allocating it
+    private MockHttpServletRequest withContentLength(String uri, long contentLength) {
+        return new MockHttpServletRequest("POST", uri) {
+            @Override
+            public long getContentLengthLong() {
+                return contentLength;
+            }
+        };
+    }
+}
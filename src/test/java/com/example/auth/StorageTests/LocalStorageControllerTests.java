@@ -0,0 +1,155 @@
+package com.example.auth.StorageTests;
+
+import com.example.auth.infra.security.SecurityConfigurations;
+import com.example.auth.infra.security.SecurityFilter;
+import com.example.auth.infra.security.TokenService;
+import com.example.auth.infra.storage.LocalStorageController;
+import com.example.auth.infra.storage.LocalStorageService;
+import com.example.auth.user.services.UserDetailsServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = LocalStorageController.class, properties = "storage.backend=local")
+@Import({SecurityConfigurations.class, SecurityFilter.class})
+@DisplayName("Local Storage Controller Tests")
+class LocalStorageControllerTests {
+
+    @TempDir
+    Path root;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LocalStorageService storageService;
+    @MockBean
+    private TokenService tokenService;
+    @MockBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    @DisplayName("GET /storage/{bucket}/{path} should serve the file without authentication")
+    void read_shouldServeFile() throws Exception {
+        Path file = Files.writeString(root.resolve("abc.jpg"), "0123456789");
+        when(storageService.openFile("pet-images", "abc.jpg")).thenReturn(new FileSystemResource(file));
+
+        mockMvc.perform(get("/storage/pet-images/abc.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @DisplayName("GET /storage/{bucket}/{path} should answer Range requests with 206")
+    void read_shouldServeRange() throws Exception {
+        Path file = Files.writeString(root.resolve("abc.jpg"), "0123456789");
+        when(storageService.openFile("pet-images", "abc.jpg")).thenReturn(new FileSystemResource(file));
+
+        mockMvc.perform(get("/storage/pet-images/abc.jpg").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    @DisplayName("GET /storage/{bucket}/{path} should hand whole files to sendfile when the connector supports it")
+    void read_shouldUseSendfile_whenSupported() throws Exception {
+        Path file = Files.writeString(root.resolve("abc.jpg"), "0123456789");
+        when(storageService.openFile("pet-images", "abc.jpg")).thenReturn(new FileSystemResource(file));
+
+        mockMvc.perform(get("/storage/pet-images/abc.jpg")
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toRealPath().toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 10L))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("PUT /storage/{bucket}/{path} should store the body when the signature is valid")
+    void upload_shouldStoreBody_whenSignatureIsValid() throws Exception {
+        when(storageService.isValidUploadSignature("pet-images", "uploads/1/abc.jpg", 123L, "sig")).thenReturn(true);
+
+        mockMvc.perform(put("/storage/pet-images/uploads/1/abc.jpg")
+                        .param("expires", "123")
+                        .param("signature", "sig")
+                        .contentType("image/jpeg")
+                        .content("content".getBytes()))
+                .andExpect(status().isCreated());
+
+        verify(storageService).write(eq("pet-images"), eq("uploads/1/abc.jpg"), any(InputStream.class), eq(10L * 1024 * 1024));
+    }
+
+    @Test
+    @DisplayName("PUT /storage/{bucket}/{path} should return 403 when the signature is invalid")
+    void upload_shouldReturnForbidden_whenSignatureIsInvalid() throws Exception {
+        when(storageService.isValidUploadSignature("pet-images", "uploads/1/abc.jpg", 123L, "bad")).thenReturn(false);
+
+        mockMvc.perform(put("/storage/pet-images/uploads/1/abc.jpg")
+                        .param("expires", "123")
+                        .param("signature", "bad")
+                        .content("content".getBytes()))
+                .andExpect(status().isForbidden());
+
+        verify(storageService, never()).write(anyString(), anyString(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("PUT /storage/{bucket}/{path} should return 413 when the body is over the limit")
+    void upload_shouldReturnPayloadTooLarge_whenBodyIsOverLimit() throws Exception {
+        when(storageService.isValidUploadSignature("pet-images", "uploads/1/abc.jpg", 123L, "sig")).thenReturn(true);
+
+        mockMvc.perform(put("/storage/pet-images/uploads/1/abc.jpg")
+                        .param("expires", "123")
+                        .param("signature", "sig")
+                        .content(new byte[10 * 1024 * 1024 + 1]))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(storageService, never()).write(anyString(), anyString(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("GET /storage/{bucket}/{path} should return 404 for missing files")
+    void read_shouldReturnNotFound_whenMissing() throws Exception {
+        when(storageService.openFile("pet-images", "missing.jpg"))
+                .thenReturn(new FileSystemResource(root.resolve("missing.jpg")));
+
+        mockMvc.perform(get("/storage/pet-images/missing.jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /storage/{bucket}/{path} should return 404 when the storage rejects the path")
+    void read_shouldReturnNotFound_whenPathIsInvalid() throws Exception {
+        when(storageService.openFile("pet-images", "nested/b.jpg"))
+                .thenThrow(new IllegalArgumentException("invalid object path"));
+
+        mockMvc.perform(get("/storage/pet-images/nested/b.jpg"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.auth.StorageTests;
+
+import com.example.auth.infra.storage.DeleteResult;
+import com.example.auth.infra.storage.ListedObject;
+import com.example.auth.infra.storage.LocalStorageService;
+import com.example.auth.infra.storage.ObjectPage;
+import com.example.auth.infra.storage.SignedUpload;
+import com.example.auth.infra.storage.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Local Storage Service Tests")
+class LocalStorageServiceTests {
+
+    @TempDir
+    Path root;
+
+    private LocalStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new LocalStorageService(root.toString(), "http://localhost:8080/storage/",
+                Duration.ofMinutes(10), "test-signing-key");
+    }
+
+    @Test
+    @DisplayName("uploadFileAsync should write the file under the bucket and return its public url")
+    void uploadFileAsync_shouldWriteFile() throws IOException {
+        byte[] content = "x".repeat(3 * 1024 * 1024 + 17).getBytes();
+        MockMultipartFile file = new MockMultipartFile("file", "dog.jpg", "image/jpeg", content);
+
+        String url = storageService.uploadFileAsync("pet-images", "abc.jpg", file).block();
+
+        assertEquals("http://localhost:8080/storage/pet-images/abc.jpg", url);
+        assertArrayEquals(content, Files.readAllBytes(root.resolve("pet-images/abc.jpg")));
+        try (var files = Files.list(root.resolve("pet-images"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("uploadFileAsync should replace an existing object")
+    void uploadFileAsync_shouldReplaceExistingObject() throws IOException {
+        storageService.uploadFileAsync("pet-images", "abc.jpg",
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "old content".getBytes())).block();
+        storageService.uploadFileAsync("pet-images", "abc.jpg",
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "new".getBytes())).block();
+
+        assertEquals("new", Files.readString(root.resolve("pet-images/abc.jpg")));
+    }
+
+    @Test
+    @DisplayName("openFile should read stored files and report missing ones")
+    void openFile_shouldReadStoredFiles() throws IOException {
+        storageService.uploadFileAsync("pet-images", "abc.jpg",
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "content".getBytes())).block();
+
+        Resource stored = storageService.openFile("pet-images", "abc.jpg");
+        assertTrue(stored.exists());
+        assertEquals("content", stored.getContentAsString(StandardCharsets.UTF_8));
+        assertFalse(storageService.openFile("pet-images", "missing.jpg").exists());
+    }
+
+    @Test
+    @DisplayName("deleteAllByPublicUrls should remove the files and ignore missing ones")
+    void deleteAllByPublicUrls_shouldRemoveFiles() {
+        storageService.uploadFileAsync("pet-images", "abc.jpg",
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "content".getBytes())).block();
+
+        List<DeleteResult> results = storageService.deleteAllByPublicUrls("pet-images", List.of(
+                "http://localhost:8080/storage/pet-images/abc.jpg",
+                "http://localhost:8080/storage/pet-images/missing.jpg"
+        )).block();
+
+        assertFalse(Files.exists(root.resolve("pet-images/abc.jpg")));
+        assertEquals(List.of(DeleteResult.deleted("abc.jpg"), DeleteResult.deleted("missing.jpg")), results);
+    }
+
+    @Test
+    @DisplayName("stat should report size and content type of stored files")
+    void stat_shouldReportStoredFiles() {
+        storageService.uploadFileAsync("pet-images", "uploads/1/abc.png",
+                new MockMultipartFile("file", "a.png", "image/png", "content".getBytes())).block();
+
+        assertEquals(Optional.of(new StoredObject(7, "image/png")), storageService.stat("pet-images", "uploads/1/abc.png"));
+        assertEquals(Optional.empty(), storageService.stat("pet-images", "uploads/1/missing.png"));
+    }
+
+    @Test
+    @DisplayName("createSignedUpload should sign the path until the url expires")
+    void createSignedUpload_shouldSignPath() {
+        SignedUpload upload = storageService.createSignedUpload("pet-images", "uploads/1/abc.jpg");
+        UriComponents uri = UriComponentsBuilder.fromUriString(upload.url()).build();
+        long expires = Long.parseLong(uri.getQueryParams().getFirst("expires"));
+        String signature = uri.getQueryParams().getFirst("signature");
+
+        assertEquals("/storage/pet-images/uploads/1/abc.jpg", uri.getPath());
+        assertEquals(expires, upload.expiresAt().getEpochSecond());
+        assertTrue(storageService.isValidUploadSignature("pet-images", "uploads/1/abc.jpg", expires, signature));
+        assertFalse(storageService.isValidUploadSignature("pet-images", "uploads/1/other.jpg", expires, signature));
+        assertFalse(storageService.isValidUploadSignature("pet-images", "uploads/1/abc.jpg", expires + 1, signature));
+        assertFalse(storageService.isValidUploadSignature("pet-images", "uploads/1/abc.jpg",
+                Instant.now().minusSeconds(1).getEpochSecond(), signature));
+    }
+
+    @Test
+    @DisplayName("write should refuse content over the limit and leave no file behind")
+    void write_shouldRefuseOversizedContent() {
+        assertThrows(LocalStorageService.ObjectTooLargeException.class, () -> storageService.write(
+                "pet-images", "big.jpg", new ByteArrayInputStream(new byte[2048]), 1024));
+
+        assertFalse(Files.exists(root.resolve("pet-images/big.jpg")));
+        assertEquals(Optional.empty(), storageService.stat("pet-images", "big.jpg"));
+    }
+
+    @Test
+    @DisplayName("paths should not escape the bucket directory")
+    void paths_shouldNotEscapeBucket() {
+        assertThrows(IllegalArgumentException.class, () -> storageService.openFile("pet-images", "../other/secret.txt"));
+        assertThrows(IllegalArgumentException.class, () -> storageService.openFile("..", "secret.txt"));
+        assertThrows(IllegalArgumentException.class, () -> storageService.deleteFile("pet-images", "../../etc/passwd"));
+    }
+
+    @Test
+    @DisplayName("listObjects should page through nested files in path order")
+    void listObjects_shouldPageInPathOrder() throws IOException {
+        for (String path : List.of("b.jpg", "uploads/1/c.png", "a.jpg")) {
+            storageService.uploadFileAsync("pet-images", path,
+                    new MockMultipartFile("file", "x", "image/jpeg", "content".getBytes())).block();
+        }
+        Files.createFile(root.resolve("pet-images/.upload-123.tmp"));
+
+        ObjectPage first = storageService.listObjects("pet-images", null, 2);
+        ObjectPage second = storageService.listObjects("pet-images", first.nextCursor(), 2);
+
+        assertEquals(List.of("a.jpg", "b.jpg"), first.objects().stream().map(ListedObject::path).toList());
+        assertEquals("b.jpg", first.nextCursor());
+        assertEquals(List.of("uploads/1/c.png"), second.objects().stream().map(ListedObject::path).toList());
+        assertNull(second.nextCursor());
+        assertNotNull(second.objects().get(0).lastModified());
+        assertEquals(new ObjectPage(List.of(), null), storageService.listObjects("missing-bucket", null, 2));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.auth.infra.storage;
+
+import com.example.auth.infra.storage.StorageResilience.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Storage Resilience Tests")
+class StorageResilienceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("call should retry transient failures until an attempt succeeds")
+    void call_shouldRetryTransientFailures() {
+        StorageResilience resilience = resilience(Duration.ofSeconds(5), 20, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = resilience.call(Operation.UPLOAD, () -> attempts.incrementAndGet() < 3
+                ? Mono.error(failure(HttpStatus.BAD_GATEWAY))
+                : Mono.just("ok")).block();
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, meterRegistry.get("storage.retries").tag("operation", "upload").counter().count());
+    }
+
+    @Test
+    @DisplayName("call should not retry answers that another attempt would not change")
+    void call_shouldNotRetryClientErrors() {
+        StorageResilience resilience = resilience(Duration.ofSeconds(5), 20, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(WebClientResponseException.class, () -> resilience.call(Operation.DELETE, () -> {
+            attempts.incrementAndGet();
+            return Mono.error(failure(HttpStatus.FORBIDDEN));
+        }).block());
+
+        assertEquals(1, attempts.get());
+        assertEquals(CircuitBreaker.State.CLOSED, resilience.circuitState());
+    }
+
+    @Test
+    @DisplayName("call should stop retrying once the retry budget is spent")
+    void call_shouldRespectRetryBudget() {
+        StorageResilience resilience = resilience(Duration.ofSeconds(5), 2, 100);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(WebClientResponseException.class, () -> resilience.call(Operation.UPLOAD, () -> {
+                attempts.incrementAndGet();
+                return Mono.error(failure(HttpStatus.SERVICE_UNAVAILABLE));
+            }).block());
+        }
+
+        // three first attempts, and the two retries the full bucket held
+        assertEquals(5, attempts.get());
+        assertEquals(0, meterRegistry.get("storage.retry.budget").gauge().value(), 0.5);
+    }
+
+    @Test
+    @DisplayName("call should give up with 504 when the deadline passes")
+    void call_shouldFailWithGatewayTimeout_afterDeadline() {
+        StorageResilience resilience = resilience(Duration.ofMillis(50), 20, 10);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> resilience.call(Operation.UPLOAD, Mono::never).block());
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, e.getStatusCode());
+        assertEquals(1, meterRegistry.get("storage.call").tag("operation", "upload").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    @DisplayName("call should fail fast with 503 while the circuit is open")
+    void call_shouldRejectCalls_whenCircuitIsOpen() {
+        StorageResilience resilience = resilience(Duration.ofSeconds(5), 0, 4);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(WebClientResponseException.class, () -> resilience.call(Operation.LIST,
+                    () -> Mono.error(failure(HttpStatus.INTERNAL_SERVER_ERROR))).block());
+        }
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> resilience.call(Operation.LIST, () -> {
+            attempts.incrementAndGet();
+            return Mono.just("ok");
+        }).block());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(0, attempts.get());
+        assertEquals(2, meterRegistry.get("storage.circuit.state").gauge().value());
+        assertEquals(1, meterRegistry.get("storage.call").tag("outcome", "rejected").timer().count());
+    }
+
+    @Test
+    @DisplayName("call should hedge a slow read after the p95 of recent attempts and take the first answer")
+    void call_shouldHedgeSlowReads() {
+        StorageResilience resilience = resilience(Duration.ofSeconds(5), 20, 10);
+        assertNull(resilience.hedgeDelay(Operation.STAT));
+        for (int i = 0; i < 20; i++) {
+            resilience.call(Operation.STAT, () -> Mono.just("warm")).block();
+        }
+        assertEquals(Duration.ofMillis(20), resilience.hedgeDelay(Operation.STAT));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = resilience.call(Operation.STAT, () -> attempts.incrementAndGet() == 1
+                ? Mono.never()
+                : Mono.just("hedged")).block(Duration.ofSeconds(2));
+
+        assertEquals("hedged", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, meterRegistry.get("storage.hedges").tag("operation", "stat").counter().count());
+    }
+
+    @Test
+    @DisplayName("call should time failed, cancelled and timed out attempts, not only the answered ones")
+    void call_shouldTimeEveryAttempt() {
+        StorageResilience resilience = resilience(Duration.ofMillis(200), 20, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        resilience.call(Operation.STAT, () -> attempts.incrementAndGet() < 3
+                ? Mono.error(failure(HttpStatus.BAD_GATEWAY))
+                : Mono.just("ok")).block();
+        assertThrows(ResponseStatusException.class, () -> resilience.call(Operation.STAT, Mono::never).block());
+
+        assertEquals(4, meterRegistry.get("storage.attempt").tag("operation", "stat").timer().count());
+        assertTrue(meterRegistry.get("storage.attempt").tag("operation", "stat").timer()
+                .max(TimeUnit.MILLISECONDS) >= 150);
+    }
+
+    @Test
+    @DisplayName("call should never hedge uploads")
+    void call_shouldNotHedgeUploads() {
+        StorageResilience resilience = resilience(Duration.ofMillis(200), 20, 10);
+        for (int i = 0; i < 20; i++) {
+            resilience.call(Operation.UPLOAD, () -> Mono.just("warm")).block();
+        }
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ResponseStatusException.class, () -> resilience.call(Operation.UPLOAD, () -> {
+            attempts.incrementAndGet();
+            return Mono.never();
+        }).block());
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, meterRegistry.get("storage.hedges").tag("operation", "upload").counter().count());
+    }
+
+    private StorageResilience resilience(Duration deadline, int budgetCapacity, int breakerMinimumCalls) {
+        return new StorageResilience(meterRegistry, deadline, deadline, deadline,
+                3, Duration.ofMillis(1), Duration.ofMillis(5), 0.1, budgetCapacity, Duration.ofMillis(20),
+                breakerMinimumCalls, breakerMinimumCalls, 0.5, Duration.ofSeconds(30), 1);
+    }
+
+    private static WebClientResponseException failure(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), null, null, null);
+    }
+}
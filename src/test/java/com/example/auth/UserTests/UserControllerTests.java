@@ -1,14 +1,18 @@
 package com.example.auth.UserTests;
 
+import com.example.auth.infra.cache.DtoCaches;
 import com.example.auth.infra.security.SecurityConfigurations;
+import com.example.auth.infra.versioning.ResourceVersions;
 import com.example.auth.infra.security.SecurityFilter;
 import com.example.auth.infra.security.TokenService;
 import com.example.auth.user.User;
+import com.example.auth.user.UserChangedEvent;
 import com.example.auth.user.UserMapper;
 import com.example.auth.user.UserRole;
 import com.example.auth.user.controllers.UserController;
 import com.example.auth.user.services.UserDetailsServiceImpl;
 import com.example.auth.user.services.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,14 +23,23 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
-@Import({SecurityConfigurations.class, SecurityFilter.class})
+@Import({SecurityConfigurations.class, SecurityFilter.class, ResourceVersions.class, DtoCaches.class,
+        SimpleMeterRegistry.class})
 @DisplayName("User Controller Tests")
 class UserControllerTests {
 
@@ -41,6 +54,8 @@ class UserControllerTests {
     private TokenService tokenService;
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
+    @Autowired
+    private ResourceVersions resourceVersions;
 
     @Test
     @DisplayName("GET /user/{id} should return user info")
@@ -78,6 +93,59 @@ class UserControllerTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("GET /user/{id} should return NOT_MODIFIED when the ETag matches")
+    void getUserById_shouldReturnNotModified_whenETagMatches() throws Exception {
+        String eTag = resourceVersions.user(1L).eTag();
+
+        mockMvc.perform(get("/user/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+
+        verify(userService, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("GET /user/{id} should return NOT_FOUND for an unknown id sent with the ETag of another user")
+    void getUserById_shouldReturnNotFound_whenETagIsOfAnotherUser() throws Exception {
+        when(userService.findById(404L)).thenThrow(new ResponseStatusException(NOT_FOUND, "User not found"));
+
+        mockMvc.perform(get("/user/404").header("If-None-Match", resourceVersions.user(1L).eTag()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /user/{id} should send ETag and Last-Modified with the profile")
+    void getUserById_shouldSendValidators() throws Exception {
+        User user = user();
+        when(userService.findById(1L)).thenReturn(user);
+        when(userMapper.toDTO(user)).thenCallRealMethod();
+
+        mockMvc.perform(get("/user/1").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", resourceVersions.user(1L).eTag()))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    @DisplayName("GET /user/{id} should serve the profile from the cache until the user changes")
+    void getUserById_shouldCacheProfileUntilUserChanges() throws Exception {
+        User user = new User(5L, "User", "user@test.com", "11999999999", "secret", UserRole.USER);
+        when(userService.findById(5L)).thenReturn(user);
+        when(userMapper.toDTO(user)).thenCallRealMethod();
+
+        mockMvc.perform(get("/user/5")).andExpect(status().isOk());
+        mockMvc.perform(get("/user/5")).andExpect(status().isOk());
+        verify(userService, times(1)).findById(5L);
+
+        resourceVersions.onUserChanged(new UserChangedEvent(5L, List.of()));
+        mockMvc.perform(get("/user/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("User"));
+        verify(userService, times(2)).findById(5L);
+    }
+
     private User user() {
         return new User(1L, "User", "user@test.com", "11999999999", "secret", UserRole.USER);
     }
@@ -1,8 +1,11 @@
 package com.example.auth.UserTests;
 
 import com.example.auth.user.DTOs.UpdateDTO;
-import com.example.auth.pet.SupabaseStorageService;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.image.PetImageStore;
 import com.example.auth.user.User;
+import com.example.auth.user.UserChangedEvent;
 import com.example.auth.user.UserRepository;
 import com.example.auth.user.UserRole;
 import com.example.auth.user.services.UserService;
@@ -13,11 +16,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,7 +39,9 @@ class UserServiceUnitTests {
     @Mock
     private BCryptPasswordEncoder passwordEncoder;
     @Mock
-    private SupabaseStorageService supabaseStorageService;
+    private PetImageStore petImageStore;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private UserService userService;
 
@@ -127,6 +135,7 @@ class UserServiceUnitTests {
                 () -> assertEquals("updated@test.com", updated.getEmail())
         );
         verify(userRepository).save(user);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L, List.of()));
     }
 
     @Test
@@ -188,6 +197,42 @@ class UserServiceUnitTests {
         verify(userRepository).delete(user);
     }
 
+    @Test
+    @DisplayName("deleteAccount should publish a removal event for every pet of the user")
+    void deleteAccount_shouldPublishRemovalForEachPet() {
+        User user = user();
+        Pet first = new Pet();
+        first.setId(10L);
+        Pet second = new Pet();
+        second.setId(11L);
+        user.setRegisteredPets(new ArrayList<>(List.of(first, second)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("correct", user.getPassword())).thenReturn(true);
+
+        userService.deleteAccount(1L, "correct");
+
+        verify(eventPublisher).publishEvent(PetChangedEvent.removed(first));
+        verify(eventPublisher).publishEvent(PetChangedEvent.removed(second));
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L, List.of(10L, 11L)));
+    }
+
+    @Test
+    @DisplayName("deleteAccount should release one image reference per pet image")
+    void deleteAccount_shouldReleaseImageReferences() {
+        User user = user();
+        Pet first = new Pet();
+        first.setImageUrls(new ArrayList<>(List.of("shared.jpg", "a.jpg")));
+        Pet second = new Pet();
+        second.setImageUrls(new ArrayList<>(List.of("shared.jpg")));
+        user.setRegisteredPets(new ArrayList<>(List.of(first, second)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("correct", user.getPassword())).thenReturn(true);
+
+        userService.deleteAccount(1L, "correct");
+
+        verify(petImageStore).release(List.of("shared.jpg", "a.jpg", "shared.jpg"));
+    }
+
     @Test
     @DisplayName("deleteAccount should throw CONFLICT when password is incorrect")
     void deleteAccount_shouldThrowConflict_whenPasswordIsIncorrect() {
@@ -0,0 +1,105 @@
+package com.example.auth.VersioningTests;
+
+import com.example.auth.infra.versioning.ResourceVersions;
+import com.example.auth.pet.Pet;
+import com.example.auth.pet.PetChangedEvent;
+import com.example.auth.pet.image.PetImageRenderedEvent;
+import com.example.auth.user.User;
+import com.example.auth.user.UserChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Resource Versions Tests")
+class ResourceVersionsTests {
+
+    private final ResourceVersions versions = new ResourceVersions();
+
+    @Test
+    @DisplayName("pet change should bump the pet, its owner and the catalogue only")
+    void onPetChanged_shouldBumpPetOwnerAndCatalogue() {
+        String catalogue = versions.catalogue().eTag();
+        String otherPet = versions.pet(2L).eTag();
+        String otherUser = versions.user(8L).eTag();
+
+        versions.onPetChanged(PetChangedEvent.saved(pet(1L, 7L)));
+
+        assertNotEquals(catalogue, versions.catalogue().eTag());
+        assertEquals(versions.catalogue().number(), versions.pet(1L).number());
+        assertEquals(versions.catalogue().number(), versions.user(7L).number());
+        assertEquals(otherPet, versions.pet(2L).eTag());
+        assertEquals(otherUser, versions.user(8L).eTag());
+    }
+
+    @Test
+    @DisplayName("user change should bump the pets that embed the profile")
+    void onUserChanged_shouldBumpUserPets() {
+        String pet = versions.pet(3L).eTag();
+
+        versions.onUserChanged(new UserChangedEvent(7L, List.of(3L)));
+
+        assertNotEquals(pet, versions.pet(3L).eTag());
+        assertEquals(versions.user(7L).number(), versions.pet(3L).number());
+    }
+
+    @Test
+    @DisplayName("rendered images should bump the pets showing them and their owners")
+    void onPetImageRendered_shouldBumpPetsAndOwners() {
+        String pet = versions.pet(4L).eTag();
+        String owner = versions.user(9L).eTag();
+
+        versions.onPetImageRendered(PetImageRenderedEvent.of("https://cdn/a.jpg", List.of(pet(4L, 9L))));
+
+        assertNotEquals(pet, versions.pet(4L).eTag());
+        assertNotEquals(owner, versions.user(9L).eTag());
+        assertEquals(versions.catalogue().number(), versions.pet(4L).number());
+    }
+
+    @Test
+    @DisplayName("ETags of entities never written should carry their id, so one never validates another")
+    void eTag_shouldCarryId_whenNeverWritten() {
+        assertEquals(versions.pet(1L).number(), versions.pet(2L).number());
+        assertNotEquals(versions.pet(1L).eTag(), versions.pet(2L).eTag());
+        assertNotEquals(versions.pet(1L).eTag(), versions.user(1L).eTag());
+        assertEquals(versions.pet(1L).eTag(), versions.pet(1L).eTag());
+    }
+
+    @Test
+    @DisplayName("a burst of writes should get distinct ETags and Last-Modified values a second apart")
+    void next_shouldMoveLastModifiedByWholeSeconds() {
+        long before = versions.catalogue().lastModified();
+
+        for (int i = 0; i < 50; i++) {
+            versions.onPetChanged(PetChangedEvent.saved(pet(1L, null)));
+        }
+        String first = versions.catalogue().eTag();
+        long firstModified = versions.catalogue().lastModified();
+        versions.onPetChanged(PetChangedEvent.removed(pet(1L, null)));
+
+        assertNotEquals(first, versions.catalogue().eTag());
+        assertEquals(51, versions.catalogue().number());
+        assertEquals(0, versions.catalogue().lastModified() % 1000);
+        assertTrue(versions.catalogue().lastModified() >= firstModified + 1000);
+        assertTrue(versions.catalogue().lastModified() >= before + 51_000);
+    }
+
+    @Test
+    @DisplayName("ETags should differ between instances started separately")
+    void eTag_shouldIncludeEpoch() {
+        assertNotEquals(versions.catalogue().eTag(), new ResourceVersions().catalogue().eTag());
+    }
+
+    private Pet pet(Long id, Long ownerId) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        if (ownerId != null) {
+            User owner = new User();
+            owner.setId(ownerId);
+            pet.setUser(owner);
+        }
+        return pet;
+    }
+}